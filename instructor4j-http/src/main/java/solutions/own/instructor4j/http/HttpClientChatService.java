@@ -0,0 +1,449 @@
+package solutions.own.instructor4j.http;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.core.JsonValue;
+import com.openai.core.ObjectMappers;
+import com.openai.core.http.Headers;
+import com.openai.core.http.StreamResponse;
+import com.openai.errors.BadRequestException;
+import com.openai.errors.InternalServerException;
+import com.openai.errors.NotFoundException;
+import com.openai.errors.OpenAIError;
+import com.openai.errors.OpenAIIoException;
+import com.openai.errors.OpenAIServiceException;
+import com.openai.errors.PermissionDeniedException;
+import com.openai.errors.RateLimitException;
+import com.openai.errors.UnauthorizedException;
+import com.openai.errors.UnexpectedStatusCodeException;
+import com.openai.errors.UnprocessableEntityException;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.BatchJsonl;
+
+/**
+ * An {@link AiChatService} sending its requests to the OpenAI API, or an OpenAI compatible server, with
+ * {@link HttpClient java.net.http.HttpClient} instead of the HTTP stack of the OpenAI SDK.
+ * <p>
+ * The request body is serialized straight to bytes, and a completion is deserialized by Jackson from the response
+ * stream, so neither is held as a {@code String}. Streamed responses are read into a reused buffer and split into
+ * events by a parser working on {@link ByteBuffer}s; the data of each event is handed to Jackson as a range of
+ * bytes, and the event sentinel {@code [DONE]} ends the stream. Errors are reported as the same
+ * {@link OpenAIServiceException} subclasses as by the SDK, carrying the response headers, so retry policies and
+ * circuit breakers treat them alike.
+ * </p>
+ * <p>
+ * Only the body of the request parameters is sent; additional headers and query parameters set on them are
+ * ignored. Requests are sent over HTTP/2 when the server supports it. Share one {@code HttpClient} between
+ * services to share its connections.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * AiChatService chatService = HttpClientChatService.builder()
+ *     .apiKey(apiKey)
+ *     .timeout(Duration.ofSeconds(60))
+ *     .build();
+ * Instructor instructor = new Instructor(chatService, 3);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public class HttpClientChatService implements AiChatService {
+
+    private static final Logger logger = Logger.getLogger(HttpClientChatService.class.getName());
+
+    private static final ObjectMapper jsonMapper = ObjectMappers.jsonMapper();
+
+    private static final byte[] DONE = "[DONE]".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final HttpClient httpClient;
+    private final URI chatCompletionsUri;
+    private final URI modelsUri;
+    private final String authorization;
+    private final Duration timeout;
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the service.
+     */
+    private HttpClientChatService(Builder builder) {
+        String baseUrl = builder.baseUrl.endsWith("/") ? builder.baseUrl : builder.baseUrl + "/";
+        this.httpClient = builder.httpClient != null ? builder.httpClient : HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(builder.connectTimeout)
+            .build();
+        this.chatCompletionsUri = URI.create(baseUrl + "chat/completions");
+        this.modelsUri = URI.create(baseUrl + "models");
+        this.authorization = "Bearer " + builder.apiKey;
+        this.timeout = builder.timeout;
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing an {@link HttpClientChatService}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public ChatCompletion createChatCompletion(ChatCompletionCreateParams request) {
+        HttpResponse<InputStream> response = send(buildRequest(request, false));
+        try (InputStream body = response.body()) {
+            checkStatus(response.statusCode(), response.headers().map(), body);
+            return jsonMapper.readValue(body, ChatCompletion.class);
+        } catch (IOException e) {
+            throw new OpenAIIoException("Reading the chat completion failed", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = buildRequest(request, false);
+        } catch (RuntimeException e) {
+            CompletableFuture<ChatCompletion> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+            .handle((response, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    throw cause instanceof IOException
+                        ? new OpenAIIoException("Request failed", cause) : new CompletionException(cause);
+                }
+                byte[] body = response.body();
+                if (response.statusCode() / 100 != 2) {
+                    throw toServiceException(response.statusCode(), response.headers().map(), body);
+                }
+                try {
+                    return jsonMapper.readValue(body, ChatCompletion.class);
+                } catch (IOException e) {
+                    throw new OpenAIIoException("Reading the chat completion failed", e);
+                }
+            });
+    }
+
+    @Override
+    public StreamResponse<ChatCompletionChunk> createStreamChatCompletion(ChatCompletionCreateParams request) {
+        HttpResponse<InputStream> response = send(buildRequest(request, true));
+        InputStream body = response.body();
+        try {
+            checkStatus(response.statusCode(), response.headers().map(), body);
+        } catch (IOException e) {
+            closeQuietly(body);
+            throw new OpenAIIoException("Reading the error response failed", e);
+        } catch (RuntimeException e) {
+            closeQuietly(body);
+            throw e;
+        }
+        return new ChunkStreamResponse(body);
+    }
+
+    /**
+     * Opens a connection to the API by listing the available models, which costs no tokens. Failures are logged
+     * and otherwise ignored.
+     */
+    @Override
+    public void warmUp() {
+        try {
+            httpClient.send(HttpRequest.newBuilder(modelsUri)
+                .header("Authorization", authorization)
+                .timeout(timeout)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Warm-up request failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest buildRequest(ChatCompletionCreateParams request, boolean stream) {
+        byte[] body;
+        try {
+            ChatCompletionCreateParams.ChatCompletionCreateBody json = BatchJsonl.toBody(request);
+            if (stream) {
+                json = json.toBuilder().putAdditionalProperty("stream", JsonValue.from(true)).build();
+            }
+            body = jsonMapper.writeValueAsBytes(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Serializing the chat completion request failed", e);
+        }
+        return HttpRequest.newBuilder(chatCompletionsUri)
+            .header("Authorization", authorization)
+            .header("Content-Type", "application/json")
+            .header("Accept", stream ? "text/event-stream" : "application/json")
+            .timeout(timeout)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new OpenAIIoException("Request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the response.", e);
+        }
+    }
+
+    /**
+     * Throws the exception matching an unsuccessful response, after reading its body.
+     */
+    private static void checkStatus(int statusCode, Map<String, List<String>> headers, InputStream body)
+        throws IOException {
+        if (statusCode / 100 != 2) {
+            byte[] error = body.readAllBytes();
+            body.close();
+            throw toServiceException(statusCode, headers, error);
+        }
+    }
+
+    /**
+     * Creates the exception the OpenAI SDK throws for an unsuccessful response.
+     */
+    static OpenAIServiceException toServiceException(int statusCode, Map<String, List<String>> headerMap,
+        byte[] body) {
+        Headers.Builder headers = Headers.builder();
+        headerMap.forEach((name, values) -> headers.put(name, values));
+        Headers responseHeaders = headers.build();
+        String text = new String(body, StandardCharsets.UTF_8);
+        OpenAIError error = parseError(body);
+        switch (statusCode) {
+            case 400:
+                return new BadRequestException(responseHeaders, text, error);
+            case 401:
+                return new UnauthorizedException(responseHeaders, text, error);
+            case 403:
+                return new PermissionDeniedException(responseHeaders, text, error);
+            case 404:
+                return new NotFoundException(responseHeaders, text, error);
+            case 422:
+                return new UnprocessableEntityException(responseHeaders, text, error);
+            case 429:
+                return new RateLimitException(responseHeaders, text, error);
+            default:
+                return statusCode >= 500
+                    ? new InternalServerException(statusCode, responseHeaders, text, error)
+                    : new UnexpectedStatusCodeException(statusCode, responseHeaders, text, error);
+        }
+    }
+
+    private static OpenAIError parseError(byte[] body) {
+        try {
+            JsonNode error = jsonMapper.readTree(body).get("error");
+            if (error != null && error.isObject()) {
+                return jsonMapper.treeToValue(error, OpenAIError.class);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // not a JSON error body
+        }
+        return OpenAIError.builder().build();
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Closing the response failed", e);
+        }
+    }
+
+    /**
+     * The chunks of a streamed response, read and parsed as the stream is consumed.
+     */
+    private static final class ChunkStreamResponse implements StreamResponse<ChatCompletionChunk> {
+        private final InputStream body;
+        private final SseParser parser = new SseParser();
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        private final ArrayDeque<ChatCompletionChunk> parsed = new ArrayDeque<>();
+        private final SseParser.Listener listener = this::onData;
+        private boolean done;
+
+        ChunkStreamResponse(InputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public Stream<ChatCompletionChunk> stream() {
+            Spliterator<ChatCompletionChunk> chunks = new Spliterators.AbstractSpliterator<ChatCompletionChunk>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super ChatCompletionChunk> action) {
+                    ChatCompletionChunk chunk = next();
+                    if (chunk == null) {
+                        return false;
+                    }
+                    action.accept(chunk);
+                    return true;
+                }
+            };
+            return StreamSupport.stream(chunks, false).onClose(this::close);
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            closeQuietly(body);
+        }
+
+        private ChatCompletionChunk next() {
+            try {
+                while (parsed.isEmpty() && !done) {
+                    int read = body.read(readBuffer);
+                    if (read < 0) {
+                        done = true;
+                        break;
+                    }
+                    parser.feed(ByteBuffer.wrap(readBuffer, 0, read), listener);
+                }
+            } catch (IOException e) {
+                throw new OpenAIIoException("Reading the chat completion stream failed", e);
+            }
+            return parsed.poll();
+        }
+
+        private void onData(byte[] data, int offset, int length) throws IOException {
+            if (done) {
+                return;
+            }
+            if (length == DONE.length && Arrays.equals(data, offset, offset + length, DONE, 0, length)) {
+                done = true;
+                return;
+            }
+            parsed.add(jsonMapper.readValue(data, offset, length, ChatCompletionChunk.class));
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link HttpClientChatService} instances.
+     */
+    public static class Builder {
+        private String apiKey;
+        private String baseUrl = "https://api.openai.com/v1";
+        private HttpClient httpClient;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration timeout = Duration.ofMinutes(10);
+
+        /**
+         * Sets the API key. Required.
+         *
+         * @param apiKey The API key.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder apiKey(String apiKey) {
+            if (apiKey == null) {
+                throw new IllegalArgumentException("Parameter 'apiKey' must not be null.");
+            }
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * Sets the base URL of the API, for example of an OpenAI compatible server. Defaults to
+         * {@code https://api.openai.com/v1}.
+         *
+         * @param baseUrl The base URL.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder baseUrl(String baseUrl) {
+            if (baseUrl == null) {
+                throw new IllegalArgumentException("Parameter 'baseUrl' must not be null.");
+            }
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Sets the client the requests are sent with, for example to share its connections with other services.
+         * By default, the service creates its own client preferring HTTP/2, with the connect timeout.
+         *
+         * @param httpClient The client.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder httpClient(HttpClient httpClient) {
+            if (httpClient == null) {
+                throw new IllegalArgumentException("Parameter 'httpClient' must not be null.");
+            }
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Sets the timeout of opening a connection, if the service creates its own client. Defaults to 10 seconds.
+         *
+         * @param connectTimeout The timeout.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            if (connectTimeout == null || connectTimeout.isNegative() || connectTimeout.isZero()) {
+                throw new IllegalArgumentException("Parameter 'connectTimeout' must be positive.");
+            }
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for the response headers of a request. Defaults to 10 minutes.
+         *
+         * @param timeout The timeout.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("Parameter 'timeout' must be positive.");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link HttpClientChatService} instance.
+         *
+         * @return A new {@link HttpClientChatService} instance.
+         * @throws IllegalStateException if no API key was set.
+         */
+        public HttpClientChatService build() {
+            if (apiKey == null) {
+                throw new IllegalStateException("The API key must be set.");
+            }
+            return new HttpClientChatService(this);
+        }
+    }
+}
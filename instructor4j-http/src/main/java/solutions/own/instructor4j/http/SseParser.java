@@ -0,0 +1,138 @@
+package solutions.own.instructor4j.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An incremental parser of a server-sent event stream, fed with the bytes of the stream as they arrive.
+ * <p>
+ * The parser handles lines ending with {@code \n}, {@code \r\n} or {@code \r}, also when a line or a line ending
+ * is split across buffers. Comment lines and fields other than {@code data} are skipped. Once an event is complete,
+ * its data, with the lines of a multi-line event joined by {@code \n}, is handed to the {@link Listener} as a
+ * range of an internal array, which is reused for the next event. Apart from growing that array for unusually
+ * large events, the parser does not allocate.
+ * </p>
+ *
+ * <p><b>Thread Safety:</b> This class is not thread-safe; a parser reads one stream.</p>
+ */
+final class SseParser {
+
+    private static final byte[] DATA_FIELD = {'d', 'a', 't', 'a'};
+
+    /**
+     * Receives the data of the events of a stream.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * Called with the data of a complete event. The array must not be used after the method returns.
+         *
+         * @param data   the array holding the data.
+         * @param offset the offset of the data in the array.
+         * @param length the length of the data.
+         * @throws IOException if the data cannot be processed.
+         */
+        void onData(byte[] data, int offset, int length) throws IOException;
+    }
+
+    private byte[] line = new byte[4096];
+    private int lineLength;
+    private byte[] data = new byte[4096];
+    private int dataLength;
+    private boolean hasData;
+    private boolean afterCarriageReturn;
+
+    /**
+     * Parses the remaining bytes of a buffer, calling the listener for every event they complete.
+     *
+     * @param buffer   the bytes received; its position is moved to its limit.
+     * @param listener the listener of the events.
+     * @throws IOException if the listener fails.
+     */
+    void feed(ByteBuffer buffer, Listener listener) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (buffer.get(buffer.position()) == '\n') {
+                    buffer.position(buffer.position() + 1);
+                    continue;
+                }
+            }
+            int start = buffer.position();
+            int end = start;
+            int limit = buffer.limit();
+            byte b = 0;
+            while (end < limit) {
+                b = buffer.get(end);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                end++;
+            }
+            appendToLine(buffer, end - start);
+            if (end == limit) {
+                return;
+            }
+            buffer.position(end + 1);
+            afterCarriageReturn = b == '\r';
+            endOfLine(listener);
+        }
+    }
+
+    private void appendToLine(ByteBuffer buffer, int length) {
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        buffer.get(line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void endOfLine(Listener listener) throws IOException {
+        int length = lineLength;
+        lineLength = 0;
+        if (length == 0) {
+            if (hasData) {
+                hasData = false;
+                int eventLength = dataLength;
+                dataLength = 0;
+                listener.onData(data, 0, eventLength);
+            }
+            return;
+        }
+        if (!isDataField(length)) {
+            return;
+        }
+        int valueStart = DATA_FIELD.length + 1;
+        if (valueStart < length && line[valueStart] == ' ') {
+            valueStart++;
+        }
+        int valueLength = Math.max(0, length - valueStart);
+        int required = dataLength + valueLength + 1;
+        if (required > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, required));
+        }
+        if (hasData) {
+            data[dataLength++] = '\n';
+        }
+        System.arraycopy(line, valueStart, data, dataLength, valueLength);
+        dataLength += valueLength;
+        hasData = true;
+    }
+
+    /**
+     * Indicates whether the current line is a {@code data} field, with or without a value.
+     */
+    private boolean isDataField(int length) {
+        if (length < DATA_FIELD.length || length > DATA_FIELD.length && line[DATA_FIELD.length] != ':') {
+            return false;
+        }
+        for (int i = 0; i < DATA_FIELD.length; i++) {
+            if (line[i] != DATA_FIELD[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,189 @@
+package solutions.own.instructor4j.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.service.impl.OpenAiChatService;
+import solutions.own.instructor4j.util.MessageConverter;
+
+/**
+ * Compares the allocation and CPU time per request of {@link HttpClientChatService} and {@link OpenAiChatService}
+ * against a local mock of the OpenAI API serving precomputed responses.
+ * <p>
+ * Allocation is the sum of the bytes allocated by all threads except those of the mock server, and CPU time is
+ * that of the whole process, so it includes the mock server. Both are measured after a warm-up and divided by the
+ * number of requests. The benchmark only runs when the system property {@code instructor4j.benchmark} is
+ * {@code true}:
+ * </p>
+ * <pre>
+ * mvn test -Dtest=ChatServiceBenchmarkTest -Dinstructor4j.benchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "instructor4j.benchmark", matches = "true")
+public class ChatServiceBenchmarkTest {
+
+    private static final Logger logger = Logger.getLogger(ChatServiceBenchmarkTest.class.getName());
+
+    private static final String SERVER_THREAD_PREFIX = "mock-server-";
+    private static final int WARM_UP_REQUESTS = 200;
+    private static final int MEASURED_REQUESTS = 500;
+    private static final int STREAMED_CHUNKS = 200;
+
+    static {
+        // Answer without waiting for delayed acknowledgements, which would dominate the time per request.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private byte[] completion;
+    private byte[] stream;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        completion = HttpClientChatServiceTest.CHAT_COMPLETION.getBytes(StandardCharsets.UTF_8);
+        String[] contents = new String[STREAMED_CHUNKS];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = "{\"name\":\"Nenad Alajbegovic\",\"age\":" + i + "},";
+        }
+        stream = HttpClientChatServiceTest.streamOf(contents).getBytes(StandardCharsets.UTF_8);
+
+        serverExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, SERVER_THREAD_PREFIX + "worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", this::respond);
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testCompletion() {
+        ChatCompletionCreateParams request = request();
+        compare("completion", service -> assertEquals("chatcmpl-1", service.createChatCompletion(request).id()));
+    }
+
+    @Test
+    public void testStreamedCompletion() {
+        ChatCompletionCreateParams request = request();
+        compare("streamed completion", service -> {
+            try (StreamResponse<ChatCompletionChunk> response = service.createStreamChatCompletion(request)) {
+                assertEquals(STREAMED_CHUNKS, response.stream().count());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void compare(String name, Request request) {
+        String baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+            + "/v1";
+        AiChatService sdkService = OpenAiChatService.builder().apiKey("test-key").baseUrl(baseUrl).maxRetries(0)
+            .build();
+        AiChatService httpClientService = HttpClientChatService.builder().apiKey("test-key").baseUrl(baseUrl)
+            .build();
+
+        Measurement sdk = measure(sdkService, request);
+        Measurement httpClient = measure(httpClientService, request);
+
+        logger.info(String.format("%s per request: OpenAiChatService %,d bytes allocated, %,d ns CPU; "
+                + "HttpClientChatService %,d bytes allocated, %,d ns CPU", name, sdk.allocatedBytes, sdk.cpuNanos,
+            httpClient.allocatedBytes, httpClient.cpuNanos));
+    }
+
+    private static Measurement measure(AiChatService service, Request request) {
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            request.send(service);
+        }
+        long allocatedBefore = allocatedBytes();
+        long cpuBefore = processCpuNanos();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            request.send(service);
+        }
+        return new Measurement((allocatedBytes() - allocatedBefore) / MEASURED_REQUESTS,
+            (processCpuNanos() - cpuBefore) / MEASURED_REQUESTS);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the live threads, except those of the mock server.
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (!thread.getName().startsWith(SERVER_THREAD_PREFIX)
+                && !thread.getName().startsWith("HTTP-Dispatcher")) {
+                total += Math.max(0, threads.getThreadAllocatedBytes(thread.getId()));
+            }
+        }
+        return total;
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+            .getProcessCpuTime();
+    }
+
+    private static ChatCompletionCreateParams request() {
+        return ChatCompletionCreateParams.builder()
+            .model("gpt-4o-mini")
+            .messages(MessageConverter.convertMessages(Collections.singletonList(
+                new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"))))
+            .build();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        byte[] response = body.contains("\"stream\":true") ? stream : completion;
+        exchange.getResponseHeaders().add("Content-Type",
+            response == stream ? "text/event-stream" : "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void send(AiChatService service);
+    }
+
+    private static final class Measurement {
+        private final long allocatedBytes;
+        private final long cpuNanos;
+
+        Measurement(long allocatedBytes, long cpuNanos) {
+            this.allocatedBytes = allocatedBytes;
+            this.cpuNanos = cpuNanos;
+        }
+    }
+}
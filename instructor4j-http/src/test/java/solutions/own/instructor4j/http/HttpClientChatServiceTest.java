@@ -0,0 +1,190 @@
+package solutions.own.instructor4j.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.errors.InternalServerException;
+import com.openai.errors.RateLimitException;
+import com.openai.errors.UnauthorizedException;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.Instructor;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.User;
+import solutions.own.instructor4j.util.MessageConverter;
+
+/**
+ * Sends requests through {@link HttpClientChatService} to a local mock of the OpenAI API.
+ */
+public class HttpClientChatServiceTest {
+
+    static final String CHAT_COMPLETION = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\","
+        + "\"created\":1700000000,\"model\":\"gpt-4o-mini\",\"choices\":[{\"index\":0,\"message\":{"
+        + "\"role\":\"assistant\",\"content\":null,\"refusal\":null,\"tool_calls\":[{\"id\":\"call_1\","
+        + "\"type\":\"function\",\"function\":{\"name\":\"User\","
+        + "\"arguments\":\"{\\\"age\\\":30,\\\"name\\\":\\\"Nenad Alajbegovic\\\"}\"}}]},"
+        + "\"logprobs\":null,\"finish_reason\":\"tool_calls\"}],"
+        + "\"usage\":{\"prompt_tokens\":80,\"completion_tokens\":20,\"total_tokens\":100}}";
+
+    private HttpServer server;
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+    private volatile int status = 200;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", this::respond);
+        server.createContext("/v1/models", exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            send(exchange, 200, "application/json", "{\"object\":\"list\",\"data\":[]}");
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExtraction() throws Exception {
+        Instructor instructor = new Instructor(service(), 3);
+        List<BaseMessage> messages = Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+
+        User user = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+
+        assertEquals("Nenad Alajbegovic", user.getName());
+        assertEquals(30, user.getAge());
+        String request = requests.peek();
+        assertTrue(request.contains("\"name\":\"User\""), request);
+        assertTrue(request.contains("Authorization=Bearer test-key"), request);
+        assertFalse(request.contains("\"stream\""), request);
+    }
+
+    @Test
+    public void testAsyncCompletion() {
+        ChatCompletion completion = service().createChatCompletionAsync(request()).join();
+
+        assertEquals("chatcmpl-1", completion.id());
+    }
+
+    @Test
+    public void testStreamedCompletion() {
+        Instructor instructor = new Instructor(service(), 3);
+        List<BaseMessage> messages = Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+
+        List<String> contents = instructor.createStreamChatCompletion(messages, "gpt-4o-mini", User.class)
+            .collectList()
+            .block();
+
+        assertEquals(Arrays.asList("{\"data\":[", "{\"name\":\"Nenad\"}", "]}"), contents);
+        String request = requests.peek();
+        assertTrue(request.contains("\"stream\":true"), request);
+        assertTrue(request.contains("Accept=text/event-stream"), request);
+    }
+
+    @Test
+    public void testErrorsAreMappedToSdkExceptions() {
+        HttpClientChatService service = service();
+
+        status = 401;
+        assertThrows(UnauthorizedException.class, () -> service.createChatCompletion(request()));
+        status = 429;
+        RateLimitException rateLimited = assertThrows(RateLimitException.class,
+            () -> service.createChatCompletion(request()));
+        assertEquals(Collections.singletonList("2"), rateLimited.headers().values("Retry-After"));
+        assertEquals("rate_limit_exceeded", rateLimited.error().additionalProperties().get("code")
+            .asString().orElse(null));
+        status = 503;
+        assertThrows(InternalServerException.class, () -> service.createStreamChatCompletion(request()));
+        CompletionException failed = assertThrows(CompletionException.class,
+            () -> service.createChatCompletionAsync(request()).join());
+        assertTrue(failed.getCause() instanceof InternalServerException, String.valueOf(failed.getCause()));
+    }
+
+    @Test
+    public void testWarmUpListsModels() {
+        service().warmUp();
+
+        assertEquals("GET /v1/models", requests.peek());
+    }
+
+    private HttpClientChatService service() {
+        return HttpClientChatService.builder()
+            .apiKey("test-key")
+            .baseUrl("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1")
+            .build();
+    }
+
+    private static ChatCompletionCreateParams request() {
+        return ChatCompletionCreateParams.builder()
+            .model("gpt-4o-mini")
+            .messages(MessageConverter.convertMessages(Collections.singletonList(
+                new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"))))
+            .build();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add("Authorization=" + exchange.getRequestHeaders().getFirst("Authorization")
+            + " Accept=" + exchange.getRequestHeaders().getFirst("Accept") + " " + body);
+        if (status != 200) {
+            exchange.getResponseHeaders().add("Retry-After", "2");
+            send(exchange, status, "application/json",
+                "{\"error\":{\"message\":\"Failed\",\"type\":\"error\",\"code\":\"rate_limit_exceeded\"}}");
+        } else if (body.contains("\"stream\":true")) {
+            send(exchange, 200, "text/event-stream", streamOf("{\"data\":[", "{\"name\":\"Nenad\"}", "]}"));
+        } else {
+            send(exchange, 200, "application/json", CHAT_COMPLETION);
+        }
+    }
+
+    /**
+     * Returns an event stream of chunks with the given contents, a keep-alive comment and the final sentinel.
+     */
+    static String streamOf(String... contents) {
+        StringBuilder stream = new StringBuilder(": keep-alive\n\n");
+        for (String content : contents) {
+            stream.append("data: {\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",")
+                .append("\"created\":1700000000,\"model\":\"gpt-4o-mini\",\"choices\":[{\"index\":0,")
+                .append("\"delta\":{\"content\":")
+                .append(quote(content))
+                .append("},\"logprobs\":null,\"finish_reason\":null}]}\r\n\r\n");
+        }
+        return stream.append("data: [DONE]\r\n\r\n").toString();
+    }
+
+    private static String quote(String content) {
+        return "\"" + content.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body)
+        throws IOException {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package solutions.own.instructor4j.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SseParserTest {
+
+    private final SseParser parser = new SseParser();
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    public void testParsesDataEvents() throws IOException {
+        feed("data: {\"a\":1}\n\ndata: [DONE]\n\n");
+
+        assertEquals(Arrays.asList("{\"a\":1}", "[DONE]"), events);
+    }
+
+    @Test
+    public void testParsesEventsSplitAcrossBuffers() throws IOException {
+        String stream = "data: {\"first\":true}\r\n\r\ndata: {\"second\":true}\r\n\r\n";
+        for (int i = 0; i < stream.length(); i++) {
+            feed(stream.substring(i, i + 1));
+        }
+
+        assertEquals(Arrays.asList("{\"first\":true}", "{\"second\":true}"), events);
+    }
+
+    @Test
+    public void testHandlesAllLineEndings() throws IOException {
+        feed("data: one\r\rdata: two\n\ndata: three\r");
+        feed("\n\r\n");
+
+        assertEquals(Arrays.asList("one", "two", "three"), events);
+    }
+
+    @Test
+    public void testJoinsMultiLineData() throws IOException {
+        feed("data: first\ndata:second\ndata\n\n");
+
+        assertEquals(Arrays.asList("first\nsecond\n"), events);
+    }
+
+    @Test
+    public void testSkipsCommentsAndOtherFields() throws IOException {
+        feed(": keep-alive\n\nevent: message\nid: 7\ndatum: x\ndata: payload\nretry: 10\n\n");
+
+        assertEquals(Arrays.asList("payload"), events);
+    }
+
+    @Test
+    public void testGrowsForLargeEvents() throws IOException {
+        char[] value = new char[20_000];
+        Arrays.fill(value, 'x');
+        String large = new String(value);
+        feed("data: " + large + "\n\ndata: small\n\n");
+
+        assertEquals(Arrays.asList(large, "small"), events);
+    }
+
+    private void feed(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        parser.feed(buffer, (data, offset, length) ->
+            events.add(new String(data, offset, length, StandardCharsets.UTF_8)));
+        assertEquals(0, buffer.remaining());
+    }
+}
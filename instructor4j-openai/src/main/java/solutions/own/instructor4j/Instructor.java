@@ -1,21 +1,35 @@
 package solutions.own.instructor4j;
 
-import static solutions.own.instructor4j.util.Utils.listOf;
 import static solutions.own.instructor4j.util.Utils.removeAllEscapedQuotes;
 
-import java.util.Collections;
-import java.util.stream.Collectors;
+import solutions.own.instructor4j.cache.CacheKey;
+import solutions.own.instructor4j.cache.ResponseCache;
+import solutions.own.instructor4j.circuitbreaker.CallNotPermittedException;
+import solutions.own.instructor4j.exception.CircuitBreakerOpenException;
 import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.hedge.HedgingPolicy;
 import solutions.own.instructor4j.model.BaseMessage;
 import solutions.own.instructor4j.model.BaseMessage.Role;
+import solutions.own.instructor4j.model.BatchStatus;
 import solutions.own.instructor4j.model.MyFunctionDefinition;
+import solutions.own.instructor4j.model.Partial;
+import solutions.own.instructor4j.model.Result;
+import solutions.own.instructor4j.retry.RetryPolicy;
+import solutions.own.instructor4j.service.AiBatchChatService;
 import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.BatchJsonl;
+import solutions.own.instructor4j.util.EntityStreamParser;
 import solutions.own.instructor4j.util.FunctionDefinitionBuilder;
 import solutions.own.instructor4j.util.MessageConverter;
-import solutions.own.instructor4j.util.ResponseFormatJsonSchemaBuilder;
+import solutions.own.instructor4j.util.PartialStreamParser;
+import solutions.own.instructor4j.util.RequestTemplates;
+import solutions.own.instructor4j.util.ResponseModelScanner;
+import solutions.own.instructor4j.util.ResponseValidator;
+import solutions.own.instructor4j.util.SingleFlight;
+import solutions.own.instructor4j.util.TaskExecutors;
+import solutions.own.instructor4j.util.TypeModel;
 import solutions.own.instructor4j.util.Utils;
 
-import com.openai.core.JsonValue;
 import com.openai.core.http.StreamResponse;
 import com.openai.models.ChatCompletion;
 import com.openai.models.ChatCompletionChunk;
@@ -23,21 +37,38 @@ import com.openai.models.ChatCompletionChunk.Choice;
 import com.openai.models.ChatCompletionCreateParams;
 import com.openai.models.ChatCompletionMessageParam;
 import com.openai.models.ChatCompletionMessageToolCall;
-import com.openai.models.ChatCompletionTool;
-import com.openai.models.ChatCompletionToolChoiceOption;
-import com.openai.models.ChatCompletionToolChoiceOption.Behavior;
-import com.openai.models.FunctionDefinition;
-import com.openai.models.FunctionParameters;
-import com.openai.models.ResponseFormatJsonSchema;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.BitSet;
 import java.util.Optional;
-import java.lang.reflect.Field;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
 
 /**
  * A service class for interacting with AI-based chat completions and handling retries.
@@ -48,69 +79,722 @@ public class Instructor {
 
     private final AiChatService aiChatService;
     private final int maxRetries;
+    private final RetryPolicy retryPolicy;
+    private final ResponseCache responseCache;
+    private final HedgingPolicy hedgingPolicy;
+    private final SingleFlight<CacheKey> inFlightRequests;
     private static final Logger logger = Logger.getLogger(Instructor.class.getName());
 
     /**
-     * Constructs an Instructor with the given AI chat service and a maximum retry count.
+     * The name of the JSON array the model is instructed to return streamed data in.
+     */
+    private static final String STREAM_ROOT_ELEMENT = RequestTemplates.ARRAY_ROOT_ELEMENT;
+
+    /**
+     * The number of requests run concurrently by {@link #createChatCompletions(List, String, Class)}.
+     */
+    public static final int DEFAULT_BATCH_CONCURRENCY = 16;
+
+    private static final String DATA_ARRAY_SYSTEM_PROMPT =
+        "You are data analyzer. Return data as a json array based on response format json schema. "
+            + "Output only data that fits into response format json schema. Always name return array 'data'";
+
+    private static final String OBJECT_SYSTEM_PROMPT =
+        "You are data analyzer. Return data as a single json object based on response format json schema. "
+            + "Output only data that fits into response format json schema.";
+
+    /**
+     * Constructs an Instructor with the given AI chat service and a maximum retry count. Failed attempts are
+     * retried immediately, see {@link RetryPolicy#immediate()}.
      *
      * @param aiChatService The AI chat client used for creating chat completions.
      * @param maxRetries The maximum number of retries allowed when trying to get a valid response.
      */
     public Instructor(AiChatService aiChatService, int maxRetries) {
+        this(aiChatService, maxRetries, RetryPolicy.immediate());
+    }
+
+    /**
+     * Constructs an Instructor with the given AI chat service, a maximum retry count and a retry policy deciding
+     * whether and when failed attempts are retried.
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3,
+     *     RetryPolicy.exponentialBackoff().build());
+     * }</pre>
+     *
+     * @param aiChatService The AI chat client used for creating chat completions.
+     * @param maxRetries The maximum number of retries allowed when trying to get a valid response.
+     * @param retryPolicy The policy deciding whether and when a failed attempt is retried.
+     * @throws IllegalArgumentException if {@code retryPolicy} is {@code null}.
+     */
+    public Instructor(AiChatService aiChatService, int maxRetries, RetryPolicy retryPolicy) {
+        this(aiChatService, maxRetries, retryPolicy, null);
+    }
+
+    /**
+     * Constructs an Instructor with the given AI chat service, a maximum retry count, a retry policy and a cache of
+     * validated responses. {@link #createChatCompletion(List, String, Class)} and
+     * {@link #createChatCompletionAsync(List, String, Class)} return a cached response without calling the API if
+     * the same model, messages and response model were requested before, and store the responses that pass
+     * validation.
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(),
+     *     InMemoryResponseCache.builder().expireAfterWrite(Duration.ofHours(1)).build());
+     * }</pre>
+     *
+     * @param aiChatService The AI chat client used for creating chat completions.
+     * @param maxRetries The maximum number of retries allowed when trying to get a valid response.
+     * @param retryPolicy The policy deciding whether and when a failed attempt is retried.
+     * @param responseCache The cache of validated responses, or {@code null} to disable caching.
+     * @throws IllegalArgumentException if {@code retryPolicy} is {@code null}.
+     */
+    public Instructor(AiChatService aiChatService, int maxRetries, RetryPolicy retryPolicy,
+        ResponseCache responseCache) {
+        this(aiChatService, maxRetries, retryPolicy, responseCache, null);
+    }
+
+    /**
+     * Constructs an Instructor with the given AI chat service, a maximum retry count, a retry policy, a cache of
+     * validated responses and a hedging policy. Each attempt of {@link #createChatCompletion(List, String, Class)}
+     * and {@link #createChatCompletionAsync(List, String, Class)} that is still running after the hedge delay is
+     * duplicated, as far as the hedging budget allows, and the first response passing validation is used.
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(), null,
+     *     HedgingPolicy.builder().percentile(0.95).maxHedgeRatio(0.05).build());
+     * }</pre>
+     *
+     * @param aiChatService The AI chat client used for creating chat completions.
+     * @param maxRetries The maximum number of retries allowed when trying to get a valid response.
+     * @param retryPolicy The policy deciding whether and when a failed attempt is retried.
+     * @param responseCache The cache of validated responses, or {@code null} to disable caching.
+     * @param hedgingPolicy The policy deciding when a slow attempt is hedged, or {@code null} to disable hedging.
+     * @throws IllegalArgumentException if {@code retryPolicy} is {@code null}.
+     */
+    public Instructor(AiChatService aiChatService, int maxRetries, RetryPolicy retryPolicy,
+        ResponseCache responseCache, HedgingPolicy hedgingPolicy) {
+        this(aiChatService, maxRetries, retryPolicy, responseCache, hedgingPolicy, false);
+    }
+
+    /**
+     * Constructs an Instructor with the given AI chat service, a maximum retry count, a retry policy, a cache of
+     * validated responses, a hedging policy and the choice whether to coalesce identical requests. When
+     * coalescing, concurrent calls of {@link #createChatCompletion(List, String, Class)} and
+     * {@link #createChatCompletionAsync(List, String, Class)} with the same model, messages and response model
+     * share one request: only the first one calls the API, and the others receive a copy of its validated response
+     * or its error. Coalescing works with or without a response cache.
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(), null,
+     *     null, true);
+     * }</pre>
+     *
+     * @param aiChatService The AI chat client used for creating chat completions.
+     * @param maxRetries The maximum number of retries allowed when trying to get a valid response.
+     * @param retryPolicy The policy deciding whether and when a failed attempt is retried.
+     * @param responseCache The cache of validated responses, or {@code null} to disable caching.
+     * @param hedgingPolicy The policy deciding when a slow attempt is hedged, or {@code null} to disable hedging.
+     * @param coalesceRequests Whether concurrent identical requests share one call to the API.
+     * @throws IllegalArgumentException if {@code retryPolicy} is {@code null}.
+     */
+    public Instructor(AiChatService aiChatService, int maxRetries, RetryPolicy retryPolicy,
+        ResponseCache responseCache, HedgingPolicy hedgingPolicy, boolean coalesceRequests) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("Parameter 'retryPolicy' must not be null.");
+        }
         this.aiChatService = aiChatService;
         this.maxRetries = maxRetries;
+        this.retryPolicy = retryPolicy;
+        this.responseCache = responseCache;
+        this.hedgingPolicy = hedgingPolicy;
+        this.inFlightRequests = coalesceRequests ? new SingleFlight<>() : null;
+    }
+
+    /**
+     * Prepares the response models found in the given packages, so that the first requests do not pay for it.
+     * <p>
+     * The packages are scanned for response models, see {@link ResponseModelScanner}. For each one, the schema
+     * and the prompt hint are computed and cached, and the JSON deserializer is built. Call this once at startup,
+     * for example before a service reports itself as ready.
+     * </p>
+     *
+     * @param packages The packages to scan, including their subpackages.
+     * @return The response model classes that were prepared.
+     */
+    public List<Class<?>> warmUp(String... packages) {
+        return warmUp(Collections.emptyList(), false, packages);
+    }
+
+    /**
+     * Prepares the response models found in the given packages, the request templates of the given models and,
+     * optionally, the connection to the API, so that the first requests do not pay for it.
+     * <p>
+     * In addition to {@link #warmUp(String...)}, the request templates of every response model are built for each
+     * of the given models, see {@link RequestTemplates}. If {@code connect} is {@code true},
+     * {@link AiChatService#warmUp()} is called on a separate thread while the response models are prepared, and
+     * this method waits for it to finish. Response models that cannot be prepared are logged and skipped.
+     * </p>
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3);
+     * instructor.warmUp(Collections.singletonList("gpt-4o-mini"), true, "com.example.model");
+     * }</pre>
+     *
+     * @param models   The AI models the response models will be requested from.
+     * @param connect  Whether to open a connection to the API as well.
+     * @param packages The packages to scan, including their subpackages.
+     * @return The response model classes that were prepared.
+     */
+    public List<Class<?>> warmUp(Collection<String> models, boolean connect, String... packages) {
+        if (models == null) {
+            throw new IllegalArgumentException("Parameter 'models' must not be null.");
+        }
+
+        ExecutorService executor = null;
+        Future<?> connection = null;
+        if (connect) {
+            executor = TaskExecutors.newTaskExecutor("instructor4j-warm-up", 1);
+            connection = executor.submit(aiChatService::warmUp);
+        }
+
+        try {
+            List<Class<?>> responseModels = ResponseModelScanner.scan(packages);
+            for (Class<?> responseModel : responseModels) {
+                try {
+                    TypeModel typeModel = TypeModel.of(responseModel);
+                    typeModel.getFunctionDefinition();
+                    typeModel.getPromptHint();
+                    Utils.prepareJsonReader(responseModel);
+                    for (String model : models) {
+                        for (RequestTemplates.Kind kind : RequestTemplates.Kind.values()) {
+                            RequestTemplates.get(kind, model, responseModel);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    logger.warning("Could not prepare response model " + responseModel.getName() + ": " + e);
+                }
+            }
+            logger.info("Prepared " + responseModels.size() + " response models.");
+
+            if (connection != null) {
+                awaitWarmUp(connection);
+            }
+            return responseModels;
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Waits for the warm-up of the AI chat service. The warm-up is best effort, so its failure is only logged.
+     *
+     * @param connection the warm-up task.
+     */
+    private static void awaitWarmUp(Future<?> connection) {
+        try {
+            connection.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warning("Connection warm-up failed: " + e.getCause());
+        }
     }
 
     /**
      * Creates a chat completion by sending a list of chat messages and processing the result.
-     * The method retries based on the maxRetries setting if validation fails.
+     * The method retries based on the maxRetries setting if validation fails, as long as the retry policy
+     * allows, waiting for the delay it returns. If a response cache is configured, a cached response is returned
+     * without calling the API, and a validated response is stored. If coalescing is enabled, identical requests
+     * of other threads wait for a request in flight and receive a copy of its response, or its error, instead of
+     * calling the API again. A request rejected by a circuit breaker of the chat service is not retried.
      *
      * @param messages The list of chat messages to send.
      * @param model The AI model to use for the chat completion.
      * @param responseModel The class type expected in the response.
      * @param <T> The type of the response model.
      * @return A structured response of type T based on the chat completion result.
+     * @throws CircuitBreakerOpenException If the request is rejected by an open circuit breaker.
      * @throws InstructorException If the completion fails after the maximum number of retries.
      */
     public <T> T createChatCompletion(List<BaseMessage> messages, String model,
         Class<T> responseModel) throws InstructorException {
+        return createChatCompletion(messages, model, responseModel, RequestTemplates.Options.defaults());
+    }
+
+    /**
+     * Creates a chat completion as {@link #createChatCompletion(List, String, Class)} does, with options shaping
+     * the request, such as its token limit, temperature and seed. Responses are cached and coalesced per options:
+     * a request only receives the response of another one with equal options.
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * RequestTemplates.Options precise = RequestTemplates.Options.builder().temperature(0).seed(42).build();
+     * User user = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class, precise);
+     * }</pre>
+     *
+     * @param messages The list of chat messages to send.
+     * @param model The AI model to use for the chat completion.
+     * @param responseModel The class type expected in the response.
+     * @param options The options of the request.
+     * @param <T> The type of the response model.
+     * @return A structured response of type T based on the chat completion result.
+     * @throws IllegalArgumentException If {@code options} is {@code null}.
+     * @throws CircuitBreakerOpenException If the request is rejected by an open circuit breaker.
+     * @throws InstructorException If the completion fails after the maximum number of retries.
+     */
+    public <T> T createChatCompletion(List<BaseMessage> messages, String model, Class<T> responseModel,
+        RequestTemplates.Options options) throws InstructorException {
+        if (options == null) {
+            throw new IllegalArgumentException("Parameter 'options' must not be null.");
+        }
+
+        if (responseCache == null && inFlightRequests == null) {
+            return requestChatCompletion(messages, model, responseModel, options, null);
+        }
+        CacheKey cacheKey = CacheKey.of(model, messages, responseModel, options);
+        if (inFlightRequests == null) {
+            return lookUpChatCompletion(messages, model, responseModel, options, cacheKey);
+        }
+        try {
+            return inFlightRequests.execute(cacheKey,
+                () -> lookUpChatCompletion(messages, model, responseModel, options, cacheKey),
+                response -> copyResponse(response, responseModel));
+        } catch (InstructorException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstructorException("Interrupted while waiting for an identical request.", e);
+        } catch (Exception e) {
+            throw new InstructorException("Error creating chat completion: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the cached response of a request, or requests the chat completion if there is none.
+     *
+     * @param messages      the list of chat messages to send.
+     * @param model         the AI model to use for the chat completion.
+     * @param responseModel the class type expected in the response.
+     * @param options       the options of the request.
+     * @param cacheKey      the key identifying the request.
+     * @param <T>           the type of the response model.
+     * @return the validated response.
+     * @throws InstructorException if the completion fails after the maximum number of retries.
+     */
+    private <T> T lookUpChatCompletion(List<BaseMessage> messages, String model, Class<T> responseModel,
+        RequestTemplates.Options options, CacheKey cacheKey) throws InstructorException {
+        T cached = responseCache != null ? responseCache.get(cacheKey, responseModel) : null;
+        return cached != null ? cached : requestChatCompletion(messages, model, responseModel, options, cacheKey);
+    }
+
+    /**
+     * Requests a chat completion, retrying as {@link #createChatCompletion(List, String, Class)} describes, and
+     * stores the validated response in the cache.
+     *
+     * @param messages      the list of chat messages to send.
+     * @param model         the AI model to use for the chat completion.
+     * @param responseModel the class type expected in the response.
+     * @param options       the options of the request.
+     * @param cacheKey      the key to cache the response under, unused if there is no cache.
+     * @param <T>           the type of the response model.
+     * @return the validated response.
+     * @throws InstructorException if the completion fails after the maximum number of retries.
+     */
+    private <T> T requestChatCompletion(List<BaseMessage> messages, String model, Class<T> responseModel,
+        RequestTemplates.Options options, CacheKey cacheKey) throws InstructorException {
 
         int retryCount = 0;
 
         while (retryCount < maxRetries) {
             logger.info("Attempt #" + (retryCount + 1) + " to get structured response.");
 
+            Exception failure = null;
             try {
-                T response = attemptChatCompletion(messages, model, responseModel);
-                if (validateResponse(response, responseModel)) {
-                    return response;
+                ValidatedResponse<T> attempt = attemptChatCompletion(messages, model, responseModel, options);
+                if (attempt.valid) {
+                    if (responseCache != null) {
+                        responseCache.put(cacheKey, attempt.response);
+                    }
+                    return attempt.response;
                 } else {
                     logger.warning("Validation failed. Retrying with adjusted prompt.");
                     messages = adjustPrompt(messages, responseModel);
                 }
             } catch (Exception e) {
                 logger.severe("Error occurred: " + e.getMessage());
+                CircuitBreakerOpenException rejection = findCircuitBreakerRejection(e);
+                if (rejection != null) {
+                    throw rejection;
+                }
                 if (retryCount == maxRetries - 1) {
                     throw new InstructorException("Maximum retries reached. Unable to validate response.", e);
                 }
+                failure = e;
             }
 
+            if (retryCount < maxRetries - 1) {
+                Duration delay = getRetryDelay(retryCount, failure);
+                if (!delay.isZero()) {
+                    try {
+                        Thread.sleep(delay.toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InstructorException("Interrupted while waiting to retry.", e);
+                    }
+                }
+            }
             retryCount++;
         }
 
         throw new InstructorException("Unable to get a valid response after " + maxRetries + " retries.");
     }
 
+    /**
+     * Asynchronously creates a chat completion by sending a list of chat messages and processing the result.
+     * <p>
+     * The request is sent through {@link AiChatService#createChatCompletionAsync(ChatCompletionCreateParams)}.
+     * Parsing, validation, prompt adjustment and retries are chained as continuations of the request future,
+     * so no thread is blocked while waiting for the model. Retries follow the same rules as
+     * {@link #createChatCompletion(List, String, Class)}, and so do the response cache and, if enabled, the
+     * coalescing of identical requests in flight.
+     * </p>
+     *
+     * @param messages The list of chat messages to send.
+     * @param model The AI model to use for the chat completion.
+     * @param responseModel The class type expected in the response.
+     * @param <T> The type of the response model.
+     * @return A future completed with the structured response of type T, or completed exceptionally with an
+     *         {@link InstructorException} if the completion fails after the maximum number of retries.
+     */
+    public <T> CompletableFuture<T> createChatCompletionAsync(List<BaseMessage> messages, String model,
+        Class<T> responseModel) {
+        return createChatCompletionAsync(messages, model, responseModel, RequestTemplates.Options.defaults());
+    }
+
+    /**
+     * Asynchronously creates a chat completion as {@link #createChatCompletionAsync(List, String, Class)} does,
+     * with options shaping the request, see {@link #createChatCompletion(List, String, Class,
+     * RequestTemplates.Options)}.
+     *
+     * @param messages The list of chat messages to send.
+     * @param model The AI model to use for the chat completion.
+     * @param responseModel The class type expected in the response.
+     * @param options The options of the request.
+     * @param <T> The type of the response model.
+     * @return A future completed with the structured response of type T, or completed exceptionally with an
+     *         {@link InstructorException} if the completion fails after the maximum number of retries, or with
+     *         an {@link IllegalArgumentException} if {@code options} is {@code null}.
+     */
+    public <T> CompletableFuture<T> createChatCompletionAsync(List<BaseMessage> messages, String model,
+        Class<T> responseModel, RequestTemplates.Options options) {
+        if (options == null) {
+            return Utils.failedFuture(new IllegalArgumentException("Parameter 'options' must not be null."));
+        }
+        if (responseCache == null && inFlightRequests == null) {
+            return attemptChatCompletionAsync(messages, model, responseModel, options, 0);
+        }
+        CacheKey cacheKey;
+        try {
+            cacheKey = CacheKey.of(model, messages, responseModel, options);
+        } catch (RuntimeException e) {
+            return Utils.failedFuture(e);
+        }
+        if (inFlightRequests == null) {
+            return lookUpChatCompletionAsync(messages, model, responseModel, options, cacheKey);
+        }
+        return inFlightRequests.executeAsync(cacheKey,
+            () -> lookUpChatCompletionAsync(messages, model, responseModel, options, cacheKey),
+            response -> copyResponse(response, responseModel));
+    }
+
+    /**
+     * Copies a response shared by coalesced requests through its JSON form, so that every caller receives its
+     * own instance.
+     *
+     * @param response      the response of the request in flight.
+     * @param responseModel the class type of the response.
+     * @param <T>           the type of the response model.
+     * @return a copy of the response.
+     */
+    private static <T> T copyResponse(T response, Class<T> responseModel) {
+        try {
+            return Utils.parseJson(Utils.toJson(response), responseModel);
+        } catch (InstructorException e) {
+            throw new IllegalStateException("Unable to copy the shared response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a future of the cached response of a request, or requests the chat completion asynchronously if
+     * there is none and stores the validated response in the cache.
+     *
+     * @param messages      the list of chat messages to send.
+     * @param model         the AI model to use for the chat completion.
+     * @param responseModel the class type expected in the response.
+     * @param options       the options of the request.
+     * @param cacheKey      the key identifying the request.
+     * @param <T>           the type of the response model.
+     * @return a future of the validated response.
+     */
+    private <T> CompletableFuture<T> lookUpChatCompletionAsync(List<BaseMessage> messages, String model,
+        Class<T> responseModel, RequestTemplates.Options options, CacheKey cacheKey) {
+        if (responseCache == null) {
+            return attemptChatCompletionAsync(messages, model, responseModel, options, 0);
+        }
+        T cached = responseCache.get(cacheKey, responseModel);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return attemptChatCompletionAsync(messages, model, responseModel, options, 0).thenApply(response -> {
+            responseCache.put(cacheKey, response);
+            return response;
+        });
+    }
+
+    /**
+     * Creates chat completions for a batch of conversations, running up to {@link #DEFAULT_BATCH_CONCURRENCY}
+     * requests concurrently.
+     *
+     * @param messagesList  The conversations to extract a response from, one list of chat messages per item.
+     * @param model         The AI model to use for the chat completions.
+     * @param responseModel The class type expected in the responses.
+     * @param <T>           The type of the response model.
+     * @return One {@link Result} per conversation, in input order.
+     * @throws InstructorException If the calling thread is interrupted while waiting for the batch.
+     * @see #createChatCompletions(List, String, Class, int)
+     */
+    public <T> List<Result<T>> createChatCompletions(List<List<BaseMessage>> messagesList, String model,
+        Class<T> responseModel) throws InstructorException {
+        return createChatCompletions(messagesList, model, responseModel, DEFAULT_BATCH_CONCURRENCY);
+    }
+
+    /**
+     * Creates chat completions for a batch of conversations, running at most {@code concurrency} requests at a
+     * time.
+     * <p>
+     * Each conversation goes through {@link #createChatCompletion(List, String, Class)}, including its validation
+     * and retries. Requests run on virtual threads on Java 21 and later, and on a pool of {@code concurrency}
+     * platform threads otherwise (see {@link TaskExecutors}). A failed conversation is reported as a failed
+     * {@link Result} and does not affect the rest of the batch.
+     * </p>
+     *
+     * @param messagesList  The conversations to extract a response from, one list of chat messages per item.
+     * @param model         The AI model to use for the chat completions.
+     * @param responseModel The class type expected in the responses.
+     * @param concurrency   The maximum number of requests in flight.
+     * @param <T>           The type of the response model.
+     * @return One {@link Result} per conversation, in input order.
+     * @throws InstructorException If the calling thread is interrupted while waiting for the batch; requests
+     *                             still in flight are cancelled.
+     * @throws IllegalArgumentException If {@code messagesList} is {@code null} or {@code concurrency} is less
+     *                                  than 1.
+     */
+    public <T> List<Result<T>> createChatCompletions(List<List<BaseMessage>> messagesList, String model,
+        Class<T> responseModel, int concurrency) throws InstructorException {
+
+        if (messagesList == null) {
+            throw new IllegalArgumentException("Parameter 'messagesList' must not be null.");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Parameter 'concurrency' must be greater than 0.");
+        }
+        if (messagesList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        ExecutorService executor = TaskExecutors.newTaskExecutor("instructor4j-batch",
+            Math.min(concurrency, messagesList.size()));
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<Result<T>>> futures = new ArrayList<>(messagesList.size());
+
+        try {
+            for (int i = 0; i < messagesList.size(); i++) {
+                permits.acquire();
+
+                int index = i;
+                List<BaseMessage> messages = messagesList.get(i);
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return Result.success(index, createChatCompletion(messages, model, responseModel));
+                        } catch (Exception e) {
+                            return Result.<T>failure(index, e);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+
+            List<Result<T>> results = new ArrayList<>(futures.size());
+            for (Future<Result<T>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstructorException("Batch interrupted after submitting " + futures.size() + " of "
+                + messagesList.size() + " requests.", e);
+        } catch (ExecutionException e) {
+            throw new InstructorException("Batch failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates chat completions for a stream of conversations, keeping at most {@code concurrency} requests in
+     * flight.
+     * <p>
+     * Each conversation goes through {@link #createChatCompletionAsync(List, String, Class)}, including its
+     * validation and retries, and is emitted as a {@link Result} carrying its position in the source. A failed
+     * conversation is emitted as a failed {@code Result} and does not terminate the stream.
+     * </p>
+     * <p>
+     * Backpressure is preserved end to end: conversations are requested from {@code messages} only as requests
+     * complete, never more than {@code concurrency} at a time, so a slow subscriber throttles both the source and
+     * the LLM calls. When {@code ordered} is {@code true}, results are emitted in source order; a result that
+     * completes early is held back and keeps its slot until every result before it is emitted, so in flight and
+     * held back results together never exceed {@code concurrency}. Otherwise results are emitted as soon as they
+     * complete.
+     * </p>
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * instructor.createChatCompletions(conversations, "gpt-4o-mini", User.class, 32, false)
+     *     .filter(Result::isSuccess)
+     *     .subscribe(result -> save(result.getValue()));
+     * }</pre>
+     *
+     * @param messages      The conversations to extract a response from, one list of chat messages per item.
+     * @param model         The AI model to use for the chat completions.
+     * @param responseModel The class type expected in the responses.
+     * @param concurrency   The maximum number of requests in flight.
+     * @param ordered       Whether to emit results in source order.
+     * @param <T>           The type of the response model.
+     * @return A cold {@link Flux} of one {@link Result} per conversation.
+     * @throws IllegalArgumentException If {@code messages} is {@code null} or {@code concurrency} is less than 1.
+     */
+    public <T> Flux<Result<T>> createChatCompletions(Flux<List<BaseMessage>> messages, String model,
+        Class<T> responseModel, int concurrency, boolean ordered) {
+
+        if (messages == null) {
+            throw new IllegalArgumentException("Parameter 'messages' must not be null.");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Parameter 'concurrency' must be greater than 0.");
+        }
+
+        Flux<Tuple2<Long, List<BaseMessage>>> indexedMessages = messages.index();
+        Function<Tuple2<Long, List<BaseMessage>>, Mono<Result<T>>> extraction = indexedMessage ->
+            Mono.fromFuture(() -> createChatCompletionAsync(indexedMessage.getT2(), model, responseModel))
+                .map(value -> Result.success(indexedMessage.getT1(), value))
+                .onErrorResume(error -> Mono.just(
+                    Result.failure(indexedMessage.getT1(), Utils.unwrapCompletionException(error))));
+
+        return ordered
+            ? indexedMessages.flatMapSequential(extraction, concurrency, 1)
+            : indexedMessages.flatMap(extraction, concurrency, 1);
+    }
+
+    /**
+     * Creates chat completions for a batch of conversations through the asynchronous batch endpoint of the
+     * {@link AiBatchChatService}, trading latency for cost and throughput.
+     * <p>
+     * The requests are built exactly as for {@link #createChatCompletion(List, String, Class)} and written to a
+     * JSONL file in {@code workDirectory}, which is submitted as one batch and polled every
+     * {@code pollInterval}. When the batch completes, its output is read line by line. Each response is bound to
+     * the response model and validated, and successful results are emitted right away. Conversations that
+     * failed, did not pass validation or have no line in the batch output are resubmitted in a follow-up batch,
+     * with the prompt adjusted after a validation failure, up to the maximum number of retries. After the last
+     * attempt they are emitted as failed {@link Result}s. Conversations, requests and responses are streamed through files, so memory use does not
+     * grow with the size of the batch.
+     * </p>
+     * <p>
+     * Results are emitted in the order the batch endpoint returns them, not in input order; use
+     * {@link Result#getIndex()} to correlate them with the conversations.
+     * </p>
+     *
+     * @param messages      The conversations to extract a response from, one list of chat messages per item. It is
+     *                      iterated once, when the returned {@link Flux} is subscribed to.
+     * @param model         The AI model to use for the chat completions.
+     * @param responseModel The class type expected in the responses.
+     * @param workDirectory The existing directory the batch files are written to.
+     * @param pollInterval  The interval at which the status of a submitted batch is polled.
+     * @param <T>           The type of the response model.
+     * @return A cold {@link Flux} of one {@link Result} per conversation. It fails with an
+     *         {@link InstructorException} if the chat service does not support batches, if a batch does not
+     *         complete, or if a batch file cannot be read or written.
+     * @throws IllegalArgumentException If any of the parameters is {@code null}.
+     */
+    public <T> Flux<Result<T>> createBatchChatCompletions(Iterable<List<BaseMessage>> messages, String model,
+        Class<T> responseModel, Path workDirectory, Duration pollInterval) {
+
+        if (messages == null) {
+            throw new IllegalArgumentException("Parameter 'messages' must not be null.");
+        }
+        if (workDirectory == null) {
+            throw new IllegalArgumentException("Parameter 'workDirectory' must not be null.");
+        }
+        if (pollInterval == null) {
+            throw new IllegalArgumentException("Parameter 'pollInterval' must not be null.");
+        }
+        if (!(aiChatService instanceof AiBatchChatService)) {
+            return Flux.error(new InstructorException("AI chat service " + aiChatService
+                + " does not support batches."));
+        }
+        AiBatchChatService batchService = (AiBatchChatService) aiChatService;
+
+        return Flux.defer(() -> {
+            BatchRound round = new BatchRound(1, workDirectory);
+            try (BufferedWriter conversationsWriter = Files.newBufferedWriter(round.conversationsFile,
+                StandardCharsets.UTF_8);
+                BufferedWriter requestsWriter = Files.newBufferedWriter(round.requestsFile, StandardCharsets.UTF_8)) {
+
+                int index = 0;
+                for (List<BaseMessage> conversation : messages) {
+                    round.submitted.set(index);
+                    writeBatchRequest(conversationsWriter, requestsWriter, BatchJsonl.customId(index++),
+                        conversation, model, responseModel);
+                }
+            } catch (IOException e) {
+                return Flux.error(new InstructorException("Failed to write batch requests: " + e.getMessage(), e));
+            } catch (InstructorException e) {
+                return Flux.error(e);
+            }
+            return executeBatchRound(batchService, round, model, responseModel, pollInterval);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
     /**
      * Creates a streaming chat completion based on the provided messages and model. This method sends a set
-     * of input messages to the AI model as a streaming request, accumulates the streamed response chunks,
-     * and emits them as a Flux of strings. Each emitted string is a piece of the response content returned
-     * by the AI model.
+     * of input messages to the AI model as a streaming request and emits the streamed response content as a
+     * Flux of strings. Each emitted string is a piece of the response content returned by the AI model.
      *
      * <p>The method also enforces a particular output format via a JSON schema derived from the provided
      * response model class. The model is instructed to return data that fits into this schema as a JSON array
      * named "data". Only content that matches the schema is included in the output.</p>
      *
+     * <p>The returned Flux is cold: the HTTP stream is opened only when the Flux is subscribed to, and each
+     * chunk is pushed downstream as soon as it arrives. Chunks are read from the underlying
+     * {@link StreamResponse} only as fast as the subscriber requests them, on a
+     * {@link Schedulers#boundedElastic() bounded elastic} worker so that the subscribing thread is never
+     * blocked on network I/O. The {@link StreamResponse} is closed when the stream completes, fails or when
+     * the subscriber cancels.</p>
+     *
      * <p>If an error occurs during the streaming process, the returned Flux will emit an error signal.
      * When the stream finishes, it completes the Flux.</p>
      *
@@ -126,78 +810,719 @@ public class Instructor {
     public Flux<String> createStreamChatCompletion(List<BaseMessage> baseMessages, String model,
         Class responseModel) {
 
-        ChatCompletionCreateParams completionCreateParams =
-            buildChatCompletionStreamCreateParams(baseMessages, model, responseModel);
+        ChatCompletionCreateParams completionCreateParams = buildChatCompletionStreamCreateParams(baseMessages,
+            RequestTemplates.get(RequestTemplates.Kind.CLASS_SCHEMA, model, responseModel), DATA_ARRAY_SYSTEM_PROMPT);
 
-        Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+        return streamChatCompletionChunks(completionCreateParams)
+            .concatMapIterable(this::extractChunkContents)
+            .filter(content -> !content.trim().isEmpty());
+    }
 
-        try {
-            assert this.aiChatService != null;
-            try (StreamResponse<ChatCompletionChunk> messageStreamResponse =
-                this.aiChatService.createStreamChatCompletion(completionCreateParams)) {
-
-                List<ChatCompletionChunk> chunks = messageStreamResponse.stream().collect(
-                    Collectors.toList());
-
-                for (ChatCompletionChunk chunk : chunks) {
-                    for (Choice choice : chunk.choices()) {
-                        for (String content : Utils.optionalToStream(choice.delta().content())
-                            .collect(Collectors.toList())) {
-                            if (!content.trim().isEmpty()) {
-                                sink.tryEmitNext(content);
-                            }
-                        }
+    /**
+     * Creates a streaming chat completion and emits the extracted entities, bound to the response model,
+     * as soon as each of them is complete.
+     *
+     * <p>The model is instructed to return a JSON array named "data" whose items fit the JSON schema derived
+     * from {@code responseModel}. The streamed content is fed to an {@link EntityStreamParser}, which scans
+     * every chunk exactly once and binds each array element the moment its closing brace arrives. Every
+     * element is emitted exactly once; already emitted elements are never re-parsed.</p>
+     *
+     * <p>Like {@link #createStreamChatCompletion(List, String, Class)}, the returned Flux is cold and honours
+     * subscriber demand. If an element cannot be bound to {@code responseModel}, the Flux terminates with an
+     * {@link InstructorException}.</p>
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * instructor.createIterableStreamChatCompletion(messages, "gpt-4o-mini", Participant.class)
+     *     .doOnNext(participant -> System.out.println(participant.getName()))
+     *     .blockLast();
+     * }</pre>
+     *
+     * @param baseMessages  the list of input messages that form the conversation to send to the model.
+     * @param model         the name of the model to be used for the completion.
+     * @param responseModel the class every element of the returned array is bound to.
+     * @param <T>           the type of the response model.
+     * @return a {@link Flux} emitting each extracted entity as soon as it is complete.
+     * @throws IllegalArgumentException if any of the required parameters are {@code null}.
+     */
+    public <T> Flux<T> createIterableStreamChatCompletion(List<BaseMessage> baseMessages, String model,
+        Class<T> responseModel) {
+
+        validateInputs(baseMessages, model, responseModel);
+
+        ChatCompletionCreateParams completionCreateParams = buildChatCompletionStreamCreateParams(baseMessages,
+            RequestTemplates.get(RequestTemplates.Kind.ARRAY_SCHEMA, model, responseModel), DATA_ARRAY_SYSTEM_PROMPT);
+
+        return Flux.defer(() -> {
+            EntityStreamParser<T> entityStreamParser =
+                new EntityStreamParser<>(responseModel, STREAM_ROOT_ELEMENT);
+
+            return streamChatCompletionChunks(completionCreateParams)
+                .concatMapIterable(this::extractChunkContents)
+                .concatMapIterable(content -> {
+                    try {
+                        return entityStreamParser.append(content);
+                    } catch (InstructorException e) {
+                        throw Exceptions.propagate(e);
                     }
-                }
+                });
+        });
+    }
+
+    /**
+     * Creates a streaming chat completion for a single response model instance and emits progressively populated
+     * snapshots of it while the model is still generating.
+     *
+     * <p>The response is constrained to the JSON schema built by {@link FunctionDefinitionBuilder}, including
+     * nested objects. The streamed content is fed to a {@link PartialStreamParser}, which patches every top level
+     * or nested field into a new snapshot as soon as its value completes, without re-deserializing the content
+     * received before. A {@link Partial} snapshot is emitted for each chunk that completed at least one field;
+     * the last snapshot is marked {@link Partial#isComplete() complete} once the whole object has been received.
+     * A snapshot copies only the objects on the paths of its completed fields and shares all other objects with
+     * the previous one, so it does not change after it is emitted but must be treated as read-only.</p>
+     *
+     * <p>Like {@link #createStreamChatCompletion(List, String, Class)}, the returned Flux is cold and honours
+     * subscriber demand. If a field cannot be bound to {@code responseModel}, the Flux terminates with an
+     * {@link InstructorException}.</p>
+     *
+     * @param baseMessages  the list of input messages that form the conversation to send to the model.
+     * @param model         the name of the model to be used for the completion.
+     * @param responseModel the class of the response model to populate.
+     * @param <T>           the type of the response model.
+     * @return a {@link Flux} of {@link Partial} snapshots of the response model instance.
+     * @throws IllegalArgumentException if any of the required parameters are {@code null}.
+     */
+    public <T> Flux<Partial<T>> createPartialStreamChatCompletion(List<BaseMessage> baseMessages, String model,
+        Class<T> responseModel) {
+
+        validateInputs(baseMessages, model, responseModel);
+
+        MyFunctionDefinition myFunctionDefinition = FunctionDefinitionBuilder.getFunctionDefinition(responseModel);
+
+        ChatCompletionCreateParams completionCreateParams = buildChatCompletionStreamCreateParams(baseMessages,
+            RequestTemplates.get(RequestTemplates.Kind.OBJECT_SCHEMA, model, responseModel), OBJECT_SYSTEM_PROMPT);
+
+        return Flux.defer(() -> {
+            PartialStreamParser<T> partialStreamParser;
+            try {
+                partialStreamParser = new PartialStreamParser<>(responseModel, myFunctionDefinition);
+            } catch (InstructorException e) {
+                return Flux.error(e);
             }
+
+            return streamChatCompletionChunks(completionCreateParams)
+                .concatMapIterable(this::extractChunkContents)
+                .handle((content, sink) -> {
+                    try {
+                        partialStreamParser.append(content).ifPresent(sink::next);
+                    } catch (InstructorException e) {
+                        sink.error(e);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Opens a streaming chat completion for the given parameters and exposes its chunks as a cold {@link Flux}.
+     *
+     * <p>The stream is opened lazily on subscription and closed on completion, error or cancellation. Chunks
+     * are pulled from the blocking {@link StreamResponse} one at a time as downstream demand arrives, so no
+     * more than the requested number of chunks is ever read ahead of the subscriber.</p>
+     *
+     * @param completionCreateParams the parameters of the streaming request.
+     * @return a cold {@link Flux} of {@link ChatCompletionChunk} instances in the order they were received.
+     */
+    private Flux<ChatCompletionChunk> streamChatCompletionChunks(ChatCompletionCreateParams completionCreateParams) {
+        return Flux.using(
+                () -> {
+                    assert this.aiChatService != null;
+                    return this.aiChatService.createStreamChatCompletion(completionCreateParams);
+                },
+                messageStreamResponse -> Flux.fromStream(messageStreamResponse.stream()),
+                this::closeStreamResponse)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Closes the given {@link StreamResponse}, logging instead of propagating any failure so that closing
+     * a cancelled stream never masks the signal that terminated it.
+     *
+     * @param messageStreamResponse the stream response to close.
+     */
+    private void closeStreamResponse(StreamResponse<ChatCompletionChunk> messageStreamResponse) {
+        try {
+            messageStreamResponse.close();
         } catch (Exception e) {
-            sink.tryEmitError(e);
+            logger.warning("Error closing stream response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts the non-null content deltas of all choices contained in a streamed chunk.
+     *
+     * @param chunk the {@link ChatCompletionChunk} received from the stream.
+     * @return the content pieces of the chunk, in choice order; empty if the chunk carries no content.
+     */
+    private List<String> extractChunkContents(ChatCompletionChunk chunk) {
+        List<Choice> choices = chunk.choices();
+        List<String> contents = new ArrayList<>(choices.size());
+        for (Choice choice : choices) {
+            choice.delta().content().ifPresent(contents::add);
         }
+        return contents;
+    }
 
-        sink.tryEmitComplete();
+    /**
+     * The response of an attempt, validated once by the copy of the request that received it.
+     *
+     * @param <T> the type of the response model.
+     */
+    private static final class ValidatedResponse<T> {
+        final T response;
+        final boolean valid;
 
-        return sink.asFlux();
+        ValidatedResponse(T response, boolean valid) {
+            this.response = response;
+            this.valid = valid;
+        }
     }
 
     /**
-     * Attempts to create a chat completion using the provided messages and model.
-     * Depending on the 'stream' parameter, it either performs a synchronous request
-     * or a streaming request.
+     * Attempts to create a chat completion using the provided messages and model. If the attempt is hedged, the
+     * retry budget is credited once for the attempt, not once per copy.
      *
      * @param baseMessages       the list of {@link BaseMessage} representing the conversation.
      * @param model          the model identifier to use for the chat completion.
      * @param responseModel  the class of the response model to deserialize the result into.
+     * @param options        the options of the request.
      * @param <T>            the type of the response model.
-     * @return the deserialized response of type {@code T}.
+     * @return the deserialized response of type {@code T}, with the outcome of its validation.
      * @throws InstructorException if an error occurs during the chat completion process.
      * @throws IllegalArgumentException if any of the required parameters are {@code null}.
      */
-    private <T> T attemptChatCompletion(List<BaseMessage> baseMessages, String model,
-        Class<T> responseModel) throws InstructorException {
+    private <T> ValidatedResponse<T> attemptChatCompletion(List<BaseMessage> baseMessages, String model,
+        Class<T> responseModel, RequestTemplates.Options options) throws InstructorException {
 
-        validateInputs(baseMessages, model, responseModel);
+        ChatCompletionCreateParams completionCreateParams =
+            prepareChatCompletionCreateParams(baseMessages, model, responseModel, options);
+        Runnable onResponse = creditRetryBudgetOnce();
 
-        MyFunctionDefinition myFunctionDefinition = FunctionDefinitionBuilder.getFunctionDefinition(responseModel);
+        if (hedgingPolicy != null) {
+            return awaitHedgedChatCompletion(hedgingPolicy.execute(responseModel,
+                () -> TaskExecutors.runBlocking(
+                    () -> requestChatCompletion(completionCreateParams, responseModel, onResponse)),
+                attempt -> attempt.valid));
+        }
+
+        try {
+            return requestChatCompletion(completionCreateParams, responseModel, onResponse);
 
-        if (myFunctionDefinition == null) {
-            throw new InstructorException("Function definition for response model " +
-                responseModel.getName() + " not found.");
+        } catch (Exception e) {
+            throw new InstructorException("Error creating chat completion: " + e.getMessage(), e);
         }
+    }
 
-        ChatCompletionCreateParams completionCreateParams = buildChatCompletionCreateParams(baseMessages,
-            model, myFunctionDefinition);
+    /**
+     * Sends a chat completion request, parses the response and validates it.
+     *
+     * @param completionCreateParams the request.
+     * @param responseModel          the class of the response model to deserialize the result into.
+     * @param onResponse             called when the API responded.
+     * @param <T>                    the type of the response model.
+     * @return the deserialized response of type {@code T}, with the outcome of its validation.
+     * @throws InstructorException if the response does not contain a parsable tool call.
+     */
+    private <T> ValidatedResponse<T> requestChatCompletion(ChatCompletionCreateParams completionCreateParams,
+        Class<T> responseModel, Runnable onResponse) throws InstructorException {
+        assert aiChatService != null;
+        ChatCompletion completion = aiChatService.createChatCompletion(completionCreateParams);
+        onResponse.run();
+        T response = parseChatCompletion(completion, responseModel);
+        return new ValidatedResponse<>(response, validateResponse(response, responseModel));
+    }
+
+    /**
+     * Returns an action crediting the retry budget the first time it runs, so that the copies of a hedged attempt
+     * credit it only once.
+     *
+     * @return the action.
+     */
+    private Runnable creditRetryBudgetOnce() {
+        AtomicBoolean credited = new AtomicBoolean();
+        return () -> {
+            if (credited.compareAndSet(false, true)) {
+                retryPolicy.onSuccess();
+            }
+        };
+    }
 
+    /**
+     * Waits for a hedged request, cancelling it if the calling thread is interrupted.
+     *
+     * @param hedged the future of the hedged request.
+     * @param <T>    the type of the response model.
+     * @return the first accepted response, or the response of the first request if none was accepted.
+     * @throws InstructorException if the request failed or the thread was interrupted.
+     */
+    private static <T> T awaitHedgedChatCompletion(CompletableFuture<T> hedged) throws InstructorException {
         try {
-            assert aiChatService != null;
-            ChatCompletion completion = aiChatService.createChatCompletion(completionCreateParams);
-            com.openai.models.ChatCompletion.Choice choice = extractFirstChoice(completion);
-            String functionCallArguments = extractToolCallArguments(choice);
+            return hedged.get();
+        } catch (InterruptedException e) {
+            hedged.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InstructorException("Interrupted while waiting for the chat completion.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = Utils.unwrapCompletionException(e);
+            throw new InstructorException("Error creating chat completion: " + cause.getMessage(), cause);
+        }
+    }
 
-            return Utils.parseJson(functionCallArguments, responseModel);
+    /**
+     * Asynchronously attempts to create a chat completion and chains the validation, prompt adjustment and
+     * any further attempts as continuations of the request future, mirroring the retry semantics of
+     * {@link #createChatCompletion(List, String, Class)}.
+     *
+     * @param baseMessages  the list of {@link BaseMessage} representing the conversation.
+     * @param model         the model identifier to use for the chat completion.
+     * @param responseModel the class of the response model to deserialize the result into.
+     * @param options       the options of the request.
+     * @param retryCount    the number of attempts made before this one.
+     * @param <T>           the type of the response model.
+     * @return a future completed with the validated response, or exceptionally with an
+     *         {@link InstructorException} once the maximum number of retries is reached.
+     */
+    private <T> CompletableFuture<T> attemptChatCompletionAsync(List<BaseMessage> baseMessages, String model,
+        Class<T> responseModel, RequestTemplates.Options options, int retryCount) {
+
+        if (retryCount >= maxRetries) {
+            return Utils.failedFuture(
+                new InstructorException("Unable to get a valid response after " + maxRetries + " retries."));
+        }
+
+        logger.info("Attempt #" + (retryCount + 1) + " to get structured response.");
+
+        CompletableFuture<ValidatedResponse<T>> attempt;
+        try {
+            ChatCompletionCreateParams completionCreateParams =
+                prepareChatCompletionCreateParams(baseMessages, model, responseModel, options);
+            Runnable onResponse = creditRetryBudgetOnce();
 
+            Supplier<CompletableFuture<ValidatedResponse<T>>> request =
+                () -> requestChatCompletionAsync(completionCreateParams, responseModel, onResponse);
+            attempt = hedgingPolicy == null ? request.get()
+                : hedgingPolicy.execute(responseModel, request, response -> response.valid);
         } catch (Exception e) {
-            throw new InstructorException("Error creating chat completion: " + e.getMessage(), e);
+            attempt = Utils.failedFuture(e);
+        }
+
+        return attempt.handle((validated, error) -> {
+            if (error == null) {
+                if (validated.valid) {
+                    return CompletableFuture.completedFuture(validated.response);
+                }
+                logger.warning("Validation failed. Retrying with adjusted prompt.");
+                List<BaseMessage> adjustedMessages = adjustPrompt(baseMessages, responseModel);
+                return retryAsync(retryCount, null,
+                    () -> attemptChatCompletionAsync(adjustedMessages, model, responseModel, options,
+                        retryCount + 1));
+            }
+
+            Throwable cause = Utils.unwrapCompletionException(error);
+            logger.severe("Error occurred: " + cause.getMessage());
+            CircuitBreakerOpenException rejection = findCircuitBreakerRejection(cause);
+            if (rejection != null) {
+                return Utils.<T>failedFuture(rejection);
+            }
+            if (retryCount == maxRetries - 1) {
+                return Utils.<T>failedFuture(new InstructorException(
+                    "Maximum retries reached. Unable to validate response.",
+                    new InstructorException("Error creating chat completion: " + cause.getMessage(), cause)));
+            }
+            return retryAsync(retryCount, cause,
+                () -> attemptChatCompletionAsync(baseMessages, model, responseModel, options, retryCount + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Sends a chat completion request asynchronously, parses the response and validates it. Cancelling the
+     * returned future cancels the request.
+     *
+     * @param completionCreateParams the request.
+     * @param responseModel          the class of the response model to deserialize the result into.
+     * @param onResponse             called when the API responded.
+     * @param <T>                    the type of the response model.
+     * @return a future completed with the deserialized response and the outcome of its validation.
+     */
+    private <T> CompletableFuture<ValidatedResponse<T>> requestChatCompletionAsync(
+        ChatCompletionCreateParams completionCreateParams, Class<T> responseModel, Runnable onResponse) {
+        assert aiChatService != null;
+        CompletableFuture<ChatCompletion> request = aiChatService.createChatCompletionAsync(completionCreateParams);
+        CompletableFuture<ValidatedResponse<T>> response = request.thenApply(completion -> {
+            onResponse.run();
+            T parsed;
+            try {
+                parsed = parseChatCompletion(completion, responseModel);
+            } catch (InstructorException e) {
+                throw new CompletionException(e);
+            }
+            return new ValidatedResponse<>(parsed, validateResponse(parsed, responseModel));
+        });
+        response.whenComplete((ignored, error) -> {
+            if (response.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Looks for the rejection of a circuit breaker among the causes of an error.
+     *
+     * @param error the error an attempt failed with.
+     * @return the exception reporting the rejection, or {@code null} if the attempt was not rejected.
+     */
+    private static CircuitBreakerOpenException findCircuitBreakerRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitBreakerOpenException) {
+                return (CircuitBreakerOpenException) cause;
+            }
+            if (cause instanceof CallNotPermittedException) {
+                return new CircuitBreakerOpenException(cause.getMessage(), (CallNotPermittedException) cause);
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asks the retry policy whether a failed attempt is retried.
+     *
+     * @param retryCount the number of retries made so far.
+     * @param error      the error the attempt failed with, or {@code null} if its response did not pass validation.
+     * @return the delay to wait before the next attempt.
+     * @throws InstructorException if the retry policy does not allow a retry.
+     */
+    private Duration getRetryDelay(int retryCount, Throwable error) throws InstructorException {
+        Optional<Duration> delay = retryPolicy.getRetryDelay(retryCount, error);
+        if (delay.isPresent()) {
+            return delay.get();
+        }
+        if (error != null) {
+            throw new InstructorException("Retry not allowed after error: " + error.getMessage(), error);
         }
+        throw new InstructorException("Retry not allowed. Unable to get a valid response after "
+            + (retryCount + 1) + " attempts.");
+    }
+
+    /**
+     * Schedules the next asynchronous attempt after the delay returned by the retry policy, or fails if the
+     * policy does not allow a retry. The last attempt is started without consulting the policy, as it only
+     * reports that no retry is left.
+     *
+     * @param retryCount  the number of retries made so far.
+     * @param error       the error the attempt failed with, or {@code null} if its response did not pass
+     *                    validation.
+     * @param nextAttempt starts the next attempt.
+     * @param <T>         the type of the response model.
+     * @return the future of the next attempt.
+     */
+    private <T> CompletableFuture<T> retryAsync(int retryCount, Throwable error,
+        Supplier<CompletableFuture<T>> nextAttempt) {
+
+        if (retryCount >= maxRetries - 1) {
+            return nextAttempt.get();
+        }
+        Duration delay;
+        try {
+            delay = getRetryDelay(retryCount, error);
+        } catch (InstructorException e) {
+            return Utils.failedFuture(e);
+        }
+        if (delay.isZero()) {
+            return nextAttempt.get();
+        }
+        // the request may block, e.g. with the default AiChatService#createChatCompletionAsync, so it must not
+        // run on the shared timer thread
+        return TaskExecutors.delay(delay)
+            .thenCompose(ignored -> TaskExecutors.runBlocking(nextAttempt::get))
+            .thenCompose(attempt -> attempt);
+    }
+
+    /**
+     * The files and outcome of one round of a batch: the first submission or one of its retries.
+     */
+    private static final class BatchRound {
+        final int number;
+        final Path conversationsFile;
+        final Path requestsFile;
+        final BitSet submitted = new BitSet();
+        final BitSet answered = new BitSet();
+        final BitSet failed = new BitSet();
+        final BitSet invalid = new BitSet();
+
+        BatchRound(int number, Path workDirectory) {
+            this.number = number;
+            this.conversationsFile = workDirectory.resolve("round-" + number + "-conversations.jsonl");
+            this.requestsFile = workDirectory.resolve("round-" + number + "-requests.jsonl");
+        }
+    }
+
+    /**
+     * Submits the requests of a batch round, awaits the batch, emits the results of its output and continues with
+     * a follow-up round for the conversations that have to be retried.
+     *
+     * @param batchService  the batch service to submit to.
+     * @param round         the round to execute.
+     * @param model         the model identifier.
+     * @param responseModel the class of the response model.
+     * @param pollInterval  the interval at which the batch status is polled.
+     * @param <T>           the type of the response model.
+     * @return the results of this round followed by the results of the follow-up rounds.
+     */
+    private <T> Flux<Result<T>> executeBatchRound(AiBatchChatService batchService, BatchRound round, String model,
+        Class<T> responseModel, Duration pollInterval) {
+
+        logger.info("Submitting batch round #" + round.number + ".");
+
+        Flux<Result<T>> results = Mono.fromCallable(() -> batchService.submitBatch(round.requestsFile))
+            .flatMap(batchId -> awaitBatch(batchService, batchId, pollInterval))
+            .flatMapMany(batchId -> Flux.using(
+                () -> new BufferedReader(new InputStreamReader(batchService.openBatchOutput(batchId),
+                    StandardCharsets.UTF_8)),
+                reader -> Flux.fromStream(reader.lines()),
+                this::closeBatchOutput))
+            .filter(line -> !line.trim().isEmpty())
+            .handle((line, sink) -> {
+                try {
+                    Result<T> result = evaluateBatchResponse(BatchJsonl.readResponse(line), round, responseModel);
+                    if (result != null) {
+                        sink.next(result);
+                    }
+                } catch (InstructorException e) {
+                    sink.error(e);
+                }
+            });
+
+        return results.concatWith(Flux.defer(() -> {
+            Flux<Result<T>> unanswered = evaluateMissingResponses(round);
+            if (round.failed.isEmpty() || round.number >= maxRetries) {
+                return unanswered;
+            }
+            try {
+                BatchRound nextRound = writeBatchRetryRound(round, model, responseModel);
+                return unanswered.concatWith(
+                    executeBatchRound(batchService, nextRound, model, responseModel, pollInterval));
+            } catch (IOException e) {
+                return Flux.error(new InstructorException("Failed to write batch retry requests: "
+                    + e.getMessage(), e));
+            } catch (InstructorException e) {
+                return Flux.error(e);
+            }
+        }));
+    }
+
+    /**
+     * Polls the status of a batch until it reaches a terminal state.
+     *
+     * @param batchService the batch service the batch was submitted to.
+     * @param batchId      the identifier of the batch.
+     * @param pollInterval the interval at which the status is polled.
+     * @return the batch identifier once the batch is completed, or an error if it ended in any other state.
+     */
+    private Mono<String> awaitBatch(AiBatchChatService batchService, String batchId, Duration pollInterval) {
+        return Flux.interval(Duration.ZERO, pollInterval, Schedulers.boundedElastic())
+            .onBackpressureDrop()
+            .concatMap(tick -> Mono.fromCallable(() -> batchService.getBatchStatus(batchId)))
+            .filter(BatchStatus::isTerminal)
+            .next()
+            .flatMap(status -> status == BatchStatus.COMPLETED
+                ? Mono.just(batchId)
+                : Mono.error(new InstructorException("Batch " + batchId + " ended with status " + status + ".")));
+    }
+
+    /**
+     * Binds and validates a single line of a batch output. Failed conversations are recorded in the round and
+     * only reported once no retry is left.
+     *
+     * @param response      the response read from the output line.
+     * @param round         the round the response belongs to.
+     * @param responseModel the class of the response model.
+     * @param <T>           the type of the response model.
+     * @return the result to emit, or {@code null} if the conversation will be retried.
+     */
+    private <T> Result<T> evaluateBatchResponse(BatchJsonl.Response response, BatchRound round,
+        Class<T> responseModel) {
+
+        long index = BatchJsonl.indexOf(response.getCustomId());
+        boolean lastRound = round.number >= maxRetries;
+        round.answered.set(Math.toIntExact(index));
+
+        Exception error;
+        if (response.getCompletion() == null) {
+            error = new InstructorException("Error creating chat completion: " + response.getErrorMessage());
+        } else {
+            try {
+                T value = parseChatCompletion(response.getCompletion(), responseModel);
+                if (validateResponse(value, responseModel)) {
+                    return Result.success(index, value);
+                }
+                round.invalid.set(Math.toIntExact(index));
+                error = null;
+            } catch (InstructorException e) {
+                error = e;
+            }
+        }
+
+        round.failed.set(Math.toIntExact(index));
+        if (!lastRound) {
+            return null;
+        }
+        return Result.failure(index, error != null
+            ? new InstructorException("Maximum retries reached. Unable to validate response.", error)
+            : new InstructorException("Unable to get a valid response after " + maxRetries + " retries."));
+    }
+
+    /**
+     * Records the conversations of a round that have no line in the batch output as failed, so that they are
+     * retried like any other failure, and reports them as failed results once no retry is left.
+     *
+     * @param round the round whose output has been read.
+     * @param <T>   the type of the response model.
+     * @return the failed results of the conversations without a response, if this is the last round.
+     */
+    private <T> Flux<Result<T>> evaluateMissingResponses(BatchRound round) {
+        BitSet missing = (BitSet) round.submitted.clone();
+        missing.andNot(round.answered);
+        if (missing.isEmpty()) {
+            return Flux.empty();
+        }
+        logger.warning(missing.cardinality() + " conversations of batch round #" + round.number
+            + " have no response in the batch output.");
+        round.failed.or(missing);
+        if (round.number < maxRetries) {
+            return Flux.empty();
+        }
+        return Flux.fromStream(missing.stream().mapToObj(index -> Result.<T>failure(index,
+            new InstructorException("No response in the output of batch round #" + round.number + "."))));
+    }
+
+    /**
+     * Writes the conversations and requests of the follow-up round of a batch, containing the conversations that
+     * failed in the given round. The prompt of conversations that did not pass validation is adjusted.
+     *
+     * @param round         the round that was executed.
+     * @param model         the model identifier.
+     * @param responseModel the class of the response model.
+     * @return the follow-up round.
+     * @throws IOException if a batch file cannot be read or written.
+     * @throws InstructorException if a conversation cannot be read or its request cannot be built.
+     */
+    private BatchRound writeBatchRetryRound(BatchRound round, String model, Class<?> responseModel)
+        throws IOException, InstructorException {
+
+        BatchRound nextRound = new BatchRound(round.number + 1, round.conversationsFile.getParent());
+        try (BufferedReader conversationsReader = Files.newBufferedReader(round.conversationsFile,
+            StandardCharsets.UTF_8);
+            BufferedWriter conversationsWriter = Files.newBufferedWriter(nextRound.conversationsFile,
+                StandardCharsets.UTF_8);
+            BufferedWriter requestsWriter = Files.newBufferedWriter(nextRound.requestsFile,
+                StandardCharsets.UTF_8)) {
+
+            String line;
+            while ((line = conversationsReader.readLine()) != null) {
+                BatchJsonl.Conversation conversation = BatchJsonl.readConversation(line);
+                int index = Math.toIntExact(BatchJsonl.indexOf(conversation.getCustomId()));
+                if (!round.failed.get(index)) {
+                    continue;
+                }
+                nextRound.submitted.set(index);
+
+                List<BaseMessage> messages = round.invalid.get(index)
+                    ? adjustPrompt(conversation.getMessages(), responseModel)
+                    : conversation.getMessages();
+                writeBatchRequest(conversationsWriter, requestsWriter, conversation.getCustomId(), messages,
+                    model, responseModel);
+            }
+        }
+        return nextRound;
+    }
+
+    /**
+     * Writes a conversation and the chat completion request built from it to the files of a batch round.
+     *
+     * @param conversationsWriter the writer of the conversations file.
+     * @param requestsWriter      the writer of the requests file.
+     * @param customId            the custom id of the request.
+     * @param messages            the messages of the conversation.
+     * @param model               the model identifier.
+     * @param responseModel       the class of the response model.
+     * @throws IOException if a line cannot be written.
+     * @throws InstructorException if the request cannot be built or serialized.
+     */
+    private void writeBatchRequest(BufferedWriter conversationsWriter, BufferedWriter requestsWriter,
+        String customId, List<BaseMessage> messages, String model, Class<?> responseModel)
+        throws IOException, InstructorException {
+
+        ChatCompletionCreateParams params = prepareChatCompletionCreateParams(messages, model, responseModel,
+            RequestTemplates.Options.defaults());
+
+        conversationsWriter.write(BatchJsonl.writeConversation(customId, messages));
+        conversationsWriter.newLine();
+        requestsWriter.write(BatchJsonl.writeRequest(customId, params));
+        requestsWriter.newLine();
+    }
+
+    /**
+     * Closes the reader of a batch output, logging any failure instead of propagating it, so that closing never
+     * masks the outcome of the stream.
+     *
+     * @param reader the reader to close.
+     */
+    private void closeBatchOutput(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close batch output: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validates the inputs and builds the {@link ChatCompletionCreateParams} of a single attempt.
+     *
+     * @param baseMessages  the list of {@link BaseMessage} representing the conversation.
+     * @param model         the model identifier to use for the chat completion.
+     * @param responseModel the class of the response model.
+     * @param options       the options of the request.
+     * @return the parameters of the chat completion request.
+     * @throws InstructorException if no function definition can be built for the response model.
+     * @throws IllegalArgumentException if any of the required parameters are {@code null}.
+     */
+    private ChatCompletionCreateParams prepareChatCompletionCreateParams(List<BaseMessage> baseMessages,
+        String model, Class<?> responseModel, RequestTemplates.Options options) throws InstructorException {
+
+        validateInputs(baseMessages, model, responseModel);
+
+        return buildChatCompletionCreateParams(baseMessages,
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, model, responseModel, options));
+    }
+
+    /**
+     * Extracts the tool call arguments from a chat completion and binds them to the response model.
+     *
+     * @param completion    the {@link ChatCompletion} received from the API.
+     * @param responseModel the class of the response model.
+     * @param <T>           the type of the response model.
+     * @return the deserialized response of type {@code T}.
+     * @throws InstructorException if the completion carries no tool call or its arguments cannot be parsed.
+     */
+    private <T> T parseChatCompletion(ChatCompletion completion, Class<T> responseModel)
+        throws InstructorException {
+        com.openai.models.ChatCompletion.Choice choice = extractFirstChoice(completion);
+        String functionCallArguments = extractToolCallArguments(choice);
+
+        return Utils.parseJson(functionCallArguments, responseModel);
     }
 
     /**
@@ -212,14 +1537,8 @@ public class Instructor {
     private <T> List<BaseMessage> adjustPrompt(List<BaseMessage> originalMessages, Class<T> responseModel) {
         logger.info("Adjusting prompt to increase the likelihood of a valid structured output.");
 
-        StringBuilder hint = new StringBuilder(" Please ensure the response includes the following fields: ");
-        for (Field field : responseModel.getDeclaredFields()) {
-            hint.append(field.getName()).append(", ");
-        }
-        hint.setLength(hint.length() - 2); // Remove the trailing comma and space
-
         BaseMessage lastMessage = originalMessages.get(originalMessages.size() - 1);
-        String adjustedContent = lastMessage.getContent() + hint.toString();
+        String adjustedContent = lastMessage.getContent() + TypeModel.of(responseModel).getPromptHint();
 
         List<BaseMessage> adjustedMessages = new ArrayList<>(originalMessages);
         adjustedMessages.set(adjustedMessages.size() - 1, new BaseMessage(lastMessage.getRole(),
@@ -249,129 +1568,76 @@ public class Instructor {
     }
 
     /**
-     * Constructs a {@link ChatCompletionCreateParams} instance based on the provided base messages, model, and response model class.
+     * Constructs a {@link ChatCompletionCreateParams} instance based on the provided base messages and a request
+     * template carrying the model and response format.
      * <p>
      * This method performs the following operations:
      * <ol>
      *   <li>Creates a mutable copy of the input {@code baseMessages} list to allow modifications.</li>
-     *   <li>Checks if the {@code baseMessages} list contains a message with the {@link BaseMessage.Role#SYSTEM} role using {@link #hasSystemRole(List)}. If absent, it adds a default system message with predefined content to the mutable list.</li>
-     *   <li>Creates an immutable copy of the updated messages list to ensure thread-safety and immutability.</li>
-     *   <li>Converts the immutable list of {@link BaseMessage} instances to a list of {@link ChatCompletionMessageParam} objects using {@link MessageConverter#convertMessages(List)}.</li>
-     *   <li>Generates a {@link ResponseFormatJsonSchema} based on the provided {@code responseModel} class using {@link ResponseFormatJsonSchemaBuilder#buildSchemaFromClass(Class)}.</li>
-     *   <li>Builds and returns a {@link ChatCompletionCreateParams} object with the specified model, response format, maximum tokens, and converted messages.</li>
+     *   <li>Checks if the {@code baseMessages} list contains a message with the {@link BaseMessage.Role#SYSTEM} role using {@link #hasSystemRole(List)}. If absent, it adds a system message with the given {@code systemPrompt} to the mutable list.</li>
+     *   <li>Converts the updated list of {@link BaseMessage} instances to a list of {@link ChatCompletionMessageParam} objects using {@link MessageConverter#convertMessages(List)}.</li>
+     *   <li>Attaches the converted messages to the prebuilt template using {@link RequestTemplates#withMessages(ChatCompletionCreateParams, List)}.</li>
      * </ol>
      * </p>
      *
      * @param baseMessages the initial list of {@link BaseMessage} objects to include in the chat completion
      *                     Must not be {@code null} and should not contain {@code null} elements.
-     * @param model the identifier of the model to be used for generating the chat completion
-     *              Must not be {@code null} or empty.
-     * @param responseModel the {@link Class} representing the JSON schema for the response format
-     *                      Must not be {@code null}.
-     * @return a {@link ChatCompletionCreateParams} object configured with the provided messages, model, and response format
-     * @throws NullPointerException if {@code baseMessages}, {@code model}, or {@code responseModel} is {@code null}, or if any element in {@code baseMessages} is {@code null}
-     * @throws IllegalArgumentException if any {@link BaseMessage} in {@code baseMessages} has an unsupported role or if response schema generation fails
+     * @param template the request template returned by {@link RequestTemplates#get(RequestTemplates.Kind, String, Class)}
+     *                 for one of the response format kinds. Must not be {@code null}.
+     * @param systemPrompt the content of the system message added when {@code baseMessages} contains none
+     * @return a {@link ChatCompletionCreateParams} object configured with the provided messages and the template
+     * @throws NullPointerException if {@code baseMessages} or {@code template} is {@code null}, or if any element in {@code baseMessages} is {@code null}
+     * @throws IllegalArgumentException if any {@link BaseMessage} in {@code baseMessages} has an unsupported role
      * @see MessageConverter#convertMessages(List)
-     * @see ResponseFormatJsonSchemaBuilder#buildSchemaFromClass(Class)
+     * @see RequestTemplates
      */
     private ChatCompletionCreateParams buildChatCompletionStreamCreateParams(List<BaseMessage> baseMessages,
-        String model, Class responseModel) {
+        ChatCompletionCreateParams template, String systemPrompt) {
         List<BaseMessage> mutableBaseMessages = new ArrayList<>(baseMessages);
 
         // Add system message if missing...
         if (!hasSystemRole(baseMessages)) {
-            mutableBaseMessages.add(new BaseMessage(BaseMessage.Role.SYSTEM.getValue(),
-                "You are data analyzer. Return data as a json array based on response format json schema. "
-                    + "Output only data that fits into response format json schema. Always name return array 'data'"));
+            mutableBaseMessages.add(new BaseMessage(BaseMessage.Role.SYSTEM.getValue(), systemPrompt));
         }
 
-        List<BaseMessage> finalBaseMessages = Collections.unmodifiableList(new ArrayList<>(mutableBaseMessages));
-
-        List<ChatCompletionMessageParam> messages = MessageConverter.convertMessages(finalBaseMessages);
-
-        ResponseFormatJsonSchema responseFormatJsonSchema = ResponseFormatJsonSchemaBuilder.buildSchemaFromClass(
-            responseModel);
-
-        return ChatCompletionCreateParams.builder()
-            .responseFormat(responseFormatJsonSchema)
-            .model(model)
-            .maxTokens(1024)
-            .messages(messages)
-            .build();
+        List<ChatCompletionMessageParam> messages = MessageConverter.convertMessages(mutableBaseMessages);
 
+        return RequestTemplates.withMessages(template, messages);
     }
 
     /**
-     * Constructs a {@link ChatCompletionCreateParams} instance based on the provided base messages, model, and function definition.
+     * Constructs a {@link ChatCompletionCreateParams} instance based on the provided base messages and a request
+     * template carrying the model and the function tool describing the response model.
      * <p>
-     * This method performs the following operations:
-     * <ol>
-     *   <li>Converts the list of {@link BaseMessage} objects to a list of {@link ChatCompletionMessageParam} using {@link MessageConverter#convertMessages(List)}.</li>
-     *   <li>Transforms the parameters from {@link MyFunctionDefinition} into a {@code Map<String, JsonValue>}.</li>
-     *   <li>Builds a {@link FunctionDefinition} with the provided name, description, and parameters, setting {@code additionalProperties} to {@code false} and marking the schema as non-strict.</li>
-     *   <li>Creates a {@link ChatCompletionTool} of type {@link ChatCompletionTool.Type#FUNCTION} with the constructed {@link FunctionDefinition}.</li>
-     *   <li>Assembles the final {@link ChatCompletionCreateParams} using the builder pattern, incorporating tool choices, tools, model identifier, maximum tokens, and messages.</li>
-     * </ol>
+     * The function tool, including its converted JSON schema, is built once per model and response model class
+     * by {@link RequestTemplates}; this method only converts the messages using
+     * {@link MessageConverter#convertMessages(List)} and attaches them to the template.
      * </p>
      *
      * @param baseMessages          the initial list of {@link BaseMessage} objects to include in the chat completion
      *                              <p>
      *                              Must not be {@code null} and should not contain {@code null} elements.
      *                              </p>
-     * @param model                 the identifier of the model to be used for generating the chat completion
+     * @param template              the request template returned by
+     *                              {@link RequestTemplates#get(RequestTemplates.Kind, String, Class)} for
+     *                              {@link RequestTemplates.Kind#FUNCTION_TOOL}
      *                              <p>
-     *                              Must not be {@code null} or empty.
+     *                              Must not be {@code null}.
      *                              </p>
-     * @param myFunctionDefinition  the {@link MyFunctionDefinition} instance containing function details
-     *                              <p>
-     *                              Must not be {@code null}. Should provide a valid name, description, and parameters.
-     *                              </p>
-     * @return a {@link ChatCompletionCreateParams} object configured with the provided messages, model, and function definition
-     * @throws NullPointerException     if {@code baseMessages}, {@code model}, or {@code myFunctionDefinition} is {@code null},
+     * @return a {@link ChatCompletionCreateParams} object configured with the provided messages and the template
+     * @throws NullPointerException     if {@code baseMessages} or {@code template} is {@code null},
      *                                  or if any element within {@code baseMessages} is {@code null}
-     * @throws IllegalArgumentException if {@code model} is empty, if {@code myFunctionDefinition} contains invalid data,
-     *                                  or if any parameter conversion fails
      * @see ChatCompletionCreateParams
      * @see BaseMessage
      * @see MessageConverter#convertMessages(List)
-     * @see MyFunctionDefinition
+     * @see RequestTemplates
      */
     private ChatCompletionCreateParams buildChatCompletionCreateParams(List<BaseMessage> baseMessages,
-        String model, MyFunctionDefinition myFunctionDefinition) {
+        ChatCompletionCreateParams template) {
 
         List<ChatCompletionMessageParam> messages = MessageConverter.convertMessages(baseMessages);
 
-        java.util.Map<String, JsonValue> parameters = Utils.convertMap(myFunctionDefinition.getParameters());
-
-        return ChatCompletionCreateParams.builder()
-            .toolChoice(
-                ChatCompletionToolChoiceOption.ofBehavior(
-                    Behavior.AUTO
-                )
-            )
-            .tools(
-                listOf(
-                    ChatCompletionTool.builder()
-                        .function(
-                            com.openai.models.FunctionDefinition.builder()
-                                .name(myFunctionDefinition.getName())
-                                .description(myFunctionDefinition.getDescription())
-                                .parameters(FunctionParameters.builder()
-                                    .putAllAdditionalProperties(parameters)
-                                    .putAdditionalProperty("additionalProperties", JsonValue.from(false))
-                                    .putAdditionalProperty("required", JsonValue.from(parameters.get("required")))
-                                    .build())
-                                .strict(false)
-                                .build()
-                        )
-                        .type(ChatCompletionTool.Type.FUNCTION)
-                        .build()
-                )
-            )
-            .model(model)
-            .maxTokens(1024)
-            .messages(messages)
-            .build();
+        return RequestTemplates.withMessages(template, messages);
     }
 
     /**
@@ -406,7 +1672,8 @@ public class Instructor {
     }
 
     /**
-     * Validates the response by ensuring that all fields in the response model are non-null.
+     * Validates the response by ensuring that all fields in the response model are non-null, and that the
+     * response satisfies the jakarta constraints of the response model, see {@link ResponseValidator}.
      *
      * @param response The response to validate.
      * @param modelClass The class of the response model.
@@ -415,13 +1682,16 @@ public class Instructor {
      */
     private <T> boolean validateResponse(T response, Class<T> modelClass) {
         try {
-            for (Field field : modelClass.getDeclaredFields()) {
-                field.setAccessible(true);
-                Object value = field.get(response);
-                if (value == null) {
-                    logger.warning("Field '" + field.getName() + "' is null or missing.");
-                    return false;
-                }
+            TypeModel typeModel = TypeModel.of(modelClass);
+            String nullField = typeModel.findNullFieldName(response);
+            if (nullField != null) {
+                logger.warning("Field '" + nullField + "' is null or missing.");
+                return false;
+            }
+            List<String> violations = typeModel.getValidator().validate(response);
+            if (!violations.isEmpty()) {
+                logger.warning("Constraint violations: " + String.join(", ", violations));
+                return false;
             }
             return true;
         } catch (IllegalAccessException e) {
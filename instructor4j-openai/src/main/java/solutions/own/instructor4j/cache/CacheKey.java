@@ -0,0 +1,199 @@
+package solutions.own.instructor4j.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.util.FunctionDefinitionBuilder;
+import solutions.own.instructor4j.util.RequestTemplates;
+import solutions.own.instructor4j.util.Utils;
+
+/**
+ * The key of a cached response: a 128-bit hash of the model, the messages, the schema of the response model and
+ * the {@linkplain RequestTemplates.Options request options}.
+ * <p>
+ * The hash is the first half of a SHA-256 digest, so it is stable across processes and versions of the JVM and
+ * can be stored, see {@link #toHexString()}. The schema fingerprint covers the name of the response model and its
+ * generated tool definition, so changing a field or a description of the model changes the key. The fingerprint
+ * is computed once per class. The default options do not change the key, so keys stored before options were
+ * introduced still match.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * CacheKey key = CacheKey.of("gpt-4o-mini", messages, User.class);
+ * User cached = cache.get(key, User.class);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe.</p>
+ */
+public final class CacheKey {
+
+    private static final byte[] VERSION = "instructor4j-cache-1".getBytes(StandardCharsets.UTF_8);
+
+    private static final ClassValue<byte[]> schemaFingerprints = new ClassValue<byte[]>() {
+        @Override
+        protected byte[] computeValue(Class<?> type) {
+            MessageDigest digest = sha256();
+            update(digest, type.getName());
+            try {
+                update(digest, Utils.toJson(FunctionDefinitionBuilder.getFunctionDefinition(type).getParameters()));
+            } catch (InstructorException e) {
+                throw new IllegalArgumentException("Failed to fingerprint the schema of " + type.getName(), e);
+            }
+            return digest.digest();
+        }
+    };
+
+    private final long high;
+    private final long low;
+
+    CacheKey(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Computes the key of a chat completion request with the default options.
+     *
+     * @param model         the model identifier.
+     * @param messages      the messages of the conversation.
+     * @param responseModel the class of the response model.
+     * @return the key.
+     * @throws IllegalArgumentException if a parameter is {@code null}.
+     */
+    public static CacheKey of(String model, List<BaseMessage> messages, Class<?> responseModel) {
+        return of(model, messages, responseModel, RequestTemplates.Options.defaults());
+    }
+
+    /**
+     * Computes the key of a chat completion request.
+     *
+     * @param model         the model identifier.
+     * @param messages      the messages of the conversation.
+     * @param responseModel the class of the response model.
+     * @param options       the options of the request.
+     * @return the key.
+     * @throws IllegalArgumentException if a parameter is {@code null}.
+     */
+    public static CacheKey of(String model, List<BaseMessage> messages, Class<?> responseModel,
+        RequestTemplates.Options options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Parameter 'model' must not be null.");
+        }
+        if (messages == null) {
+            throw new IllegalArgumentException("Parameter 'messages' must not be null.");
+        }
+        if (responseModel == null) {
+            throw new IllegalArgumentException("Parameter 'responseModel' must not be null.");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Parameter 'options' must not be null.");
+        }
+        MessageDigest digest = sha256();
+        digest.update(VERSION);
+        digest.update(schemaFingerprints.get(responseModel));
+        update(digest, model);
+        for (BaseMessage message : messages) {
+            update(digest, message.getRole());
+            update(digest, message.getContent());
+        }
+        if (!options.equals(RequestTemplates.Options.defaults())) {
+            update(digest, "options");
+            update(digest, Long.toString(options.getMaxTokens()));
+            update(digest, options.getTemperature() != null ? options.getTemperature().toString() : null);
+            update(digest, options.getSeed() != null ? options.getSeed().toString() : null);
+        }
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new CacheKey(hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * Parses a key from its hexadecimal form.
+     *
+     * @param hex the 32 hexadecimal digits of the key.
+     * @return the key.
+     * @throws IllegalArgumentException if the string is not a valid key.
+     */
+    public static CacheKey fromHexString(String hex) {
+        if (hex == null || hex.length() != 32) {
+            throw new IllegalArgumentException("Invalid cache key: " + hex);
+        }
+        try {
+            return new CacheKey(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                Long.parseUnsignedLong(hex.substring(16), 16));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cache key: " + hex, e);
+        }
+    }
+
+    /**
+     * Returns the high 64 bits of the key.
+     *
+     * @return the high bits.
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns the low 64 bits of the key.
+     *
+     * @return the low bits.
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Returns the key as 32 hexadecimal digits.
+     *
+     * @return the hexadecimal form.
+     */
+    public String toHexString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey key = (CacheKey) other;
+        return high == key.high && low == key.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toHexString();
+    }
+
+    /**
+     * Adds a string to a digest, followed by a separator, so that the boundaries of the parts are part of the hash.
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package solutions.own.instructor4j.cache;
+
+/**
+ * An immutable snapshot of the statistics of a {@link ResponseCache}.
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe.</p>
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long weight;
+
+    /**
+     * Constructs a statistics snapshot.
+     *
+     * @param hitCount      the number of lookups that returned a response.
+     * @param missCount     the number of lookups that found no response, or an expired one.
+     * @param evictionCount the number of responses removed to make room or because they expired.
+     * @param entryCount    the number of responses currently stored.
+     * @param weight        the total weight of the responses currently stored, typically in bytes.
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, long entryCount, long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the number of lookups that returned a response.
+     *
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that found no response, or an expired one.
+     *
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups that returned a response.
+     *
+     * @return the hit rate, {@code 0} if there was no lookup.
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the number of responses removed to make room or because they expired.
+     *
+     * @return the eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of responses currently stored.
+     *
+     * @return the entry count.
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total weight of the responses currently stored, typically in bytes.
+     *
+     * @return the weight.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+            + ", entryCount=" + entryCount + ", weight=" + weight + "}";
+    }
+}
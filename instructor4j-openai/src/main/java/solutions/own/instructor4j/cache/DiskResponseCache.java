@@ -0,0 +1,981 @@
+package solutions.own.instructor4j.cache;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.util.Utils;
+
+/**
+ * A {@link ResponseCache} storing responses as JSON in files, so that they survive restarts and are shared by the
+ * processes of a host that open the same directory.
+ * <p>
+ * Responses are appended to segment files of at most {@code segmentSize} bytes; a segment is only ever appended
+ * to. Each record holds the key, the time it was stored, the JSON of the response and a CRC-32 checksum, and an
+ * invalidation appends a tombstone record for its key. The index is an open addressing hash table in a
+ * memory-mapped file, mapping each key to the location of its latest record. Lookups read the index and the segment
+ * through memory mappings and parse the JSON straight from the mapped pages, without copying it onto the heap, and
+ * without taking a lock.
+ * </p>
+ * <p>
+ * Writes are crash-safe: a record is appended before the index points to it, and every lookup checks the key and
+ * checksum of the record it reads. The index is rebuilt from the segments if it is missing or damaged, replaying
+ * the records in the order they were written, so the latest record or tombstone of a key wins. Segments are never
+ * truncated, as another process may have appended to them: a scan skips damaged bytes up to the next intact record,
+ * and after a torn or failed append, writing continues in a fresh segment. Writers are serialized across processes
+ * by a lock on the {@code cache.lock} file of the directory. By default, the operating system decides when written
+ * data reaches the disk; {@link Builder#syncWrites(boolean)} forces every write.
+ * </p>
+ * <p>
+ * Replaced, invalidated and expired responses stay in their segment until the cache is compacted: live records
+ * are copied to new segments, the index is rebuilt and the old segments are deleted. Compaction runs when more
+ * than half of the segment data is garbage, or when the index is full, and can be requested with
+ * {@link #compact()}. If the index is still full after dropping the garbage, the oldest responses are evicted until
+ * it is half full. Other processes release their mappings of the deleted segments on their next lookup.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * try (DiskResponseCache cache = DiskResponseCache.builder()
+ *         .directory(Paths.get("/var/cache/extractions"))
+ *         .expireAfterWrite(Duration.ofDays(7))
+ *         .build()) {
+ *     Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(), cache);
+ *     // a re-run of a failed job only pays for the extractions that did not succeed before
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe, and several processes may use the same directory.</p>
+ */
+public final class DiskResponseCache implements ResponseCache, Closeable {
+
+    private static final Logger logger = Logger.getLogger(DiskResponseCache.class.getName());
+
+    /**
+     * The write locks of the directories opened by this process. File locks are held by the whole process, so the
+     * caches of a process opening the same directory share one lock to take turns.
+     */
+    private static final ConcurrentMap<Path, ReentrantLock> processLocks = new ConcurrentHashMap<>();
+
+    private static final String INDEX_FILE = "index.dat";
+    private static final String LOCK_FILE = "cache.lock";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private static final int INDEX_MAGIC = 0x49344a49;
+    private static final int RECORD_MAGIC = 0x49344a52;
+    private static final int TOMBSTONE_MAGIC = 0x49344a54;
+    private static final int VERSION = 2;
+
+    // index header: magic, version, capacity, current segment, entry count, tombstone count, live bytes,
+    // first segment
+    private static final int INDEX_HEADER_SIZE = 64;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_CURRENT_SEGMENT = 12;
+    private static final int HEADER_ENTRY_COUNT = 16;
+    private static final int HEADER_TOMBSTONE_COUNT = 24;
+    private static final int HEADER_LIVE_BYTES = 32;
+    private static final int HEADER_FIRST_SEGMENT = 40;
+
+    // index slot: key high, key low, segment (0 if empty, -1 if removed), offset, record length
+    private static final int SLOT_SIZE = 32;
+    private static final int SLOT_SEGMENT = 16;
+    private static final int SLOT_OFFSET = 20;
+    private static final int SLOT_LENGTH = 24;
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+
+    // the largest number of entries whose index, 2^25 slots at a load factor of 3/4, can be mapped as one buffer
+    static final int MAX_ENTRIES = 3 << 23;
+
+    // record: magic (response or tombstone), key high, key low, stored at, payload length, checksum, payload
+    private static final int RECORD_HEADER_SIZE = 36;
+    private static final int RECORD_STORED_AT = 20;
+    private static final int RECORD_LENGTH = 28;
+    private static final int RECORD_CHECKSUM = 32;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final long expireAfterWriteMillis;
+    private final boolean syncWrites;
+    private final LongSupplier currentTimeMillis;
+    private final FileChannel lockChannel;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final int capacity;
+    private final ReentrantLock writeLock;
+    private final ConcurrentMap<Integer, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private FileChannel appendChannel;
+    private int appendSegment;
+    private volatile int releasedBelowSegment;
+    private volatile boolean closed;
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the cache.
+     * @throws IOException if the directory cannot be opened.
+     */
+    private DiskResponseCache(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.expireAfterWriteMillis = builder.expireAfterWrite == null ? 0 : builder.expireAfterWrite.toMillis();
+        this.syncWrites = builder.syncWrites;
+        this.currentTimeMillis = builder.currentTimeMillis;
+
+        Files.createDirectories(directory);
+        this.writeLock = processLocks.computeIfAbsent(directory.toRealPath(), path -> new ReentrantLock());
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lock();
+        try {
+            this.indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int existingCapacity = readIndexCapacity();
+            boolean valid = existingCapacity > 0;
+            this.capacity = valid ? existingCapacity : slotCount(builder.maximumEntries);
+            this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            if (!valid) {
+                rebuildIndex();
+            }
+            recoverCurrentSegment();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing a {@link DiskResponseCache}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public <T> T get(CacheKey key, Class<T> responseModel) {
+        ByteBuffer payload = closed ? null : lookup(key);
+        if (payload == null) {
+            missCount.increment();
+            return null;
+        }
+        try {
+            T response = Utils.parseJson(new ByteBufferBackedInputStream(payload), responseModel);
+            hitCount.increment();
+            return response;
+        } catch (InstructorException e) {
+            logger.warning("Ignoring cached response " + key + ": " + e.getMessage());
+            missCount.increment();
+            return null;
+        }
+    }
+
+    @Override
+    public <T> void put(CacheKey key, T response) {
+        if (closed || key == null || response == null) {
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = Utils.toJson(response).getBytes(StandardCharsets.UTF_8);
+        } catch (InstructorException e) {
+            logger.warning("Not caching response " + key + ": " + e.getMessage());
+            return;
+        }
+        if (RECORD_HEADER_SIZE + (long) payload.length > segmentSize) {
+            logger.warning("Not caching response " + key + ", it is larger than a segment.");
+            return;
+        }
+        try {
+            FileLock lock = lock();
+            try {
+                append(key, payload);
+            } finally {
+                unlock(lock);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to cache response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void invalidate(CacheKey key) {
+        if (closed) {
+            return;
+        }
+        try {
+            FileLock lock = lock();
+            try {
+                // logged even if the key is not indexed, as a rebuild of the index may find an older record
+                appendRecord(TOMBSTONE_MAGIC, key, new byte[0]);
+                int slot = findSlot(key);
+                if (slot >= 0) {
+                    removeSlot(slot);
+                }
+            } finally {
+                unlock(lock);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to invalidate response " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+            index.getLong(HEADER_ENTRY_COUNT), index.getLong(HEADER_LIVE_BYTES));
+    }
+
+    /**
+     * Copies the live records to new segments, dropping replaced, invalidated and expired ones, rebuilds the index
+     * and deletes the old segments.
+     *
+     * @throws IOException if the segments cannot be read or written.
+     */
+    public void compact() throws IOException {
+        FileLock lock = lock();
+        try {
+            compactLocked();
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Closes the files of the cache. Further lookups miss and further writes are ignored.
+     *
+     * @throws IOException if a file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            closed = true;
+            if (appendChannel != null) {
+                appendChannel.close();
+            }
+            indexChannel.close();
+            lockChannel.close();
+            segments.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the segments this instance has mapped.
+     */
+    Set<Integer> mappedSegments() {
+        return Collections.unmodifiableSet(segments.keySet());
+    }
+
+    /**
+     * Finds the payload of the record of a key, checking that the record is intact and has not expired.
+     *
+     * @return a view of the payload in the mapped segment, or {@code null} if there is none.
+     */
+    private ByteBuffer lookup(CacheKey key) {
+        releaseCompactedSegments();
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        int position = slotPosition(slot);
+        int segment = index.getInt(position + SLOT_SEGMENT);
+        int offset = index.getInt(position + SLOT_OFFSET);
+        ByteBuffer payload = readRecord(segment, offset, key);
+        if (payload == null) {
+            return null;
+        }
+        if (expireAfterWriteMillis > 0) {
+            long storedAt = segmentMapping(segment, offset + RECORD_HEADER_SIZE).getLong(offset + RECORD_STORED_AT);
+            if (currentTimeMillis.getAsLong() - storedAt > expireAfterWriteMillis) {
+                return null;
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * Reads and checks the record of a response.
+     *
+     * @param segment the segment of the record.
+     * @param offset  the offset of the record in the segment.
+     * @param key     the expected key.
+     * @return a view of the payload, or {@code null} if the record is missing, damaged, a tombstone or of another
+     *         key.
+     */
+    private ByteBuffer readRecord(int segment, int offset, CacheKey key) {
+        if (segment <= 0 || offset < 0) {
+            return null;
+        }
+        MappedByteBuffer mapping = segmentMapping(segment, (long) offset + RECORD_HEADER_SIZE);
+        if (mapping == null || mapping.getInt(offset) != RECORD_MAGIC
+            || mapping.getLong(offset + 4) != key.getHigh() || mapping.getLong(offset + 12) != key.getLow()) {
+            return null;
+        }
+        int length = mapping.getInt(offset + RECORD_LENGTH);
+        if (length < 0 || (long) offset + RECORD_HEADER_SIZE + length > segmentSize) {
+            return null;
+        }
+        mapping = segmentMapping(segment, (long) offset + RECORD_HEADER_SIZE + length);
+        if (mapping == null || payloadLength(mapping, offset) != length) {
+            return null;
+        }
+        ByteBuffer payload = mapping.duplicate();
+        payload.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + length);
+        return payload.slice();
+    }
+
+    /**
+     * Checks whether an intact record, of a response or a tombstone, starts at an offset of a mapping.
+     *
+     * @return the length of the payload of the record, or {@code -1} if there is no intact record at the offset.
+     */
+    private static int payloadLength(MappedByteBuffer mapping, int offset) {
+        if ((long) offset + RECORD_HEADER_SIZE > mapping.capacity()) {
+            return -1;
+        }
+        int magic = mapping.getInt(offset);
+        if (magic != RECORD_MAGIC && magic != TOMBSTONE_MAGIC) {
+            return -1;
+        }
+        int length = mapping.getInt(offset + RECORD_LENGTH);
+        if (length < 0 || (long) offset + RECORD_HEADER_SIZE + length > mapping.capacity()) {
+            return -1;
+        }
+        ByteBuffer header = mapping.duplicate();
+        header.position(offset + 4).limit(offset + RECORD_CHECKSUM);
+        ByteBuffer payload = mapping.duplicate();
+        payload.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + length);
+        CRC32 checksum = new CRC32();
+        checksum.update(header);
+        checksum.update(payload);
+        return (int) checksum.getValue() == mapping.getInt(offset + RECORD_CHECKSUM) ? length : -1;
+    }
+
+    /**
+     * Calls a visitor for every intact record of a segment, in the order they were written. Damaged bytes, such as
+     * a record torn by a crash, are skipped up to the next intact record.
+     *
+     * @return whether the segment holds damaged bytes.
+     */
+    private boolean scanSegment(int segment, RecordVisitor visitor) throws IOException {
+        Path path = segmentPath(segment);
+        MappedByteBuffer mapping = Files.exists(path) ? segmentMapping(segment, Files.size(path)) : null;
+        if (mapping == null) {
+            return false;
+        }
+        boolean damaged = false;
+        int offset = 0;
+        while (offset < mapping.capacity()) {
+            int length = payloadLength(mapping, offset);
+            if (length < 0) {
+                damaged = true;
+                offset++;
+                continue;
+            }
+            visitor.visit(mapping, offset, length);
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return damaged;
+    }
+
+    /**
+     * Receives the records found by {@link #scanSegment(int, RecordVisitor)}.
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(MappedByteBuffer mapping, int offset, int payloadLength);
+    }
+
+    /**
+     * Returns a read-only mapping of a segment covering at least {@code required} bytes, remapping the segment if
+     * it has grown since it was mapped.
+     *
+     * @return the mapping, or {@code null} if the segment does not exist or is shorter.
+     */
+    private MappedByteBuffer segmentMapping(int segment, long required) {
+        if (segment < index.getInt(HEADER_FIRST_SEGMENT)) {
+            return null;
+        }
+        MappedByteBuffer mapping = segments.get(segment);
+        if (mapping != null && mapping.capacity() >= required) {
+            return mapping;
+        }
+        synchronized (segments) {
+            mapping = segments.get(segment);
+            if (mapping != null && mapping.capacity() >= required) {
+                return mapping;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < required) {
+                    return null;
+                }
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                segments.put(segment, mapping);
+                return mapping;
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                logger.warning("Failed to map cache segment " + segment + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Appends the record of a response to the current segment and points the index to it. Called with the write
+     * lock held.
+     */
+    private void append(CacheKey key, byte[] payload) throws IOException {
+        if (!hasIndexRoom()) {
+            // evicts the oldest responses if dropping the garbage does not make room
+            compactLocked();
+        }
+        long position = appendRecord(RECORD_MAGIC, key, payload);
+        putSlot(key, appendSegment, (int) position, RECORD_HEADER_SIZE + payload.length);
+    }
+
+    /**
+     * Appends a record to the current segment, moving on to the next segment if it does not fit. Called with the
+     * write lock held.
+     *
+     * @return the offset of the record in the current segment.
+     */
+    private long appendRecord(int magic, CacheKey key, byte[] payload) throws IOException {
+        int length = RECORD_HEADER_SIZE + payload.length;
+        FileChannel channel = appendChannel();
+        long position = channel.size();
+        if (position + length > segmentSize) {
+            rollSegment();
+            channel = appendChannel();
+            position = channel.size();
+            if (isMostlyGarbage()) {
+                compactLocked();
+                channel = appendChannel();
+                position = channel.size();
+            }
+        }
+        try {
+            write(channel, position, record(magic, key, currentTimeMillis.getAsLong(), payload));
+            if (syncWrites) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // the torn record is skipped when the segment is scanned, but nothing is appended after it
+            rollSegment();
+            throw e;
+        }
+        return position;
+    }
+
+    private void rollSegment() {
+        index.putInt(HEADER_CURRENT_SEGMENT, index.getInt(HEADER_CURRENT_SEGMENT) + 1);
+    }
+
+    private static ByteBuffer record(int magic, CacheKey key, long storedAt, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(magic)
+            .putLong(key.getHigh())
+            .putLong(key.getLow())
+            .putLong(storedAt)
+            .putInt(payload.length);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 4, RECORD_CHECKSUM - 4);
+        checksum.update(payload);
+        record.putInt((int) checksum.getValue()).put(payload);
+        record.flip();
+        return record;
+    }
+
+    private static void write(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Returns the channel of the current segment, opening it if another segment was used before. Called with the
+     * write lock held.
+     */
+    private FileChannel appendChannel() throws IOException {
+        int segment = index.getInt(HEADER_CURRENT_SEGMENT);
+        if (appendChannel == null || appendSegment != segment) {
+            if (appendChannel != null) {
+                appendChannel.close();
+            }
+            appendChannel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            appendSegment = segment;
+        }
+        return appendChannel;
+    }
+
+    /**
+     * Copies the live records to new segments and rebuilds the index. Called with the write lock held. The index is
+     * marked invalid meanwhile, so that a crash leaves it to be rebuilt from the segments, the copies winning. If
+     * the index would still be full, the oldest records are not copied, leaving it half full.
+     */
+    private void compactLocked() throws IOException {
+        long now = currentTimeMillis.getAsLong();
+        List<long[]> locations = new ArrayList<>((int) index.getLong(HEADER_ENTRY_COUNT));
+        for (long[] location : liveLocations()) {
+            int segment = (int) location[2];
+            int offset = (int) location[3];
+            if (readRecord(segment, offset, new CacheKey(location[0], location[1])) == null) {
+                continue;
+            }
+            if (expireAfterWriteMillis > 0
+                && now - segments.get(segment).getLong(offset + RECORD_STORED_AT) > expireAfterWriteMillis) {
+                evictionCount.increment();
+                continue;
+            }
+            locations.add(location);
+        }
+        boolean full = locations.size() + 1 > capacity * 3L / 4;
+        locations = evictOldest(locations, full ? capacity / 2 : locations.size());
+
+        int firstSegment = index.getInt(HEADER_CURRENT_SEGMENT) + 1;
+        index.putInt(HEADER_CURRENT_SEGMENT, firstSegment);
+        index.putInt(0, 0);
+        FileChannel channel = appendChannel();
+        List<long[]> copies = new ArrayList<>(locations.size());
+        for (long[] location : locations) {
+            int length = (int) location[4];
+            if (channel.size() + length > segmentSize) {
+                rollSegment();
+                channel = appendChannel();
+            }
+            ByteBuffer record = segments.get((int) location[2]).duplicate();
+            record.position((int) location[3]).limit((int) location[3] + length);
+            long newOffset = channel.size();
+            write(channel, newOffset, record);
+            copies.add(new long[] {location[0], location[1], appendSegment, newOffset, length});
+        }
+        channel.force(false);
+
+        reindex(copies);
+        index.putInt(HEADER_FIRST_SEGMENT, firstSegment);
+        index.putInt(0, INDEX_MAGIC);
+        index.force();
+
+        for (int segment : listSegments()) {
+            if (segment < firstSegment) {
+                try {
+                    Files.deleteIfExists(segmentPath(segment));
+                } catch (IOException e) {
+                    logger.warning("Failed to delete cache segment " + segment + ": " + e.getMessage());
+                }
+            }
+        }
+        releaseCompactedSegments();
+    }
+
+    /**
+     * Rebuilds the index by replaying the records of all segments in the order they were written, so that the
+     * latest record or tombstone of a key wins. If the index fills up, the oldest records are evicted. Called with
+     * the write lock held while opening the cache.
+     */
+    private void rebuildIndex() throws IOException {
+        for (int position = 0; position < index.capacity(); position += 8) {
+            index.putLong(position, 0);
+        }
+        List<Integer> segmentIds = listSegments();
+        index.putInt(4, VERSION);
+        index.putInt(HEADER_CAPACITY, capacity);
+        index.putInt(HEADER_CURRENT_SEGMENT, segmentIds.isEmpty() ? 1 : segmentIds.get(segmentIds.size() - 1));
+        index.putInt(HEADER_FIRST_SEGMENT, segmentIds.isEmpty() ? 1 : segmentIds.get(0));
+        for (int segment : segmentIds) {
+            boolean damaged = scanSegment(segment, (mapping, offset, payloadLength) -> {
+                CacheKey key = slotKeyAt(mapping, offset);
+                if (mapping.getInt(offset) == TOMBSTONE_MAGIC) {
+                    int slot = findSlot(key);
+                    if (slot >= 0) {
+                        removeSlot(slot);
+                    }
+                    return;
+                }
+                if (findSlot(key) < 0 && !hasIndexRoom()) {
+                    reindex(evictOldest(liveLocations(), capacity / 2));
+                }
+                putSlot(key, segment, offset, RECORD_HEADER_SIZE + payloadLength);
+            });
+            if (damaged) {
+                logger.warning("Skipped damaged records in cache segment " + segment + ".");
+            }
+        }
+        index.putInt(0, INDEX_MAGIC);
+        index.force();
+    }
+
+    /**
+     * Moves on to a fresh segment if the current one holds damaged bytes, such as a record torn by a crash, so that
+     * no record is appended after them. The segment is left as it is, as other processes may be reading it or may
+     * have appended intact records after the damaged ones. Called with the write lock held while opening the cache.
+     */
+    private void recoverCurrentSegment() throws IOException {
+        int segment = index.getInt(HEADER_CURRENT_SEGMENT);
+        if (scanSegment(segment, (mapping, offset, payloadLength) -> { })) {
+            logger.warning("Cache segment " + segment + " holds damaged records, continuing in a new segment.");
+            rollSegment();
+        }
+    }
+
+    /**
+     * Returns the locations of the records the index points to, as arrays of the key high and low bits, the
+     * segment, the offset and the length of the record.
+     */
+    private List<long[]> liveLocations() {
+        List<long[]> locations = new ArrayList<>((int) index.getLong(HEADER_ENTRY_COUNT));
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = slotPosition(slot);
+            int segment = index.getInt(position + SLOT_SEGMENT);
+            if (segment > 0) {
+                locations.add(new long[] {index.getLong(position), index.getLong(position + 8), segment,
+                    index.getInt(position + SLOT_OFFSET), index.getInt(position + SLOT_LENGTH)});
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Sorts record locations from the oldest to the latest record and evicts the oldest ones beyond a maximum.
+     *
+     * @return the locations that are kept, oldest first.
+     */
+    private List<long[]> evictOldest(List<long[]> locations, int maximum) {
+        locations.sort(Comparator.<long[]>comparingLong(location -> location[2])
+            .thenComparingLong(location -> location[3]));
+        if (locations.size() <= maximum) {
+            return locations;
+        }
+        int evicted = locations.size() - maximum;
+        evictionCount.add(evicted);
+        logger.info("Evicting the " + evicted + " oldest responses from the cache index.");
+        return new ArrayList<>(locations.subList(evicted, locations.size()));
+    }
+
+    /**
+     * Clears the index, including its tombstones, and points it to the given records.
+     */
+    private void reindex(List<long[]> locations) {
+        for (int position = INDEX_HEADER_SIZE; position < index.capacity(); position += 8) {
+            index.putLong(position, 0);
+        }
+        index.putLong(HEADER_ENTRY_COUNT, 0);
+        index.putLong(HEADER_TOMBSTONE_COUNT, 0);
+        index.putLong(HEADER_LIVE_BYTES, 0);
+        for (long[] location : locations) {
+            putSlot(new CacheKey(location[0], location[1]), (int) location[2], (int) location[3],
+                (int) location[4]);
+        }
+    }
+
+    /**
+     * Drops the mappings of the segments deleted by a compaction, of this or another process, so that their disk
+     * space is reclaimed once the mappings are collected.
+     */
+    private void releaseCompactedSegments() {
+        int firstSegment = index.getInt(HEADER_FIRST_SEGMENT);
+        if (firstSegment > releasedBelowSegment) {
+            releasedBelowSegment = firstSegment;
+            segments.keySet().removeIf(segment -> segment < firstSegment);
+        }
+    }
+
+    /**
+     * Returns the slot holding a key, or {@code -1} if the key is not in the index.
+     */
+    private int findSlot(CacheKey key) {
+        int slot = (int) key.getLow() & (capacity - 1);
+        for (int probes = 0; probes < capacity; probes++) {
+            int position = slotPosition(slot);
+            int segment = index.getInt(position + SLOT_SEGMENT);
+            if (segment == EMPTY) {
+                return -1;
+            }
+            if (segment != TOMBSTONE && index.getLong(position) == key.getHigh()
+                && index.getLong(position + 8) == key.getLow()) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Points the index to a record of a key, replacing its previous record. The segment is written last, so that
+     * a concurrent lookup does not follow a half-written slot; lookups check the record they read anyway.
+     */
+    private void putSlot(CacheKey key, int segment, int offset, int length) {
+        int existing = findSlot(key);
+        int slot;
+        if (existing >= 0) {
+            slot = existing;
+            int position = slotPosition(slot);
+            addToHeader(HEADER_LIVE_BYTES, -index.getInt(position + SLOT_LENGTH));
+            addToHeader(HEADER_ENTRY_COUNT, -1);
+        } else {
+            slot = (int) key.getLow() & (capacity - 1);
+            while (index.getInt(slotPosition(slot) + SLOT_SEGMENT) > 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (index.getInt(slotPosition(slot) + SLOT_SEGMENT) == TOMBSTONE) {
+                addToHeader(HEADER_TOMBSTONE_COUNT, -1);
+            }
+        }
+        int position = slotPosition(slot);
+        index.putInt(position + SLOT_SEGMENT, TOMBSTONE);
+        index.putLong(position, key.getHigh());
+        index.putLong(position + 8, key.getLow());
+        index.putInt(position + SLOT_OFFSET, offset);
+        index.putInt(position + SLOT_LENGTH, length);
+        index.putInt(position + SLOT_SEGMENT, segment);
+        addToHeader(HEADER_ENTRY_COUNT, 1);
+        addToHeader(HEADER_LIVE_BYTES, length);
+    }
+
+    private void removeSlot(int slot) {
+        int position = slotPosition(slot);
+        index.putInt(position + SLOT_SEGMENT, TOMBSTONE);
+        addToHeader(HEADER_ENTRY_COUNT, -1);
+        addToHeader(HEADER_TOMBSTONE_COUNT, 1);
+        addToHeader(HEADER_LIVE_BYTES, -index.getInt(position + SLOT_LENGTH));
+    }
+
+    private void addToHeader(int field, long delta) {
+        index.putLong(field, index.getLong(field) + delta);
+    }
+
+    /**
+     * Indicates whether one more key fits into the index while keeping it at most three quarters full.
+     */
+    private boolean hasIndexRoom() {
+        long used = index.getLong(HEADER_ENTRY_COUNT) + index.getLong(HEADER_TOMBSTONE_COUNT);
+        return used + 1 <= capacity * 3L / 4;
+    }
+
+    /**
+     * Indicates whether less than half of the bytes of the segments belong to live records.
+     */
+    private boolean isMostlyGarbage() throws IOException {
+        long totalBytes = 0;
+        for (int segment : listSegments()) {
+            totalBytes += Files.size(segmentPath(segment));
+        }
+        return totalBytes > 2 * index.getLong(HEADER_LIVE_BYTES);
+    }
+
+    private static CacheKey slotKeyAt(MappedByteBuffer mapping, int offset) {
+        return new CacheKey(mapping.getLong(offset + 4), mapping.getLong(offset + 12));
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segmentIds = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+            SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segmentIds.add(Integer.parseInt(
+                        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a segment of this cache
+                }
+            }
+        }
+        Collections.sort(segmentIds);
+        return segmentIds;
+    }
+
+    /**
+     * Reads the capacity of an existing index file.
+     *
+     * @return the number of slots, or {@code 0} if the file is not a valid index.
+     */
+    private int readIndexCapacity() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+        if (indexChannel.read(header, 0) < INDEX_HEADER_SIZE) {
+            return 0;
+        }
+        int capacity = header.getInt(HEADER_CAPACITY);
+        boolean valid = header.getInt(0) == INDEX_MAGIC && header.getInt(4) == VERSION
+            && capacity > 0 && capacity <= slotCount(MAX_ENTRIES) && Integer.bitCount(capacity) == 1
+            && indexChannel.size() == INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        return valid ? capacity : 0;
+    }
+
+    static int slotCount(int maximumEntries) {
+        int slots = 16;
+        while (slots * 3L / 4 < maximumEntries) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    /**
+     * Acquires the lock of this process and the lock of the cache directory, shared by all processes.
+     */
+    private FileLock lock() throws IOException {
+        writeLock.lock();
+        try {
+            return lockChannel.lock();
+        } catch (IOException | RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+    }
+
+    private void unlock(FileLock lock) {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            logger.warning("Failed to release the cache lock: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link DiskResponseCache} instances.
+     */
+    public static class Builder {
+        private Path directory;
+        private long segmentSize = 64L * 1024 * 1024;
+        private int maximumEntries = 100_000;
+        private Duration expireAfterWrite;
+        private boolean syncWrites;
+        private LongSupplier currentTimeMillis = System::currentTimeMillis;
+
+        /**
+         * Sets the directory of the cache files; it is created if it does not exist. Required.
+         *
+         * @param directory The directory.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder directory(Path directory) {
+            if (directory == null) {
+                throw new IllegalArgumentException("Parameter 'directory' must not be null.");
+            }
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a segment file. Defaults to 64 MiB.
+         *
+         * @param segmentSize The maximum size in bytes, between 1 KiB and 1 GiB.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder segmentSize(long segmentSize) {
+            if (segmentSize < 1024 || segmentSize > (1L << 30)) {
+                throw new IllegalArgumentException("Parameter 'segmentSize' must be between 1 KiB and 1 GiB.");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of responses the index of a new cache can hold. An existing index keeps its size.
+         * Defaults to 100,000. The index is mapped as a single buffer, which limits it to 25,165,824 responses.
+         *
+         * @param maximumEntries The number of responses.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maximumEntries(int maximumEntries) {
+            if (maximumEntries < 1 || maximumEntries > MAX_ENTRIES) {
+                throw new IllegalArgumentException("Parameter 'maximumEntries' must be between 1 and 25165824.");
+            }
+            this.maximumEntries = maximumEntries;
+            return this;
+        }
+
+        /**
+         * Sets how long a response is used after it was stored. By default, responses do not expire.
+         *
+         * @param expireAfterWrite The time to live of a response.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder expireAfterWrite(Duration expireAfterWrite) {
+            if (expireAfterWrite == null || expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+                throw new IllegalArgumentException("Parameter 'expireAfterWrite' must be positive.");
+            }
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * Sets whether every write is forced to the disk before it is indexed, so that it survives a power loss
+         * and not only a crash of the process. Defaults to {@code false}.
+         *
+         * @param syncWrites Whether to force writes.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder syncWrites(boolean syncWrites) {
+            this.syncWrites = syncWrites;
+            return this;
+        }
+
+        Builder currentTimeMillis(LongSupplier currentTimeMillis) {
+            this.currentTimeMillis = currentTimeMillis;
+            return this;
+        }
+
+        /**
+         * Opens the cache, recovering from a crash of a previous process if needed.
+         *
+         * @return A new {@link DiskResponseCache} instance.
+         * @throws IOException if the cache files cannot be opened.
+         * @throws IllegalStateException if no directory is set.
+         */
+        public DiskResponseCache build() throws IOException {
+            if (directory == null) {
+                throw new IllegalStateException("The cache directory must be set.");
+            }
+            return new DiskResponseCache(this);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package solutions.own.instructor4j.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.util.Utils;
+
+/**
+ * A {@link ResponseCache} keeping responses on the heap as JSON, bounded by their total weight.
+ * <p>
+ * Every hit parses a fresh instance, so callers may modify the responses they receive without affecting the cache
+ * or each other. The weight of a response is the length of its JSON form by default. When the cache is full, it
+ * chooses which response to keep with a W-TinyLFU policy: new responses enter a small LRU window, and leaving the
+ * window they only replace the least recently used response of the main area if they were requested more often
+ * recently. Frequencies are estimated with a count-min sketch whose counters are halved
+ * periodically, so that past popularity fades. A burst of one-off requests thereby cannot flush out the responses
+ * that are requested again and again.
+ * </p>
+ * <p>
+ * The cache is split into stripes by key, each with its own lock, window, main area and sketch, and a share of
+ * the maximum weight. Responses can expire a fixed time after they were stored. Hits, misses and evictions are
+ * counted without locking.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * InMemoryResponseCache cache = InMemoryResponseCache.builder()
+ *     .maximumWeight(64 * 1024 * 1024)
+ *     .expireAfterWrite(Duration.ofHours(1))
+ *     .build();
+ * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(), cache);
+ * System.out.println(cache.getStats().getHitRate());
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class InMemoryResponseCache implements ResponseCache {
+
+    private static final Logger logger = Logger.getLogger(InMemoryResponseCache.class.getName());
+
+    private final Stripe[] stripes;
+    private final long expireAfterWriteNanos;
+    private final ToIntFunction<Object> weigher;
+    private final LongSupplier nanoTime;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the cache.
+     */
+    private InMemoryResponseCache(Builder builder) {
+        this.expireAfterWriteNanos = builder.expireAfterWrite == null ? 0 : builder.expireAfterWrite.toNanos();
+        this.weigher = builder.weigher;
+        this.nanoTime = builder.nanoTime;
+        this.stripes = new Stripe[builder.concurrencyLevel];
+        long stripeWeight = Math.max(1, builder.maximumWeight / builder.concurrencyLevel);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(stripeWeight);
+        }
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing an {@link InMemoryResponseCache}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public <T> T get(CacheKey key, Class<T> responseModel) {
+        Entry entry = stripe(key).get(key, nanoTime.getAsLong());
+        if (entry == null || !responseModel.isAssignableFrom(entry.type)) {
+            missCount.increment();
+            return null;
+        }
+        try {
+            T response = responseModel.cast(Utils.parseJson(entry.json, entry.type));
+            hitCount.increment();
+            return response;
+        } catch (InstructorException e) {
+            logger.warning("Ignoring cached response " + key + ": " + e.getMessage());
+            missCount.increment();
+            return null;
+        }
+    }
+
+    @Override
+    public <T> void put(CacheKey key, T response) {
+        if (key == null || response == null) {
+            return;
+        }
+        String json;
+        try {
+            json = Utils.toJson(response);
+        } catch (InstructorException e) {
+            logger.warning("Not caching response " + key + ": " + e.getMessage());
+            return;
+        }
+        int weight = weigher == null ? json.length() : weigher.applyAsInt(response);
+        long now = nanoTime.getAsLong();
+        long expiresAt = expireAfterWriteNanos == 0 ? 0 : now + expireAfterWriteNanos;
+        stripe(key).put(new Entry(key, response.getClass(), json, weight, expiresAt), now);
+    }
+
+    @Override
+    public void invalidate(CacheKey key) {
+        stripe(key).invalidate(key);
+    }
+
+    @Override
+    public CacheStats getStats() {
+        long entryCount = 0;
+        long weight = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                entryCount += stripe.window.size() + stripe.main.size();
+                weight += stripe.windowWeight + stripe.mainWeight;
+            }
+        }
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), entryCount, weight);
+    }
+
+    private Stripe stripe(CacheKey key) {
+        return stripes[(int) (key.getHigh() >>> 32) & (stripes.length - 1)];
+    }
+
+    /**
+     * A cached response, in JSON form.
+     */
+    private static final class Entry {
+        final CacheKey key;
+        final Class<?> type;
+        final String json;
+        final int weight;
+        final long expiresAt;
+
+        Entry(CacheKey key, Class<?> type, String json, int weight, long expiresAt) {
+            this.key = key;
+            this.type = type;
+            this.json = json;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != 0 && expiresAt - now <= 0;
+        }
+    }
+
+    /**
+     * A share of the cache: an LRU admission window of 1% of its weight, an LRU main area and a frequency sketch.
+     */
+    private final class Stripe {
+        final LinkedHashMap<CacheKey, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+        final LinkedHashMap<CacheKey, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+        final FrequencySketch sketch = new FrequencySketch();
+        final long maximumWeight;
+        final long windowMaximumWeight;
+        long windowWeight;
+        long mainWeight;
+
+        Stripe(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            this.windowMaximumWeight = Math.max(1, maximumWeight / 100);
+        }
+
+        synchronized Entry get(CacheKey key, long now) {
+            sketch.increment(key);
+            Entry entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                remove(entry);
+                evictionCount.increment();
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(Entry entry, long now) {
+            sketch.increment(entry.key);
+            invalidate(entry.key);
+            if (entry.weight > maximumWeight) {
+                return;
+            }
+            window.put(entry.key, entry);
+            windowWeight += entry.weight;
+            while (windowWeight > windowMaximumWeight) {
+                Entry candidate = window.values().iterator().next();
+                window.remove(candidate.key);
+                windowWeight -= candidate.weight;
+                admit(candidate, now);
+            }
+        }
+
+        synchronized void invalidate(CacheKey key) {
+            Entry entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+
+        /**
+         * Moves a response leaving the window into the main area, evicting the least recently used responses of
+         * the main area as long as they are requested less often than the candidate.
+         */
+        private void admit(Entry candidate, long now) {
+            main.put(candidate.key, candidate);
+            mainWeight += candidate.weight;
+            Iterator<Map.Entry<CacheKey, Entry>> victims = main.entrySet().iterator();
+            while (mainWeight + windowWeight > maximumWeight && victims.hasNext()) {
+                Entry victim = victims.next().getValue();
+                if (victim == candidate) {
+                    break;
+                }
+                if (victim.isExpired(now) || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                    victims.remove();
+                    mainWeight -= victim.weight;
+                    evictionCount.increment();
+                } else {
+                    break;
+                }
+            }
+            if (mainWeight + windowWeight > maximumWeight) {
+                main.remove(candidate.key);
+                mainWeight -= candidate.weight;
+                evictionCount.increment();
+            }
+        }
+
+        private void remove(Entry entry) {
+            if (window.remove(entry.key) != null) {
+                windowWeight -= entry.weight;
+            } else if (main.remove(entry.key) != null) {
+                mainWeight -= entry.weight;
+            }
+        }
+    }
+
+    /**
+     * A count-min sketch of 4 rows of 4-bit counters, estimating how often each key was requested recently. All
+     * counters are halved after every {@value #SAMPLE_SIZE} increments.
+     */
+    private static final class FrequencySketch {
+        private static final int WIDTH = 1024;
+        private static final int SAMPLE_SIZE = 10 * WIDTH;
+
+        private final byte[] counters = new byte[4 * WIDTH];
+        private int additions;
+
+        void increment(CacheKey key) {
+            for (int row = 0; row < 4; row++) {
+                int index = index(key, row);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                }
+            }
+            if (++additions == SAMPLE_SIZE) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(CacheKey key) {
+            int frequency = 15;
+            for (int row = 0; row < 4; row++) {
+                frequency = Math.min(frequency, counters[index(key, row)]);
+            }
+            return frequency;
+        }
+
+        /**
+         * Returns the counter of a key in a row. The key is a cryptographic hash, so each row uses 16 of its bits.
+         */
+        private static int index(CacheKey key, int row) {
+            return row * WIDTH + ((int) (key.getLow() >>> (row * 16)) & (WIDTH - 1));
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link InMemoryResponseCache} instances.
+     */
+    public static class Builder {
+        private long maximumWeight = 64L * 1024 * 1024;
+        private Duration expireAfterWrite;
+        private int concurrencyLevel = 16;
+        private ToIntFunction<Object> weigher;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * Sets the maximum total weight of the cached responses. Defaults to 64 MiB worth of JSON.
+         *
+         * @param maximumWeight The maximum weight, in the unit of the weigher.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maximumWeight(long maximumWeight) {
+            if (maximumWeight < 1) {
+                throw new IllegalArgumentException("Parameter 'maximumWeight' must be greater than 0.");
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets how long a response is kept after it was stored. By default, responses do not expire.
+         *
+         * @param expireAfterWrite The time to live of a response.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder expireAfterWrite(Duration expireAfterWrite) {
+            if (expireAfterWrite == null || expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+                throw new IllegalArgumentException("Parameter 'expireAfterWrite' must be positive.");
+            }
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * Sets the number of stripes, each with its own lock and a share of the maximum weight. Defaults to 16.
+         *
+         * @param concurrencyLevel The number of stripes, rounded up to a power of two.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel < 1 || concurrencyLevel > (1 << 16)) {
+                throw new IllegalArgumentException("Parameter 'concurrencyLevel' must be between 1 and 65536.");
+            }
+            int stripes = 1;
+            while (stripes < concurrencyLevel) {
+                stripes <<= 1;
+            }
+            this.concurrencyLevel = stripes;
+            return this;
+        }
+
+        /**
+         * Sets the function weighing a response. Defaults to the length of its JSON form.
+         *
+         * @param weigher The weigher; weights must not be negative.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder weigher(ToIntFunction<Object> weigher) {
+            if (weigher == null) {
+                throw new IllegalArgumentException("Parameter 'weigher' must not be null.");
+            }
+            this.weigher = weigher;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link InMemoryResponseCache} instance.
+         *
+         * @return A new {@link InMemoryResponseCache} instance.
+         */
+        public InMemoryResponseCache build() {
+            return new InMemoryResponseCache(this);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package solutions.own.instructor4j.cache;
+
+/**
+ * A cache of validated responses, consulted by {@link solutions.own.instructor4j.Instructor} before a chat
+ * completion is requested.
+ * <p>
+ * Responses are keyed by a {@link CacheKey} derived from the model, the messages, the request options and the
+ * schema of the response model. Only responses that passed validation are stored, so a hit is returned without
+ * calling the API or validating it again. Implementations decide where responses are stored, for example as JSON
+ * on the heap, see {@link InMemoryResponseCache}, or in files shared between processes, see
+ * {@link DiskResponseCache}. Either way each hit returns a new instance, so a caller modifying its response does
+ * not affect the cache.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * ResponseCache cache = InMemoryResponseCache.builder()
+ *     .maximumWeight(64 * 1024 * 1024)
+ *     .expireAfterWrite(Duration.ofHours(1))
+ *     .build();
+ * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(), cache);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> Implementations must be thread-safe.</p>
+ */
+public interface ResponseCache {
+
+    /**
+     * Returns the cached response for a key.
+     *
+     * @param key           the key of the request.
+     * @param responseModel the class of the response model.
+     * @param <T>           the type of the response model.
+     * @return a new instance of the cached response, owned by the caller, or {@code null} if there is none.
+     */
+    <T> T get(CacheKey key, Class<T> responseModel);
+
+    /**
+     * Stores a validated response.
+     *
+     * @param key      the key of the request.
+     * @param response the response; later changes to it do not affect the cached response.
+     * @param <T>      the type of the response model.
+     */
+    <T> void put(CacheKey key, T response);
+
+    /**
+     * Removes the response for a key, if there is one.
+     *
+     * @param key the key of the request.
+     */
+    void invalidate(CacheKey key);
+
+    /**
+     * Returns a snapshot of the statistics of the cache.
+     *
+     * @return the statistics.
+     */
+    CacheStats getStats();
+}
@@ -0,0 +1,35 @@
+package solutions.own.instructor4j.circuitbreaker;
+
+import java.time.Duration;
+
+/**
+ * Thrown by a chat service when its {@link CircuitBreaker} rejects a call. The call was not sent.
+ * <p>
+ * {@link solutions.own.instructor4j.Instructor} reports it as a
+ * {@link solutions.own.instructor4j.exception.CircuitBreakerOpenException} without retrying.
+ * </p>
+ */
+public class CallNotPermittedException extends IllegalStateException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new CallNotPermittedException.
+     *
+     * @param message    the detail message.
+     * @param retryAfter how long the breaker stays open, zero if it is half-open.
+     */
+    public CallNotPermittedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns how long the breaker stays open.
+     *
+     * @return the remaining time, zero if the breaker is half-open and all probe calls are in flight.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
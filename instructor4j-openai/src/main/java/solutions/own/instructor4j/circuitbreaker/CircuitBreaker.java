@@ -0,0 +1,482 @@
+package solutions.own.instructor4j.circuitbreaker;
+
+import com.openai.errors.OpenAIServiceException;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * A circuit breaker stopping calls to an endpoint that fails or responds slowly, so that callers fail within
+ * microseconds instead of waiting for timeouts and retries.
+ * <p>
+ * The breaker records the outcome of the last {@code slidingWindowSize} calls. Once at least
+ * {@code minimumCalls} are recorded and the share of failed calls reaches the failure rate threshold, or the
+ * share of calls taking longer than the slow call duration reaches the slow call rate threshold, the breaker
+ * opens: calls are rejected with a {@link CallNotPermittedException} for the wait duration. It then lets
+ * {@code permittedCallsInHalfOpenState} probe calls through. If their outcomes stay below the thresholds, the
+ * breaker closes with an empty window; otherwise it opens again.
+ * </p>
+ * <p>
+ * A call rejected for its own content, with HTTP 400, 401, 403, 404 or 422, counts as a successful call, as the
+ * endpoint did respond. Use one breaker per endpoint.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+ *     .failureRateThreshold(0.5)
+ *     .slowCallDuration(Duration.ofSeconds(20))
+ *     .waitDurationInOpenState(Duration.ofSeconds(30))
+ *     .build();
+ * CircuitBreaker.Permit permit = circuitBreaker.acquirePermission();
+ * try {
+ *     ChatCompletion completion = chatService.createChatCompletion(request);
+ *     permit.onSuccess();
+ * } catch (RuntimeException e) {
+ *     permit.onError(e);
+ *     throw e;
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /** Calls are permitted and their outcomes recorded. */
+        CLOSED,
+        /** Calls are rejected until the wait duration has elapsed. */
+        OPEN,
+        /** A limited number of probe calls is permitted to decide whether the endpoint recovered. */
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int permittedCallsInHalfOpenState;
+    private final LongSupplier nanoTime;
+
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesPermitted;
+    private int probesRecorded;
+    private int probeFailures;
+    private int probeSlowCalls;
+    private long rejectedCount;
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the circuit breaker.
+     */
+    private CircuitBreaker(Builder builder) {
+        this.name = builder.name;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.slidingWindowSize);
+        this.openNanos = builder.waitDurationInOpenState.toNanos();
+        this.permittedCallsInHalfOpenState = builder.permittedCallsInHalfOpenState;
+        this.nanoTime = builder.nanoTime;
+        this.window = new byte[builder.slidingWindowSize];
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing a {@link CircuitBreaker}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Asks for permission to make a call. The outcome of a permitted call must be reported to the returned permit.
+     *
+     * @return the permit of the call.
+     * @throws CallNotPermittedException if the breaker is open, or all probe calls are already in flight.
+     */
+    public Permit acquirePermission() {
+        synchronized (this) {
+            long now = nanoTime.getAsLong();
+            updateState(now);
+            if (state == State.CLOSED) {
+                return new Permit(now, false);
+            }
+            if (state == State.HALF_OPEN && probesPermitted < permittedCallsInHalfOpenState) {
+                probesPermitted++;
+                return new Permit(now, true);
+            }
+            rejectedCount++;
+        }
+        Duration retryAfter = getRemainingOpenTime();
+        throw new CallNotPermittedException("Circuit breaker '" + name + "' is " + getState()
+            + (retryAfter.isZero() ? "." : ", retry after " + retryAfter.toMillis() + " ms."), retryAfter);
+    }
+
+    /**
+     * Indicates whether a call would currently be permitted, without asking for permission.
+     *
+     * @return {@code true} if {@link #acquirePermission()} would not reject a call.
+     */
+    public synchronized boolean isCallPermitted() {
+        updateState(nanoTime.getAsLong());
+        return state == State.CLOSED
+            || state == State.HALF_OPEN && probesPermitted < permittedCallsInHalfOpenState;
+    }
+
+    /**
+     * Returns the name of the breaker, used in log messages and rejections.
+     *
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the current state of the breaker.
+     *
+     * @return the state.
+     */
+    public synchronized State getState() {
+        updateState(nanoTime.getAsLong());
+        return state;
+    }
+
+    /**
+     * Returns how long the breaker stays open.
+     *
+     * @return the remaining time, zero unless the breaker is open.
+     */
+    public synchronized Duration getRemainingOpenTime() {
+        long now = nanoTime.getAsLong();
+        updateState(now);
+        return state == State.OPEN ? Duration.ofNanos(openedAt + openNanos - now) : Duration.ZERO;
+    }
+
+    /**
+     * Returns the share of failed calls in the sliding window.
+     *
+     * @return the failure rate between 0 and 1, zero if no call is recorded.
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+    }
+
+    /**
+     * Returns the share of slow calls in the sliding window.
+     *
+     * @return the slow call rate between 0 and 1, zero if no call is recorded.
+     */
+    public synchronized double getSlowCallRate() {
+        return windowCount == 0 ? 0 : (double) windowSlowCalls / windowCount;
+    }
+
+    /**
+     * Returns the number of calls rejected since the breaker was created.
+     *
+     * @return the number of rejected calls.
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Moves an open breaker to half-open once the wait duration has elapsed.
+     */
+    private void updateState(long now) {
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probesPermitted = 0;
+            probesRecorded = 0;
+            probeFailures = 0;
+            probeSlowCalls = 0;
+        }
+    }
+
+    private synchronized void record(long now, long durationNanos, boolean failed, boolean probe) {
+        updateState(now);
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.CLOSED && !probe) {
+            if (windowCount == window.length) {
+                byte evicted = window[windowIndex];
+                windowFailures -= evicted & FAILED;
+                windowSlowCalls -= (evicted & SLOW) >> 1;
+            } else {
+                windowCount++;
+            }
+            window[windowIndex] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+            windowIndex = (windowIndex + 1) % window.length;
+            windowFailures += failed ? 1 : 0;
+            windowSlowCalls += slow ? 1 : 0;
+            if (windowCount >= minimumCalls && exceedsThresholds(windowFailures, windowSlowCalls, windowCount)) {
+                open(now, windowFailures, windowSlowCalls, windowCount);
+            }
+        } else if (state == State.HALF_OPEN && probe) {
+            probesRecorded++;
+            probeFailures += failed ? 1 : 0;
+            probeSlowCalls += slow ? 1 : 0;
+            if (probesRecorded < permittedCallsInHalfOpenState) {
+                return;
+            }
+            if (exceedsThresholds(probeFailures, probeSlowCalls, probesRecorded)) {
+                open(now, probeFailures, probeSlowCalls, probesRecorded);
+            } else {
+                state = State.CLOSED;
+                windowIndex = 0;
+                windowCount = 0;
+                windowFailures = 0;
+                windowSlowCalls = 0;
+                logger.info("Closing circuit breaker '" + name + "' after " + probesRecorded + " probe calls.");
+            }
+        }
+        // outcomes of calls permitted before the breaker last changed state are not recorded
+    }
+
+    private synchronized void release(boolean probe) {
+        if (probe && state == State.HALF_OPEN && probesPermitted > probesRecorded) {
+            probesPermitted--;
+        }
+    }
+
+    private boolean exceedsThresholds(int failures, int slowCalls, int calls) {
+        return failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls;
+    }
+
+    private void open(long now, int failures, int slowCalls, int calls) {
+        state = State.OPEN;
+        openedAt = now;
+        logger.warning("Opening circuit breaker '" + name + "' for " + Duration.ofNanos(openNanos) + " after "
+            + failures + " failed and " + slowCalls + " slow of " + calls + " calls.");
+    }
+
+    /**
+     * Indicates whether an error counts as a failure of the endpoint rather than of the request.
+     */
+    private static boolean isFailure(Throwable error) {
+        if (error instanceof OpenAIServiceException) {
+            int statusCode = ((OpenAIServiceException) error).statusCode();
+            return statusCode != 400 && statusCode != 401 && statusCode != 403 && statusCode != 404
+                && statusCode != 422;
+        }
+        return !(error instanceof CallNotPermittedException);
+    }
+
+    /**
+     * The permission to make one call, to which its outcome is reported. Only the first report of a permit is
+     * recorded.
+     */
+    public final class Permit {
+        private final long startedAt;
+        private final boolean probe;
+        private boolean reported;
+
+        private Permit(long startedAt, boolean probe) {
+            this.startedAt = startedAt;
+            this.probe = probe;
+        }
+
+        /**
+         * Reports that the call completed. A call taking longer than the slow call duration counts as slow.
+         */
+        public void onSuccess() {
+            if (markReported()) {
+                long now = nanoTime.getAsLong();
+                record(now, now - startedAt, false, probe);
+            }
+        }
+
+        /**
+         * Reports that the call failed.
+         *
+         * @param error the error the call failed with.
+         */
+        public void onError(Throwable error) {
+            if (markReported()) {
+                long now = nanoTime.getAsLong();
+                record(now, now - startedAt, isFailure(error), probe);
+            }
+        }
+
+        /**
+         * Reports that the call ended without an outcome, for example because it was cancelled. The call is not
+         * recorded, and a probe call may be made again in its place.
+         */
+        public void release() {
+            if (markReported()) {
+                CircuitBreaker.this.release(probe);
+            }
+        }
+
+        private synchronized boolean markReported() {
+            if (reported) {
+                return false;
+            }
+            reported = true;
+            return true;
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link CircuitBreaker} instances.
+     */
+    public static class Builder {
+        private String name = "default";
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 1;
+        private Duration slowCallDuration = Duration.ofSeconds(60);
+        private int slidingWindowSize = 50;
+        private int minimumCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+        private int permittedCallsInHalfOpenState = 3;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * Sets the name of the breaker, for example the endpoint it guards. Defaults to {@code default}.
+         *
+         * @param name The name.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder name(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("Parameter 'name' must not be null.");
+            }
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Sets the share of failed calls opening the breaker. Defaults to 0.5.
+         *
+         * @param failureRateThreshold The threshold, greater than 0 and at most 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            if (!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+                throw new IllegalArgumentException("Parameter 'failureRateThreshold' must be greater than 0 and at most 1.");
+            }
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the share of slow calls opening the breaker. Defaults to 1, opening the breaker only if all calls
+         * in the window are slow.
+         *
+         * @param slowCallRateThreshold The threshold, greater than 0 and at most 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder slowCallRateThreshold(double slowCallRateThreshold) {
+            if (!(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1)) {
+                throw new IllegalArgumentException("Parameter 'slowCallRateThreshold' must be greater than 0 and at most 1.");
+            }
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the duration from which a call counts as slow. Defaults to 60 seconds.
+         *
+         * @param slowCallDuration The duration.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder slowCallDuration(Duration slowCallDuration) {
+            if (slowCallDuration == null || slowCallDuration.isNegative() || slowCallDuration.isZero()) {
+                throw new IllegalArgumentException("Parameter 'slowCallDuration' must be positive.");
+            }
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * Sets the number of most recent calls whose outcomes are recorded. Defaults to 50.
+         *
+         * @param slidingWindowSize The number of calls, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder slidingWindowSize(int slidingWindowSize) {
+            if (slidingWindowSize < 1) {
+                throw new IllegalArgumentException("Parameter 'slidingWindowSize' must be at least 1.");
+            }
+            this.slidingWindowSize = slidingWindowSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of calls to record before the rates are evaluated. Defaults to 10, and is capped at
+         * the sliding window size.
+         *
+         * @param minimumCalls The number of calls, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder minimumCalls(int minimumCalls) {
+            if (minimumCalls < 1) {
+                throw new IllegalArgumentException("Parameter 'minimumCalls' must be at least 1.");
+            }
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets how long the breaker stays open before probe calls are permitted. Defaults to 30 seconds.
+         *
+         * @param waitDurationInOpenState The wait duration.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder waitDurationInOpenState(Duration waitDurationInOpenState) {
+            if (waitDurationInOpenState == null || waitDurationInOpenState.isNegative()
+                || waitDurationInOpenState.isZero()) {
+                throw new IllegalArgumentException("Parameter 'waitDurationInOpenState' must be positive.");
+            }
+            this.waitDurationInOpenState = waitDurationInOpenState;
+            return this;
+        }
+
+        /**
+         * Sets the number of probe calls permitted in the half-open state. Defaults to 3.
+         *
+         * @param permittedCallsInHalfOpenState The number of calls, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder permittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            if (permittedCallsInHalfOpenState < 1) {
+                throw new IllegalArgumentException("Parameter 'permittedCallsInHalfOpenState' must be at least 1.");
+            }
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link CircuitBreaker} instance.
+         *
+         * @return A new {@link CircuitBreaker} instance.
+         */
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+}
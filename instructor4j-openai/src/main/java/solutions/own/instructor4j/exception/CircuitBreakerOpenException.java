@@ -0,0 +1,33 @@
+package solutions.own.instructor4j.exception;
+
+import java.time.Duration;
+import solutions.own.instructor4j.circuitbreaker.CallNotPermittedException;
+
+/**
+ * Thrown when a chat completion is rejected by an open circuit breaker, without calling the API or retrying.
+ * Callers can catch it to fall back or shed load.
+ */
+public class CircuitBreakerOpenException extends InstructorException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new CircuitBreakerOpenException.
+     *
+     * @param message The detail message, which is saved for later retrieval by the {@link Throwable#getMessage()} method.
+     * @param cause The rejection of the circuit breaker.
+     */
+    public CircuitBreakerOpenException(String message, CallNotPermittedException cause) {
+        super(message, cause);
+        this.retryAfter = cause.getRetryAfter();
+    }
+
+    /**
+     * Returns how long the circuit breaker stays open.
+     *
+     * @return the remaining time, zero if the breaker is half-open and all probe calls are in flight.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,390 @@
+package solutions.own.instructor4j.hedge;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import solutions.own.instructor4j.retry.RetryBudget;
+import solutions.own.instructor4j.util.TaskExecutors;
+import solutions.own.instructor4j.util.Utils;
+
+/**
+ * Decides when a slow request is hedged: a duplicate is sent and whichever accepted response arrives first wins.
+ * <p>
+ * A request is hedged once it has been running for the hedge delay without an accepted response. The delay is
+ * fixed, or follows a percentile of the latencies of recent requests of the same kind, so that only the slowest
+ * requests are hedged. The winning response completes the request and the other one is cancelled. If both fail,
+ * or return a response that is not accepted, the outcome of the first request is reported. The latency of a
+ * request is recorded once, from its start to its first accepted response, whichever copy delivered it, so a hedge
+ * that wins does not make requests look faster than callers saw them.
+ * </p>
+ * <p>
+ * Hedges are drawn from a {@link RetryBudget}: every request deposits {@code maxHedgeRatio} tokens and every
+ * hedge withdraws one. Hedges therefore cannot exceed that fraction of the requests, which bounds the extra token
+ * spend, even when the API slows down for every request at once.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * HedgingPolicy hedgingPolicy = HedgingPolicy.builder()
+ *     .percentile(0.95)
+ *     .maxHedgeRatio(0.05)
+ *     .build();
+ * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, RetryPolicy.immediate(), null,
+ *     hedgingPolicy);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe; one instance can be shared by several instructors.</p>
+ */
+public final class HedgingPolicy {
+
+    /**
+     * The number of recent latencies a percentile is computed from.
+     */
+    static final int LATENCY_WINDOW = 256;
+
+    private final Duration delay;
+    private final double percentile;
+    private final int minSamples;
+    private final Duration minDelay;
+    private final RetryBudget hedgeBudget;
+    private final LongSupplier nanoTime;
+    private final ConcurrentMap<Object, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder hedgeCount = new LongAdder();
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the policy.
+     */
+    private HedgingPolicy(Builder builder) {
+        this.delay = builder.delay;
+        this.percentile = builder.percentile;
+        this.minSamples = builder.minSamples;
+        this.minDelay = builder.minDelay;
+        this.hedgeBudget = new RetryBudget(builder.maxHedgeRatio, 0, builder.maxHedgeBurst);
+        this.nanoTime = builder.nanoTime;
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing a {@link HedgingPolicy}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs a request, hedging it if it is slow and the budget allows.
+     *
+     * @param kind    identifies requests of the same kind, whose latencies are comparable, e.g. the response model.
+     * @param request starts one copy of the request; called once, or twice if the request is hedged.
+     * @param accept  tells whether a response is good enough to complete the request.
+     * @param <T>     the type of the response.
+     * @return a future completed with the first accepted response, or with the outcome of the first copy if no
+     *         response is accepted. Cancelling it cancels the copies in flight.
+     */
+    public <T> CompletableFuture<T> execute(Object kind, Supplier<CompletableFuture<T>> request,
+        Predicate<? super T> accept) {
+        requestCount.increment();
+        hedgeBudget.onSuccess();
+        Race<T> race = new Race<>(kind, request, accept);
+        race.start(0);
+        if (race.result.isDone()) {
+            return race.result;
+        }
+        TaskExecutors.delay(getHedgeDelay(kind)).thenRun(() -> {
+            if (!race.result.isDone() && hedgeBudget.tryAcquire()) {
+                hedgeCount.increment();
+                // the request may block, e.g. with the default AiChatService#createChatCompletionAsync
+                TaskExecutors.runBlocking(() -> {
+                    race.start(1);
+                    return null;
+                });
+            }
+        });
+        return race.result;
+    }
+
+    /**
+     * Returns how long a request of the given kind runs before it is hedged: the configured percentile of the
+     * recent latencies once enough were recorded, but at least the minimum delay, or the fixed delay otherwise.
+     *
+     * @param kind identifies requests of the same kind.
+     * @return the hedge delay.
+     */
+    public Duration getHedgeDelay(Object kind) {
+        if (percentile > 0) {
+            LatencyWindow window = latencies.get(kind);
+            if (window != null) {
+                long observed = window.getPercentile(percentile, minSamples);
+                if (observed >= 0) {
+                    return Duration.ofNanos(Math.max(observed, minDelay.toNanos()));
+                }
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * Returns the number of requests run through this policy.
+     *
+     * @return the request count.
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * Returns the number of requests that were hedged.
+     *
+     * @return the hedge count.
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * Returns the number of hedged requests whose duplicate responded first.
+     *
+     * @return the number of hedges that won.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    private void recordLatency(Object kind, long nanos) {
+        if (percentile > 0) {
+            latencies.computeIfAbsent(kind, ignored -> new LatencyWindow()).add(nanos);
+        }
+    }
+
+    /**
+     * The copies of one request racing each other.
+     */
+    private final class Race<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReferenceArray<CompletableFuture<T>> copies = new AtomicReferenceArray<>(2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicBoolean decided = new AtomicBoolean();
+        final Object kind;
+        final Supplier<CompletableFuture<T>> request;
+        final Predicate<? super T> accept;
+        final long startedAt = nanoTime.getAsLong();
+        volatile CompletableFuture<T> firstOutcome;
+
+        Race(Object kind, Supplier<CompletableFuture<T>> request, Predicate<? super T> accept) {
+            this.kind = kind;
+            this.request = request;
+            this.accept = accept;
+            result.whenComplete((response, error) -> cancelCopies());
+        }
+
+        void cancelCopies() {
+            for (int i = 0; i < copies.length(); i++) {
+                CompletableFuture<T> copy = copies.get(i);
+                if (copy != null && !copy.isDone()) {
+                    copy.cancel(true);
+                }
+            }
+        }
+
+        void start(int number) {
+            running.incrementAndGet();
+            CompletableFuture<T> copy;
+            try {
+                copy = request.get();
+            } catch (RuntimeException e) {
+                copy = Utils.failedFuture(e);
+            }
+            copies.set(number, copy);
+            if (result.isDone()) {
+                copy.cancel(true);
+            }
+            copy.whenComplete((response, error) -> {
+                if (error == null && accept.test(response)) {
+                    if (decided.compareAndSet(false, true)) {
+                        recordLatency(kind, nanoTime.getAsLong() - startedAt);
+                        // settle the race before the caller resumes with the response
+                        if (number > 0) {
+                            hedgeWinCount.increment();
+                        }
+                        cancelCopies();
+                        result.complete(response);
+                    }
+                    return;
+                }
+                if (number == 0) {
+                    firstOutcome = error == null ? CompletableFuture.completedFuture(response)
+                        : Utils.failedFuture(Utils.unwrapCompletionException(error));
+                }
+                if (running.decrementAndGet() == 0 && firstOutcome != null) {
+                    firstOutcome.whenComplete((firstResponse, firstError) -> {
+                        if (firstError == null) {
+                            result.complete(firstResponse);
+                        } else {
+                            result.completeExceptionally(firstError);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * The latencies of the most recent requests of one kind.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples = new long[LATENCY_WINDOW];
+        private long count;
+
+        synchronized void add(long nanos) {
+            samples[(int) (count++ % samples.length)] = nanos;
+        }
+
+        /**
+         * Returns a percentile of the recorded latencies, or {@code -1} if fewer than {@code minSamples} were
+         * recorded.
+         */
+        long getPercentile(double percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < minSamples) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link HedgingPolicy} instances.
+     */
+    public static class Builder {
+        private Duration delay = Duration.ofSeconds(2);
+        private double percentile;
+        private int minSamples = 20;
+        private Duration minDelay = Duration.ofMillis(100);
+        private double maxHedgeRatio = 0.05;
+        private int maxHedgeBurst = 10;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * Sets the fixed hedge delay, also used until enough latencies are recorded for the percentile.
+         * Defaults to 2 seconds.
+         *
+         * @param delay The time a request runs before it is hedged.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder delay(Duration delay) {
+            if (delay == null || delay.isNegative()) {
+                throw new IllegalArgumentException("Parameter 'delay' must not be null or negative.");
+            }
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+         * Hedges requests running longer than the given percentile of the recent latencies of their kind, for
+         * example {@code 0.95}. By default, the fixed delay is used.
+         *
+         * @param percentile The percentile, greater than 0 and less than 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 1) {
+                throw new IllegalArgumentException("Parameter 'percentile' must be greater than 0 and less than 1.");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the number of latencies recorded before the percentile is used. Defaults to 20.
+         *
+         * @param minSamples The number of latencies, between 1 and {@value HedgingPolicy#LATENCY_WINDOW}.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder minSamples(int minSamples) {
+            if (minSamples < 1 || minSamples > LATENCY_WINDOW) {
+                throw new IllegalArgumentException("Parameter 'minSamples' must be between 1 and "
+                    + LATENCY_WINDOW + ".");
+            }
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Sets the lower bound of the percentile delay, so that fast, uniform latencies do not trigger hedges.
+         * Defaults to 100 milliseconds.
+         *
+         * @param minDelay The minimum delay.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder minDelay(Duration minDelay) {
+            if (minDelay == null || minDelay.isNegative()) {
+                throw new IllegalArgumentException("Parameter 'minDelay' must not be null or negative.");
+            }
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of hedges as a fraction of the requests. Defaults to 0.05, that is at most 5%
+         * more requests.
+         *
+         * @param maxHedgeRatio The fraction, between 0 and 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxHedgeRatio(double maxHedgeRatio) {
+            if (maxHedgeRatio < 0 || maxHedgeRatio > 1) {
+                throw new IllegalArgumentException("Parameter 'maxHedgeRatio' must be between 0 and 1.");
+            }
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of hedges saved up while requests are fast, which bounds the burst of hedges
+         * when they slow down. Defaults to 10.
+         *
+         * @param maxHedgeBurst The maximum burst, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxHedgeBurst(int maxHedgeBurst) {
+            if (maxHedgeBurst < 1) {
+                throw new IllegalArgumentException("Parameter 'maxHedgeBurst' must be at least 1.");
+            }
+            this.maxHedgeBurst = maxHedgeBurst;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link HedgingPolicy} instance.
+         *
+         * @return A new {@link HedgingPolicy} instance.
+         */
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
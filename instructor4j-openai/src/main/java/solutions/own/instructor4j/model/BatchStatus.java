@@ -0,0 +1,50 @@
+package solutions.own.instructor4j.model;
+
+/**
+ * Represents the lifecycle state of a batch submitted through
+ * {@link solutions.own.instructor4j.service.AiBatchChatService}.
+ * <p>
+ * The states follow the status values of the OpenAI Batch API.
+ * </p>
+ */
+public enum BatchStatus {
+
+    /**
+     * The input file is being validated before the batch can begin.
+     */
+    VALIDATING,
+
+    /**
+     * The batch is being processed.
+     */
+    IN_PROGRESS,
+
+    /**
+     * The batch has been processed and its output file is available.
+     */
+    COMPLETED,
+
+    /**
+     * The input file failed validation or the batch could not be processed.
+     */
+    FAILED,
+
+    /**
+     * The batch was not completed within its completion window.
+     */
+    EXPIRED,
+
+    /**
+     * The batch was cancelled.
+     */
+    CANCELLED;
+
+    /**
+     * Indicates whether the batch has reached a final state and will not change anymore.
+     *
+     * @return {@code true} if the batch is completed, failed, expired or cancelled; {@code false} otherwise.
+     */
+    public boolean isTerminal() {
+        return this != VALIDATING && this != IN_PROGRESS;
+    }
+}
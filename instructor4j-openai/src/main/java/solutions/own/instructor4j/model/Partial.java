@@ -0,0 +1,79 @@
+package solutions.own.instructor4j.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a snapshot of a response model instance that is being populated while the model is still
+ * generating its response.
+ * <p>
+ * A snapshot keeps showing the fields completed when it was emitted, so snapshots can be retained or handed to
+ * other threads as they are. Consecutive snapshots share the nested objects that did not change between them,
+ * so the {@link #getValue() value} must be treated as read-only.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * instructor.createPartialStreamChatCompletion(messages, "gpt-4o-mini", UserProfile.class)
+ *     .doOnNext(partial -> render(partial.getValue(), partial.getCompletedPaths()))
+ *     .blockLast();
+ * }</pre>
+ *
+ * @param <T> the type of the response model.
+ */
+public class Partial<T> {
+
+    private final T value;
+    private final List<String> completedPaths;
+    private final boolean complete;
+
+    /**
+     * Constructs a new {@code Partial} snapshot.
+     *
+     * @param value          the partially populated response model instance.
+     * @param completedPaths the JSON Pointers of the fields completed since the previous snapshot.
+     * @param complete       whether the whole response has been received.
+     */
+    public Partial(T value, List<String> completedPaths, boolean complete) {
+        this.value = value;
+        this.completedPaths = Collections.unmodifiableList(completedPaths);
+        this.complete = complete;
+    }
+
+    /**
+     * Retrieves the partially populated response model instance.
+     *
+     * @return the response model instance; fields that have not been received yet hold their default values.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Retrieves the JSON Pointers of the fields that were completed since the previous snapshot,
+     * e.g. {@code /address/city}.
+     *
+     * @return an unmodifiable list of JSON Pointers, in the order the fields completed.
+     */
+    public List<String> getCompletedPaths() {
+        return completedPaths;
+    }
+
+    /**
+     * Indicates whether the whole response has been received and the value is fully populated.
+     *
+     * @return {@code true} for the final snapshot of a stream; {@code false} otherwise.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "Partial{" +
+            "value=" + value +
+            ", completedPaths=" + completedPaths +
+            ", complete=" + complete +
+            '}';
+    }
+}
@@ -0,0 +1,110 @@
+package solutions.own.instructor4j.model;
+
+/**
+ * Represents the outcome of a single extraction within a batch: either the structured response or the error
+ * that prevented it, together with the position of the input it was produced for.
+ * <p>
+ * A failed item does not fail the batch; callers inspect {@link #isSuccess()} per item instead.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * for (Result<User> result : instructor.createChatCompletions(conversations, "gpt-4o-mini", User.class)) {
+ *     if (result.isSuccess()) {
+ *         System.out.println(result.getValue());
+ *     } else {
+ *         System.err.println("Input " + result.getIndex() + " failed: " + result.getError().getMessage());
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe, provided the wrapped value is not
+ * modified.</p>
+ *
+ * @param <T> the type of the response model.
+ */
+public class Result<T> {
+
+    private final long index;
+    private final T value;
+    private final Throwable error;
+
+    private Result(long index, T value, Throwable error) {
+        this.index = index;
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param index the position of the input the value was produced for.
+     * @param value the structured response.
+     * @param <T>   the type of the response model.
+     * @return a successful {@code Result}.
+     */
+    public static <T> Result<T> success(long index, T value) {
+        return new Result<>(index, value, null);
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param index the position of the input that failed.
+     * @param error the error that prevented the extraction; must not be {@code null}.
+     * @param <T>   the type of the response model.
+     * @return a failed {@code Result}.
+     * @throws IllegalArgumentException if {@code error} is {@code null}.
+     */
+    public static <T> Result<T> failure(long index, Throwable error) {
+        if (error == null) {
+            throw new IllegalArgumentException("Parameter 'error' must not be null.");
+        }
+        return new Result<>(index, null, error);
+    }
+
+    /**
+     * Retrieves the position of the input this result was produced for.
+     *
+     * @return the zero based index of the input.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Retrieves the structured response.
+     *
+     * @return the response, or {@code null} if the extraction failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Retrieves the error that prevented the extraction.
+     *
+     * @return the error, or {@code null} if the extraction succeeded.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Indicates whether the extraction succeeded.
+     *
+     * @return {@code true} if a value is available; {@code false} if the extraction failed.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "Result{" +
+            "index=" + index +
+            ", value=" + value +
+            ", error=" + error +
+            '}';
+    }
+}
@@ -0,0 +1,185 @@
+package solutions.own.instructor4j.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A client-side limiter of requests per minute (RPM) and tokens per minute (TPM), mirroring the limits the API
+ * enforces for an organization.
+ * <p>
+ * Each limit is a token bucket holding one minute of capacity, refilled continuously. It is implemented with the
+ * generic cell rate algorithm: the bucket is a single timestamp, the theoretical time at which it is full again,
+ * advanced with a compare-and-set. Acquiring never takes a lock and never spins. A caller reserves its share
+ * up front, which always succeeds, and is told how long to wait before it may send the request. Callers are
+ * thereby queued in the order they reserved, and waiting callers sleep instead of polling.
+ * </p>
+ * <p>
+ * Tokens are reserved from an estimate, typically the prompt tokens plus the maximum number of completion tokens.
+ * Once the response reports its usage, {@link #reconcile(long, long)} returns the unused part of the estimate.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * RateLimiter rateLimiter = new RateLimiter(500, 200_000);
+ * rateLimiter.acquire(1200);
+ * ChatCompletion completion = openAiClient.chat().completions().create(params);
+ * completion.usage().ifPresent(usage -> rateLimiter.reconcile(1200, usage.totalTokens()));
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe and lock-free.</p>
+ */
+public final class RateLimiter {
+
+    private static final long PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Bucket requests;
+    private final Bucket tokens;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Constructs a rate limiter starting with a full minute of capacity.
+     *
+     * @param requestsPerMinute the number of requests allowed per minute.
+     * @param tokensPerMinute   the number of tokens allowed per minute.
+     * @throws IllegalArgumentException if a limit is less than 1.
+     */
+    public RateLimiter(long requestsPerMinute, long tokensPerMinute) {
+        this(requestsPerMinute, tokensPerMinute, System::nanoTime);
+    }
+
+    RateLimiter(long requestsPerMinute, long tokensPerMinute, LongSupplier nanoTime) {
+        if (requestsPerMinute < 1) {
+            throw new IllegalArgumentException("Parameter 'requestsPerMinute' must be greater than 0.");
+        }
+        if (tokensPerMinute < 1) {
+            throw new IllegalArgumentException("Parameter 'tokensPerMinute' must be greater than 0.");
+        }
+        this.nanoTime = nanoTime;
+        long now = nanoTime.getAsLong();
+        this.requests = new Bucket(requestsPerMinute, now);
+        this.tokens = new Bucket(tokensPerMinute, now);
+    }
+
+    /**
+     * Reserves one request and the given number of tokens, and returns how long the caller must wait before
+     * sending the request. The reservation is kept even if the caller does not wait; use
+     * {@link #release(long)} to give it back if the request is not sent.
+     *
+     * @param tokens the estimated number of tokens of the request, including its completion.
+     * @return the delay before the request may be sent, {@link Duration#ZERO} if it may be sent right away.
+     * @throws IllegalArgumentException if {@code tokens} is negative.
+     */
+    public Duration reserve(long tokens) {
+        if (tokens < 0) {
+            throw new IllegalArgumentException("Parameter 'tokens' must not be negative.");
+        }
+        long now = nanoTime.getAsLong();
+        long wait = Math.max(requests.reserve(1, now), this.tokens.reserve(tokens, now));
+        return wait == 0 ? Duration.ZERO : Duration.ofNanos(wait);
+    }
+
+    /**
+     * Reserves one request and the given number of tokens, and sleeps until the request may be sent.
+     *
+     * @param tokens the estimated number of tokens of the request, including its completion.
+     * @throws InterruptedException if the thread is interrupted while waiting; the reservation is released.
+     * @throws IllegalArgumentException if {@code tokens} is negative.
+     */
+    public void acquire(long tokens) throws InterruptedException {
+        Duration wait = reserve(tokens);
+        if (!wait.isZero()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait.toNanos());
+            } catch (InterruptedException e) {
+                release(tokens);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Gives back a reservation for a request that was not sent.
+     *
+     * @param tokens the number of tokens that were reserved.
+     */
+    public void release(long tokens) {
+        requests.adjust(-1);
+        this.tokens.adjust(-tokens);
+    }
+
+    /**
+     * Corrects a reservation with the number of tokens the request actually used, as reported by the API.
+     * Unused tokens are returned; tokens used beyond the estimate are charged.
+     *
+     * @param reservedTokens the number of tokens that were reserved.
+     * @param usedTokens     the number of tokens the request used.
+     */
+    public void reconcile(long reservedTokens, long usedTokens) {
+        if (reservedTokens != usedTokens) {
+            tokens.adjust(usedTokens - reservedTokens);
+        }
+    }
+
+    /**
+     * Returns the number of requests that can be sent right away.
+     *
+     * @return the request headroom.
+     */
+    public long getAvailableRequests() {
+        return requests.available(nanoTime.getAsLong());
+    }
+
+    /**
+     * Returns the number of tokens that can be used right away.
+     *
+     * @return the token headroom.
+     */
+    public long getAvailableTokens() {
+        return tokens.available(nanoTime.getAsLong());
+    }
+
+    /**
+     * A token bucket of one minute of capacity, represented by the time at which it is full again.
+     */
+    private static final class Bucket {
+
+        private final long limit;
+        private final double nanosPerUnit;
+        private final AtomicLong fullAt;
+
+        Bucket(long limit, long now) {
+            this.limit = limit;
+            this.nanosPerUnit = (double) PERIOD_NANOS / limit;
+            this.fullAt = new AtomicLong(now);
+        }
+
+        /**
+         * Takes the given units and returns the time to wait until they are available.
+         */
+        long reserve(long units, long now) {
+            long cost = cost(units);
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current - now, 0) + cost;
+                if (fullAt.compareAndSet(current, now + next)) {
+                    return Math.max(next - PERIOD_NANOS, 0);
+                }
+            }
+        }
+
+        void adjust(long units) {
+            fullAt.addAndGet(cost(units));
+        }
+
+        long available(long now) {
+            long used = Math.max(fullAt.get() - now, 0);
+            return Math.max(0, Math.min(limit, (long) ((PERIOD_NANOS - used) / nanosPerUnit)));
+        }
+
+        private long cost(long units) {
+            return (long) (units * nanosPerUnit);
+        }
+    }
+}
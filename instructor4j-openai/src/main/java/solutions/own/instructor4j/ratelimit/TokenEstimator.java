@@ -0,0 +1,97 @@
+package solutions.own.instructor4j.ratelimit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.core.ObjectMappers;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import com.openai.models.ChatCompletionTool;
+import java.util.Collections;
+import solutions.own.instructor4j.tokenizer.PromptTokenCounter;
+
+/**
+ * Estimates the number of tokens a chat completion request consumes from the tokens-per-minute limit, before it
+ * is sent.
+ * <p>
+ * The API counts the prompt tokens plus the maximum number of completion tokens of the request against the limit
+ * when the request is received. {@link #estimateTokens(ChatCompletionCreateParams)} therefore adds the completion
+ * budget of the request to the estimated prompt tokens.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * long tokens = TokenEstimator.bpe().estimateTokens(params);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> Implementations must be thread-safe.</p>
+ */
+@FunctionalInterface
+public interface TokenEstimator {
+
+    /**
+     * Estimates the number of prompt tokens of a request: its messages, its tool definitions and its response
+     * format.
+     *
+     * @param request the chat completion request.
+     * @return the estimated number of prompt tokens.
+     */
+    long estimatePromptTokens(ChatCompletionCreateParams request);
+
+    /**
+     * Estimates the number of tokens a request is charged up front: its prompt tokens plus its
+     * {@code max_completion_tokens}, or {@code max_tokens} if the former is not set.
+     *
+     * @param request the chat completion request.
+     * @return the estimated number of tokens.
+     */
+    default long estimateTokens(ChatCompletionCreateParams request) {
+        long completionTokens = request.maxCompletionTokens()
+            .orElse(request.maxTokens().orElse(0L));
+        return estimatePromptTokens(request) + completionTokens;
+    }
+
+    /**
+     * Returns an estimator counting the prompt tokens with the bundled {@code o200k_base} tokenizer, see
+     * {@link PromptTokenCounter#countTokens(ChatCompletionCreateParams)}. The vocabulary is loaded the first time a
+     * request is estimated.
+     *
+     * @return the estimator.
+     */
+    static TokenEstimator bpe() {
+        return PromptTokenCounter::countTokens;
+    }
+
+    /**
+     * Returns an estimator counting one token per four bytes of the JSON form of the messages, tools and
+     * response format, plus a few tokens of overhead per message. This is a rough estimate for English text that
+     * needs no vocabulary.
+     *
+     * @return the estimator.
+     */
+    static TokenEstimator approximate() {
+        return new TokenEstimator() {
+            private final ObjectMapper jsonMapper = ObjectMappers.jsonMapper();
+
+            @Override
+            public long estimatePromptTokens(ChatCompletionCreateParams request) {
+                long bytes = 0;
+                long tokens = 3;
+                try {
+                    for (ChatCompletionMessageParam message : request.messages()) {
+                        bytes += jsonMapper.writeValueAsBytes(message).length;
+                        tokens += 4;
+                    }
+                    for (ChatCompletionTool tool : request.tools().orElse(Collections.emptyList())) {
+                        bytes += jsonMapper.writeValueAsBytes(tool).length;
+                    }
+                    if (request.responseFormat().isPresent()) {
+                        bytes += jsonMapper.writeValueAsBytes(request.responseFormat().get()).length;
+                    }
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Failed to serialize the request: " + e.getMessage(), e);
+                }
+                return tokens + (bytes + 3) / 4;
+            }
+        };
+    }
+}
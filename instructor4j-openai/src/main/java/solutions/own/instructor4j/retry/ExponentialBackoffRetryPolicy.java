@@ -0,0 +1,284 @@
+package solutions.own.instructor4j.retry;
+
+import com.openai.errors.OpenAIServiceException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * A {@link RetryPolicy} retrying with exponential backoff and jitter, within a {@link RetryBudget}.
+ * <p>
+ * The n-th retry waits {@code initialDelay * multiplier^n}, capped at {@code maxDelay}, of which a random
+ * fraction of up to {@code jitter} is subtracted so that callers failing together do not retry together.
+ * The policy treats failures as follows:
+ * </p>
+ * <ul>
+ *     <li>HTTP 400, 401, 403, 404 and 422 errors are not retried, as the same request would fail again.</li>
+ *     <li>HTTP 429 and 503 errors wait as long as their {@code retry-after-ms} or {@code Retry-After} header
+ *     asks, if present; a wait longer than {@code maxRetryAfter} is not attempted.</li>
+ *     <li>Responses that did not pass validation are retried immediately, as the next attempt includes the
+ *     validation feedback rather than repeating the same request.</li>
+ * </ul>
+ * <p>
+ * Every retry withdraws a token from the retry budget and is not attempted when the budget is exhausted.
+ * Unless set otherwise, policies share the process-wide {@link RetryBudget#global() budget}.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * RetryPolicy retryPolicy = ExponentialBackoffRetryPolicy.builder()
+ *     .initialDelay(Duration.ofMillis(250))
+ *     .jitter(0.2)
+ *     .build();
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe.</p>
+ */
+public final class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    private static final Logger logger = Logger.getLogger(ExponentialBackoffRetryPolicy.class.getName());
+
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double multiplier;
+    private final double jitter;
+    private final Duration maxRetryAfter;
+    private final RetryBudget retryBudget;
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the policy.
+     */
+    private ExponentialBackoffRetryPolicy(Builder builder) {
+        this.initialDelay = builder.initialDelay;
+        this.maxDelay = builder.maxDelay;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.maxRetryAfter = builder.maxRetryAfter;
+        this.retryBudget = builder.retryBudget;
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing an {@link ExponentialBackoffRetryPolicy}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public Optional<Duration> getRetryDelay(int retryCount, Throwable error) {
+        Duration delay;
+        if (error == null) {
+            delay = Duration.ZERO;
+        } else {
+            OpenAIServiceException serviceException = findServiceException(error);
+            int statusCode = serviceException == null ? 0 : serviceException.statusCode();
+            if (!isRetryable(statusCode)) {
+                return Optional.empty();
+            }
+            Duration retryAfter = statusCode == 429 || statusCode == 503
+                ? getRetryAfter(serviceException) : null;
+            if (retryAfter != null && retryAfter.compareTo(maxRetryAfter) > 0) {
+                logger.warning("Not retrying, the API asked to retry after " + retryAfter.toMillis() + " ms.");
+                return Optional.empty();
+            }
+            delay = retryAfter != null ? retryAfter : getBackoff(retryCount);
+        }
+        if (!retryBudget.tryAcquire()) {
+            logger.warning("Not retrying, the retry budget is exhausted.");
+            return Optional.empty();
+        }
+        return Optional.of(delay);
+    }
+
+    @Override
+    public void onSuccess() {
+        retryBudget.onSuccess();
+    }
+
+    /**
+     * Returns the backoff before the given retry, including jitter.
+     *
+     * @param retryCount the number of retries made so far.
+     * @return the delay.
+     */
+    Duration getBackoff(int retryCount) {
+        double delayMillis = Math.min(maxDelay.toMillis(),
+            initialDelay.toMillis() * Math.pow(multiplier, retryCount));
+        double jitterFactor = jitter == 0 ? 0 : ThreadLocalRandom.current().nextDouble(jitter);
+        return Duration.ofMillis((long) (delayMillis * (1 - jitterFactor)));
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        switch (statusCode) {
+            case 400:
+            case 401:
+            case 403:
+            case 404:
+            case 422:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static OpenAIServiceException findServiceException(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAIServiceException) {
+                return (OpenAIServiceException) cause;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the delay requested by the {@code retry-after-ms} or {@code Retry-After} header of an error.
+     *
+     * @param exception the error returned by the API.
+     * @return the requested delay, or {@code null} if the error has no valid header.
+     */
+    static Duration getRetryAfter(OpenAIServiceException exception) {
+        List<String> retryAfterMillis = exception.headers().values("retry-after-ms");
+        if (!retryAfterMillis.isEmpty()) {
+            try {
+                return Duration.ofMillis(Math.max(0, (long) Double.parseDouble(retryAfterMillis.get(0).trim())));
+            } catch (NumberFormatException e) {
+                // fall back to Retry-After
+            }
+        }
+        List<String> retryAfter = exception.headers().values("retry-after");
+        if (retryAfter.isEmpty()) {
+            return null;
+        }
+        String value = retryAfter.get(0).trim();
+        try {
+            return Duration.ofMillis(Math.max(0, (long) (Double.parseDouble(value) * 1000)));
+        } catch (NumberFormatException e) {
+            // not a number of seconds, try an HTTP date
+        }
+        try {
+            Duration delay = Duration.between(ZonedDateTime.now(),
+                ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link ExponentialBackoffRetryPolicy} instances.
+     */
+    public static class Builder {
+        private Duration initialDelay = Duration.ofMillis(500);
+        private Duration maxDelay = Duration.ofSeconds(30);
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private Duration maxRetryAfter = Duration.ofSeconds(60);
+        private RetryBudget retryBudget = RetryBudget.global();
+
+        /**
+         * Sets the delay before the first retry. Defaults to 500 milliseconds.
+         *
+         * @param initialDelay The delay before the first retry.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder initialDelay(Duration initialDelay) {
+            if (initialDelay == null || initialDelay.isNegative()) {
+                throw new IllegalArgumentException("Parameter 'initialDelay' must not be null or negative.");
+            }
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay between two attempts, before jitter. Defaults to 30 seconds.
+         *
+         * @param maxDelay The maximum delay.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay == null || maxDelay.isNegative()) {
+                throw new IllegalArgumentException("Parameter 'maxDelay' must not be null or negative.");
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Sets the factor by which the delay grows after each retry. Defaults to 2.
+         *
+         * @param multiplier The factor, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder multiplier(double multiplier) {
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("Parameter 'multiplier' must be at least 1.");
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the maximum fraction of the delay that is randomly subtracted from it. Defaults to 0.5.
+         *
+         * @param jitter The fraction, between 0 and 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder jitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("Parameter 'jitter' must be between 0 and 1.");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets the longest {@code Retry-After} delay that is waited for; the call fails if the API asks for a
+         * longer one. Defaults to 60 seconds.
+         *
+         * @param maxRetryAfter The longest delay.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxRetryAfter(Duration maxRetryAfter) {
+            if (maxRetryAfter == null || maxRetryAfter.isNegative()) {
+                throw new IllegalArgumentException("Parameter 'maxRetryAfter' must not be null or negative.");
+            }
+            this.maxRetryAfter = maxRetryAfter;
+            return this;
+        }
+
+        /**
+         * Sets the budget retries are withdrawn from. Defaults to {@link RetryBudget#global()}.
+         *
+         * @param retryBudget The retry budget.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder retryBudget(RetryBudget retryBudget) {
+            if (retryBudget == null) {
+                throw new IllegalArgumentException("Parameter 'retryBudget' must not be null.");
+            }
+            this.retryBudget = retryBudget;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link ExponentialBackoffRetryPolicy} instance.
+         *
+         * @return A new {@link ExponentialBackoffRetryPolicy} instance.
+         */
+        public ExponentialBackoffRetryPolicy build() {
+            return new ExponentialBackoffRetryPolicy(this);
+        }
+    }
+}
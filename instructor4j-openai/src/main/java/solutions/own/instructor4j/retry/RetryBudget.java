@@ -0,0 +1,119 @@
+package solutions.own.instructor4j.retry;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket capping retries as a fraction of successful requests.
+ * <p>
+ * Every successful request deposits {@code retryRatio} tokens and every retry withdraws one, so in the long
+ * run retries cannot exceed {@code retryRatio} times the successful traffic. On top of that, the bucket is
+ * refilled with {@code minRetriesPerSecond} tokens per second, so that a process with little traffic can still
+ * retry occasionally. The bucket holds at most {@code maxTokens} tokens, which bounds the burst of retries that
+ * can follow a quiet period. It starts with one second worth of the minimum refill.
+ * </p>
+ * <p>
+ * When the API browns out, successful requests stop, the bucket drains and further retries are refused, so
+ * that the callers do not multiply the load on the API by the number of attempts.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * RetryBudget budget = new RetryBudget(0.2, 2, 50);
+ * RetryPolicy retryPolicy = RetryPolicy.exponentialBackoff().retryBudget(budget).build();
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class RetryBudget {
+
+    private static final RetryBudget GLOBAL = new RetryBudget(0.1, 1, 100);
+
+    private final double retryRatio;
+    private final double minRetriesPerSecond;
+    private final double maxTokens;
+    private final LongSupplier nanoTime;
+
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Constructs a retry budget.
+     *
+     * @param retryRatio          the tokens deposited by each successful request, that is the fraction of
+     *                            successful requests that may be retried.
+     * @param minRetriesPerSecond the tokens added every second regardless of traffic.
+     * @param maxTokens           the maximum number of tokens in the bucket.
+     * @throws IllegalArgumentException if a parameter is negative, or if {@code maxTokens} is less than one.
+     */
+    public RetryBudget(double retryRatio, double minRetriesPerSecond, double maxTokens) {
+        this(retryRatio, minRetriesPerSecond, maxTokens, System::nanoTime);
+    }
+
+    RetryBudget(double retryRatio, double minRetriesPerSecond, double maxTokens, LongSupplier nanoTime) {
+        if (retryRatio < 0) {
+            throw new IllegalArgumentException("Parameter 'retryRatio' must not be negative.");
+        }
+        if (minRetriesPerSecond < 0) {
+            throw new IllegalArgumentException("Parameter 'minRetriesPerSecond' must not be negative.");
+        }
+        if (maxTokens < 1) {
+            throw new IllegalArgumentException("Parameter 'maxTokens' must be at least 1.");
+        }
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.maxTokens = maxTokens;
+        this.nanoTime = nanoTime;
+        this.tokens = Math.min(maxTokens, minRetriesPerSecond);
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    /**
+     * Returns the budget shared by all retry policies of the process that do not set their own: retries are
+     * capped at 10% of successful requests, plus one retry per second, with bursts of at most 100 retries.
+     *
+     * @return the process-wide budget.
+     */
+    public static RetryBudget global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records a successful request, depositing {@code retryRatio} tokens.
+     */
+    public synchronized void onSuccess() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + retryRatio);
+    }
+
+    /**
+     * Withdraws a token for a retry, if one is available.
+     *
+     * @return {@code true} if the retry may proceed, {@code false} if the budget is exhausted.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Returns the number of retries currently available.
+     *
+     * @return the number of whole tokens in the bucket.
+     */
+    public synchronized int getAvailableRetries() {
+        refill();
+        return (int) tokens;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        if (minRetriesPerSecond > 0) {
+            tokens = Math.min(maxTokens, tokens + (now - refilledAt) / 1e9 * minRetriesPerSecond);
+        }
+        refilledAt = now;
+    }
+}
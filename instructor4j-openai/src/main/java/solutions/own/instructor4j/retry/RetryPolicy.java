@@ -0,0 +1,64 @@
+package solutions.own.instructor4j.retry;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Decides whether, and when, {@link solutions.own.instructor4j.Instructor} retries a failed attempt.
+ * <p>
+ * An attempt fails either with an error, such as an HTTP error returned by the API, or because its response
+ * did not pass validation. The maximum number of attempts is set on the {@code Instructor}; within that limit,
+ * the policy may give up early or delay the next attempt. The policy is also told about every request that
+ * completed, so that it can relate retries to successful traffic.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * RetryPolicy retryPolicy = RetryPolicy.exponentialBackoff()
+ *     .initialDelay(Duration.ofMillis(250))
+ *     .maxDelay(Duration.ofSeconds(20))
+ *     .build();
+ * Instructor instructor = new Instructor(new OpenAiChatService(apiKey), 3, retryPolicy);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> A policy is shared by all calls of an {@code Instructor} and must be thread-safe.</p>
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+
+    /**
+     * Decides whether a failed attempt is retried.
+     *
+     * @param retryCount the number of retries made so far for the same call, {@code 0} after the first attempt.
+     * @param error      the error the attempt failed with, or {@code null} if its response did not pass
+     *                   validation.
+     * @return the delay to wait before the next attempt, or an empty optional if the call must not be retried.
+     */
+    Optional<Duration> getRetryDelay(int retryCount, Throwable error);
+
+    /**
+     * Called whenever an attempt received a response, whether or not it passed validation. A hedged attempt
+     * counts once, however many of its copies responded. The default implementation does nothing.
+     */
+    default void onSuccess() {
+    }
+
+    /**
+     * Returns a policy retrying every failed attempt immediately, without a delay or a budget.
+     *
+     * @return the policy.
+     */
+    static RetryPolicy immediate() {
+        return (retryCount, error) -> Optional.of(Duration.ZERO);
+    }
+
+    /**
+     * Returns a builder of a policy retrying with exponential backoff and jitter, honoring {@code Retry-After}
+     * headers, within the process-wide {@link RetryBudget#global() retry budget}.
+     *
+     * @return a new builder.
+     */
+    static ExponentialBackoffRetryPolicy.Builder exponentialBackoff() {
+        return ExponentialBackoffRetryPolicy.builder();
+    }
+}
@@ -0,0 +1,56 @@
+package solutions.own.instructor4j.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import solutions.own.instructor4j.model.BatchStatus;
+
+/**
+ * The {@code AiBatchChatService} interface extends {@link AiChatService} with the asynchronous batch endpoint
+ * of the GenAI Chat API, trading latency for cost and throughput.
+ * <p>
+ * A batch is described by a JSONL file in the format of the OpenAI Batch API: every line holds a
+ * {@code custom_id}, the HTTP {@code method}, the endpoint {@code url} and the request {@code body}. The output
+ * file holds one line per request, carrying the same {@code custom_id} and either the {@code response} or an
+ * {@code error}. Output lines are not guaranteed to be in input order. Both files are read and written line by
+ * line through {@link solutions.own.instructor4j.util.BatchJsonl}.
+ * </p>
+ *
+ * <p><b>Responsibilities:</b></p>
+ * <ul>
+ *   <li>Submitting a JSONL file of chat completion requests as a batch.</li>
+ *   <li>Reporting the status of a submitted batch.</li>
+ *   <li>Providing the output file of a completed batch as a stream.</li>
+ * </ul>
+ */
+public interface AiBatchChatService extends AiChatService {
+
+    /**
+     * Submits a batch of chat completion requests.
+     *
+     * @param requestsFile the JSONL file of requests. Must not be {@code null}.
+     * @return the identifier of the created batch.
+     * @throws IOException if the file cannot be read or uploaded.
+     */
+    String submitBatch(Path requestsFile) throws IOException;
+
+    /**
+     * Retrieves the current status of a batch.
+     *
+     * @param batchId the identifier returned by {@link #submitBatch(Path)}.
+     * @return the status of the batch.
+     * @throws IOException if the status cannot be retrieved.
+     * @throws IllegalArgumentException if the batch is unknown.
+     */
+    BatchStatus getBatchStatus(String batchId) throws IOException;
+
+    /**
+     * Opens the output file of a completed batch. The caller is responsible for closing the returned stream.
+     *
+     * @param batchId the identifier returned by {@link #submitBatch(Path)}.
+     * @return a stream over the JSONL output file.
+     * @throws IOException if the output cannot be retrieved.
+     * @throws IllegalStateException if the batch is not {@link BatchStatus#COMPLETED completed}.
+     */
+    InputStream openBatchOutput(String batchId) throws IOException;
+}
@@ -5,6 +5,7 @@ import com.openai.core.http.StreamResponse;
 import com.openai.models.ChatCompletion;
 import com.openai.models.ChatCompletionChunk;
 import com.openai.models.ChatCompletionCreateParams;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The {@code AiChatService} interface defines the contract for interacting with the GenAI Chat API.
@@ -17,6 +18,7 @@ import com.openai.models.ChatCompletionCreateParams;
  * <p><b>Responsibilities:</b></p>
  * <ul>
  *   <li>Generating complete chat completions based on provided parameters.</li>
+ *   <li>Generating chat completions asynchronously, without blocking the calling thread.</li>
  *   <li>Initiating streaming chat completions to receive partial responses in real-time.</li>
  *   <li>Handling configuration and communication details with the OpenAI API.</li>
  * </ul>
@@ -50,6 +52,42 @@ public interface AiChatService {
      */
     ChatCompletion createChatCompletion(ChatCompletionCreateParams request);
 
+    /**
+     * Asynchronously creates a chat completion by sending the specified {@link ChatCompletionCreateParams} to the
+     * OpenAI API.
+     *
+     * <p>Implementations should send the request without blocking the calling thread and complete the returned
+     * future from the thread that receives the response. The default implementation performs the request
+     * synchronously via {@link #createChatCompletion(ChatCompletionCreateParams)} on the calling thread and
+     * returns an already completed future.</p>
+     *
+     * @param request the {@link ChatCompletionCreateParams} containing the parameters for generating the chat completion.
+     *                Must not be {@code null}.
+     *
+     * @return a {@link CompletableFuture} completed with the {@link ChatCompletion}, or completed exceptionally if
+     *         the request fails.
+     *
+     * @see #createChatCompletion(ChatCompletionCreateParams)
+     */
+    default CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        CompletableFuture<ChatCompletion> future = new CompletableFuture<>();
+        try {
+            future.complete(createChatCompletion(request));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Prepares the service for its first request, for example by opening a connection to the API ahead of time.
+     *
+     * <p>This is a best-effort optimization: implementations must not fail if the preparation does not succeed.
+     * The default implementation does nothing.</p>
+     */
+    default void warmUp() {
+    }
+
     /**
      * Initiates a streaming chat completion request to the OpenAI API and returns a reactive stream of response chunks.
      *
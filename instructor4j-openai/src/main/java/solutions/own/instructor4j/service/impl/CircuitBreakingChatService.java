@@ -0,0 +1,127 @@
+package solutions.own.instructor4j.service.impl;
+
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import java.util.concurrent.CompletableFuture;
+import solutions.own.instructor4j.circuitbreaker.CallNotPermittedException;
+import solutions.own.instructor4j.circuitbreaker.CircuitBreaker;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.Utils;
+
+/**
+ * An {@link AiChatService} guarding a delegate with a {@link CircuitBreaker}: while the breaker is open, requests
+ * fail at once with a {@link CallNotPermittedException} instead of being sent.
+ * <p>
+ * A streaming request counts as completed once the stream is opened, as its duration depends on the length of the
+ * output. A cancelled asynchronous request is not recorded. Wrap each endpoint of a
+ * {@link LoadBalancedChatService} with its own breaker to have requests avoid the endpoints whose breaker is
+ * open.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * AiChatService chatService = new CircuitBreakingChatService(new OpenAiChatService(apiKey),
+ *     CircuitBreaker.builder().name("openai").build());
+ * Instructor instructor = new Instructor(chatService, 3);
+ * try {
+ *     User user = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+ * } catch (CircuitBreakerOpenException e) {
+ *     // fall back
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public class CircuitBreakingChatService implements AiChatService {
+
+    private final AiChatService delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Constructs a service guarded by a circuit breaker.
+     *
+     * @param delegate       the service the requests are sent to.
+     * @param circuitBreaker the breaker guarding the delegate; not to be shared with other endpoints.
+     */
+    public CircuitBreakingChatService(AiChatService delegate, CircuitBreaker circuitBreaker) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Parameter 'delegate' must not be null.");
+        }
+        if (circuitBreaker == null) {
+            throw new IllegalArgumentException("Parameter 'circuitBreaker' must not be null.");
+        }
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Returns the breaker guarding the delegate, for example to report its state.
+     *
+     * @return the circuit breaker.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public ChatCompletion createChatCompletion(ChatCompletionCreateParams request) {
+        CircuitBreaker.Permit permit = circuitBreaker.acquirePermission();
+        ChatCompletion completion;
+        try {
+            completion = delegate.createChatCompletion(request);
+        } catch (RuntimeException e) {
+            permit.onError(e);
+            throw e;
+        }
+        permit.onSuccess();
+        return completion;
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        CircuitBreaker.Permit permit;
+        try {
+            permit = circuitBreaker.acquirePermission();
+        } catch (CallNotPermittedException e) {
+            return Utils.failedFuture(e);
+        }
+        CompletableFuture<ChatCompletion> completion;
+        try {
+            completion = delegate.createChatCompletionAsync(request);
+        } catch (RuntimeException e) {
+            permit.onError(e);
+            return Utils.failedFuture(e);
+        }
+        completion.whenComplete((result, error) -> {
+            if (error == null) {
+                permit.onSuccess();
+            } else if (completion.isCancelled()) {
+                permit.release();
+            } else {
+                permit.onError(Utils.unwrapCompletionException(error));
+            }
+        });
+        return completion;
+    }
+
+    @Override
+    public StreamResponse<ChatCompletionChunk> createStreamChatCompletion(ChatCompletionCreateParams request) {
+        CircuitBreaker.Permit permit = circuitBreaker.acquirePermission();
+        StreamResponse<ChatCompletionChunk> response;
+        try {
+            response = delegate.createStreamChatCompletion(request);
+        } catch (RuntimeException e) {
+            permit.onError(e);
+            throw e;
+        }
+        permit.onSuccess();
+        return response;
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+}
@@ -0,0 +1,217 @@
+package solutions.own.instructor4j.service.impl;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * The connection pool and dispatcher that {@link OpenAiChatService} instances send their requests through.
+ * <p>
+ * Services built with the same transport reuse each other's idle connections and share the limits on concurrent
+ * requests, while each keeps its own timeouts and request compression. Unless set otherwise, services use the
+ * process-wide {@link #shared() transport}. Over HTTP/2, which is negotiated with the API when enabled, concurrent
+ * requests are multiplexed over a single connection per host.
+ * </p>
+ * <p>
+ * The limit on concurrent requests per host only applies to asynchronous requests, which are queued beyond it.
+ * As all requests go to the same host, it is raised from the default of five of OkHttp to 64.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * HttpTransport transport = HttpTransport.builder()
+ *     .maxIdleConnections(32)
+ *     .keepAlive(Duration.ofMinutes(2))
+ *     .maxRequestsPerHost(128)
+ *     .build();
+ * AiChatService euService = OpenAiChatService.builder().apiKey(euApiKey).transport(transport).build();
+ * AiChatService usService = OpenAiChatService.builder().apiKey(usApiKey).transport(transport).build();
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class HttpTransport implements Closeable {
+
+    private static volatile HttpTransport shared;
+
+    private final OkHttpClient okHttpClient;
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the transport.
+     */
+    private HttpTransport(Builder builder) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(builder.maxRequests);
+        dispatcher.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+        this.okHttpClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(builder.maxIdleConnections, builder.keepAlive.toNanos(),
+                TimeUnit.NANOSECONDS))
+            .dispatcher(dispatcher)
+            .protocols(builder.http2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1))
+            .build();
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing an {@link HttpTransport}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the process-wide transport with the default settings, created on first use. It must not be closed.
+     *
+     * @return the shared transport.
+     */
+    public static HttpTransport shared() {
+        HttpTransport transport = shared;
+        if (transport == null) {
+            synchronized (HttpTransport.class) {
+                transport = shared;
+                if (transport == null) {
+                    transport = builder().build();
+                    shared = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Returns the number of connections in the pool, idle or in use.
+     *
+     * @return the number of connections.
+     */
+    public int getConnectionCount() {
+        return okHttpClient.connectionPool().connectionCount();
+    }
+
+    /**
+     * Returns the number of idle connections in the pool.
+     *
+     * @return the number of idle connections.
+     */
+    public int getIdleConnectionCount() {
+        return okHttpClient.connectionPool().idleConnectionCount();
+    }
+
+    /**
+     * Returns the client that services derive their own client from, sharing its pool and dispatcher.
+     *
+     * @return the base client.
+     */
+    OkHttpClient okHttpClient() {
+        return okHttpClient;
+    }
+
+    /**
+     * Closes the idle connections and stops accepting asynchronous requests. Requests in flight complete.
+     */
+    @Override
+    public void close() {
+        if (this == shared) {
+            throw new IllegalStateException("The shared transport must not be closed.");
+        }
+        okHttpClient.dispatcher().executorService().shutdown();
+        okHttpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Builder class for constructing {@link HttpTransport} instances.
+     */
+    public static class Builder {
+        private int maxIdleConnections = 16;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private int maxRequests = 256;
+        private int maxRequestsPerHost = 64;
+        private boolean http2 = true;
+
+        /**
+         * Sets the maximum number of idle connections kept in the pool. Defaults to 16.
+         *
+         * @param maxIdleConnections The number of connections, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            if (maxIdleConnections < 1) {
+                throw new IllegalArgumentException("Parameter 'maxIdleConnections' must be at least 1.");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets how long an idle connection is kept in the pool. Defaults to 5 minutes.
+         *
+         * @param keepAlive The keep-alive duration.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            if (keepAlive == null || keepAlive.isNegative() || keepAlive.isZero()) {
+                throw new IllegalArgumentException("Parameter 'keepAlive' must be positive.");
+            }
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of asynchronous requests in flight. Defaults to 256.
+         *
+         * @param maxRequests The number of requests, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxRequests(int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("Parameter 'maxRequests' must be at least 1.");
+            }
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of asynchronous requests in flight to one host. Defaults to 64.
+         *
+         * @param maxRequestsPerHost The number of requests, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("Parameter 'maxRequestsPerHost' must be at least 1.");
+            }
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets whether HTTP/2 is offered to the server, which multiplexes concurrent requests over one connection.
+         * Defaults to {@code true}; when disabled, every request in flight takes its own HTTP/1.1 connection.
+         *
+         * @param http2 Whether HTTP/2 is offered.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link HttpTransport} instance.
+         *
+         * @return A new {@link HttpTransport} instance.
+         */
+        public HttpTransport build() {
+            return new HttpTransport(this);
+        }
+    }
+}
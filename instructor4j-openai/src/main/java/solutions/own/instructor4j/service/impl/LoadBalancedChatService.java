@@ -0,0 +1,443 @@
+package solutions.own.instructor4j.service.impl;
+
+import com.openai.core.http.StreamResponse;
+import com.openai.errors.OpenAIServiceException;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import solutions.own.instructor4j.circuitbreaker.CallNotPermittedException;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.Utils;
+
+/**
+ * An {@link AiChatService} spreading requests over several endpoints serving the same model, for example
+ * deployments in several regions, each with its own quota.
+ * <p>
+ * Each request goes to the better of two endpoints picked at random: the one with the lower product of its
+ * latency estimate and its number of requests in flight plus one. The latency estimate is a peak-sensitive
+ * exponentially weighted moving average: it jumps to a slower response at once and decays towards faster ones,
+ * and towards zero while the endpoint is idle, over the decay time. A failed request counts as a response
+ * taking ten seconds. Until a request to an endpoint completed, its latency is assumed to be the average estimate
+ * of the endpoints with one, so that a burst of requests to a new endpoint is spread by the number in flight
+ * instead of all going to it; on a tie, it gets the request. Comparing two random endpoints instead of all of them keeps a fast endpoint from being
+ * flooded by every caller at once, and the load follows each endpoint's capacity, so throughput adds up across
+ * their quotas.
+ * </p>
+ * <p>
+ * An endpoint failing {@code consecutiveFailures} requests in a row is ejected for the ejection time, which
+ * doubles every time it is ejected again right after it returns, up to ten times the ejection time. A request
+ * rejected for its own content, with HTTP 400, 401, 403, 404 or 422, is not counted as a failure of the
+ * endpoint. Endpoints wrapped in a {@link CircuitBreakingChatService} are also avoided while their breaker
+ * rejects calls, and its rejections do not count as failures. If all endpoints are ejected, requests go to the one
+ * returning soonest.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * AiChatService chatService = LoadBalancedChatService.builder()
+ *     .endpoint(new OpenAiChatService(euApiKey))
+ *     .endpoint(new OpenAiChatService(usApiKey))
+ *     .consecutiveFailures(5)
+ *     .ejectionTime(Duration.ofSeconds(30))
+ *     .build();
+ * Instructor instructor = new Instructor(chatService, 3);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public class LoadBalancedChatService implements AiChatService {
+
+    private static final Logger logger = Logger.getLogger(LoadBalancedChatService.class.getName());
+
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    /**
+     * The latency a failed request counts as, so that an endpoint failing fast does not attract the requests.
+     */
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final List<Endpoint> endpoints;
+    private final long decayNanos;
+    private final int consecutiveFailures;
+    private final long ejectionNanos;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Private constructor to enforce the use of the {@link Builder} for creating instances.
+     *
+     * @param builder The builder used to construct the service.
+     */
+    private LoadBalancedChatService(Builder builder) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (AiChatService service : builder.endpoints) {
+            endpoints.add(new Endpoint(endpoints.size(), service));
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.decayNanos = builder.decayTime.toNanos();
+        this.consecutiveFailures = builder.consecutiveFailures;
+        this.ejectionNanos = builder.ejectionTime.toNanos();
+        this.nanoTime = builder.nanoTime;
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing a {@link LoadBalancedChatService}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public ChatCompletion createChatCompletion(ChatCompletionCreateParams request) {
+        Endpoint endpoint = choose();
+        long startedAt = endpoint.start();
+        ChatCompletion completion;
+        try {
+            completion = endpoint.service.createChatCompletion(request);
+        } catch (RuntimeException e) {
+            endpoint.finish(startedAt, e);
+            throw e;
+        }
+        endpoint.finish(startedAt, null);
+        return completion;
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        Endpoint endpoint = choose();
+        long startedAt = endpoint.start();
+        CompletableFuture<ChatCompletion> completion;
+        try {
+            completion = endpoint.service.createChatCompletionAsync(request);
+        } catch (RuntimeException e) {
+            completion = Utils.failedFuture(e);
+        }
+        return completion.whenComplete((result, error) ->
+            endpoint.finish(startedAt, error == null ? null : Utils.unwrapCompletionException(error)));
+    }
+
+    /**
+     * Creates a streaming chat completion on the chosen endpoint. The stream counts as in flight until it is
+     * closed; its duration does not feed the latency estimate, as it depends on the length of the output.
+     */
+    @Override
+    public StreamResponse<ChatCompletionChunk> createStreamChatCompletion(ChatCompletionCreateParams request) {
+        Endpoint endpoint = choose();
+        long startedAt = endpoint.start();
+        StreamResponse<ChatCompletionChunk> response;
+        try {
+            response = endpoint.service.createStreamChatCompletion(request);
+        } catch (RuntimeException e) {
+            endpoint.finish(startedAt, e);
+            throw e;
+        }
+        return new StreamResponse<ChatCompletionChunk>() {
+            private boolean closed;
+
+            @Override
+            public Stream<ChatCompletionChunk> stream() {
+                return response.stream();
+            }
+
+            @Override
+            public void close() throws Exception {
+                try {
+                    response.close();
+                } finally {
+                    if (!closed) {
+                        closed = true;
+                        endpoint.inFlight.decrementAndGet();
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public void warmUp() {
+        for (Endpoint endpoint : endpoints) {
+            endpoint.service.warmUp();
+        }
+    }
+
+    /**
+     * Returns the latency estimate of an endpoint.
+     *
+     * @param index the index of the endpoint, in the order it was added.
+     * @return the latency estimate, zero until a request completed.
+     */
+    public Duration getLatencyEstimate(int index) {
+        return Duration.ofNanos((long) endpoints.get(index).getLatency(nanoTime.getAsLong()));
+    }
+
+    /**
+     * Returns the number of requests in flight on an endpoint.
+     *
+     * @param index the index of the endpoint, in the order it was added.
+     * @return the number of requests in flight.
+     */
+    public int getInFlight(int index) {
+        return endpoints.get(index).inFlight.get();
+    }
+
+    /**
+     * Indicates whether an endpoint is ejected.
+     *
+     * @param index the index of the endpoint, in the order it was added.
+     * @return {@code true} if requests currently avoid the endpoint.
+     */
+    public boolean isEjected(int index) {
+        return endpoints.get(index).isEjected(nanoTime.getAsLong());
+    }
+
+    /**
+     * Chooses the endpoint of a request: the cheaper of two random endpoints that are not ejected.
+     */
+    private Endpoint choose() {
+        long now = nanoTime.getAsLong();
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now) && endpoint.isCallPermitted()) {
+                available.add(endpoint);
+            }
+        }
+        if (available.isEmpty()) {
+            Endpoint soonest = endpoints.get(0);
+            for (Endpoint endpoint : endpoints) {
+                if (endpoint.ejectedUntil - soonest.ejectedUntil < 0) {
+                    soonest = endpoint;
+                }
+            }
+            return soonest;
+        }
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = available.get(first);
+        Endpoint b = available.get(second);
+        double priorLatency = getPriorLatency(now);
+        double costA = a.getCost(now, priorLatency);
+        double costB = b.getCost(now, priorLatency);
+        if (costA != costB) {
+            return costA < costB ? a : b;
+        }
+        // on a tie, the endpoint without a latency estimate gets the request, so that it gets one
+        return a.sampled ? b : a;
+    }
+
+    /**
+     * Returns the latency assumed for an endpoint without a completed request: the average estimate of the
+     * endpoints with one, or 1 nanosecond if there are none, which spreads the requests by the number in flight.
+     */
+    private double getPriorLatency(long now) {
+        double total = 0;
+        int sampled = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.sampled) {
+                total += endpoint.getLatency(now);
+                sampled++;
+            }
+        }
+        return sampled > 0 && total > 0 ? total / sampled : 1;
+    }
+
+    /**
+     * Indicates whether an error is caused by the endpoint rather than by the request.
+     */
+    private static boolean isEndpointFailure(Throwable error) {
+        if (error instanceof OpenAIServiceException) {
+            int statusCode = ((OpenAIServiceException) error).statusCode();
+            return statusCode != 400 && statusCode != 401 && statusCode != 403 && statusCode != 404
+                && statusCode != 422;
+        }
+        return !(error instanceof CallNotPermittedException);
+    }
+
+    /**
+     * An endpoint with its load, latency estimate and health.
+     */
+    private final class Endpoint {
+        final int index;
+        final AiChatService service;
+        final AtomicInteger inFlight = new AtomicInteger();
+        volatile double latency;
+        volatile boolean sampled;
+        volatile long ejectedUntil;
+        private volatile long updatedAt;
+        private int failures;
+        private int ejections;
+        private boolean ejected;
+
+        Endpoint(int index, AiChatService service) {
+            this.index = index;
+            this.service = service;
+        }
+
+        long start() {
+            inFlight.incrementAndGet();
+            return nanoTime.getAsLong();
+        }
+
+        void finish(long startedAt, Throwable error) {
+            inFlight.decrementAndGet();
+            long now = nanoTime.getAsLong();
+            if (error == null) {
+                update(now, now - startedAt, true);
+            } else if (isEndpointFailure(error)) {
+                update(now, Math.max(now - startedAt, FAILURE_PENALTY_NANOS), false);
+            }
+        }
+
+        double getCost(long now, double priorLatency) {
+            return (sampled ? getLatency(now) : priorLatency) * (inFlight.get() + 1);
+        }
+
+        /**
+         * Returns the latency estimate decayed by the time since it was last updated.
+         */
+        double getLatency(long now) {
+            return latency * Math.exp(-Math.max(0, now - updatedAt) / (double) decayNanos);
+        }
+
+        boolean isEjected(long now) {
+            return ejected && ejectedUntil - now > 0;
+        }
+
+        boolean isCallPermitted() {
+            return !(service instanceof CircuitBreakingChatService)
+                || ((CircuitBreakingChatService) service).getCircuitBreaker().isCallPermitted();
+        }
+
+        private synchronized void update(long now, long sample, boolean success) {
+            double decayed = getLatency(now);
+            if (sample > decayed) {
+                latency = sample;
+            } else {
+                double weight = decayed / Math.max(latency, Double.MIN_NORMAL);
+                latency = decayed + sample * (1 - weight);
+            }
+            updatedAt = now;
+            sampled = true;
+
+            if (success) {
+                failures = 0;
+                ejections = 0;
+                ejected = false;
+                return;
+            }
+            if (++failures >= consecutiveFailures && !isEjected(now)) {
+                ejections = Math.min(ejections + 1, MAX_EJECTION_MULTIPLIER);
+                long multiplier = Math.min(1L << (ejections - 1), MAX_EJECTION_MULTIPLIER);
+                ejectedUntil = now + ejectionNanos * multiplier;
+                ejected = true;
+                // a single further failure after the ejection ejects the endpoint again
+                failures = consecutiveFailures - 1;
+                logger.warning("Ejecting endpoint " + index + " for " + Duration.ofNanos(ejectionNanos * multiplier)
+                    + " after " + consecutiveFailures + " consecutive failures.");
+            }
+        }
+    }
+
+    /**
+     * Builder class for constructing {@link LoadBalancedChatService} instances.
+     */
+    public static class Builder {
+        private final List<AiChatService> endpoints = new ArrayList<>();
+        private Duration decayTime = Duration.ofSeconds(10);
+        private int consecutiveFailures = 5;
+        private Duration ejectionTime = Duration.ofSeconds(30);
+        private LongSupplier nanoTime = System::nanoTime;
+
+        /**
+         * Adds an endpoint. At least one is required.
+         *
+         * @param endpoint The service of the endpoint.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder endpoint(AiChatService endpoint) {
+            if (endpoint == null) {
+                throw new IllegalArgumentException("Parameter 'endpoint' must not be null.");
+            }
+            this.endpoints.add(endpoint);
+            return this;
+        }
+
+        /**
+         * Sets the time over which the latency estimate forgets a slow response. Defaults to 10 seconds.
+         *
+         * @param decayTime The decay time.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder decayTime(Duration decayTime) {
+            if (decayTime == null || decayTime.isNegative() || decayTime.isZero()) {
+                throw new IllegalArgumentException("Parameter 'decayTime' must be positive.");
+            }
+            this.decayTime = decayTime;
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive failures ejecting an endpoint. Defaults to 5.
+         *
+         * @param consecutiveFailures The number of failures, at least 1.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder consecutiveFailures(int consecutiveFailures) {
+            if (consecutiveFailures < 1) {
+                throw new IllegalArgumentException("Parameter 'consecutiveFailures' must be at least 1.");
+            }
+            this.consecutiveFailures = consecutiveFailures;
+            return this;
+        }
+
+        /**
+         * Sets how long an endpoint is ejected the first time. Defaults to 30 seconds.
+         *
+         * @param ejectionTime The ejection time.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder ejectionTime(Duration ejectionTime) {
+            if (ejectionTime == null || ejectionTime.isNegative() || ejectionTime.isZero()) {
+                throw new IllegalArgumentException("Parameter 'ejectionTime' must be positive.");
+            }
+            this.ejectionTime = ejectionTime;
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        /**
+         * Builds and returns a new {@link LoadBalancedChatService} instance.
+         *
+         * @return A new {@link LoadBalancedChatService} instance.
+         * @throws IllegalStateException if no endpoint was added.
+         */
+        public LoadBalancedChatService build() {
+            if (endpoints.isEmpty()) {
+                throw new IllegalStateException("At least one endpoint must be added.");
+            }
+            return new LoadBalancedChatService(this);
+        }
+    }
+}
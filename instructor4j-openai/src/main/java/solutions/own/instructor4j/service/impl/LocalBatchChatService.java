@@ -0,0 +1,187 @@
+package solutions.own.instructor4j.service.impl;
+
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.BatchStatus;
+import solutions.own.instructor4j.service.AiBatchChatService;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.BatchJsonl;
+import solutions.own.instructor4j.util.TaskExecutors;
+
+/**
+ * A file based stand-in for the batch endpoint of the GenAI Chat API, for tests and local runs.
+ * <p>
+ * Batches are processed in the background by sending every request of the input file to the
+ * delegate {@link AiChatService}. The output file is written to the working directory, one line per request, as
+ * the requests complete. Failed requests are recorded as error lines and do not fail the batch. Both files are
+ * streamed line by line. All other calls are forwarded to the delegate.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * try (LocalBatchChatService batchService = new LocalBatchChatService(new OpenAiChatService(apiKey), workDir)) {
+ *     Instructor instructor = new Instructor(batchService, 3);
+ *     instructor.createBatchChatCompletions(conversations, "gpt-4o-mini", User.class, workDir, Duration.ofSeconds(1))
+ *         .doOnNext(System.out::println)
+ *         .blockLast();
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public class LocalBatchChatService implements AiBatchChatService, AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(LocalBatchChatService.class.getName());
+
+    private final AiChatService delegate;
+    private final Path workDirectory;
+    private final ExecutorService executor = TaskExecutors.newTaskExecutor("instructor4j-local-batch", 1);
+    private final Map<String, BatchStatus> batches = new ConcurrentHashMap<>();
+    private final AtomicLong batchCounter = new AtomicLong();
+
+    /**
+     * Constructs a local batch service.
+     *
+     * @param delegate      the service the requests of a batch are sent to.
+     * @param workDirectory the directory the output files are written to; it must exist.
+     */
+    public LocalBatchChatService(AiChatService delegate, Path workDirectory) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Parameter 'delegate' must not be null.");
+        }
+        if (workDirectory == null) {
+            throw new IllegalArgumentException("Parameter 'workDirectory' must not be null.");
+        }
+        this.delegate = delegate;
+        this.workDirectory = workDirectory;
+    }
+
+    @Override
+    public ChatCompletion createChatCompletion(ChatCompletionCreateParams request) {
+        return delegate.createChatCompletion(request);
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        return delegate.createChatCompletionAsync(request);
+    }
+
+    @Override
+    public StreamResponse<ChatCompletionChunk> createStreamChatCompletion(ChatCompletionCreateParams request) {
+        return delegate.createStreamChatCompletion(request);
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+
+    @Override
+    public String submitBatch(Path requestsFile) throws IOException {
+        if (requestsFile == null) {
+            throw new IllegalArgumentException("Parameter 'requestsFile' must not be null.");
+        }
+        if (!Files.isReadable(requestsFile)) {
+            throw new IOException("Batch input file is not readable: " + requestsFile);
+        }
+
+        String batchId = "batch_local_" + batchCounter.incrementAndGet();
+        batches.put(batchId, BatchStatus.VALIDATING);
+        executor.execute(() -> processBatch(batchId, requestsFile));
+        return batchId;
+    }
+
+    @Override
+    public BatchStatus getBatchStatus(String batchId) {
+        BatchStatus status = batches.get(batchId);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown batch: " + batchId);
+        }
+        return status;
+    }
+
+    @Override
+    public InputStream openBatchOutput(String batchId) throws IOException {
+        BatchStatus status = getBatchStatus(batchId);
+        if (status != BatchStatus.COMPLETED) {
+            throw new IllegalStateException("Batch " + batchId + " is " + status + ", output is not available.");
+        }
+        return Files.newInputStream(outputFile(batchId));
+    }
+
+    /**
+     * Stops processing batches. Batches that are still in progress are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sends every request of the input file to the delegate and writes the responses to the output file.
+     *
+     * @param batchId      the identifier of the batch.
+     * @param requestsFile the JSONL file of requests.
+     */
+    private void processBatch(String batchId, Path requestsFile) {
+        batches.put(batchId, BatchStatus.IN_PROGRESS);
+
+        try (BufferedReader reader = Files.newBufferedReader(requestsFile, StandardCharsets.UTF_8);
+            BufferedWriter writer = Files.newBufferedWriter(outputFile(batchId), StandardCharsets.UTF_8)) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                writer.write(processRequest(line));
+                writer.newLine();
+            }
+
+        } catch (IOException | InstructorException e) {
+            logger.log(Level.SEVERE, "Batch " + batchId + " failed: " + e.getMessage(), e);
+            batches.put(batchId, BatchStatus.FAILED);
+            return;
+        }
+        // Only once the writer is closed is the output complete on disk.
+        batches.put(batchId, BatchStatus.COMPLETED);
+    }
+
+    /**
+     * Sends a single request to the delegate.
+     *
+     * @param line the request line.
+     * @return the response line, recording either the completion or the error.
+     * @throws InstructorException if the request line cannot be parsed.
+     */
+    private String processRequest(String line) throws InstructorException {
+        BatchJsonl.Request request = BatchJsonl.readRequest(line);
+        try {
+            return BatchJsonl.writeResponse(request.getCustomId(),
+                delegate.createChatCompletion(request.getParams()));
+        } catch (Exception e) {
+            return BatchJsonl.writeError(request.getCustomId(), String.valueOf(e.getMessage()));
+        }
+    }
+
+    private Path outputFile(String batchId) {
+        return workDirectory.resolve(batchId + "_output.jsonl");
+    }
+}
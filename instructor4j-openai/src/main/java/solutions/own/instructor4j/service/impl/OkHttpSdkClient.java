@@ -0,0 +1,240 @@
+package solutions.own.instructor4j.service.impl;
+
+import com.openai.core.RequestOptions;
+import com.openai.core.http.Headers;
+import com.openai.core.http.HttpMethod;
+import com.openai.core.http.HttpRequest;
+import com.openai.core.http.HttpRequestBody;
+import com.openai.core.http.HttpResponse;
+import com.openai.errors.OpenAIIoException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * The {@link com.openai.core.http.HttpClient} of an {@link OpenAiChatService}, sending the requests of the OpenAI
+ * SDK through a client derived from an {@link HttpTransport}, and compressing large request bodies with gzip.
+ */
+final class OkHttpSdkClient implements com.openai.core.http.HttpClient {
+
+    private final OkHttpClient okHttpClient;
+    private final HttpUrl baseUrl;
+
+    /**
+     * Constructs a client sharing the pool and dispatcher of a transport.
+     *
+     * @param transport      the transport.
+     * @param baseUrl        the base URL of the API.
+     * @param connectTimeout the timeout of connecting to the server.
+     * @param readTimeout    the timeout of reading from and writing to the connection.
+     * @param callTimeout    the timeout of a whole request, or zero for none.
+     * @param gzipMinSize    the size from which a request body is compressed, or a negative value to never
+     *                       compress.
+     */
+    OkHttpSdkClient(HttpTransport transport, String baseUrl, Duration connectTimeout, Duration readTimeout,
+        Duration callTimeout, long gzipMinSize) {
+        OkHttpClient.Builder builder = transport.okHttpClient().newBuilder()
+            .connectTimeout(connectTimeout)
+            .readTimeout(readTimeout)
+            .writeTimeout(readTimeout)
+            .callTimeout(callTimeout);
+        if (gzipMinSize >= 0) {
+            builder.addInterceptor(new GzipInterceptor(gzipMinSize));
+        }
+        this.okHttpClient = builder.build();
+        this.baseUrl = HttpUrl.get(baseUrl);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request, RequestOptions requestOptions) {
+        try {
+            return toResponse(getClient(requestOptions).newCall(toRequest(request)).execute());
+        } catch (IOException e) {
+            throw new OpenAIIoException("Request failed", e);
+        } finally {
+            closeBody(request);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(HttpRequest request, RequestOptions requestOptions) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        future.whenComplete((response, error) -> closeBody(request));
+        Call call = getClient(requestOptions).newCall(toRequest(request));
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                future.complete(toResponse(response));
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(new OpenAIIoException("Request failed", e));
+            }
+        });
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Does nothing, as the pool and dispatcher belong to the transport.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Returns the client applying the timeout of the request options, if set.
+     */
+    private OkHttpClient getClient(RequestOptions requestOptions) {
+        Duration timeout = requestOptions.getTimeout();
+        if (timeout == null) {
+            return okHttpClient;
+        }
+        return okHttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .readTimeout(timeout)
+            .writeTimeout(timeout)
+            .callTimeout(timeout.isZero() ? timeout : timeout.plusSeconds(30))
+            .build();
+    }
+
+    private Request toRequest(HttpRequest request) {
+        RequestBody body = request.body() == null ? null : toRequestBody(request.body());
+        if (body == null && (request.method() == HttpMethod.POST || request.method() == HttpMethod.PUT)) {
+            body = RequestBody.create(new byte[0], null);
+        }
+        Request.Builder builder = new Request.Builder()
+            .url(toUrl(request))
+            .method(request.method().name(), body);
+        Headers headers = request.headers();
+        for (String name : headers.names()) {
+            for (String value : headers.values(name)) {
+                builder.addHeader(name, value);
+            }
+        }
+        return builder.build();
+    }
+
+    private HttpUrl toUrl(HttpRequest request) {
+        HttpUrl.Builder builder = (request.url() == null ? baseUrl : HttpUrl.get(request.url())).newBuilder();
+        for (String segment : request.pathSegments()) {
+            builder.addPathSegment(segment);
+        }
+        for (String key : request.queryParams().keys()) {
+            for (String value : request.queryParams().values(key)) {
+                builder.addQueryParameter(key, value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static RequestBody toRequestBody(HttpRequestBody body) {
+        MediaType contentType = body.contentType() == null ? null : MediaType.parse(body.contentType());
+        long contentLength = body.contentLength();
+        boolean repeatable = body.repeatable();
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return !repeatable;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                body.writeTo(sink.outputStream());
+            }
+        };
+    }
+
+    private static HttpResponse toResponse(Response response) {
+        Headers.Builder headers = Headers.builder();
+        for (int i = 0; i < response.headers().size(); i++) {
+            headers.put(response.headers().name(i), response.headers().value(i));
+        }
+        Headers responseHeaders = headers.build();
+        return new HttpResponse() {
+            @Override
+            public int statusCode() {
+                return response.code();
+            }
+
+            @Override
+            public Headers headers() {
+                return responseHeaders;
+            }
+
+            @Override
+            public InputStream body() {
+                return response.body().byteStream();
+            }
+
+            @Override
+            public void close() {
+                response.body().close();
+            }
+        };
+    }
+
+    private static void closeBody(HttpRequest request) {
+        if (request.body() != null) {
+            request.body().close();
+        }
+    }
+
+    /**
+     * Compresses request bodies of a minimum size with gzip. Bodies of unknown size are left as they are.
+     */
+    private static final class GzipInterceptor implements Interceptor {
+        private final long minSize;
+
+        GzipInterceptor(long minSize) {
+            this.minSize = minSize;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            RequestBody body = request.body();
+            if (body == null || body.contentLength() < minSize || body.contentLength() < 0
+                || request.header("Content-Encoding") != null) {
+                return chain.proceed(request);
+            }
+            Buffer compressed = new Buffer();
+            try (BufferedSink gzipSink = Okio.buffer(new GzipSink(compressed))) {
+                body.writeTo(gzipSink);
+            }
+            return chain.proceed(request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), RequestBody.create(compressed.readByteString(), body.contentType()))
+                .build());
+        }
+    }
+}
@@ -1,21 +1,95 @@
 package solutions.own.instructor4j.service.impl;
 
 import com.openai.client.OpenAIClient;
-import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.client.OpenAIClientImpl;
+import com.openai.core.ClientOptions;
 import com.openai.core.http.StreamResponse;
 import com.openai.models.ChatCompletion;
 import com.openai.models.ChatCompletionChunk;
 import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ModelListParams;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import solutions.own.instructor4j.service.AiChatService;
 
+/**
+ * An {@link AiChatService} sending its requests to the OpenAI API, or an OpenAI compatible server, with the
+ * OpenAI SDK.
+ * <p>
+ * Requests go through an {@link HttpTransport}, whose connection pool and dispatcher are shared by all services
+ * built with it; unless set otherwise, that is the process-wide {@link HttpTransport#shared() transport}. Each
+ * service sets its own timeouts, and can compress request bodies from a given size with gzip, which pays off for
+ * prompts of hundreds of kilobytes when the server, or a gateway in front of it, accepts
+ * {@code Content-Encoding: gzip}.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * AiChatService chatService = OpenAiChatService.builder()
+ *     .apiKey(apiKey)
+ *     .connectTimeout(Duration.ofSeconds(5))
+ *     .readTimeout(Duration.ofSeconds(60))
+ *     .gzipRequestsFrom(64 * 1024)
+ *     .build();
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
 public class OpenAiChatService implements AiChatService {
 
+    private static final Logger logger = Logger.getLogger(OpenAiChatService.class.getName());
+
     private final OpenAIClient openAiClient;
 
+    /**
+     * Constructs a service sending its requests to the OpenAI API with the default settings of the
+     * {@link Builder}.
+     *
+     * @param apiKey the API key.
+     */
     public OpenAiChatService(String apiKey) {
-        this.openAiClient = OpenAIOkHttpClient.builder()
-            .apiKey(apiKey)
-            .build();
+        this(builder().apiKey(apiKey));
+    }
+
+    /**
+     * Constructs a service sending its requests to the given endpoint instead of the OpenAI API, such as an
+     * OpenAI compatible server or a local mock.
+     *
+     * @param apiKey  the API key.
+     * @param baseUrl the base URL of the API, for example {@code http://localhost:8080/v1}.
+     */
+    public OpenAiChatService(String apiKey, String baseUrl) {
+        this(builder().apiKey(apiKey).baseUrl(baseUrl));
+    }
+
+    /**
+     * Private constructor used by the {@link Builder}.
+     *
+     * @param builder The builder used to construct the service.
+     */
+    private OpenAiChatService(Builder builder) {
+        if (builder.apiKey == null) {
+            throw new IllegalArgumentException("Parameter 'apiKey' must not be null.");
+        }
+        OkHttpSdkClient httpClient = new OkHttpSdkClient(builder.transport, builder.baseUrl, builder.connectTimeout,
+            builder.readTimeout, builder.timeout, builder.gzipMinSize);
+        this.openAiClient = new OpenAIClientImpl(ClientOptions.builder()
+            .httpClient(httpClient)
+            .baseUrl(builder.baseUrl)
+            .apiKey(builder.apiKey)
+            .maxRetries(builder.maxRetries)
+            .build());
+    }
+
+    /**
+     * Creates a new instance of the {@link Builder} for constructing an {@link OpenAiChatService}.
+     *
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     @Override
@@ -23,8 +97,172 @@ public class OpenAiChatService implements AiChatService {
         return openAiClient.chat().completions().create(request);
     }
 
+    @Override
+    public CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        return openAiClient.async().chat().completions().create(request);
+    }
+
+    /**
+     * Opens a connection to the API by listing the available models, which costs no tokens. The TLS handshake is
+     * done and the connection stays in the connection pool of the client, ready for the first chat completion.
+     * Failures are logged and otherwise ignored.
+     */
+    @Override
+    public void warmUp() {
+        try {
+            openAiClient.models().list(ModelListParams.builder().build());
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Warm-up request failed: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public StreamResponse<ChatCompletionChunk> createStreamChatCompletion(ChatCompletionCreateParams request) {
         return openAiClient.chat().completions().createStreaming(request);
     }
+
+    /**
+     * Builder class for constructing {@link OpenAiChatService} instances.
+     */
+    public static class Builder {
+        private String apiKey;
+        private String baseUrl = "https://api.openai.com/v1";
+        private HttpTransport transport = HttpTransport.shared();
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofMinutes(10);
+        private Duration timeout = Duration.ofMinutes(10);
+        private long gzipMinSize = -1;
+        private int maxRetries = 0;
+
+        /**
+         * Sets the API key. Required.
+         *
+         * @param apiKey The API key.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder apiKey(String apiKey) {
+            if (apiKey == null) {
+                throw new IllegalArgumentException("Parameter 'apiKey' must not be null.");
+            }
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * Sets the base URL of the API, for example of an OpenAI compatible server. Defaults to
+         * {@code https://api.openai.com/v1}.
+         *
+         * @param baseUrl The base URL.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder baseUrl(String baseUrl) {
+            if (baseUrl == null) {
+                throw new IllegalArgumentException("Parameter 'baseUrl' must not be null.");
+            }
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Sets the transport whose connection pool and dispatcher the service uses. Defaults to the
+         * {@link HttpTransport#shared() shared transport}.
+         *
+         * @param transport The transport.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder transport(HttpTransport transport) {
+            if (transport == null) {
+                throw new IllegalArgumentException("Parameter 'transport' must not be null.");
+            }
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Sets the timeout of opening a connection, including the TLS handshake. Defaults to 10 seconds.
+         *
+         * @param connectTimeout The timeout.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = requirePositive(connectTimeout, "connectTimeout");
+            return this;
+        }
+
+        /**
+         * Sets the longest time without data while sending a request or receiving a response, including the time
+         * the model takes before the first byte of the response. Defaults to 10 minutes.
+         *
+         * @param readTimeout The timeout.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = requirePositive(readTimeout, "readTimeout");
+            return this;
+        }
+
+        /**
+         * Sets the timeout of a whole request, from connecting to reading the end of the response, including
+         * streamed responses. Defaults to 10 minutes; {@link Duration#ZERO} sets no timeout.
+         *
+         * @param timeout The timeout.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative()) {
+                throw new IllegalArgumentException("Parameter 'timeout' must not be negative.");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Compresses request bodies of at least the given size with gzip. Only enable it if the server, or a
+         * gateway in front of it, accepts {@code Content-Encoding: gzip}. Disabled by default.
+         *
+         * @param minSize The size in bytes from which a request body is compressed.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder gzipRequestsFrom(long minSize) {
+            if (minSize < 0) {
+                throw new IllegalArgumentException("Parameter 'minSize' must not be negative.");
+            }
+            this.gzipMinSize = minSize;
+            return this;
+        }
+
+        /**
+         * Sets how often the OpenAI SDK retries a failed request, before the error reaches the
+         * {@link solutions.own.instructor4j.Instructor} and its retry policy. Defaults to 0, so that the retry
+         * policy makes every retry decision: retries of the SDK bypass its backoff, its {@code Retry-After}
+         * handling and its retry budget, and multiply with the attempts of the {@code Instructor}.
+         *
+         * @param maxRetries The number of retries, not negative.
+         * @return The current {@link Builder} instance.
+         */
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("Parameter 'maxRetries' must not be negative.");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        private static Duration requirePositive(Duration duration, String name) {
+            if (duration == null || duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Parameter '" + name + "' must be positive.");
+            }
+            return duration;
+        }
+
+        /**
+         * Builds and returns a new {@link OpenAiChatService} instance.
+         *
+         * @return A new {@link OpenAiChatService} instance.
+         * @throws IllegalArgumentException if no API key was set.
+         */
+        public OpenAiChatService build() {
+            return new OpenAiChatService(this);
+        }
+    }
 }
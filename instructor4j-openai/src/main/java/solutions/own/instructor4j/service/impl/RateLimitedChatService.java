@@ -0,0 +1,153 @@
+package solutions.own.instructor4j.service.impl;
+
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import solutions.own.instructor4j.ratelimit.RateLimiter;
+import solutions.own.instructor4j.ratelimit.TokenEstimator;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.TaskExecutors;
+
+/**
+ * An {@link AiChatService} keeping the requests sent to a delegate within requests-per-minute and
+ * tokens-per-minute limits, so that the API does not reject them with HTTP 429.
+ * <p>
+ * Before each request, one request and the estimated tokens of the request are reserved from the
+ * {@link RateLimiter}. The estimate is the prompt tokens plus the maximum number of completion tokens. Synchronous
+ * and streaming requests sleep on the calling thread until the reservation is due. Asynchronous requests wait on
+ * a timer without blocking the calling thread, and are handed to {@link TaskExecutors#runBlocking} once they are
+ * due, so a delegate whose asynchronous method blocks does not hold up the timer. Once a completion reports its
+ * usage, the reservation is reconciled with it. A failed request gives back its tokens but still counts as a
+ * request.
+ * </p>
+ * <p>
+ * Share one {@code RateLimiter} between all services that use the same organization in the process. When several
+ * processes share an organization, give each one its share of the organization's limits.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * RateLimiter rateLimiter = new RateLimiter(500, 200_000);
+ * AiChatService chatService = new RateLimitedChatService(new OpenAiChatService(apiKey), rateLimiter);
+ * Instructor instructor = new Instructor(chatService, 3);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public class RateLimitedChatService implements AiChatService {
+
+    private final AiChatService delegate;
+    private final RateLimiter rateLimiter;
+    private final TokenEstimator tokenEstimator;
+
+    /**
+     * Constructs a rate limited service estimating tokens with {@link TokenEstimator#bpe()}.
+     *
+     * @param delegate    the service the requests are sent to.
+     * @param rateLimiter the limiter the requests are reserved from.
+     */
+    public RateLimitedChatService(AiChatService delegate, RateLimiter rateLimiter) {
+        this(delegate, rateLimiter, TokenEstimator.bpe());
+    }
+
+    /**
+     * Constructs a rate limited service.
+     *
+     * @param delegate       the service the requests are sent to.
+     * @param rateLimiter    the limiter the requests are reserved from.
+     * @param tokenEstimator estimates the tokens of a request before it is sent.
+     */
+    public RateLimitedChatService(AiChatService delegate, RateLimiter rateLimiter, TokenEstimator tokenEstimator) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Parameter 'delegate' must not be null.");
+        }
+        if (rateLimiter == null) {
+            throw new IllegalArgumentException("Parameter 'rateLimiter' must not be null.");
+        }
+        if (tokenEstimator == null) {
+            throw new IllegalArgumentException("Parameter 'tokenEstimator' must not be null.");
+        }
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    /**
+     * Returns the limiter the requests are reserved from, for example to report its headroom.
+     *
+     * @return the rate limiter.
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    public ChatCompletion createChatCompletion(ChatCompletionCreateParams request) {
+        long tokens = acquire(request);
+        ChatCompletion completion;
+        try {
+            completion = delegate.createChatCompletion(request);
+        } catch (RuntimeException e) {
+            rateLimiter.reconcile(tokens, 0);
+            throw e;
+        }
+        reconcile(tokens, completion);
+        return completion;
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletion> createChatCompletionAsync(ChatCompletionCreateParams request) {
+        long tokens = tokenEstimator.estimateTokens(request);
+        Duration wait = rateLimiter.reserve(tokens);
+        CompletableFuture<ChatCompletion> completion = wait.isZero()
+            ? delegate.createChatCompletionAsync(request)
+            // the request may block, e.g. with the default AiChatService#createChatCompletionAsync, so it must
+            // not run on the shared timer thread
+            : TaskExecutors.delay(wait)
+                .thenCompose(ignored -> TaskExecutors.runBlocking(() -> delegate.createChatCompletionAsync(request)))
+                .thenCompose(sent -> sent);
+        return completion.whenComplete((result, error) -> {
+            if (error == null) {
+                reconcile(tokens, result);
+            } else {
+                rateLimiter.reconcile(tokens, 0);
+            }
+        });
+    }
+
+    @Override
+    public StreamResponse<ChatCompletionChunk> createStreamChatCompletion(ChatCompletionCreateParams request) {
+        acquire(request);
+        return delegate.createStreamChatCompletion(request);
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+
+    /**
+     * Reserves a request and waits until it is due.
+     *
+     * @param request the request to send.
+     * @return the number of tokens reserved.
+     * @throws IllegalStateException if the thread is interrupted while waiting; its interrupt flag is restored.
+     */
+    private long acquire(ChatCompletionCreateParams request) {
+        long tokens = tokenEstimator.estimateTokens(request);
+        try {
+            rateLimiter.acquire(tokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rate limit.", e);
+        }
+        return tokens;
+    }
+
+    private void reconcile(long tokens, ChatCompletion completion) {
+        completion.usage().ifPresent(usage -> rateLimiter.reconcile(tokens, usage.totalTokens()));
+    }
+}
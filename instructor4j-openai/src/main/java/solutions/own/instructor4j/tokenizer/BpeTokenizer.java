@@ -0,0 +1,402 @@
+package solutions.own.instructor4j.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An offline byte pair encoding (BPE) tokenizer, compatible with the encodings of the OpenAI models.
+ * <p>
+ * Text is split into pieces by a regular expression, and each piece is encoded as UTF-8 and merged into tokens
+ * following the ranks of the vocabulary, like the reference tokenizer of OpenAI. The {@code o200k_base} vocabulary
+ * used by the GPT-4o, GPT-4.1 and o-series models is bundled, see {@link #o200kBase()}. Other vocabularies in the
+ * {@code .tiktoken} format can be loaded with {@link #load(InputStream, Pattern)}. Special tokens such as
+ * {@code <|endoftext|>} are encoded as ordinary text.
+ * </p>
+ * <p>
+ * The encode path avoids allocations: the vocabulary is an open addressing hash table looked up by byte range,
+ * pieces are encoded into reusable per-thread buffers, and most pieces are a single token found by one lookup.
+ * {@link #countTokens(CharSequence)} allocates nothing beyond the regular expression matching.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * BpeTokenizer tokenizer = BpeTokenizer.o200kBase();
+ * int count = tokenizer.countTokens("Nenad Alajbegovic is 30 years old");
+ * int[] tokens = tokenizer.encode("hello world");
+ * String text = tokenizer.decode(tokens);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class BpeTokenizer {
+
+    /**
+     * The pattern splitting text into pieces for the {@code o200k_base} encoding.
+     */
+    public static final Pattern O200K_BASE_PATTERN = Pattern.compile(String.join("|",
+        "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+"
+            + "(?i:'s|'t|'re|'ve|'m|'ll|'d)?",
+        "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*"
+            + "(?i:'s|'t|'re|'ve|'m|'ll|'d)?",
+        "\\p{N}{1,3}",
+        " ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*",
+        "\\s*[\\r\\n]+",
+        "\\s+(?!\\S)",
+        "\\s+"), Pattern.UNICODE_CHARACTER_CLASS);
+
+    private static final String O200K_BASE_RESOURCE = "o200k_base.tiktoken.gz";
+
+    private static final int NO_RANK = Integer.MAX_VALUE;
+
+    private final Pattern pattern;
+    private final byte[][] tokens;
+    private final int[] table;
+    private final int mask;
+    private final ThreadLocal<Scratch> scratch;
+
+    private BpeTokenizer(Pattern pattern, byte[][] tokens) {
+        this.pattern = pattern;
+        this.tokens = tokens;
+        int capacity = Integer.highestOneBit(Math.max(tokens.length, 1) * 2) * 2;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int rank = 0; rank < tokens.length; rank++) {
+            byte[] token = tokens[rank];
+            if (token != null) {
+                int slot = hash(token, 0, token.length) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = rank + 1;
+            }
+        }
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(pattern));
+    }
+
+    /**
+     * Returns the tokenizer of the {@code o200k_base} encoding, loading the bundled vocabulary the first time.
+     *
+     * @return the shared tokenizer.
+     * @throws UncheckedIOException if the bundled vocabulary cannot be read.
+     */
+    public static BpeTokenizer o200kBase() {
+        return O200kBase.INSTANCE;
+    }
+
+    /**
+     * Loads a tokenizer from a vocabulary in the {@code .tiktoken} format: one token per line, as its base64
+     * encoded bytes followed by a space and its rank.
+     *
+     * @param vocabulary the vocabulary; it is read fully but not closed.
+     * @param pattern    the pattern splitting text into pieces.
+     * @return the tokenizer.
+     * @throws IOException if the vocabulary cannot be read or is malformed.
+     * @throws IllegalArgumentException if a parameter is {@code null}.
+     */
+    public static BpeTokenizer load(InputStream vocabulary, Pattern pattern) throws IOException {
+        if (vocabulary == null) {
+            throw new IllegalArgumentException("Parameter 'vocabulary' must not be null.");
+        }
+        if (pattern == null) {
+            throw new IllegalArgumentException("Parameter 'pattern' must not be null.");
+        }
+        List<byte[]> tokens = new ArrayList<>(1 << 18);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(vocabulary, StandardCharsets.US_ASCII));
+        Base64.Decoder decoder = Base64.getDecoder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int separator = line.indexOf(' ');
+            try {
+                byte[] token = decoder.decode(line.substring(0, separator));
+                int rank = Integer.parseInt(line.substring(separator + 1));
+                while (tokens.size() <= rank) {
+                    tokens.add(null);
+                }
+                tokens.set(rank, token);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Malformed vocabulary line: " + line, e);
+            }
+        }
+        return new BpeTokenizer(pattern, tokens.toArray(new byte[0][]));
+    }
+
+    /**
+     * Returns the number of tokens of the vocabulary.
+     *
+     * @return the highest rank plus one.
+     */
+    public int getVocabularySize() {
+        return tokens.length;
+    }
+
+    /**
+     * Counts the tokens of a text.
+     *
+     * @param text the text.
+     * @return the number of tokens.
+     */
+    public int countTokens(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        Scratch buffers = scratch.get();
+        buffers.outputSize = 0;
+        return encode(text, buffers, false);
+    }
+
+    /**
+     * Encodes a text into tokens.
+     *
+     * @param text the text.
+     * @return the ranks of the tokens.
+     */
+    public int[] encode(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return new int[0];
+        }
+        Scratch buffers = scratch.get();
+        buffers.outputSize = 0;
+        encode(text, buffers, true);
+        return Arrays.copyOf(buffers.output, buffers.outputSize);
+    }
+
+    /**
+     * Decodes tokens into text. Tokens that split a multi-byte character are decoded with replacement characters.
+     *
+     * @param ranks the ranks of the tokens.
+     * @return the text.
+     * @throws IllegalArgumentException if a rank is not part of the vocabulary.
+     */
+    public String decode(int[] ranks) {
+        int length = 0;
+        for (int rank : ranks) {
+            length += token(rank).length;
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (int rank : ranks) {
+            byte[] token = token(rank);
+            System.arraycopy(token, 0, bytes, offset, token.length);
+            offset += token.length;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] token(int rank) {
+        if (rank < 0 || rank >= tokens.length || tokens[rank] == null) {
+            throw new IllegalArgumentException("Unknown token: " + rank);
+        }
+        return tokens[rank];
+    }
+
+    private int encode(CharSequence text, Scratch buffers, boolean collect) {
+        Matcher matcher = buffers.matcher.reset(text);
+        int count = 0;
+        try {
+            while (matcher.find()) {
+                int length = buffers.utf8(text, matcher.start(), matcher.end());
+                int rank = rank(buffers.bytes, 0, length);
+                if (rank != NO_RANK) {
+                    if (collect) {
+                        buffers.emit(rank);
+                    }
+                    count++;
+                } else {
+                    count += bytePairMerge(buffers, length, collect);
+                }
+            }
+        } finally {
+            matcher.reset("");
+        }
+        return count;
+    }
+
+    /**
+     * Merges the bytes of a piece that is not a single token, pair by pair in the order of their rank.
+     *
+     * @param buffers the buffers holding the piece.
+     * @param length  the number of bytes of the piece.
+     * @param collect whether to emit the tokens to the output buffer.
+     * @return the number of tokens of the piece.
+     */
+    private int bytePairMerge(Scratch buffers, int length, boolean collect) {
+        byte[] bytes = buffers.bytes;
+        int[] starts = buffers.starts(length + 1);
+        int[] ranks = buffers.ranks;
+        for (int i = 0; i <= length; i++) {
+            starts[i] = i;
+            ranks[i] = i + 2 <= length ? rank(bytes, i, 2) : NO_RANK;
+        }
+        int parts = length + 1;
+
+        while (parts > 1) {
+            int minRank = NO_RANK;
+            int index = -1;
+            for (int i = 0; i < parts - 1; i++) {
+                if (ranks[i] < minRank) {
+                    minRank = ranks[i];
+                    index = i;
+                }
+            }
+            if (index < 0) {
+                break;
+            }
+            ranks[index] = mergedRank(bytes, starts, parts, index);
+            if (index > 0) {
+                ranks[index - 1] = mergedRank(bytes, starts, parts, index - 1);
+            }
+            System.arraycopy(starts, index + 2, starts, index + 1, parts - index - 2);
+            System.arraycopy(ranks, index + 2, ranks, index + 1, parts - index - 2);
+            parts--;
+        }
+
+        if (collect) {
+            for (int i = 0; i < parts - 1; i++) {
+                buffers.emit(rank(bytes, starts[i], starts[i + 1] - starts[i]));
+            }
+        }
+        return parts - 1;
+    }
+
+    /**
+     * Returns the rank of the part at {@code index} merged with the next one, as the bytes from the start of the
+     * part to the start of the part after the next one.
+     */
+    private int mergedRank(byte[] bytes, int[] starts, int parts, int index) {
+        if (index + 3 >= parts) {
+            return NO_RANK;
+        }
+        return rank(bytes, starts[index], starts[index + 3] - starts[index]);
+    }
+
+    private int rank(byte[] bytes, int offset, int length) {
+        int slot = hash(bytes, offset, length) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            byte[] token = tokens[entry - 1];
+            if (token.length == length && equals(token, bytes, offset)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_RANK;
+    }
+
+    private static boolean equals(byte[] token, byte[] bytes, int offset) {
+        for (int i = 0; i < token.length; i++) {
+            if (token[i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The buffers of one thread, reused across calls.
+     */
+    private static final class Scratch {
+        final Matcher matcher;
+        byte[] bytes = new byte[256];
+        int[] starts = new int[257];
+        int[] ranks = new int[257];
+        int[] output = new int[256];
+        int outputSize;
+
+        Scratch(Pattern pattern) {
+            this.matcher = pattern.matcher("");
+        }
+
+        /**
+         * Encodes the characters of a piece as UTF-8 into {@link #bytes}.
+         *
+         * @return the number of bytes.
+         */
+        int utf8(CharSequence text, int start, int end) {
+            if (bytes.length < (end - start) * 3) {
+                bytes = new byte[(end - start) * 3];
+            }
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // an unpaired surrogate is encoded as U+FFFD, like String.getBytes does
+                    bytes[length++] = (byte) 0xef;
+                    bytes[length++] = (byte) 0xbf;
+                    bytes[length++] = (byte) 0xbd;
+                } else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return length;
+        }
+
+        int[] starts(int size) {
+            if (starts.length < size) {
+                starts = new int[size];
+                ranks = new int[size];
+            }
+            return starts;
+        }
+
+        void emit(int rank) {
+            if (outputSize == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            output[outputSize++] = rank;
+        }
+    }
+
+    /**
+     * Holds the {@code o200k_base} tokenizer, loaded the first time it is used.
+     */
+    private static final class O200kBase {
+        static final BpeTokenizer INSTANCE;
+
+        static {
+            try (InputStream resource = BpeTokenizer.class.getResourceAsStream(O200K_BASE_RESOURCE)) {
+                if (resource == null) {
+                    throw new IOException("Resource " + O200K_BASE_RESOURCE + " not found.");
+                }
+                INSTANCE = load(new GZIPInputStream(resource, 1 << 16), O200K_BASE_PATTERN);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load the o200k_base vocabulary: " + e.getMessage(), e);
+            }
+        }
+    }
+}
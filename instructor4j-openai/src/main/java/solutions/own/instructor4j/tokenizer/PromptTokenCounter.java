@@ -0,0 +1,163 @@
+package solutions.own.instructor4j.tokenizer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.core.ObjectMappers;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import com.openai.models.ChatCompletionTool;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+import solutions.own.instructor4j.util.FunctionDefinitionBuilder;
+
+/**
+ * Counts the prompt tokens of chat completion requests offline, with the {@code o200k_base}
+ * {@link BpeTokenizer}.
+ * <p>
+ * Each message costs its role and content tokens plus {@value #TOKENS_PER_MESSAGE} tokens of chat formatting, and
+ * every prompt costs {@value #TOKENS_PER_REPLY} more tokens priming the reply. Tool definitions are counted as the
+ * tokens of their JSON form plus {@value #TOKENS_PER_TOOL} tokens each. Messages are counted following the formula
+ * published by OpenAI, while tools are rendered by the API in a format of its own, so their count is an estimate.
+ * The tokens of the tool definition of a response model are computed once per class.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * int promptTokens = PromptTokenCounter.countTokens(messages, User.class);
+ * if (promptTokens + RequestTemplates.MAX_TOKENS > contextWindow) {
+ *     messages = summarize(messages);
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class PromptTokenCounter {
+
+    /**
+     * The tokens of chat formatting around each message.
+     */
+    public static final int TOKENS_PER_MESSAGE = 3;
+
+    /**
+     * The tokens priming the reply of the assistant.
+     */
+    public static final int TOKENS_PER_REPLY = 3;
+
+    /**
+     * The estimated tokens of formatting around each tool definition.
+     */
+    public static final int TOKENS_PER_TOOL = 10;
+
+    private static final ObjectMapper jsonMapper = ObjectMappers.jsonMapper();
+
+    private static final ClassValue<Integer> toolTokens = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            MyFunctionDefinition functionDefinition = FunctionDefinitionBuilder.getFunctionDefinition(type);
+            Map<String, Object> function = new LinkedHashMap<>();
+            function.put("name", functionDefinition.getName());
+            function.put("description", functionDefinition.getDescription());
+            function.put("parameters", functionDefinition.getParameters());
+            return TOKENS_PER_TOOL + countJsonTokens(function);
+        }
+    };
+
+    private PromptTokenCounter() {
+    }
+
+    /**
+     * Counts the prompt tokens of a conversation.
+     *
+     * @param messages the messages of the conversation.
+     * @return the number of prompt tokens.
+     * @throws IllegalArgumentException if {@code messages} is {@code null}.
+     */
+    public static int countTokens(List<BaseMessage> messages) {
+        if (messages == null) {
+            throw new IllegalArgumentException("Parameter 'messages' must not be null.");
+        }
+        BpeTokenizer tokenizer = BpeTokenizer.o200kBase();
+        int tokens = TOKENS_PER_REPLY;
+        for (BaseMessage message : messages) {
+            tokens += TOKENS_PER_MESSAGE + tokenizer.countTokens(message.getRole())
+                + tokenizer.countTokens(message.getContent());
+        }
+        return tokens;
+    }
+
+    /**
+     * Counts the prompt tokens of a conversation sent with the tool definition generated for a response model.
+     *
+     * @param messages      the messages of the conversation.
+     * @param responseModel the response model.
+     * @return the number of prompt tokens.
+     * @throws IllegalArgumentException if a parameter is {@code null}.
+     */
+    public static int countTokens(List<BaseMessage> messages, Class<?> responseModel) {
+        if (responseModel == null) {
+            throw new IllegalArgumentException("Parameter 'responseModel' must not be null.");
+        }
+        return countTokens(messages) + toolTokens.get(responseModel);
+    }
+
+    /**
+     * Counts the prompt tokens of a chat completion request: its messages, tools and response format.
+     *
+     * @param request the request.
+     * @return the number of prompt tokens.
+     * @throws IllegalArgumentException if {@code request} is {@code null}.
+     */
+    public static int countTokens(ChatCompletionCreateParams request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Parameter 'request' must not be null.");
+        }
+        BpeTokenizer tokenizer = BpeTokenizer.o200kBase();
+        int tokens = TOKENS_PER_REPLY;
+        for (ChatCompletionMessageParam message : request.messages()) {
+            // every role is a single token
+            tokens += TOKENS_PER_MESSAGE + 1;
+            Optional<String> text = textContent(message);
+            tokens += text.isPresent() ? tokenizer.countTokens(text.get()) : countJsonTokens(message);
+        }
+        for (ChatCompletionTool tool : request.tools().orElse(Collections.emptyList())) {
+            tokens += TOKENS_PER_TOOL + countJsonTokens(tool.function());
+        }
+        if (request.responseFormat().isPresent()) {
+            tokens += countJsonTokens(request.responseFormat().get());
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the text content of a system, user or assistant message.
+     *
+     * @param message the message.
+     * @return the text, or an empty optional if the message has no plain text content.
+     */
+    private static Optional<String> textContent(ChatCompletionMessageParam message) {
+        if (message.chatCompletionSystemMessageParam().isPresent()) {
+            return message.asChatCompletionSystemMessageParam().content().textContent();
+        }
+        if (message.chatCompletionUserMessageParam().isPresent()) {
+            return message.asChatCompletionUserMessageParam().content().textContent();
+        }
+        if (message.chatCompletionAssistantMessageParam().isPresent()) {
+            return message.asChatCompletionAssistantMessageParam().content()
+                .flatMap(content -> content.textContent());
+        }
+        return Optional.empty();
+    }
+
+    private static int countJsonTokens(Object value) {
+        try {
+            return BpeTokenizer.o200kBase().countTokens(jsonMapper.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize " + value + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package solutions.own.instructor4j.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.openai.core.ObjectMappers;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionCreateParams.ChatCompletionCreateBody;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.BaseMessage;
+
+/**
+ * Reads and writes the lines of the JSONL files exchanged with
+ * {@link solutions.own.instructor4j.service.AiBatchChatService}, one line at a time, so that batches of any
+ * size can be streamed without holding them in memory.
+ * <p>
+ * Three kinds of lines are supported:
+ * </p>
+ * <ul>
+ *   <li>Request lines, in the input format of the OpenAI Batch API:
+ *       {@code {"custom_id":"request-0","method":"POST","url":"/v1/chat/completions","body":{...}}}.</li>
+ *   <li>Response lines, in the output format of the OpenAI Batch API:
+ *       {@code {"custom_id":"request-0","response":{"status_code":200,"body":{...}},"error":null}}.</li>
+ *   <li>Conversation lines, holding the {@link BaseMessage}s a request was built from, so that it can be
+ *       rebuilt when it has to be retried: {@code {"custom_id":"request-0","messages":[...]}}.</li>
+ * </ul>
+ * <p>
+ * The custom id of every line encodes the position of the conversation in the batch, see
+ * {@link #customId(long)}.
+ * </p>
+ */
+public final class BatchJsonl {
+
+    /**
+     * The endpoint chat completion requests are sent to.
+     */
+    public static final String CHAT_COMPLETIONS_URL = "/v1/chat/completions";
+
+    private static final String CUSTOM_ID_PREFIX = "request-";
+    private static final ObjectMapper jsonMapper = ObjectMappers.jsonMapper();
+
+    private BatchJsonl() {
+    }
+
+    /**
+     * A request read from a request line.
+     */
+    public static final class Request {
+        private final String customId;
+        private final ChatCompletionCreateParams params;
+
+        Request(String customId, ChatCompletionCreateParams params) {
+            this.customId = customId;
+            this.params = params;
+        }
+
+        /**
+         * @return the custom id of the request.
+         */
+        public String getCustomId() {
+            return customId;
+        }
+
+        /**
+         * @return the parameters of the chat completion request.
+         */
+        public ChatCompletionCreateParams getParams() {
+            return params;
+        }
+    }
+
+    /**
+     * A response read from a response line; it holds either a completion or an error message.
+     */
+    public static final class Response {
+        private final String customId;
+        private final ChatCompletion completion;
+        private final String errorMessage;
+
+        Response(String customId, ChatCompletion completion, String errorMessage) {
+            this.customId = customId;
+            this.completion = completion;
+            this.errorMessage = errorMessage;
+        }
+
+        /**
+         * @return the custom id of the request the response belongs to.
+         */
+        public String getCustomId() {
+            return customId;
+        }
+
+        /**
+         * @return the chat completion, or {@code null} if the request failed.
+         */
+        public ChatCompletion getCompletion() {
+            return completion;
+        }
+
+        /**
+         * @return the error message, or {@code null} if the request succeeded.
+         */
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+    /**
+     * A conversation read from a conversation line.
+     */
+    public static final class Conversation {
+        private final String customId;
+        private final List<BaseMessage> messages;
+
+        Conversation(String customId, List<BaseMessage> messages) {
+            this.customId = customId;
+            this.messages = messages;
+        }
+
+        /**
+         * @return the custom id of the request built from the conversation.
+         */
+        public String getCustomId() {
+            return customId;
+        }
+
+        /**
+         * @return the messages of the conversation.
+         */
+        public List<BaseMessage> getMessages() {
+            return messages;
+        }
+    }
+
+    /**
+     * Builds the custom id of the conversation at the given position in a batch.
+     *
+     * @param index the zero based position of the conversation.
+     * @return the custom id, e.g. {@code request-42}.
+     */
+    public static String customId(long index) {
+        return CUSTOM_ID_PREFIX + index;
+    }
+
+    /**
+     * Extracts the position of a conversation from its custom id.
+     *
+     * @param customId a custom id built by {@link #customId(long)}.
+     * @return the zero based position of the conversation.
+     * @throws IllegalArgumentException if the custom id was not built by {@link #customId(long)}.
+     */
+    public static long indexOf(String customId) {
+        if (customId == null || !customId.startsWith(CUSTOM_ID_PREFIX)) {
+            throw new IllegalArgumentException("Unexpected custom id: " + customId);
+        }
+        try {
+            return Long.parseLong(customId.substring(CUSTOM_ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unexpected custom id: " + customId, e);
+        }
+    }
+
+    /**
+     * Serializes a chat completion request into a request line.
+     *
+     * @param customId the custom id of the request.
+     * @param params   the parameters of the chat completion request.
+     * @return the request line, without a trailing line separator.
+     * @throws InstructorException if the request cannot be serialized.
+     */
+    public static String writeRequest(String customId, ChatCompletionCreateParams params) throws InstructorException {
+        ObjectNode line = jsonMapper.createObjectNode();
+        line.put("custom_id", customId);
+        line.put("method", "POST");
+        line.put("url", CHAT_COMPLETIONS_URL);
+        line.set("body", jsonMapper.valueToTree(toBody(params)));
+        return write(line);
+    }
+
+    /**
+     * Parses a request line.
+     *
+     * @param line the request line.
+     * @return the parsed request.
+     * @throws InstructorException if the line is not a valid request line.
+     */
+    public static Request readRequest(String line) throws InstructorException {
+        JsonNode node = read(line);
+        try {
+            ChatCompletionCreateBody body = jsonMapper.treeToValue(node.path("body"), ChatCompletionCreateBody.class);
+            return new Request(node.path("custom_id").asText(null), toParams(body));
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to parse batch request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serializes a successful chat completion into a response line.
+     *
+     * @param customId   the custom id of the request the response belongs to.
+     * @param completion the chat completion.
+     * @return the response line, without a trailing line separator.
+     * @throws InstructorException if the completion cannot be serialized.
+     */
+    public static String writeResponse(String customId, ChatCompletion completion) throws InstructorException {
+        ObjectNode line = jsonMapper.createObjectNode();
+        line.put("custom_id", customId);
+        ObjectNode response = line.putObject("response");
+        response.put("status_code", 200);
+        response.set("body", jsonMapper.valueToTree(completion));
+        line.putNull("error");
+        return write(line);
+    }
+
+    /**
+     * Serializes a failed request into a response line.
+     *
+     * @param customId the custom id of the failed request.
+     * @param message  the error message.
+     * @return the response line, without a trailing line separator.
+     * @throws InstructorException if the line cannot be serialized.
+     */
+    public static String writeError(String customId, String message) throws InstructorException {
+        ObjectNode line = jsonMapper.createObjectNode();
+        line.put("custom_id", customId);
+        line.putNull("response");
+        line.putObject("error").put("message", message);
+        return write(line);
+    }
+
+    /**
+     * Parses a response line. A line is considered failed if it carries an {@code error} or a response with a
+     * status code other than 200.
+     *
+     * @param line the response line.
+     * @return the parsed response.
+     * @throws InstructorException if the line is not a valid response line.
+     */
+    public static Response readResponse(String line) throws InstructorException {
+        JsonNode node = read(line);
+        String customId = node.path("custom_id").asText(null);
+
+        JsonNode error = node.path("error");
+        if (error.isObject()) {
+            return new Response(customId, null, error.path("message").asText("Unknown error"));
+        }
+
+        JsonNode response = node.path("response");
+        int statusCode = response.path("status_code").asInt();
+        if (statusCode != 200) {
+            return new Response(customId, null, "HTTP " + statusCode + ": "
+                + response.path("body").path("error").path("message").asText("Unknown error"));
+        }
+
+        try {
+            return new Response(customId, jsonMapper.treeToValue(response.path("body"), ChatCompletion.class), null);
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to parse batch response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serializes a conversation into a conversation line.
+     *
+     * @param customId the custom id of the request built from the conversation.
+     * @param messages the messages of the conversation.
+     * @return the conversation line, without a trailing line separator.
+     * @throws InstructorException if the conversation cannot be serialized.
+     */
+    public static String writeConversation(String customId, List<BaseMessage> messages) throws InstructorException {
+        ObjectNode line = jsonMapper.createObjectNode();
+        line.put("custom_id", customId);
+        line.set("messages", jsonMapper.valueToTree(messages));
+        return write(line);
+    }
+
+    /**
+     * Parses a conversation line.
+     *
+     * @param line the conversation line.
+     * @return the parsed conversation.
+     * @throws InstructorException if the line is not a valid conversation line.
+     */
+    public static Conversation readConversation(String line) throws InstructorException {
+        JsonNode node = read(line);
+        try {
+            List<BaseMessage> messages = jsonMapper.readerFor(new TypeReference<List<BaseMessage>>() { })
+                .readValue(node.path("messages"));
+            return new Conversation(node.path("custom_id").asText(null), messages);
+        } catch (IOException e) {
+            throw new InstructorException("Failed to parse batch conversation: " + e.getMessage(), e);
+        }
+    }
+
+    private static String write(JsonNode line) throws InstructorException {
+        try {
+            return jsonMapper.writeValueAsString(line);
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to write batch line: " + e.getMessage(), e);
+        }
+    }
+
+    private static JsonNode read(String line) throws InstructorException {
+        try {
+            return jsonMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to parse batch line: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies the parameters of a chat completion request into the request body sent to the API, for example by a
+     * chat service that serializes requests itself.
+     *
+     * @param params the parameters of the chat completion request.
+     * @return the request body.
+     */
+    public static ChatCompletionCreateBody toBody(ChatCompletionCreateParams params) {
+        ChatCompletionCreateBody.Builder body = ChatCompletionCreateBody.builder()
+            .messages(params.messages())
+            .model(params.model());
+        params.audio().ifPresent(body::audio);
+        params.frequencyPenalty().ifPresent(body::frequencyPenalty);
+        params.functionCall().ifPresent(body::functionCall);
+        params.functions().ifPresent(body::functions);
+        params.logitBias().ifPresent(body::logitBias);
+        params.logprobs().ifPresent(body::logprobs);
+        params.maxCompletionTokens().ifPresent(body::maxCompletionTokens);
+        params.maxTokens().ifPresent(body::maxTokens);
+        params.metadata().ifPresent(body::metadata);
+        params.modalities().ifPresent(body::modalities);
+        params.n().ifPresent(body::n);
+        params.parallelToolCalls().ifPresent(body::parallelToolCalls);
+        params.prediction().ifPresent(body::prediction);
+        params.presencePenalty().ifPresent(body::presencePenalty);
+        params.responseFormat().ifPresent(body::responseFormat);
+        params.seed().ifPresent(body::seed);
+        params.serviceTier().ifPresent(body::serviceTier);
+        params.stop().ifPresent(body::stop);
+        params.store().ifPresent(body::store);
+        params.streamOptions().ifPresent(body::streamOptions);
+        params.temperature().ifPresent(body::temperature);
+        params.toolChoice().ifPresent(body::toolChoice);
+        params.tools().ifPresent(body::tools);
+        params.topLogprobs().ifPresent(body::topLogprobs);
+        params.topP().ifPresent(body::topP);
+        params.user().ifPresent(body::user);
+        body.additionalProperties(params._additionalBodyProperties());
+        return body.build();
+    }
+
+    /**
+     * Copies a request body read from a request line into the parameters of a chat completion request.
+     *
+     * @param body the request body.
+     * @return the parameters of the chat completion request.
+     */
+    private static ChatCompletionCreateParams toParams(ChatCompletionCreateBody body) {
+        ChatCompletionCreateParams.Builder params = ChatCompletionCreateParams.builder()
+            .messages(body.messages())
+            .model(body.model());
+        Optional.ofNullable(body.audio()).ifPresent(params::audio);
+        Optional.ofNullable(body.frequencyPenalty()).ifPresent(params::frequencyPenalty);
+        Optional.ofNullable(body.functionCall()).ifPresent(params::functionCall);
+        Optional.ofNullable(body.functions()).ifPresent(params::functions);
+        Optional.ofNullable(body.logitBias()).ifPresent(params::logitBias);
+        Optional.ofNullable(body.logprobs()).ifPresent(params::logprobs);
+        Optional.ofNullable(body.maxCompletionTokens()).ifPresent(params::maxCompletionTokens);
+        Optional.ofNullable(body.maxTokens()).ifPresent(params::maxTokens);
+        Optional.ofNullable(body.metadata()).ifPresent(params::metadata);
+        Optional.ofNullable(body.modalities()).ifPresent(params::modalities);
+        Optional.ofNullable(body.n()).ifPresent(params::n);
+        Optional.ofNullable(body.parallelToolCalls()).ifPresent(params::parallelToolCalls);
+        Optional.ofNullable(body.prediction()).ifPresent(params::prediction);
+        Optional.ofNullable(body.presencePenalty()).ifPresent(params::presencePenalty);
+        Optional.ofNullable(body.responseFormat()).ifPresent(params::responseFormat);
+        Optional.ofNullable(body.seed()).ifPresent(params::seed);
+        Optional.ofNullable(body.serviceTier()).ifPresent(params::serviceTier);
+        Optional.ofNullable(body.stop()).ifPresent(params::stop);
+        Optional.ofNullable(body.store()).ifPresent(params::store);
+        Optional.ofNullable(body.streamOptions()).ifPresent(params::streamOptions);
+        Optional.ofNullable(body.temperature()).ifPresent(params::temperature);
+        Optional.ofNullable(body.toolChoice()).ifPresent(params::toolChoice);
+        Optional.ofNullable(body.tools()).ifPresent(params::tools);
+        Optional.ofNullable(body.topLogprobs()).ifPresent(params::topLogprobs);
+        Optional.ofNullable(body.topP()).ifPresent(params::topP);
+        Optional.ofNullable(body.user()).ifPresent(params::user);
+        params.additionalBodyProperties(body._additionalProperties());
+        return params.build();
+    }
+}
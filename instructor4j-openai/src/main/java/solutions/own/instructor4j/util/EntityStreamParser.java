@@ -0,0 +1,96 @@
+package solutions.own.instructor4j.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import solutions.own.instructor4j.exception.InstructorException;
+
+/**
+ * An incremental parser that extracts the elements of a JSON array, located under a given root element,
+ * from a JSON document that arrives in arbitrary pieces.
+ * <p>
+ * Each call to {@link #append(CharSequence)} scans only the newly received characters and returns the
+ * elements whose closing brace arrived with them, bound to the requested type. Every element is bound
+ * exactly once and the document is scanned by a single {@link JsonAssembler}, so the total cost of parsing
+ * a streamed response is linear in its size.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * EntityStreamParser<Participant> parser = new EntityStreamParser<>(Participant.class, "data");
+ * parser.append("{\"data\":[{\"name\":\"John\"},{\"na");   // returns [John]
+ * parser.append("me\":\"Jane\"}]}");                       // returns [Jane]
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is not thread-safe. It is meant to be fed by a single stream.</p>
+ *
+ * @param <T> the type the array elements are bound to.
+ */
+public class EntityStreamParser<T> {
+
+    private final Class<T> entityClass;
+    private final String rootPath;
+    private final JsonAssembler jsonAssembler = new JsonAssembler();
+
+    /**
+     * Constructs a parser for the elements of the array stored under {@code rootElement}.
+     *
+     * @param entityClass the class every array element is bound to.
+     * @param rootElement the name of the top level property holding the array, e.g. {@code "data"}.
+     */
+    public EntityStreamParser(Class<T> entityClass, String rootElement) {
+        if (entityClass == null) {
+            throw new IllegalArgumentException("Parameter 'entityClass' must not be null.");
+        }
+        if (rootElement == null) {
+            throw new IllegalArgumentException("Parameter 'rootElement' must not be null.");
+        }
+        this.entityClass = entityClass;
+        this.rootPath = "/" + rootElement + "/";
+    }
+
+    /**
+     * Consumes the next piece of the JSON document and returns the entities completed by it.
+     *
+     * @param delta the next characters of the document; may be empty.
+     * @return the entities whose closing brace was contained in {@code delta}, in document order;
+     *         an empty list if none was completed.
+     * @throws InstructorException if a completed entity cannot be bound to the entity class.
+     */
+    public List<T> append(CharSequence delta) throws InstructorException {
+        List<T> entities = Collections.emptyList();
+
+        for (JsonAssembler.CompletedValue value : jsonAssembler.append(delta)) {
+            if (isEntity(value)) {
+                if (entities.isEmpty()) {
+                    entities = new ArrayList<>();
+                }
+                entities.add(Utils.parseJson(value.getJson(), entityClass));
+            }
+        }
+
+        return entities;
+    }
+
+    /**
+     * Returns the assembler holding the document received so far, e.g. to obtain a closed snapshot of it.
+     *
+     * @return the underlying {@link JsonAssembler}.
+     */
+    public JsonAssembler getJsonAssembler() {
+        return jsonAssembler;
+    }
+
+    /**
+     * Determines whether a completed value is an object element of the root element array.
+     *
+     * @param value the completed value.
+     * @return {@code true} if the value is an entity to emit.
+     */
+    private boolean isEntity(JsonAssembler.CompletedValue value) {
+        if (value.getDepth() != 2 || value.getType() != JsonAssembler.ValueType.OBJECT) {
+            return false;
+        }
+        return value.getPath().startsWith(rootPath);
+    }
+}
@@ -0,0 +1,102 @@
+package solutions.own.instructor4j.util;
+
+import java.util.List;
+
+/**
+ * The schema of a response model class, generated at compile time by the {@code instructor4j-processor}
+ * annotation processor.
+ * <p>
+ * For every class with fields annotated with {@link solutions.own.instructor4j.annotation.Description} or a
+ * jakarta constraint, the processor emits a class named {@code <binary class name>$$InstructorSchema} in the
+ * same package, implementing this interface. {@link TypeModel} looks that class up before introspecting the
+ * response model: when it is present, the function definition, the flat class schema, the prompt hint and the
+ * response validation are all served from its constants and generated code, and the fields of the response
+ * model are never walked reflectively.
+ * </p>
+ *
+ * <p>Implementations are generated; they must have a public no-argument constructor and be stateless.</p>
+ *
+ * @param <T> the response model class.
+ */
+public interface GeneratedSchema<T> {
+
+    /**
+     * The suffix appended to the binary name of a response model class to obtain the name of its generated
+     * schema class.
+     */
+    String CLASS_NAME_SUFFIX = "$$InstructorSchema";
+
+    /**
+     * Returns the names of the declared fields of the response model, in declaration order.
+     *
+     * @return an unmodifiable list of field names.
+     */
+    List<String> getFieldNames();
+
+    /**
+     * Returns the parameters of the function definition of the response model as JSON, in the form built by
+     * {@link FunctionDefinitionBuilder}: an object with {@code type}, {@code properties} and {@code required}.
+     *
+     * @return the JSON object of the function parameters.
+     */
+    String getParametersJson();
+
+    /**
+     * Returns the properties of the flat class schema of the response model as JSON, in the form built by
+     * {@link ResponseFormatJsonSchemaBuilder#buildSchemaFromClass(Class)}.
+     *
+     * @return the JSON object mapping each field name to its type and description.
+     */
+    String getPropertiesJson();
+
+    /**
+     * Tells whether the response model, or a class reachable from its fields, has jakarta constraints that
+     * {@link ResponseValidator} must check. If not, no validator is compiled for the response model.
+     *
+     * @return {@code true} if there are constraints; the default implementation always returns {@code true}.
+     */
+    default boolean hasConstraints() {
+        return true;
+    }
+
+    /**
+     * Tells whether {@link #findNullField(Object)} is implemented. The processor only generates a validator if
+     * every field of the response model can be read without reflection, directly or through a getter.
+     *
+     * @return {@code true} if the generated validator can be used.
+     */
+    boolean hasValidator();
+
+    /**
+     * Finds the first field of the given instance that holds {@code null}.
+     *
+     * @param instance an instance of the response model.
+     * @return the name of the first field holding {@code null}, or {@code null} if all fields hold a value.
+     * @throws UnsupportedOperationException if {@link #hasValidator()} is {@code false}.
+     */
+    String findNullField(T instance);
+
+    /**
+     * Tells whether {@link #validate(Object)} is implemented. The processor only generates the constraint checks
+     * if every constrained field can be read without reflection and its declared type tells how each of its
+     * constraints applies.
+     *
+     * @return {@code true} if the generated constraint checks can be used; the default implementation always
+     *         returns {@code false}.
+     */
+    default boolean hasConstraintValidator() {
+        return false;
+    }
+
+    /**
+     * Checks the jakarta constraints of the given instance, as {@link ResponseValidator} does.
+     *
+     * @param instance an instance of the response model.
+     * @return the violations found, each as {@code <path>: <message>} with a path relative to the instance; an
+     *         empty list if the instance is valid.
+     * @throws UnsupportedOperationException if {@link #hasConstraintValidator()} is {@code false}.
+     */
+    default List<String> validate(T instance) {
+        throw new UnsupportedOperationException("The constraint checks of the class were not generated.");
+    }
+}
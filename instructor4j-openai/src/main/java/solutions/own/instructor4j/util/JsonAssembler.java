@@ -0,0 +1,589 @@
+package solutions.own.instructor4j.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A stateful, append-only assembler for a JSON document that arrives in arbitrary pieces, such as the
+ * content deltas of a streamed chat completion.
+ * <p>
+ * The assembler keeps its bracket, string and escape state between calls to {@link #append(CharSequence)},
+ * so every character is scanned exactly once. Escaped quotes and brackets inside strings are handled
+ * correctly. At any point it can report:
+ * </p>
+ * <ul>
+ *   <li>the values completed by the last delta, together with their JSON Pointer paths
+ *       (e.g. {@code /data/0/name}), see {@link #append(CharSequence)};</li>
+ *   <li>the suffix that closes the document received so far, see {@link #closableLength()} and
+ *       {@link #closableSuffix()}. Computing it costs time proportional to the nesting depth only.</li>
+ * </ul>
+ *
+ * <p>Incomplete tokens that cannot be closed by appending characters (a dangling key, a trailing comma or a
+ * partial literal such as {@code tru}) are excluded from the closable prefix, so that
+ * {@link #toClosedJson()} always yields syntactically valid JSON for well-formed input. Partial string values
+ * are kept and closed.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * JsonAssembler assembler = new JsonAssembler();
+ * Flux<String> extractionStream = instructor.createStreamChatCompletion(messages, model, Participant.class);
+ * extractionStream.doOnNext(delta -> {
+ *     for (JsonAssembler.CompletedValue value : assembler.append(delta)) {
+ *         System.out.println(value.getPath() + " = " + value.getJson());
+ *     }
+ *     String partialJson = assembler.toClosedJson();
+ * }).blockLast();
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is not thread-safe. It is meant to be fed by a single stream.</p>
+ */
+public class JsonAssembler {
+
+    /**
+     * The JSON type of a completed value.
+     */
+    public enum ValueType {
+        OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL
+    }
+
+    /**
+     * A value whose last character has been received.
+     */
+    public static final class CompletedValue {
+
+        private final CharSequence document;
+        private final String path;
+        private final String key;
+        private final int index;
+        private final int depth;
+        private final ValueType type;
+        private final int start;
+        private final int end;
+
+        private CompletedValue(CharSequence document, String path, String key, int index, int depth,
+            ValueType type, int start, int end) {
+            this.document = document;
+            this.path = path;
+            this.key = key;
+            this.index = index;
+            this.depth = depth;
+            this.type = type;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the JSON Pointer of the value, e.g. {@code /data/0/name}; the root value has the empty path.
+         *
+         * @return the JSON Pointer of the value.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the name of the member holding the value.
+         *
+         * @return the member name, or {@code null} if the value is an array element or the root value.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the position of the value within its enclosing array.
+         *
+         * @return the element index, or {@code -1} if the value is not an array element.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the nesting depth of the value; the root value has depth 0.
+         *
+         * @return the nesting depth.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Returns the JSON type of the value.
+         *
+         * @return the value type.
+         */
+        public ValueType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the offset of the first character of the value within the assembled document.
+         *
+         * @return the start offset, inclusive.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the offset following the last character of the value within the assembled document.
+         *
+         * @return the end offset, exclusive.
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * Returns the JSON text of the value.
+         *
+         * @return the value as it appears in the document.
+         */
+        public String getJson() {
+            return document.subSequence(start, end).toString();
+        }
+
+        @Override
+        public String toString() {
+            return "CompletedValue{" +
+                "path='" + path + '\'' +
+                ", type=" + type +
+                ", start=" + start +
+                ", end=" + end +
+                '}';
+        }
+    }
+
+    private static final int EXPECT_KEY = 0;
+    private static final int EXPECT_COLON = 1;
+    private static final int EXPECT_VALUE = 2;
+    private static final int AFTER_VALUE = 3;
+
+    private static final int TOKEN_NONE = 0;
+    private static final int TOKEN_STRING = 1;
+    private static final int TOKEN_KEY = 2;
+    private static final int TOKEN_NUMBER = 3;
+    private static final int TOKEN_LITERAL = 4;
+
+    /**
+     * An open object or array.
+     */
+    private static final class Frame {
+        boolean object;
+        int start;
+        int expect;
+        int safeEnd;
+        String key;
+        int index;
+    }
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final StringBuilder keyBuilder = new StringBuilder();
+
+    private Frame[] frames = new Frame[8];
+    private int depth;
+
+    private int token = TOKEN_NONE;
+    private int tokenStart;
+    private int escapeStart = -1;
+    private int unicodeRemaining;
+    private boolean rootCompleted;
+
+    /**
+     * Appends the next piece of the document and returns the values completed by it.
+     * <p>
+     * Strings, objects and arrays complete with their closing character. Numbers and literals complete with the
+     * first character following them, which may only arrive with a later delta.
+     * </p>
+     *
+     * @param delta the next characters of the document; may be empty.
+     * @return the values completed by {@code delta}, innermost first, in document order;
+     *         an empty list if none was completed.
+     */
+    public List<CompletedValue> append(CharSequence delta) {
+        List<CompletedValue> completed = Collections.emptyList();
+        int offset = buffer.length();
+        buffer.append(delta);
+
+        for (int pos = offset; pos < buffer.length(); pos++) {
+            char c = buffer.charAt(pos);
+
+            if (token == TOKEN_STRING || token == TOKEN_KEY) {
+                if (consumeStringChar(c, pos)) {
+                    if (token == TOKEN_KEY) {
+                        Frame frame = frames[depth - 1];
+                        frame.key = keyBuilder.toString();
+                        frame.expect = EXPECT_COLON;
+                        token = TOKEN_NONE;
+                    } else {
+                        token = TOKEN_NONE;
+                        completed = complete(completed, ValueType.STRING, tokenStart, pos + 1);
+                    }
+                }
+                continue;
+            }
+
+            if (token == TOKEN_NUMBER || token == TOKEN_LITERAL) {
+                if (isTokenChar(c)) {
+                    continue;
+                }
+                completed = complete(completed, literalType(), tokenStart, pos);
+                token = TOKEN_NONE;
+            }
+
+            switch (c) {
+                case '{':
+                case '[':
+                    push(c == '{', pos);
+                    break;
+                case '}':
+                case ']':
+                    if (depth > 0) {
+                        Frame frame = frames[--depth];
+                        completed = complete(completed, frame.object ? ValueType.OBJECT : ValueType.ARRAY,
+                            frame.start, pos + 1);
+                    }
+                    break;
+                case '"':
+                    if (depth > 0 && frames[depth - 1].object && frames[depth - 1].expect == EXPECT_KEY) {
+                        token = TOKEN_KEY;
+                        keyBuilder.setLength(0);
+                    } else {
+                        token = TOKEN_STRING;
+                    }
+                    tokenStart = pos;
+                    break;
+                case ':':
+                    if (depth > 0) {
+                        frames[depth - 1].expect = EXPECT_VALUE;
+                    }
+                    break;
+                case ',':
+                    if (depth > 0) {
+                        Frame frame = frames[depth - 1];
+                        frame.expect = frame.object ? EXPECT_KEY : EXPECT_VALUE;
+                    }
+                    break;
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    break;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        token = TOKEN_NUMBER;
+                        tokenStart = pos;
+                    } else if (c == 't' || c == 'f' || c == 'n') {
+                        token = TOKEN_LITERAL;
+                        tokenStart = pos;
+                    }
+                    break;
+            }
+        }
+
+        return completed;
+    }
+
+    /**
+     * Returns the length of the longest prefix of the assembled document that can be turned into valid JSON
+     * by appending {@link #closableSuffix()}.
+     *
+     * @return the length of the closable prefix.
+     */
+    public int closableLength() {
+        if (token == TOKEN_STRING) {
+            return escapeStart >= 0 ? escapeStart : buffer.length();
+        }
+        if (token == TOKEN_NUMBER || token == TOKEN_LITERAL) {
+            if (isCompleteLiteral()) {
+                return buffer.length();
+            }
+            return depth > 0 ? frames[depth - 1].safeEnd : tokenStart;
+        }
+        if (depth > 0) {
+            return frames[depth - 1].safeEnd;
+        }
+        return buffer.length();
+    }
+
+    /**
+     * Returns the characters that close the prefix of length {@link #closableLength()}: a closing quote if a
+     * string value is being received, followed by the closing brackets of all open objects and arrays.
+     *
+     * @return the closing suffix; empty if the document is complete.
+     */
+    public String closableSuffix() {
+        StringBuilder suffix = new StringBuilder(depth + 1);
+        if (token == TOKEN_STRING) {
+            suffix.append('"');
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            suffix.append(frames[i].object ? '}' : ']');
+        }
+        return suffix.toString();
+    }
+
+    /**
+     * Returns the closable prefix of the document followed by its closing suffix.
+     *
+     * @return the document received so far, closed so that it is syntactically valid JSON.
+     */
+    public String toClosedJson() {
+        int length = closableLength();
+        String suffix = closableSuffix();
+        return new StringBuilder(length + suffix.length())
+            .append(buffer, 0, length)
+            .append(suffix)
+            .toString();
+    }
+
+    /**
+     * Returns whether all strings, objects and arrays opened so far have been closed.
+     *
+     * @return {@code true} if no string, object or array is open; {@code false} otherwise.
+     */
+    public boolean isClosed() {
+        return depth == 0 && token != TOKEN_STRING && token != TOKEN_KEY;
+    }
+
+    /**
+     * Returns whether the root value of the document has been completely received.
+     *
+     * @return {@code true} if the root value is complete.
+     */
+    public boolean isComplete() {
+        return rootCompleted;
+    }
+
+    /**
+     * Returns the nesting depth of the position the next character will be appended at.
+     *
+     * @return the number of currently open objects and arrays.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of characters assembled so far.
+     *
+     * @return the length of the assembled document.
+     */
+    public int length() {
+        return buffer.length();
+    }
+
+    /**
+     * Returns the document assembled so far. The returned sequence is a live view and must not be retained
+     * across calls to {@link #append(CharSequence)}.
+     *
+     * @return the assembled document.
+     */
+    public CharSequence getDocument() {
+        return buffer;
+    }
+
+    /**
+     * Consumes one character of a string token.
+     *
+     * @param c   the character.
+     * @param pos the position of the character in the document.
+     * @return {@code true} if the character closes the string.
+     */
+    private boolean consumeStringChar(char c, int pos) {
+        if (unicodeRemaining > 0) {
+            if (--unicodeRemaining == 0) {
+                if (token == TOKEN_KEY) {
+                    try {
+                        keyBuilder.append((char) Integer.parseInt(buffer.substring(pos - 3, pos + 1), 16));
+                    } catch (NumberFormatException e) {
+                        keyBuilder.append(buffer, escapeStart, pos + 1);
+                    }
+                }
+                escapeStart = -1;
+            }
+            return false;
+        }
+        if (escapeStart >= 0) {
+            if (c == 'u') {
+                unicodeRemaining = 4;
+                return false;
+            }
+            escapeStart = -1;
+            if (token == TOKEN_KEY) {
+                keyBuilder.append(unescape(c));
+            }
+            return false;
+        }
+        if (c == '\\') {
+            escapeStart = pos;
+            return false;
+        }
+        if (c == '"') {
+            return true;
+        }
+        if (token == TOKEN_KEY) {
+            keyBuilder.append(c);
+        }
+        return false;
+    }
+
+    /**
+     * Opens an object or array.
+     *
+     * @param object whether an object is opened.
+     * @param pos    the position of the opening bracket.
+     */
+    private void push(boolean object, int pos) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+        }
+        Frame frame = frames[depth];
+        if (frame == null) {
+            frame = new Frame();
+            frames[depth] = frame;
+        }
+        frame.object = object;
+        frame.start = pos;
+        frame.expect = object ? EXPECT_KEY : EXPECT_VALUE;
+        frame.safeEnd = pos + 1;
+        frame.key = null;
+        frame.index = 0;
+        depth++;
+    }
+
+    /**
+     * Records a completed value at the current nesting depth.
+     *
+     * @param completed the values completed so far by the current delta.
+     * @param type      the type of the completed value.
+     * @param start     the start offset of the value, inclusive.
+     * @param end       the end offset of the value, exclusive.
+     * @return the values completed so far by the current delta, including the new one.
+     */
+    private List<CompletedValue> complete(List<CompletedValue> completed, ValueType type, int start, int end) {
+        if (completed.isEmpty()) {
+            completed = new ArrayList<>();
+        }
+
+        if (depth == 0) {
+            rootCompleted = true;
+            completed.add(new CompletedValue(buffer, "", null, -1, 0, type, start, end));
+            return completed;
+        }
+
+        Frame parent = frames[depth - 1];
+        completed.add(new CompletedValue(buffer, currentPath(), parent.object ? parent.key : null,
+            parent.object ? -1 : parent.index, depth, type, start, end));
+
+        if (!parent.object) {
+            parent.index++;
+        }
+        parent.expect = AFTER_VALUE;
+        parent.safeEnd = end;
+        return completed;
+    }
+
+    /**
+     * Builds the JSON Pointer of the value currently being received.
+     *
+     * @return the JSON Pointer of the current value.
+     */
+    private String currentPath() {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            Frame frame = frames[i];
+            path.append('/');
+            if (frame.object) {
+                appendEscapedKey(path, frame.key);
+            } else {
+                path.append(frame.index);
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Returns whether the pending number or literal token is complete enough to be kept in the closable prefix.
+     *
+     * @return {@code true} if the token can be closed as it is.
+     */
+    private boolean isCompleteLiteral() {
+        if (token == TOKEN_NUMBER) {
+            char last = buffer.charAt(buffer.length() - 1);
+            return last >= '0' && last <= '9';
+        }
+        return pendingTokenEquals("true") || pendingTokenEquals("false") || pendingTokenEquals("null");
+    }
+
+    /**
+     * Returns whether the pending token consists of exactly the given characters.
+     *
+     * @param literal the expected token text.
+     * @return {@code true} if the pending token equals {@code literal}.
+     */
+    private boolean pendingTokenEquals(String literal) {
+        if (buffer.length() - tokenStart != literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buffer.charAt(tokenStart + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value type of the pending number or literal token.
+     *
+     * @return the value type of the token.
+     */
+    private ValueType literalType() {
+        if (token == TOKEN_NUMBER) {
+            return ValueType.NUMBER;
+        }
+        return buffer.charAt(tokenStart) == 'n' ? ValueType.NULL : ValueType.BOOLEAN;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+            || c == '-' || c == '+' || c == '.';
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            default:
+                return c;
+        }
+    }
+
+    private static void appendEscapedKey(StringBuilder path, String key) {
+        if (key == null) {
+            return;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '~') {
+                path.append("~0");
+            } else if (c == '/') {
+                path.append("~1");
+            } else {
+                path.append(c);
+            }
+        }
+    }
+}
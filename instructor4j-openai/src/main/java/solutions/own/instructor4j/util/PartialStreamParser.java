@@ -0,0 +1,443 @@
+package solutions.own.instructor4j.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+import solutions.own.instructor4j.model.Partial;
+
+/**
+ * An incremental parser that populates a response model instance from a JSON object that arrives in arbitrary
+ * pieces, producing a {@link Partial} snapshot whenever one or more fields complete.
+ * <p>
+ * The fields to track are derived from the JSON schema built by {@link FunctionDefinitionBuilder}: scalar and
+ * array properties are patched as soon as their value completes, nested object properties are descended into
+ * so that their own fields are patched individually. Each patch binds only the newly completed value, without
+ * re-deserializing the content received before.
+ * </p>
+ * <p>
+ * Snapshots are built by path copying: a patch copies the root instance and the nested objects on the path of
+ * the completed field, field by field, and binds the new value into the copy of its enclosing object. All
+ * other fields keep referring to the objects of the previous snapshot. The cost of a snapshot therefore depends
+ * on the number of fields of the objects on the completed paths, not on the size of the response, and an
+ * emitted snapshot never changes. Snapshots share their unchanged nested objects, so they must be treated as
+ * read-only.
+ * </p>
+ * <p>
+ * Path copying needs a Java field named like each nested object property. If a response model does not have
+ * one, the parser falls back to patching a single instance and copying all of it through a token buffer for
+ * every snapshot, which costs time proportional to the size of the response.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * PartialStreamParser<User> parser = new PartialStreamParser<>(User.class);
+ * parser.append("{\"name\": \"John\", \"ag");   // snapshot with name populated
+ * parser.append("e\": 30}");                    // final snapshot with name and age populated
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is not thread-safe. It is meant to be fed by a single stream.</p>
+ *
+ * @param <T> the type of the response model.
+ */
+public class PartialStreamParser<T> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ObjectMapper mergingObjectMapper = new ObjectMapper()
+        .setDefaultMergeable(Boolean.TRUE)
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * The JSON text surrounding a completed value when it is merged into the instance,
+     * e.g. {@code {"address":{"city":} and {@code }}} for {@code /address/city}, and the nested objects
+     * enclosing the value.
+     */
+    private static final class FieldPatch {
+        final String prefix;
+        final String suffix;
+        final String fieldPrefix;
+        final List<Container> containers;
+
+        FieldPatch(String prefix, String suffix, String fieldPrefix, List<Container> containers) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.fieldPrefix = fieldPrefix;
+            this.containers = containers;
+        }
+    }
+
+    /**
+     * A nested object on the path of a field, e.g. {@code /address} for {@code /address/city}.
+     */
+    private static final class Container {
+        final String pointer;
+        final Field field;
+        final Copier copier;
+
+        Container(String pointer, Field field, Copier copier) {
+            this.pointer = pointer;
+            this.field = field;
+            this.copier = copier;
+        }
+    }
+
+    /**
+     * Creates instances of a class and copies the instance fields of one instance into another.
+     */
+    private static final class Copier {
+        final ObjectReader reader;
+        final Field[] fields;
+
+        Copier(Class<?> type) {
+            List<Field> instanceFields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        instanceFields.add(field);
+                    }
+                }
+            }
+            this.reader = objectMapper.readerFor(type);
+            this.fields = instanceFields.toArray(new Field[0]);
+        }
+
+        Object newInstance() throws IOException {
+            return reader.readValue("{}");
+        }
+
+        Object copy(Object instance) throws IOException, IllegalAccessException {
+            Object copy = newInstance();
+            for (Field field : fields) {
+                field.set(copy, field.get(instance));
+            }
+            return copy;
+        }
+    }
+
+    private final Map<String, FieldPatch> fieldPatches = new HashMap<>();
+    private final Map<Class<?>, Copier> copiers = new HashMap<>();
+    private final JsonAssembler jsonAssembler = new JsonAssembler();
+    private final boolean pathCopying;
+    private final Copier rootCopier;
+    private final ObjectReader updatingReader;
+    private final ObjectReader snapshotReader;
+    private T value;
+
+    /**
+     * Constructs a parser for the given response model, deriving the tracked fields from the function definition
+     * built by {@link FunctionDefinitionBuilder#getFunctionDefinition(Class)}.
+     *
+     * @param responseModel the class of the response model.
+     * @throws InstructorException if the response model cannot be instantiated.
+     */
+    public PartialStreamParser(Class<T> responseModel) throws InstructorException {
+        this(responseModel, FunctionDefinitionBuilder.getFunctionDefinition(responseModel));
+    }
+
+    /**
+     * Constructs a parser for the given response model, tracking the fields described by the given function
+     * definition.
+     *
+     * @param responseModel        the class of the response model.
+     * @param myFunctionDefinition the function definition describing the JSON schema of the response model.
+     * @throws InstructorException if the response model cannot be instantiated.
+     */
+    @SuppressWarnings("unchecked")
+    public PartialStreamParser(Class<T> responseModel, MyFunctionDefinition myFunctionDefinition)
+        throws InstructorException {
+        if (responseModel == null) {
+            throw new IllegalArgumentException("Parameter 'responseModel' must not be null.");
+        }
+
+        Copier copier = null;
+        try {
+            copier = copier(responseModel);
+        } catch (RuntimeException e) {
+            // the fields of the class cannot be copied, fall back to merging
+        }
+        this.rootCopier = copier;
+        boolean copyable = copier != null;
+
+        Object properties = myFunctionDefinition.getParameters().get("properties");
+        if (properties instanceof Map) {
+            copyable &= collectFieldPatches((Map<String, Object>) properties, "", "", "}", responseModel,
+                new ArrayList<>());
+        }
+        this.pathCopying = copyable;
+
+        try {
+            this.value = mergingObjectMapper.readValue("{}", responseModel);
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to instantiate " + responseModel.getName() + ": "
+                + e.getMessage(), e);
+        }
+        this.updatingReader = pathCopying ? null : mergingObjectMapper.readerForUpdating(value);
+        this.snapshotReader = pathCopying ? null : mergingObjectMapper.readerFor(responseModel);
+    }
+
+    /**
+     * Consumes the next piece of the JSON document and patches the fields completed by it into a new snapshot.
+     *
+     * @param delta the next characters of the document; may be empty.
+     * @return a snapshot holding the instance and listing the fields completed by {@code delta}, or an empty
+     *         {@link Optional} if no tracked field completed and the document is not complete yet.
+     * @throws InstructorException if a completed field cannot be bound to the response model, or the instance
+     *                             cannot be copied.
+     */
+    public Optional<Partial<T>> append(CharSequence delta) throws InstructorException {
+        List<String> completedPaths = null;
+        Map<String, Object> copies = null;
+        boolean complete = false;
+
+        for (JsonAssembler.CompletedValue completedValue : jsonAssembler.append(delta)) {
+            if (completedValue.getDepth() == 0) {
+                complete = true;
+                continue;
+            }
+
+            FieldPatch fieldPatch = fieldPatches.get(completedValue.getPath());
+            if (fieldPatch == null) {
+                continue;
+            }
+
+            if (!pathCopying) {
+                merge(fieldPatch, completedValue);
+            } else {
+                if (copies == null) {
+                    copies = new HashMap<>();
+                    copies.put("", copy(rootCopier, value));
+                }
+                patch(fieldPatch, completedValue, copies);
+            }
+            if (completedPaths == null) {
+                completedPaths = new ArrayList<>();
+            }
+            completedPaths.add(completedValue.getPath());
+        }
+
+        if (completedPaths == null && !complete) {
+            return Optional.empty();
+        }
+        T snapshot;
+        if (!pathCopying) {
+            snapshot = snapshot();
+        } else {
+            if (copies != null) {
+                @SuppressWarnings("unchecked")
+                T root = (T) copies.get("");
+                value = root;
+            }
+            snapshot = value;
+        }
+        return Optional.of(new Partial<>(snapshot, completedPaths != null ? completedPaths : new ArrayList<>(),
+            complete));
+    }
+
+    /**
+     * Returns the most recently populated instance. With path copying this is the value of the latest snapshot;
+     * otherwise it is the single instance all fields are merged into, which changes with every patch.
+     *
+     * @return the partially populated response model instance.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Binds a single completed value into a copy of its enclosing object, copying the nested objects on its
+     * path that were not copied for this snapshot yet.
+     *
+     * @param fieldPatch     the field the value completes.
+     * @param completedValue the completed value.
+     * @param copies         the objects copied for this snapshot, keyed by JSON Pointer; the root is {@code ""}.
+     * @throws InstructorException if the value cannot be bound to the response model, or an object cannot be
+     *                             copied.
+     */
+    private void patch(FieldPatch fieldPatch, JsonAssembler.CompletedValue completedValue,
+        Map<String, Object> copies) throws InstructorException {
+        Object container = copies.get("");
+        try {
+            for (Container nested : fieldPatch.containers) {
+                Object copy = copies.get(nested.pointer);
+                if (copy == null) {
+                    Object current = nested.field.get(container);
+                    copy = current == null ? nested.copier.newInstance()
+                        : copy(current.getClass() == nested.field.getType() ? nested.copier
+                            : copier(current.getClass()), current);
+                    nested.field.set(container, copy);
+                    copies.put(nested.pointer, copy);
+                }
+                container = copy;
+            }
+        } catch (IOException | IllegalAccessException | RuntimeException e) {
+            throw new InstructorException("Failed to copy the partial response: " + e.getMessage(), e);
+        }
+
+        bind(objectMapper.readerForUpdating(container), fieldPatch.fieldPrefix, "}", completedValue);
+    }
+
+    /**
+     * Merges a single completed value into the instance, when path copying is not possible.
+     *
+     * @param fieldPatch     the JSON text surrounding the value.
+     * @param completedValue the completed value.
+     * @throws InstructorException if the value cannot be bound to the response model.
+     */
+    private void merge(FieldPatch fieldPatch, JsonAssembler.CompletedValue completedValue)
+        throws InstructorException {
+        bind(updatingReader, fieldPatch.prefix, fieldPatch.suffix, completedValue);
+    }
+
+    /**
+     * Binds a completed value, surrounded by the given JSON text, with an updating reader.
+     *
+     * @param reader         the reader updating the object enclosing the value.
+     * @param prefix         the JSON text opening the enclosing objects.
+     * @param suffix         the JSON text closing the enclosing objects.
+     * @param completedValue the completed value.
+     * @throws InstructorException if the value cannot be bound to the response model.
+     */
+    private void bind(ObjectReader reader, String prefix, String suffix, JsonAssembler.CompletedValue completedValue)
+        throws InstructorException {
+        CharSequence document = jsonAssembler.getDocument();
+        String json = new StringBuilder(prefix.length() + completedValue.getEnd() - completedValue.getStart()
+            + suffix.length())
+            .append(prefix)
+            .append(document, completedValue.getStart(), completedValue.getEnd())
+            .append(suffix)
+            .toString();
+
+        try {
+            reader.readValue(json);
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to bind field " + completedValue.getPath() + ": "
+                + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies all instance fields of an object into a new instance of its class.
+     *
+     * @param copier   the copier of the class of the object.
+     * @param instance the object to copy.
+     * @return the shallow copy.
+     * @throws InstructorException if the object cannot be copied.
+     */
+    private static Object copy(Copier copier, Object instance) throws InstructorException {
+        try {
+            return copier.copy(instance);
+        } catch (IOException | IllegalAccessException e) {
+            throw new InstructorException("Failed to copy the partial response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies the whole instance through a token buffer, when path copying is not possible.
+     *
+     * @return a copy of the instance, sharing no mutable state with it.
+     * @throws InstructorException if the instance cannot be copied.
+     */
+    private T snapshot() throws InstructorException {
+        try (TokenBuffer buffer = new TokenBuffer(mergingObjectMapper, false)) {
+            mergingObjectMapper.writeValue(buffer, value);
+            return snapshotReader.readValue(buffer.asParser());
+        } catch (IOException e) {
+            throw new InstructorException("Failed to copy the partial response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the copier of a class, creating it on first use.
+     *
+     * @param type the class.
+     * @return the copier.
+     * @throws RuntimeException if the fields of the class cannot be made accessible.
+     */
+    private Copier copier(Class<?> type) {
+        Copier copier = copiers.get(type);
+        if (copier == null) {
+            copier = new Copier(type);
+            copiers.put(type, copier);
+        }
+        return copier;
+    }
+
+    /**
+     * Recursively collects the fields to patch from the properties of a JSON schema object.
+     *
+     * @param properties    the schema properties, keyed by field name.
+     * @param pointerPrefix the JSON Pointer of the enclosing object.
+     * @param jsonPrefix    the JSON text opening the enclosing objects.
+     * @param jsonSuffix    the JSON text closing the enclosing objects, including the current one.
+     * @param type          the class of the enclosing object, or {@code null} if it is not known.
+     * @param containers    the nested objects from the root to the enclosing object.
+     * @return {@code true} if every nested object could be mapped to a copyable field.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean collectFieldPatches(Map<String, Object> properties, String pointerPrefix, String jsonPrefix,
+        String jsonSuffix, Class<?> type, List<Container> containers) {
+        boolean copyable = type != null;
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            String pointer = pointerPrefix + "/" + property.getKey().replace("~", "~0").replace("/", "~1");
+            String fieldPrefix = "{\"" + new String(JsonStringEncoder.getInstance()
+                .quoteAsString(property.getKey())) + "\":";
+            String prefix = jsonPrefix + fieldPrefix;
+
+            Object schema = property.getValue();
+            Object nestedProperties = schema instanceof Map ? ((Map<String, Object>) schema).get("properties") : null;
+
+            if (nestedProperties instanceof Map && !((Map<String, Object>) nestedProperties).isEmpty()) {
+                Container container = container(type, property.getKey(), pointer);
+                List<Container> nestedContainers = new ArrayList<>(containers);
+                nestedContainers.add(container);
+                copyable &= container != null;
+                copyable &= collectFieldPatches((Map<String, Object>) nestedProperties, pointer, prefix,
+                    "}" + jsonSuffix, container != null ? container.field.getType() : null, nestedContainers);
+            } else {
+                fieldPatches.put(pointer, new FieldPatch(prefix, jsonSuffix, fieldPrefix, containers));
+            }
+        }
+        return copyable;
+    }
+
+    /**
+     * Maps a nested object property to the field of the enclosing class holding it.
+     *
+     * @param type    the class of the enclosing object, or {@code null} if it is not known.
+     * @param name    the name of the property.
+     * @param pointer the JSON Pointer of the property.
+     * @return the nested object, or {@code null} if the class has no such field or it cannot be copied.
+     */
+    private Container container(Class<?> type, String name, String pointer) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    return null;
+                }
+                field.setAccessible(true);
+                return new Container(pointer, field, copier(field.getType()));
+            } catch (NoSuchFieldException e) {
+                // look in the superclass
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
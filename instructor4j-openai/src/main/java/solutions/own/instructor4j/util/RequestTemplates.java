@@ -0,0 +1,425 @@
+package solutions.own.instructor4j.util;
+
+import static solutions.own.instructor4j.util.Utils.listOf;
+
+import com.openai.core.JsonValue;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import com.openai.models.ChatCompletionTool;
+import com.openai.models.ChatCompletionToolChoiceOption;
+import com.openai.models.ChatCompletionToolChoiceOption.Behavior;
+import com.openai.models.FunctionDefinition;
+import com.openai.models.FunctionParameters;
+import com.openai.models.ResponseFormatJsonSchema;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+
+/**
+ * A cache of immutable chat completion request templates, keyed by request kind, model, response model class and
+ * {@link Options}.
+ * <p>
+ * A template is a complete {@link ChatCompletionCreateParams} without messages: the tool or response format
+ * derived from the response model, with its schema already converted to {@link JsonValue}s, the model and the
+ * sampling options such as the token limit. Templates are built once for the lifetime of the JVM, and each request only attaches its
+ * messages via {@link #withMessages(ChatCompletionCreateParams, List)}. The schema is therefore not converted
+ * again, and the function definition, function parameters and tool objects are not rebuilt.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * ChatCompletionCreateParams template = RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL,
+ *     "gpt-4o-mini", User.class);
+ * ChatCompletionCreateParams params = RequestTemplates.withMessages(template,
+ *     MessageConverter.convertMessages(messages));
+ *
+ * RequestTemplates.Options precise = RequestTemplates.Options.builder().temperature(0).seed(42).build();
+ * ChatCompletionCreateParams preciseTemplate = RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL,
+ *     "gpt-4o-mini", User.class, precise);
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe. Templates are immutable and may be shared freely. They
+ * are cached per response model class in a {@link ClassValue}.</p>
+ */
+public final class RequestTemplates {
+
+    /**
+     * The maximum number of tokens generated for a request.
+     */
+    public static final long MAX_TOKENS = 1024;
+
+    /**
+     * The name of the JSON array {@link Kind#ARRAY_SCHEMA} responses are wrapped in.
+     */
+    public static final String ARRAY_ROOT_ELEMENT = "data";
+
+    /**
+     * The kinds of request a template is built for.
+     */
+    public enum Kind {
+
+        /**
+         * The response model is requested as the arguments of a function tool call, see
+         * {@link FunctionDefinitionBuilder}.
+         */
+        FUNCTION_TOOL,
+
+        /**
+         * The response is constrained to the flat schema of the response model, see
+         * {@link ResponseFormatJsonSchemaBuilder#buildSchemaFromClass(Class)}.
+         */
+        CLASS_SCHEMA,
+
+        /**
+         * The response is constrained to an array of response models under {@link #ARRAY_ROOT_ELEMENT}, see
+         * {@link ResponseFormatJsonSchemaBuilder#buildArraySchemaFromClass(Class, String)}.
+         */
+        ARRAY_SCHEMA,
+
+        /**
+         * The response is constrained to the full nested schema of the response model, see
+         * {@link ResponseFormatJsonSchemaBuilder#buildSchemaFromFunctionDefinition(MyFunctionDefinition)}.
+         */
+        OBJECT_SCHEMA
+    }
+
+    private static final ClassValue<ConcurrentMap<Key, ChatCompletionCreateParams>> templates =
+        new ClassValue<ConcurrentMap<Key, ChatCompletionCreateParams>>() {
+            @Override
+            protected ConcurrentMap<Key, ChatCompletionCreateParams> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+    private RequestTemplates() {
+    }
+
+    /**
+     * Returns the template for the given kind, model and response model class with the
+     * {@linkplain Options#defaults() default options}, building it on first use.
+     *
+     * @param kind          the kind of request.
+     * @param model         the model identifier.
+     * @param responseModel the response model class.
+     * @return the cached, immutable template; its message list is empty.
+     * @throws IllegalArgumentException if any of the parameters is {@code null}.
+     */
+    public static ChatCompletionCreateParams get(Kind kind, String model, Class<?> responseModel) {
+        return get(kind, model, responseModel, Options.DEFAULTS);
+    }
+
+    /**
+     * Returns the template for the given kind, model, response model class and options, building it on first use.
+     * Requests with equal options share a template; requests with different options never do.
+     *
+     * @param kind          the kind of request.
+     * @param model         the model identifier.
+     * @param responseModel the response model class.
+     * @param options       the options shaping the request.
+     * @return the cached, immutable template; its message list is empty.
+     * @throws IllegalArgumentException if any of the parameters is {@code null}.
+     */
+    public static ChatCompletionCreateParams get(Kind kind, String model, Class<?> responseModel,
+        Options options) {
+        if (kind == null) {
+            throw new IllegalArgumentException("Parameter 'kind' must not be null.");
+        }
+        if (model == null) {
+            throw new IllegalArgumentException("Parameter 'model' must not be null.");
+        }
+        if (responseModel == null) {
+            throw new IllegalArgumentException("Parameter 'responseModel' must not be null.");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Parameter 'options' must not be null.");
+        }
+
+        return templates.get(responseModel).computeIfAbsent(new Key(kind, model, options),
+            key -> buildTemplate(kind, model, responseModel, options));
+    }
+
+    /**
+     * Creates the parameters of a request from a template and the messages of the request.
+     *
+     * @param template a template returned by {@link #get(Kind, String, Class, Options)}.
+     * @param messages the messages of the request.
+     * @return the parameters of the request.
+     */
+    public static ChatCompletionCreateParams withMessages(ChatCompletionCreateParams template,
+        List<ChatCompletionMessageParam> messages) {
+        return template.toBuilder()
+            .messages(messages)
+            .build();
+    }
+
+    /**
+     * Builds a template.
+     *
+     * @param kind          the kind of request.
+     * @param model         the model identifier.
+     * @param responseModel the response model class.
+     * @param options       the options shaping the request.
+     * @return the template.
+     */
+    private static ChatCompletionCreateParams buildTemplate(Kind kind, String model, Class<?> responseModel,
+        Options options) {
+        ChatCompletionCreateParams.Builder template = ChatCompletionCreateParams.builder()
+            .model(model)
+            .maxTokens(options.maxTokens)
+            .messages(Collections.emptyList());
+        if (options.temperature != null) {
+            template.temperature(options.temperature);
+        }
+        if (options.seed != null) {
+            template.seed(options.seed);
+        }
+
+        switch (kind) {
+            case FUNCTION_TOOL:
+                return template
+                    .toolChoice(ChatCompletionToolChoiceOption.ofBehavior(Behavior.AUTO))
+                    .tools(listOf(buildFunctionTool(FunctionDefinitionBuilder.getFunctionDefinition(responseModel))))
+                    .build();
+            case CLASS_SCHEMA:
+                return template
+                    .responseFormat(ResponseFormatJsonSchemaBuilder.buildSchemaFromClass(responseModel))
+                    .build();
+            case ARRAY_SCHEMA:
+                return template
+                    .responseFormat(ResponseFormatJsonSchemaBuilder.buildArraySchemaFromClass(responseModel,
+                        ARRAY_ROOT_ELEMENT))
+                    .build();
+            case OBJECT_SCHEMA:
+                ResponseFormatJsonSchema responseFormat = ResponseFormatJsonSchemaBuilder
+                    .buildSchemaFromFunctionDefinition(FunctionDefinitionBuilder.getFunctionDefinition(responseModel));
+                return template
+                    .responseFormat(responseFormat)
+                    .build();
+            default:
+                throw new IllegalArgumentException("Unsupported template kind: " + kind);
+        }
+    }
+
+    /**
+     * Builds the function tool describing the given function definition. The schema is not strict and does not
+     * allow additional properties.
+     *
+     * @param myFunctionDefinition the function definition of the response model.
+     * @return the function tool.
+     */
+    private static ChatCompletionTool buildFunctionTool(MyFunctionDefinition myFunctionDefinition) {
+        Map<String, JsonValue> parameters = Utils.convertMap(myFunctionDefinition.getParameters());
+
+        return ChatCompletionTool.builder()
+            .function(
+                FunctionDefinition.builder()
+                    .name(myFunctionDefinition.getName())
+                    .description(myFunctionDefinition.getDescription())
+                    .parameters(FunctionParameters.builder()
+                        .putAllAdditionalProperties(parameters)
+                        .putAdditionalProperty("additionalProperties", JsonValue.from(false))
+                        .putAdditionalProperty("required", JsonValue.from(parameters.get("required")))
+                        .build())
+                    .strict(false)
+                    .build()
+            )
+            .type(ChatCompletionTool.Type.FUNCTION)
+            .build();
+    }
+
+    /**
+     * The cache key of a template within the templates of one response model class.
+     */
+    private static final class Key {
+        private final Kind kind;
+        private final String model;
+        private final Options options;
+
+        Key(Kind kind, String model, Options options) {
+            this.kind = kind;
+            this.model = model;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return kind == key.kind && model.equals(key.model) && options.equals(key.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, model, options);
+        }
+    }
+
+    /**
+     * The options that shape a request besides its kind, model and response model. Options are part of the key of
+     * a template, so requests only share a template when their options are equal.
+     *
+     * <p><b>Example Usage:</b></p>
+     * <pre>{@code
+     * RequestTemplates.Options options = RequestTemplates.Options.builder()
+     *     .maxTokens(256)
+     *     .temperature(0.2)
+     *     .build();
+     * }</pre>
+     *
+     * <p><b>Thread Safety:</b> Options are immutable and thread-safe.</p>
+     */
+    public static final class Options {
+
+        private static final Options DEFAULTS = builder().build();
+
+        private final long maxTokens;
+        private final Double temperature;
+        private final Long seed;
+
+        private Options(Builder builder) {
+            this.maxTokens = builder.maxTokens;
+            this.temperature = builder.temperature;
+            this.seed = builder.seed;
+        }
+
+        /**
+         * Returns the default options: a limit of {@link #MAX_TOKENS} tokens and the sampling defaults of the API.
+         *
+         * @return the default options.
+         */
+        public static Options defaults() {
+            return DEFAULTS;
+        }
+
+        /**
+         * Creates a builder starting from the {@linkplain #defaults() default options}.
+         *
+         * @return a new builder.
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Returns the maximum number of tokens generated for a request.
+         *
+         * @return the token limit.
+         */
+        public long getMaxTokens() {
+            return maxTokens;
+        }
+
+        /**
+         * Returns the sampling temperature of a request.
+         *
+         * @return the temperature, or {@code null} to use the default of the API.
+         */
+        public Double getTemperature() {
+            return temperature;
+        }
+
+        /**
+         * Returns the seed of a request.
+         *
+         * @return the seed, or {@code null} for none.
+         */
+        public Long getSeed() {
+            return seed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Options)) {
+                return false;
+            }
+            Options options = (Options) o;
+            return maxTokens == options.maxTokens
+                && Objects.equals(temperature, options.temperature)
+                && Objects.equals(seed, options.seed);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxTokens, temperature, seed);
+        }
+
+        @Override
+        public String toString() {
+            return "Options{maxTokens=" + maxTokens + ", temperature=" + temperature + ", seed=" + seed + '}';
+        }
+
+        /**
+         * A builder of {@link Options}.
+         */
+        public static final class Builder {
+            private long maxTokens = MAX_TOKENS;
+            private Double temperature;
+            private Long seed;
+
+            private Builder() {
+            }
+
+            /**
+             * Sets the maximum number of tokens generated for a request. Defaults to {@link #MAX_TOKENS}.
+             *
+             * @param maxTokens the token limit; must be positive.
+             * @return this builder.
+             * @throws IllegalArgumentException if {@code maxTokens} is not positive.
+             */
+            public Builder maxTokens(long maxTokens) {
+                if (maxTokens <= 0) {
+                    throw new IllegalArgumentException("Parameter 'maxTokens' must be positive.");
+                }
+                this.maxTokens = maxTokens;
+                return this;
+            }
+
+            /**
+             * Sets the sampling temperature of a request. Defaults to the default of the API.
+             *
+             * @param temperature the temperature, between 0 and 2.
+             * @return this builder.
+             * @throws IllegalArgumentException if {@code temperature} is not between 0 and 2.
+             */
+            public Builder temperature(double temperature) {
+                if (!(temperature >= 0 && temperature <= 2)) {
+                    throw new IllegalArgumentException("Parameter 'temperature' must be between 0 and 2.");
+                }
+                this.temperature = temperature;
+                return this;
+            }
+
+            /**
+             * Sets the seed of a request, for best-effort deterministic sampling. Defaults to none.
+             *
+             * @param seed the seed.
+             * @return this builder.
+             */
+            public Builder seed(long seed) {
+                this.seed = seed;
+                return this;
+            }
+
+            /**
+             * Builds the options.
+             *
+             * @return the options.
+             */
+            public Options build() {
+                return new Options(this);
+            }
+        }
+    }
+}
@@ -2,32 +2,29 @@ package solutions.own.instructor4j.util;
 
 import com.openai.core.JsonValue;
 import com.openai.models.ResponseFormatJsonSchema;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import solutions.own.instructor4j.annotation.Description;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+
+import static solutions.own.instructor4j.util.Utils.listOf;
 
 public class ResponseFormatJsonSchemaBuilder {
 
     /**
      * Converts a given Java type into a corresponding JSON Schema type.
      *
-     * <p>This method checks common Java types and maps them to standard JSON Schema
-     * types.
+     * <p>This method maps scalar Java types through {@link Utils#getJsonType(Class)}. Arrays, collections and
+     * objects are not described by the flat schemas of this class and map to "string".
      *
      * @param type the Java {@link Class} to convert
      * @return a {@link String} representing the equivalent JSON Schema type
      */
     public static String toJsonSchemaType(Class<?> type) {
-        if (type.equals(String.class)) return "string";
-        if (type.equals(int.class) || type.equals(Integer.class)
-            || type.equals(long.class) || type.equals(Long.class)) return "integer";
-        if (type.equals(float.class) || type.equals(Float.class)
-            || type.equals(double.class) || type.equals(Double.class)) return "number";
-        if (type.equals(boolean.class) || type.equals(Boolean.class)) return "boolean";
-        return "string";
+        String jsonType = Utils.getJsonType(type);
+        return "array".equals(jsonType) || "object".equals(jsonType) ? "string" : jsonType;
     }
 
     /**
@@ -56,21 +53,7 @@ public class ResponseFormatJsonSchemaBuilder {
         Map<String, Object> propertiesMap = new LinkedHashMap<>();
         List<String> requiredFields = new ArrayList<>();
 
-        for (Field field : clazz.getDeclaredFields()) {
-            String fieldName = field.getName();
-            String fieldType = toJsonSchemaType(field.getType());
-
-            Description desc = field.getAnnotation(Description.class);
-            String fieldDescription = desc != null ? desc.value() : "No description provided";
-
-            Map<String, Object> propertyDetails = new LinkedHashMap<>();
-            propertyDetails.put("type", fieldType);
-            propertyDetails.put("description", fieldDescription);
-
-            propertiesMap.put(fieldName, propertyDetails);
-
-            requiredFields.add(fieldName);
-        }
+        collectProperties(clazz, propertiesMap, requiredFields);
 
         // Now build the schema using the generated maps
         ResponseFormatJsonSchema responseFormatJsonSchema = ResponseFormatJsonSchema.builder()
@@ -92,4 +75,121 @@ public class ResponseFormatJsonSchemaBuilder {
 
         return responseFormatJsonSchema;
     }
+
+    /**
+     * Builds a JSON Schema describing an object with a single array property whose items are instances
+     * of the given Java class.
+     *
+     * <p>For {@code buildArraySchemaFromClass(Participant.class, "data")} the generated schema describes
+     * documents of the form {@code {"data": [ {...participant...}, ... ]}}. The item schema is built the same
+     * way as in {@link #buildSchemaFromClass(Class)}.
+     *
+     * @param clazz       the {@link Class} whose fields define the schema of the array items
+     * @param rootElement the name of the property holding the array
+     * @return a {@link ResponseFormatJsonSchema} instance representing the JSON Schema of the wrapped array
+     */
+    public static ResponseFormatJsonSchema buildArraySchemaFromClass(Class<?> clazz, String rootElement) {
+        Map<String, Object> itemPropertiesMap = new LinkedHashMap<>();
+        List<String> itemRequiredFields = new ArrayList<>();
+
+        collectProperties(clazz, itemPropertiesMap, itemRequiredFields);
+
+        Map<String, Object> itemSchema = new LinkedHashMap<>();
+        itemSchema.put("type", "object");
+        itemSchema.put("additionalProperties", false);
+        itemSchema.put("properties", itemPropertiesMap);
+        itemSchema.put("required", itemRequiredFields);
+
+        Map<String, Object> arraySchema = new LinkedHashMap<>();
+        arraySchema.put("type", "array");
+        arraySchema.put("items", itemSchema);
+
+        Map<String, Object> propertiesMap = new LinkedHashMap<>();
+        propertiesMap.put(rootElement, arraySchema);
+
+        return ResponseFormatJsonSchema.builder()
+            .type(ResponseFormatJsonSchema.Type.JSON_SCHEMA)
+            .jsonSchema(
+                ResponseFormatJsonSchema.JsonSchema.builder()
+                    .name("custom_data_schema") // arbitrary name
+                    .schema(
+                        ResponseFormatJsonSchema.JsonSchema.Schema.builder()
+                            .putAdditionalProperty("type", JsonValue.from("object"))
+                            .putAdditionalProperty("additionalProperties", JsonValue.from(false))
+                            .putAdditionalProperty("properties", JsonValue.from(propertiesMap))
+                            .putAdditionalProperty("required", JsonValue.from(listOf(rootElement)))
+                            .build()
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * Builds a JSON Schema from the parameters of a function definition.
+     *
+     * <p>Unlike {@link #buildSchemaFromClass(Class)}, the resulting schema keeps the nested object and array
+     * schemas generated by {@link FunctionDefinitionBuilder}, including field constraints and the required
+     * fields of every nested object.
+     *
+     * @param myFunctionDefinition the {@link MyFunctionDefinition} whose parameters define the schema
+     * @return a {@link ResponseFormatJsonSchema} instance representing the JSON Schema of the parameters
+     */
+    public static ResponseFormatJsonSchema buildSchemaFromFunctionDefinition(
+        MyFunctionDefinition myFunctionDefinition) {
+        Map<String, Object> parameters = myFunctionDefinition.getParameters();
+
+        return ResponseFormatJsonSchema.builder()
+            .type(ResponseFormatJsonSchema.Type.JSON_SCHEMA)
+            .jsonSchema(
+                ResponseFormatJsonSchema.JsonSchema.builder()
+                    .name(myFunctionDefinition.getName())
+                    .description(myFunctionDefinition.getDescription())
+                    .schema(
+                        ResponseFormatJsonSchema.JsonSchema.Schema.builder()
+                            .putAdditionalProperty("type", JsonValue.from("object"))
+                            .putAdditionalProperty("additionalProperties", JsonValue.from(false))
+                            .putAdditionalProperty("properties", JsonValue.from(parameters.get("properties")))
+                            .putAdditionalProperty("required", JsonValue.from(parameters.get("required")))
+                            .build()
+                    )
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * Collects the JSON Schema property definitions and the required field names of the given class. They are
+     * taken from the {@link GeneratedSchema} of the class if it was compiled with the annotation processor.
+     *
+     * @param clazz          the {@link Class} whose fields define the schema properties
+     * @param propertiesMap  the map to populate with property schemas, keyed by field name
+     * @param requiredFields the list to populate with required field names
+     */
+    private static void collectProperties(Class<?> clazz, Map<String, Object> propertiesMap,
+        List<String> requiredFields) {
+        TypeModel typeModel = TypeModel.of(clazz);
+        GeneratedSchema<?> generatedSchema = typeModel.getGeneratedSchema();
+        if (generatedSchema != null) {
+            propertiesMap.putAll(TypeModel.parseSchemaJson(generatedSchema.getPropertiesJson()));
+            requiredFields.addAll(generatedSchema.getFieldNames());
+            return;
+        }
+
+        for (TypeModel.FieldModel field : typeModel.getFields()) {
+            String fieldName = field.getName();
+            String fieldType = toJsonSchemaType(field.getType());
+
+            String fieldDescription = field.getDescription() != null
+                ? field.getDescription() : "No description provided";
+
+            Map<String, Object> propertyDetails = new LinkedHashMap<>();
+            propertyDetails.put("type", fieldType);
+            propertyDetails.put("description", fieldDescription);
+
+            propertiesMap.put(fieldName, propertyDetails);
+
+            requiredFields.add(fieldName);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package solutions.own.instructor4j.util;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import solutions.own.instructor4j.annotation.Description;
+
+/**
+ * Finds the response model classes on the classpath, so that they can be prepared before the first request.
+ * <p>
+ * A class is considered a response model if one of its fields is annotated with {@link Description}, or if the
+ * {@code instructor4j-processor} annotation processor generated a {@link GeneratedSchema} for it. Only the
+ * given packages and their subpackages are scanned, which keeps the scan fast; classes are read from their
+ * class files and only the response models found are loaded.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * List<Class<?>> responseModels = ResponseModelScanner.scan("com.example.model");
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class ResponseModelScanner {
+
+    private static final Logger logger = Logger.getLogger(ResponseModelScanner.class.getName());
+
+    private ResponseModelScanner() {
+    }
+
+    /**
+     * Scans the given packages for response model classes.
+     *
+     * @param packages the packages to scan, including their subpackages.
+     * @return the response model classes found, loaded and initialized.
+     * @throws IllegalArgumentException if {@code packages} is {@code null} or empty.
+     */
+    public static List<Class<?>> scan(String... packages) {
+        if (packages == null || packages.length == 0) {
+            throw new IllegalArgumentException("Parameter 'packages' must not be empty.");
+        }
+
+        List<Class<?>> responseModels = new ArrayList<>();
+        try (ScanResult scanResult = new ClassGraph()
+            .enableClassInfo()
+            .enableFieldInfo()
+            .enableAnnotationInfo()
+            .ignoreFieldVisibility()
+            .acceptPackages(packages)
+            .scan()) {
+
+            Set<String> classNames = new LinkedHashSet<>();
+            for (ClassInfo classInfo : scanResult.getClassesWithFieldAnnotation(Description.class.getName())) {
+                if (!classInfo.isInterface() && !classInfo.isAnnotation() && !classInfo.isEnum()) {
+                    classNames.add(classInfo.getName());
+                }
+            }
+            for (ClassInfo classInfo : scanResult.getClassesImplementing(GeneratedSchema.class.getName())) {
+                String name = classInfo.getName();
+                if (name.endsWith(GeneratedSchema.CLASS_NAME_SUFFIX)) {
+                    classNames.add(name.substring(0, name.length() - GeneratedSchema.CLASS_NAME_SUFFIX.length()));
+                }
+            }
+
+            for (String className : classNames) {
+                try {
+                    responseModels.add(scanResult.loadClass(className, false));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Could not load response model " + className + ": " + e.getMessage());
+                }
+            }
+        }
+        return responseModels;
+    }
+}
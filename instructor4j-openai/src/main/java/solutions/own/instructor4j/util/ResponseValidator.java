@@ -0,0 +1,479 @@
+package solutions.own.instructor4j.util;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.logging.Logger;
+
+/**
+ * A compiled validator enforcing the jakarta constraints of a response model class on its instances.
+ * <p>
+ * For a class processed by {@code instructor4j-processor}, the validator runs the checks generated in its
+ * {@link GeneratedSchema}. Otherwise it is compiled once per class from its {@link TypeModel}: every constrained
+ * field gets a
+ * {@link MethodHandle} getter and a list of checks, with the regular expressions of {@link Pattern} constraints
+ * compiled up front. Validating an instance then only invokes the getters and the checks. Paths and messages are
+ * only built for violations: a nested validator reports paths relative to its instance, and the caller prefixes
+ * them with the field name only if there are any. Arrays and random-access lists are iterated by index. Nested
+ * response models, and the response models in arrays and collections, are validated recursively with their own
+ * validators.
+ * </p>
+ *
+ * <p>The supported constraints, and how they are checked, follow Jakarta Bean Validation:</p>
+ * <ul>
+ *   <li>{@link NotNull}, {@link NotEmpty} and {@link NotBlank}: the value is not {@code null}, not empty, or
+ *       not only whitespace.</li>
+ *   <li>{@link Min} and {@link Max}: the numeric value is within bounds.</li>
+ *   <li>{@link Pattern}: the character sequence matches the regular expression entirely.</li>
+ *   <li>{@link Size}: the length of a character sequence, or the size of an array, collection or map.</li>
+ *   <li>{@link Email}: the character sequence has the shape of an email address.</li>
+ * </ul>
+ * <p>
+ * {@code null} values satisfy all constraints but the first three. As in the schema built by
+ * {@link FunctionDefinitionBuilder}, {@link Min}, {@link Max}, {@link Pattern} and {@link Email} on an array or
+ * collection of scalars apply to its items.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * List<String> violations = ResponseValidator.of(User.class).validate(user);
+ * if (!violations.isEmpty()) {
+ *     System.out.println("Invalid user: " + violations);
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe. Validators are cached in the
+ * {@link TypeModel} of their class.</p>
+ */
+public final class ResponseValidator {
+
+    private static final Logger logger = Logger.getLogger(ResponseValidator.class.getName());
+
+    /**
+     * A validator without checks, for classes without constraints.
+     */
+    static final ResponseValidator NONE = new ResponseValidator(Collections.emptyList());
+
+    /**
+     * The shape of an email address: a local part and a domain without whitespace, separated by a single
+     * {@code @}.
+     */
+    private static final java.util.regex.Pattern EMAIL = java.util.regex.Pattern.compile("[^@\\s]+@[^@\\s]+");
+
+    private final FieldValidator[] fields;
+    private final GeneratedSchema<Object> generatedSchema;
+
+    private ResponseValidator(List<FieldValidator> fields) {
+        this.fields = fields.toArray(new FieldValidator[0]);
+        this.generatedSchema = null;
+    }
+
+    private ResponseValidator(GeneratedSchema<Object> generatedSchema) {
+        this.fields = new FieldValidator[0];
+        this.generatedSchema = generatedSchema;
+    }
+
+    /**
+     * Returns the validator of the given class, compiling it on first use.
+     *
+     * @param type the response model class.
+     * @return the cached validator.
+     * @throws IllegalArgumentException if {@code type} is {@code null}.
+     */
+    public static ResponseValidator of(Class<?> type) {
+        return TypeModel.of(type).getValidator();
+    }
+
+    /**
+     * Validates an instance of the class of this validator.
+     *
+     * @param instance the instance to validate.
+     * @return the violations found, each as {@code <path>: <message>}, for example
+     *         {@code address.zip: must match "[0-9]{5}"}; an empty list if the instance is valid.
+     */
+    public List<String> validate(Object instance) {
+        List<String> violations = validate(instance, null);
+        return violations != null ? violations : Collections.emptyList();
+    }
+
+    /**
+     * Tells whether this validator checks anything.
+     *
+     * @return {@code true} if the class or a nested response model has constraints.
+     */
+    public boolean hasChecks() {
+        return fields.length > 0 || generatedSchema != null;
+    }
+
+    /**
+     * Returns the validator running the constraint checks generated for a class.
+     *
+     * @param generatedSchema the generated schema of the class, with constraint checks.
+     * @return the validator.
+     */
+    static ResponseValidator generated(GeneratedSchema<Object> generatedSchema) {
+        return new ResponseValidator(generatedSchema);
+    }
+
+    /**
+     * Compiles the validator of the class described by the given type model.
+     *
+     * @param typeModel the type model.
+     * @return the validator.
+     */
+    static ResponseValidator compile(TypeModel typeModel) {
+        List<FieldValidator> fieldValidators = new ArrayList<>();
+        for (TypeModel.FieldModel field : typeModel.getFields()) {
+            List<Check> checks = new ArrayList<>();
+            List<Check> itemChecks = new ArrayList<>();
+            addChecks(field, checks, itemChecks);
+
+            Class<?> nestedType = null;
+            Class<?> itemType = null;
+            if ("object".equals(field.getJsonType()) && isResponseModel(field.getType())) {
+                nestedType = field.getType();
+            } else if ("array".equals(field.getJsonType()) && field.getItemType() != null
+                && "object".equals(field.getItemJsonType()) && isResponseModel(field.getItemType())) {
+                itemType = field.getItemType();
+            }
+
+            if (checks.isEmpty() && itemChecks.isEmpty() && nestedType == null && itemType == null) {
+                continue;
+            }
+            MethodHandle getter = getter(field.getField());
+            if (getter == null) {
+                continue;
+            }
+            fieldValidators.add(new FieldValidator(field.getName(), getter, checks.toArray(new Check[0]),
+                itemChecks.toArray(new Check[0]), nestedType, itemType));
+        }
+        return fieldValidators.isEmpty() ? NONE : new ResponseValidator(fieldValidators);
+    }
+
+    /**
+     * Validates an instance, adding the violations found to the given list with paths relative to the instance.
+     *
+     * @param instance   the instance.
+     * @param violations the violations found so far, or {@code null} if there are none.
+     * @return the violations found, or {@code null} if there are none.
+     */
+    private List<String> validate(Object instance, List<String> violations) {
+        if (generatedSchema != null) {
+            List<String> generatedViolations = generatedSchema.validate(instance);
+            if (generatedViolations.isEmpty()) {
+                return violations;
+            } else if (violations == null) {
+                return new ArrayList<>(generatedViolations);
+            }
+            violations.addAll(generatedViolations);
+            return violations;
+        }
+        for (FieldValidator field : fields) {
+            Object value = field.get(instance);
+            for (Check check : field.checks) {
+                violations = addViolation(violations, field.name, -1, check.apply(value));
+            }
+            if (value == null) {
+                continue;
+            }
+
+            if (field.nestedType != null) {
+                int first = violations != null ? violations.size() : 0;
+                violations = of(field.nestedType).validate(value, violations);
+                prefixPaths(violations, first, field.name, -1);
+            } else if (field.itemChecks.length > 0 || field.itemType != null) {
+                violations = validateItems(field, value, violations);
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Validates the items of an array or collection, iterating arrays and random-access lists by index.
+     *
+     * @param field      the field holding the items.
+     * @param value      the array or collection.
+     * @param violations the violations found so far, or {@code null} if there are none.
+     * @return the violations found, or {@code null} if there are none.
+     */
+    private static List<String> validateItems(FieldValidator field, Object value, List<String> violations) {
+        if (value instanceof Object[]) {
+            Object[] items = (Object[]) value;
+            for (int i = 0; i < items.length; i++) {
+                violations = validateItem(field, items[i], i, violations);
+            }
+        } else if (value instanceof List && value instanceof RandomAccess) {
+            List<?> items = (List<?>) value;
+            for (int i = 0; i < items.size(); i++) {
+                violations = validateItem(field, items.get(i), i, violations);
+            }
+        } else if (value instanceof Iterable) {
+            int index = 0;
+            for (Object item : (Iterable<?>) value) {
+                violations = validateItem(field, item, index++, violations);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                violations = validateItem(field, Array.get(value, i), i, violations);
+            }
+        }
+        return violations;
+    }
+
+    private static List<String> validateItem(FieldValidator field, Object item, int index,
+        List<String> violations) {
+        if (item == null) {
+            return violations;
+        }
+        for (Check check : field.itemChecks) {
+            violations = addViolation(violations, field.name, index, check.apply(item));
+        }
+        if (field.itemType != null) {
+            int first = violations != null ? violations.size() : 0;
+            violations = of(field.itemType).validate(item, violations);
+            prefixPaths(violations, first, field.name, index);
+        }
+        return violations;
+    }
+
+    /**
+     * Adds a violation of a field, or of one of its items.
+     *
+     * @param violations the violations found so far, or {@code null} if there are none.
+     * @param name       the name of the field.
+     * @param index      the index of the item, or -1 for the field itself.
+     * @param message    the violation message, or {@code null} if the constraint is satisfied.
+     * @return the violations found, or {@code null} if there are none.
+     */
+    private static List<String> addViolation(List<String> violations, String name, int index, String message) {
+        if (message == null) {
+            return violations;
+        }
+        if (violations == null) {
+            violations = new ArrayList<>();
+        }
+        violations.add(path(name, index) + ": " + message);
+        return violations;
+    }
+
+    /**
+     * Prefixes the paths of the violations a nested validator added with the path of the field it validated.
+     *
+     * @param violations the violations, or {@code null} if there are none.
+     * @param first      the index of the first violation added by the nested validator.
+     * @param name       the name of the field.
+     * @param index      the index of the item, or -1 for the field itself.
+     */
+    private static void prefixPaths(List<String> violations, int first, String name, int index) {
+        if (violations == null || violations.size() == first) {
+            return;
+        }
+        String prefix = path(name, index) + ".";
+        for (int i = first; i < violations.size(); i++) {
+            violations.set(i, prefix + violations.get(i));
+        }
+    }
+
+    private static String path(String name, int index) {
+        return index < 0 ? name : name + "[" + index + "]";
+    }
+
+    /**
+     * Adds the checks of the constraints of a field.
+     *
+     * @param field      the field.
+     * @param checks     the list to add the checks of the field value to.
+     * @param itemChecks the list to add the checks of the items of an array or collection to.
+     */
+    private static void addChecks(TypeModel.FieldModel field, List<Check> checks, List<Check> itemChecks) {
+        Field javaField = field.getField();
+        if (javaField.isAnnotationPresent(NotNull.class) || javaField.isAnnotationPresent(NotEmpty.class)
+            || javaField.isAnnotationPresent(NotBlank.class)) {
+            checks.add(value -> value == null ? "must not be null" : null);
+        }
+        if (javaField.isAnnotationPresent(NotEmpty.class)) {
+            checks.add(value -> value != null && size(value) == 0 ? "must not be empty" : null);
+        }
+        if (javaField.isAnnotationPresent(NotBlank.class)) {
+            checks.add(value -> value instanceof CharSequence && isBlank((CharSequence) value)
+                ? "must not be blank" : null);
+        }
+        if (field.getSize() != null) {
+            int min = field.getSize().min();
+            int max = field.getSize().max();
+            checks.add(value -> {
+                int size = value != null ? size(value) : -1;
+                return size >= 0 && (size < min || size > max)
+                    ? "size must be between " + min + " and " + max : null;
+            });
+        }
+
+        List<Check> valueChecks = "array".equals(field.getJsonType()) ? itemChecks : checks;
+        if (field.getMin() != null) {
+            long min = field.getMin().value();
+            valueChecks.add(value -> compare(value, min) < 0 ? "must be greater than or equal to " + min : null);
+        }
+        if (field.getMax() != null) {
+            long max = field.getMax().value();
+            valueChecks.add(value -> compare(value, max) > 0 ? "must be less than or equal to " + max : null);
+        }
+        if (field.getPattern() != null) {
+            String regexp = field.getPattern().regexp();
+            int flags = 0;
+            for (Pattern.Flag flag : field.getPattern().flags()) {
+                flags |= flag.getValue();
+            }
+            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(regexp, flags);
+            valueChecks.add(value -> value instanceof CharSequence && !pattern.matcher((CharSequence) value).matches()
+                ? "must match \"" + regexp + "\"" : null);
+        }
+        if (field.isEmail()) {
+            valueChecks.add(value -> value instanceof CharSequence && ((CharSequence) value).length() > 0
+                && !EMAIL.matcher((CharSequence) value).matches() ? "must be a well-formed email address" : null);
+        }
+    }
+
+    /**
+     * Creates a getter for a field, taking an instance, or ignoring it for a static field, and returning an
+     * {@code Object}.
+     *
+     * @param field the accessible field.
+     * @return the getter, or {@code null} if the field cannot be read.
+     */
+    private static MethodHandle getter(Field field) {
+        try {
+            MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                return MethodHandles.dropArguments(getter.asType(MethodType.methodType(Object.class)), 0,
+                    Object.class);
+            }
+            return getter.asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            logger.warning("Constraints of field " + field.getName() + " of " + field.getDeclaringClass().getName()
+                + " are not validated, it cannot be read: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether values of the given class are validated recursively. JDK classes, such as maps or dates,
+     * are not.
+     */
+    private static boolean isResponseModel(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getClassLoader() != null;
+    }
+
+    /**
+     * Compares a number to a bound.
+     *
+     * @return a negative number, zero or a positive number if the value is less than, equal to or greater than
+     *         the bound; zero if the value is not a number.
+     */
+    private static int compare(Object value, long bound) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).compareTo(BigDecimal.valueOf(bound));
+        } else if (value instanceof BigInteger) {
+            return ((BigInteger) value).compareTo(BigInteger.valueOf(bound));
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            return number < bound ? -1 : number > bound ? 1 : 0;
+        } else if (value instanceof Number) {
+            return Long.compare(((Number) value).longValue(), bound);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the length of a character sequence or array, or the size of a collection or map.
+     *
+     * @return the size, or -1 if the value has none.
+     */
+    private static int size(Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        } else if (value.getClass().isArray()) {
+            return Array.getLength(value);
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether a character sequence is empty once trimmed, as {@link String#trim()} would, without copying it.
+     */
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A check of a single constraint.
+     */
+    private interface Check {
+
+        /**
+         * @param value the value to check, possibly {@code null}.
+         * @return the violation message, or {@code null} if the value satisfies the constraint.
+         */
+        String apply(Object value);
+    }
+
+    /**
+     * The getter and the checks of a single field.
+     */
+    private static final class FieldValidator {
+        private final String name;
+        private final MethodHandle getter;
+        private final Check[] checks;
+        private final Check[] itemChecks;
+        private final Class<?> nestedType;
+        private final Class<?> itemType;
+
+        FieldValidator(String name, MethodHandle getter, Check[] checks, Check[] itemChecks, Class<?> nestedType,
+            Class<?> itemType) {
+            this.name = name;
+            this.getter = getter;
+            this.checks = checks;
+            this.itemChecks = itemChecks;
+            this.nestedType = nestedType;
+            this.itemType = itemType;
+        }
+
+        Object get(Object instance) {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot read field " + name + ": " + e.getMessage(), e);
+            }
+        }
+    }
+}
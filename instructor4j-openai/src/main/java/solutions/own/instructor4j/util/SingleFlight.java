@@ -0,0 +1,155 @@
+package solutions.own.instructor4j.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls with the same key, so that only the first one runs and the others share its outcome.
+ * <p>
+ * The first caller of a key starts a flight and runs the call; callers of the same key arriving while the flight
+ * is running wait for it and receive the same result, or the same exception, instead of running the call again.
+ * The flight is removed before its outcome is published, so a call made after a flight has landed runs anew.
+ * A mutable result can be copied for each caller that joined a flight, so that callers never share an instance.
+ * Flights are kept in a {@link ConcurrentHashMap}, so callers of different keys never wait for each other.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * SingleFlight<String> flights = new SingleFlight<>();
+ * // concurrent callers for the same document share one download
+ * byte[] content = flights.execute(url, () -> download(url));
+ * CompletableFuture<byte[]> future = flights.executeAsync(url, () -> downloadAsync(url));
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ *
+ * @param <K> the type of the keys identifying identical calls.
+ */
+public final class SingleFlight<K> {
+
+    private final ConcurrentMap<K, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Runs a blocking call, or waits for the running call of the same key.
+     *
+     * @param key  the key identifying identical calls.
+     * @param call the call, run on the calling thread if no call of the key is running.
+     * @param <T>  the type of the result.
+     * @return the result of the call.
+     * @throws Exception the exception thrown by the call, or {@link InterruptedException} if the thread is
+     *                   interrupted while waiting for the call of another thread.
+     */
+    public <T> T execute(K key, Callable<T> call) throws Exception {
+        return execute(key, call, UnaryOperator.identity());
+    }
+
+    /**
+     * Runs a blocking call, or waits for the running call of the same key and receives a copy of its result.
+     *
+     * @param key   the key identifying identical calls.
+     * @param call  the call, run on the calling thread if no call of the key is running.
+     * @param share copies the result for a caller that joined the running call.
+     * @param <T>   the type of the result.
+     * @return the result of the call, or a copy of it.
+     * @throws Exception the exception thrown by the call, or {@link InterruptedException} if the thread is
+     *                   interrupted while waiting for the call of another thread.
+     */
+    public <T> T execute(K key, Callable<T> call, UnaryOperator<T> share) throws Exception {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return share.apply(SingleFlight.<T>await(running));
+        }
+        T result;
+        try {
+            result = call.call();
+        } catch (Exception | Error e) {
+            land(key, flight, null, e);
+            throw e;
+        }
+        land(key, flight, result, null);
+        return result;
+    }
+
+    /**
+     * Starts an asynchronous call, or joins the running call of the same key.
+     *
+     * @param key  the key identifying identical calls.
+     * @param call starts the call if no call of the key is running.
+     * @param <T>  the type of the result.
+     * @return a future of the outcome of the call, owned by the caller, so that cancelling or completing it does
+     *         not affect the other callers.
+     */
+    public <T> CompletableFuture<T> executeAsync(K key, Supplier<CompletableFuture<T>> call) {
+        return executeAsync(key, call, UnaryOperator.identity());
+    }
+
+    /**
+     * Starts an asynchronous call, or joins the running call of the same key and receives a copy of its result.
+     *
+     * @param key   the key identifying identical calls.
+     * @param call  starts the call if no call of the key is running.
+     * @param share copies the result for a caller that joined the running call.
+     * @param <T>   the type of the result.
+     * @return a future of the outcome of the call, owned by the caller, so that cancelling or completing it does
+     *         not affect the other callers.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(K key, Supplier<CompletableFuture<T>> call,
+        UnaryOperator<T> share) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return running.thenApply(value -> share.apply((T) value));
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            result = Utils.failedFuture(e);
+        }
+        result.whenComplete((value, error) ->
+            land(key, flight, value, error == null ? null : Utils.unwrapCompletionException(error)));
+        return (CompletableFuture<T>) flight.thenApply(Function.identity());
+    }
+
+    /**
+     * Returns the number of calls currently running.
+     *
+     * @return the number of flights.
+     */
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    private void land(K key, CompletableFuture<Object> flight, Object result, Throwable error) {
+        flights.remove(key, flight);
+        if (error == null) {
+            flight.complete(result);
+        } else {
+            flight.completeExceptionally(error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<Object> flight) throws Exception {
+        try {
+            return (T) flight.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package solutions.own.instructor4j.util;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Factory for the executors that run blocking chat completion requests concurrently.
+ * <p>
+ * On Java 21 and later, requests run on virtual threads, so the number of requests in flight is bounded
+ * only by the caller's concurrency limit and not by the size of a thread pool. On earlier runtimes, a
+ * fixed pool of daemon platform threads is used instead. The virtual thread executor is looked up
+ * reflectively, so the library keeps targeting Java 8.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * ExecutorService executor = TaskExecutors.newTaskExecutor("instructor4j-batch", 64);
+ * try {
+ *     executor.submit(() -> instructor.createChatCompletion(messages, "gpt-4o-mini", User.class));
+ * } finally {
+ *     executor.shutdown();
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is thread-safe.</p>
+ */
+public final class TaskExecutors {
+
+    private static final Logger logger = Logger.getLogger(TaskExecutors.class.getName());
+
+    private static final Method newVirtualThreadPerTaskExecutor = findVirtualThreadPerTaskExecutor();
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Indicates whether the running JVM supports virtual threads.
+     *
+     * @return {@code true} on Java 21 and later; {@code false} otherwise.
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task when virtual threads are available, or a
+     * fixed pool of {@code parallelism} daemon threads otherwise.
+     * <p>
+     * The virtual thread executor does not limit concurrency itself; callers are expected to bound the number
+     * of submitted tasks in flight.
+     * </p>
+     *
+     * @param namePrefix  the name prefix of platform threads, e.g. {@code "instructor4j-batch"}.
+     * @param parallelism the number of platform threads used when virtual threads are not available.
+     * @return a new executor; the caller is responsible for shutting it down.
+     * @throws IllegalArgumentException if {@code parallelism} is less than 1.
+     */
+    public static ExecutorService newTaskExecutor(String namePrefix, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parameter 'parallelism' must be greater than 0.");
+        }
+
+        return newVirtualThreadPerTaskExecutor()
+            .orElseGet(() -> Executors.newFixedThreadPool(parallelism, daemonThreadFactory(namePrefix)));
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, if the running JVM supports virtual threads.
+     *
+     * @return the executor, or an empty optional if virtual threads are not available.
+     */
+    private static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        if (newVirtualThreadPerTaskExecutor != null) {
+            try {
+                return Optional.of((ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null));
+            } catch (ReflectiveOperationException e) {
+                logger.log(Level.WARNING, "Failed to create virtual thread executor, falling back to platform "
+                    + "threads: " + e.getMessage(), e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a future completed after the given delay, without blocking a thread while waiting. The future is
+     * completed on a shared daemon timer thread, so dependent stages should only start non-blocking work.
+     *
+     * @param delay the delay.
+     * @return a future completed with {@code null} once the delay has elapsed.
+     */
+    public static CompletableFuture<Void> delay(Duration delay) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Timer.SCHEDULER.schedule(() -> future.complete(null), delay.toNanos(), TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    /**
+     * Runs a blocking task on a shared executor and returns its future. The executor starts a virtual thread per
+     * task when virtual threads are available, and otherwise reuses idle daemon threads or starts new ones, so
+     * tasks never queue behind each other. Cancelling the future interrupts the task.
+     *
+     * @param task the task.
+     * @param <T>  the type of the result.
+     * @return a future completed with the result of the task, or exceptionally with the exception it threw.
+     */
+    public static <T> CompletableFuture<T> runBlocking(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> execution = Blocking.EXECUTOR.submit(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                execution.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Holds the executor of {@link #runBlocking(Callable)}, created the first time a task is run.
+     */
+    private static final class Blocking {
+        private static final ExecutorService EXECUTOR = newVirtualThreadPerTaskExecutor()
+            .orElseGet(() -> Executors.newCachedThreadPool(daemonThreadFactory("instructor4j-blocking")));
+    }
+
+    /**
+     * Holds the timer thread, created the first time a delay is requested.
+     */
+    private static final class Timer {
+        private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("instructor4j-timer"));
+    }
+
+    /**
+     * Creates a factory of daemon threads named {@code namePrefix-1}, {@code namePrefix-2}, and so on.
+     *
+     * @param namePrefix the thread name prefix.
+     * @return the thread factory.
+     */
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()}, which exists on Java 21 and later.
+     *
+     * @return the factory method, or {@code null} if the running JVM does not support virtual threads.
+     */
+    private static Method findVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package solutions.own.instructor4j.util;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import solutions.own.instructor4j.annotation.Description;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+
+/**
+ * A compiled, immutable description of a response model class, computed once per class for the lifetime of the
+ * JVM.
+ * <p>
+ * The fields of the class are introspected a single time: their JSON types, collection item types,
+ * {@link Description descriptions} and constraint annotations are resolved and the fields are made accessible.
+ * Schema generation ({@link FunctionDefinitionBuilder}, {@link ResponseFormatJsonSchemaBuilder}), response
+ * validation and prompt hints are all derived from this model instead of walking the class reflectively on
+ * every request. The function definition of the class is built lazily on first use and cached as well.
+ * </p>
+ * <p>
+ * If the class was compiled with the {@code instructor4j-processor} annotation processor on the processor path,
+ * its {@link GeneratedSchema} is used instead: the schemas are parsed from the generated JSON constants, the
+ * prompt hint is built from the generated field names and responses are checked by the generated validator.
+ * The fields are then only introspected if {@link #getFields()} is called explicitly.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * TypeModel typeModel = TypeModel.of(User.class);
+ * for (TypeModel.FieldModel field : typeModel.getFields()) {
+ *     System.out.println(field.getName() + ": " + field.getJsonType());
+ * }
+ * }</pre>
+ *
+ * <p><b>Thread Safety:</b> This class is immutable and thread-safe. Models are cached per class in a
+ * {@link ClassValue}, so each class is introspected once.</p>
+ */
+public final class TypeModel {
+
+    private static final Logger logger = Logger.getLogger(TypeModel.class.getName());
+
+    private static final ClassValue<TypeModel> typeModels = new ClassValue<TypeModel>() {
+        @Override
+        protected TypeModel computeValue(Class<?> type) {
+            return new TypeModel(type);
+        }
+    };
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Class<?> type;
+    private final GeneratedSchema<Object> generatedSchema;
+    private volatile List<FieldModel> fields;
+    private volatile String promptHint;
+    private volatile MyFunctionDefinition functionDefinition;
+    private volatile ResponseValidator validator;
+
+    private TypeModel(Class<?> type) {
+        this.type = type;
+        this.generatedSchema = loadGeneratedSchema(type);
+    }
+
+    /**
+     * Returns the type model of the given class, computing it on first use.
+     *
+     * @param type the response model class.
+     * @return the cached type model.
+     * @throws IllegalArgumentException if {@code type} is {@code null}.
+     */
+    public static TypeModel of(Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Parameter 'type' must not be null.");
+        }
+        return typeModels.get(type);
+    }
+
+    /**
+     * Returns the class described by this model.
+     *
+     * @return the response model class.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the declared fields of the class, in declaration order, excluding synthetic fields.
+     *
+     * @return an unmodifiable list of field models.
+     */
+    public List<FieldModel> getFields() {
+        List<FieldModel> fieldModels = fields;
+        if (fieldModels == null) {
+            fieldModels = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (!field.isSynthetic()) {
+                    fieldModels.add(new FieldModel(field));
+                }
+            }
+            fieldModels = Collections.unmodifiableList(fieldModels);
+            fields = fieldModels;
+        }
+        return fieldModels;
+    }
+
+    /**
+     * Returns the schema generated for the class at compile time.
+     *
+     * @return the generated schema, or {@code null} if the class was not processed by the annotation processor.
+     */
+    public GeneratedSchema<?> getGeneratedSchema() {
+        return generatedSchema;
+    }
+
+    /**
+     * Returns the hint appended to the prompt when a response did not pass validation, listing all fields of
+     * the class.
+     *
+     * @return the prompt hint, starting with a space.
+     */
+    public String getPromptHint() {
+        String hint = promptHint;
+        if (hint == null) {
+            List<String> fieldNames = new ArrayList<>();
+            if (generatedSchema != null) {
+                fieldNames.addAll(generatedSchema.getFieldNames());
+            } else {
+                for (FieldModel field : getFields()) {
+                    fieldNames.add(field.getName());
+                }
+            }
+            hint = " Please ensure the response includes the following fields: " + String.join(", ", fieldNames);
+            promptHint = hint;
+        }
+        return hint;
+    }
+
+    /**
+     * Returns the function definition describing the JSON schema of the class, building it on first use.
+     *
+     * @return the cached function definition; its parameters are unmodifiable.
+     */
+    public MyFunctionDefinition getFunctionDefinition() {
+        MyFunctionDefinition definition = functionDefinition;
+        if (definition == null) {
+            definition = FunctionDefinitionBuilder.buildFunctionDefinition(this);
+            functionDefinition = definition;
+        }
+        return definition;
+    }
+
+    /**
+     * Returns the validator enforcing the jakarta constraints of the class, compiling it on first use.
+     * <p>
+     * If the generated schema of the class reports that it has no constraints, the fields are not introspected
+     * and the returned validator checks nothing. If it has generated constraint checks, the returned validator
+     * runs them, and the fields are not introspected either.
+     * </p>
+     *
+     * @return the cached validator.
+     */
+    public ResponseValidator getValidator() {
+        ResponseValidator responseValidator = validator;
+        if (responseValidator == null) {
+            if (generatedSchema != null && !generatedSchema.hasConstraints()) {
+                responseValidator = ResponseValidator.NONE;
+            } else if (generatedSchema != null && generatedSchema.hasConstraintValidator()) {
+                responseValidator = ResponseValidator.generated(generatedSchema);
+            } else {
+                responseValidator = ResponseValidator.compile(this);
+            }
+            validator = responseValidator;
+        }
+        return responseValidator;
+    }
+
+    /**
+     * Finds the first field of the given instance that holds {@code null}.
+     *
+     * @param instance an instance of the class described by this model.
+     * @return the first field holding {@code null}, or {@code null} if all fields hold a value.
+     * @throws IllegalAccessException if a field cannot be read.
+     */
+    public FieldModel findNullField(Object instance) throws IllegalAccessException {
+        for (FieldModel field : getFields()) {
+            if (field.getValue(instance) == null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the name of the first field of the given instance that holds {@code null}, using the generated
+     * validator of the class if there is one.
+     *
+     * @param instance an instance of the class described by this model.
+     * @return the name of the first field holding {@code null}, or {@code null} if all fields hold a value.
+     * @throws IllegalAccessException if a field cannot be read.
+     */
+    public String findNullFieldName(Object instance) throws IllegalAccessException {
+        if (generatedSchema != null && generatedSchema.hasValidator()) {
+            return generatedSchema.findNullField(instance);
+        }
+        FieldModel field = findNullField(instance);
+        return field != null ? field.getName() : null;
+    }
+
+    /**
+     * Parses a JSON object of a generated schema into nested, unmodifiable maps and lists.
+     *
+     * @param json the JSON object.
+     * @return the parsed object.
+     * @throws IllegalStateException if the JSON cannot be parsed, which means the generated schema is corrupt.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseSchemaJson(String json) {
+        try {
+            return (Map<String, Object>) toUnmodifiable(objectMapper.readValue(json, LinkedHashMap.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid generated schema: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toUnmodifiable(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                map.put(entry.getKey(), toUnmodifiable(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(map);
+        } else if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<Object>) value) {
+                list.add(toUnmodifiable(item));
+            }
+            return Collections.unmodifiableList(list);
+        }
+        return value;
+    }
+
+    /**
+     * Loads the schema generated for the given class, if the annotation processor generated one.
+     *
+     * @param type the response model class.
+     * @return the generated schema, or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    private static GeneratedSchema<Object> loadGeneratedSchema(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null || type.isPrimitive() || type.isArray()) {
+            return null;
+        }
+        try {
+            Class<?> schemaClass = Class.forName(type.getName() + GeneratedSchema.CLASS_NAME_SUFFIX, true,
+                classLoader);
+            if (!GeneratedSchema.class.isAssignableFrom(schemaClass)) {
+                return null;
+            }
+            return (GeneratedSchema<Object>) schemaClass.getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warning("Ignoring generated schema of " + type.getName() + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * A compiled description of a single field of a response model class.
+     */
+    public static final class FieldModel {
+
+        private final Field field;
+        private final String jsonType;
+        private final Class<?> itemType;
+        private final String itemJsonType;
+        private final String description;
+        private final boolean required;
+        private final Min min;
+        private final Max max;
+        private final Pattern pattern;
+        private final Size size;
+        private final boolean email;
+
+        private FieldModel(Field field) {
+            try {
+                field.setAccessible(true); // In case of private fields
+            } catch (RuntimeException e) {
+                // Fields of JDK classes in modules that are not open stay inaccessible
+            }
+            this.field = field;
+            this.jsonType = Utils.getJsonType(field.getType());
+            this.itemType = getCollectionItemType(field);
+            this.itemJsonType = itemType != null ? Utils.getJsonType(itemType) : null;
+
+            Description descriptionAnnotation = field.getAnnotation(Description.class);
+            this.description = descriptionAnnotation != null ? descriptionAnnotation.value() : null;
+            this.required = field.isAnnotationPresent(NotNull.class)
+                || field.isAnnotationPresent(NotEmpty.class)
+                || field.isAnnotationPresent(NotBlank.class);
+            this.min = field.getAnnotation(Min.class);
+            this.max = field.getAnnotation(Max.class);
+            this.pattern = field.getAnnotation(Pattern.class);
+            this.size = field.getAnnotation(Size.class);
+            this.email = field.isAnnotationPresent(Email.class);
+        }
+
+        /**
+         * @return the underlying, accessible field.
+         */
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * @return the name of the field.
+         */
+        public String getName() {
+            return field.getName();
+        }
+
+        /**
+         * @return the declared type of the field.
+         */
+        public Class<?> getType() {
+            return field.getType();
+        }
+
+        /**
+         * @return the JSON type of the field, see {@link Utils#getJsonType(Class)}.
+         */
+        public String getJsonType() {
+            return jsonType;
+        }
+
+        /**
+         * @return the item type of an array or collection field, or {@code null} if it cannot be determined.
+         */
+        public Class<?> getItemType() {
+            return itemType;
+        }
+
+        /**
+         * @return the JSON type of the items of an array or collection field, or {@code null} if the item type
+         *         cannot be determined.
+         */
+        public String getItemJsonType() {
+            return itemJsonType;
+        }
+
+        /**
+         * @return the value of the {@link Description} annotation, or {@code null} if the field has none.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return {@code true} if the field is annotated with {@link NotNull}, {@link NotEmpty} or
+         *         {@link NotBlank}.
+         */
+        public boolean isRequired() {
+            return required;
+        }
+
+        /**
+         * @return the {@link Min} constraint of the field, or {@code null}.
+         */
+        public Min getMin() {
+            return min;
+        }
+
+        /**
+         * @return the {@link Max} constraint of the field, or {@code null}.
+         */
+        public Max getMax() {
+            return max;
+        }
+
+        /**
+         * @return the {@link Pattern} constraint of the field, or {@code null}.
+         */
+        public Pattern getPattern() {
+            return pattern;
+        }
+
+        /**
+         * @return the {@link Size} constraint of the field, or {@code null}.
+         */
+        public Size getSize() {
+            return size;
+        }
+
+        /**
+         * @return {@code true} if the field is annotated with {@link Email}.
+         */
+        public boolean isEmail() {
+            return email;
+        }
+
+        /**
+         * Reads the value of the field.
+         *
+         * @param instance the instance to read from; ignored for static fields.
+         * @return the value of the field.
+         * @throws IllegalAccessException if the field cannot be read.
+         */
+        public Object getValue(Object instance) throws IllegalAccessException {
+            return field.get(instance);
+        }
+
+        /**
+         * Retrieves the item type of a collection or array field.
+         *
+         * @param field The field representing the collection or array.
+         * @return The Class of the collection's items, or null if it cannot be determined.
+         */
+        private static Class<?> getCollectionItemType(Field field) {
+            if (field.getType().isArray()) {
+                return field.getType().getComponentType();
+            } else if (Collection.class.isAssignableFrom(field.getType())) {
+                Type genericType = field.getGenericType();
+                if (genericType instanceof ParameterizedType) {
+                    Type[] typeArgs = ((ParameterizedType) genericType).getActualTypeArguments();
+                    if (typeArgs.length > 0) {
+                        Type itemType = typeArgs[0];
+                        if (itemType instanceof Class<?>) {
+                            return (Class<?>) itemType;
+                        } else if (itemType instanceof ParameterizedType) {
+                            return (Class<?>) ((ParameterizedType) itemType).getRawType();
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -5,11 +5,17 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import com.openai.core.JsonValue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 import solutions.own.instructor4j.exception.InstructorException;
 
@@ -37,8 +43,56 @@ public class Utils {
         }
     }
 
+    /**
+     * Parses a JSON stream into an instance of the specified response model. The stream is read but not closed.
+     *
+     * @param json          the JSON stream to parse.
+     * @param responseModel the class of the response model.
+     * @param <T>           the type of the response model.
+     * @return an instance of {@code T} populated with data from the JSON stream.
+     * @throws InstructorException if reading or parsing fails.
+     */
+    public static <T> T parseJson(InputStream json, Class<T> responseModel) throws InstructorException {
+        try {
+            return objectMapper.readValue(json, responseModel);
+        } catch (IOException e) {
+            throw new InstructorException("Failed to parse JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serializes a value, such as a response model instance, to JSON.
+     *
+     * @param value the value to serialize.
+     * @return the JSON string.
+     * @throws InstructorException if serialization fails.
+     */
+    public static String toJson(Object value) throws InstructorException {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new InstructorException("Failed to serialize JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resolves and caches the deserializer of the given response model, so that the first call to
+     * {@link #parseJson(String, Class)} does not pay for introspecting it.
+     *
+     * @param responseModel the class of the response model.
+     * @throws IllegalArgumentException if no deserializer can be built for the class.
+     */
+    public static void prepareJsonReader(Class<?> responseModel) {
+        objectMapper.readerFor(responseModel);
+    }
+
     /**
      * Maps Java types to JSON Schema types.
+     * <p>
+     * This is the single mapping used for schema generation, see {@link TypeModel}: integral types map to
+     * {@code integer}, floating point types to {@code number}, arrays and collections to {@code array}, and any
+     * other class, including maps and custom classes, to {@code object}.
+     * </p>
      *
      * @param clazz The Java class.
      * @return The JSON Schema type as a string.
@@ -46,18 +100,19 @@ public class Utils {
     public static String getJsonType(Class<?> clazz) {
         if (clazz == String.class) {
             return "string";
-        } else if (clazz == Integer.class || clazz == int.class) {
+        } else if (clazz == Integer.class || clazz == int.class
+            || clazz == Long.class || clazz == long.class
+            || clazz == Short.class || clazz == short.class
+            || clazz == Byte.class || clazz == byte.class) {
             return "integer";
         } else if (clazz == Double.class || clazz == double.class || clazz == Float.class || clazz == float.class) {
             return "number";
         } else if (clazz == Boolean.class || clazz == boolean.class) {
             return "boolean";
-        } else if (List.class.isAssignableFrom(clazz)) {
+        } else if (clazz.isArray() || Collection.class.isAssignableFrom(clazz)) {
             return "array";
-        } else if (Map.class.isAssignableFrom(clazz) || clazz == Object.class) {
-            return "object";
         } else {
-            // For custom objects, treat as an object
+            // Maps and custom objects are treated as objects
             return "object";
         }
     }
@@ -93,108 +148,50 @@ public class Utils {
      *
      * <p>The method will:
      * <ul>
-     *   <li>Count and ensure that if there's an odd number of double quotes, an extra quote will be appended
-     *   at the end to balance them.</li>
-     *   <li>Track the nesting of '{' and '[' characters using a stack. For each unmatched opening bracket,
+     *   <li>Close a string value that is still open, honouring escaped quotes inside strings.</li>
+     *   <li>Track the nesting of '{' and '[' characters outside of strings. For each unmatched opening bracket,
      *   it appends the corresponding closing bracket ('}' or ']') at the end of the string.</li>
+     *   <li>Drop a trailing dangling key, comma or partial literal that cannot be closed by appending
+     *   characters.</li>
      * </ul>
      *
-     * <p>Note: This method does not guarantee that the resulting string is fully valid JSON. It only attempts
-     * to close opened quotes and brackets. If the initial string was malformed beyond missing closing brackets
-     * or quotes, the result may still not be valid JSON.</p>
+     * <p>This method scans the whole string on every call. When closing a document that is received in pieces,
+     * use a {@link JsonAssembler} instead, which keeps its state between pieces and only scans new characters.</p>
+     *
+     * <p>Note: This method does not guarantee that the resulting string is fully valid JSON. If the initial
+     * string was malformed beyond missing closing brackets or quotes, the result may still not be valid JSON.</p>
      *
      * @param json the input string to ensure closures for quotes and brackets
      * @return the adjusted string with appended closing characters if necessary
+     * @see JsonAssembler#toClosedJson()
      */
     public static String ensureJsonClosures(String json) {
-        StringBuilder result = new StringBuilder(json);
-        java.util.Deque<Character> stack = new java.util.ArrayDeque<>();
-
-        int numOfQuotes = 0;
-        for (char c : json.toCharArray()) {
-            switch (c) {
-                case '"':
-                    numOfQuotes++;
-                    break;
-                default:
-                    break;
-            }
-        }
-
-        for (int i = 0; i < json.length(); i++) {
-            char c = json.charAt(i);
-            if (c == '{' || c == '[') {
-                stack.push(c);
-            } else if (c == '}' || c == ']') {
-                if (!stack.isEmpty()) {
-                    stack.pop();
-                }
-            }
-        }
-
-        if (numOfQuotes > 0 && numOfQuotes % 2 != 0) {
-            result.append('"');
-        }
-
-        while (!stack.isEmpty()) {
-            char opened = stack.pop();
-            if (opened == '{') {
-                result.append('}');
-            } else if (opened == '[') {
-                result.append(']');
-            }
-        }
-
-        return result.toString();
+        JsonAssembler jsonAssembler = new JsonAssembler();
+        jsonAssembler.append(json);
+        return jsonAssembler.toClosedJson();
     }
 
     /**
      * Checks whether the given string has balanced quotes, curly braces, and square brackets,
      * indicative of properly closed structures that are necessary (but not sufficient) for valid JSON.
      *
-     * <p>This method counts the number of double quotes (") and ensures it is even, implying
-     * that quotes are properly paired. It also tracks the nesting of '{' and '[' characters
-     * with a stack and ensures every opened bracket is eventually closed by a matching '}' or ']'.
+     * <p>This method ensures that no string is left open, honouring escaped quotes inside strings, and
+     * tracks the nesting of '{' and '[' characters outside of strings to ensure every opened bracket is
+     * eventually closed by a matching '}' or ']'.
      *
      * <p>Note: This method does not guarantee the string is valid JSON. It only checks for
      * balanced quotes and bracket pairs. Other invalid JSON constructs (e.g., missing commas,
      * unquoted keys, invalid characters) may still be present.
      *
      * @param json the input string to check for balanced quotes and brackets
-     * @return true if the number of quotes is even and all brackets are properly closed;
+     * @return true if no string is left open and all brackets are properly closed;
      *         false otherwise
+     * @see JsonAssembler#isClosed()
      */
     public static boolean isJsonValidOnClosures(String json) {
-        StringBuilder result = new StringBuilder(json);
-        java.util.Deque<Character> stack = new java.util.ArrayDeque<>();
-
-        int numOfQuotes = 0;
-        for (char c : json.toCharArray()) {
-            switch (c) {
-                case '"':
-                    numOfQuotes++;
-                    break;
-                default:
-                    break;
-            }
-        }
-
-        for (int i = 0; i < json.length(); i++) {
-            char c = json.charAt(i);
-            if (c == '{' || c == '[') {
-                stack.push(c);
-            } else if (c == '}' || c == ']') {
-                if (!stack.isEmpty()) {
-                    stack.pop();
-                }
-            }
-        }
-
-        if (numOfQuotes > 0 && numOfQuotes % 2 != 0) {
-            return false;
-        }
-
-        return stack.isEmpty();
+        JsonAssembler jsonAssembler = new JsonAssembler();
+        jsonAssembler.append(json);
+        return jsonAssembler.isClosed();
     }
 
     /**
@@ -290,4 +287,33 @@ public class Utils {
     public static <T> Stream<T> optionalToStream(Optional<T> optional) {
         return optional.isPresent() ? Stream.of(optional.get()) : Stream.empty();
     }
+
+    /**
+     * Returns a new {@link CompletableFuture} that is already completed exceptionally with the given exception.
+     *
+     * @param throwable the exception
+     * @param <T>       the type of the future's value
+     * @return the exceptionally completed future
+     */
+    public static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    /**
+     * Unwraps the {@link CompletionException} and {@link ExecutionException} layers added by
+     * {@link CompletableFuture} around the exception that actually caused a failure.
+     *
+     * @param throwable the exception a future was completed with
+     * @return the underlying cause, or {@code throwable} itself if it is not a wrapper
+     */
+    public static Throwable unwrapCompletionException(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
 }
@@ -1,16 +1,61 @@
 package solutions.own.instructor4j;
 
+import com.openai.core.http.Headers;
+import com.openai.core.http.StreamResponse;
+import com.openai.errors.BadRequestException;
+import com.openai.errors.OpenAIError;
+import com.openai.errors.RateLimitException;
 import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
 import com.openai.models.ChatCompletionMessage;
 import com.openai.models.ChatCompletionMessageToolCall;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import reactor.core.publisher.Flux;
+import solutions.own.instructor4j.cache.InMemoryResponseCache;
+import solutions.own.instructor4j.circuitbreaker.CircuitBreaker;
+import solutions.own.instructor4j.exception.CircuitBreakerOpenException;
 import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.hedge.HedgingPolicy;
 import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.Customer;
+import solutions.own.instructor4j.model.Partial;
+import solutions.own.instructor4j.model.Participant;
+import solutions.own.instructor4j.model.Result;
 import solutions.own.instructor4j.model.User;
+import solutions.own.instructor4j.model.UserProfile;
+import solutions.own.instructor4j.retry.RetryBudget;
+import solutions.own.instructor4j.retry.RetryPolicy;
 import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.service.impl.CircuitBreakingChatService;
+import solutions.own.instructor4j.service.impl.LocalBatchChatService;
+import solutions.own.instructor4j.util.BatchJsonl;
+import solutions.own.instructor4j.util.RequestTemplates;
+import solutions.own.instructor4j.util.Utils;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.util.List;
 
@@ -178,4 +223,839 @@ public class InstructorTest {
 
         verify(mockService, times(3)).createChatCompletion(any());
     }
+
+    @Test
+    public void testStreamIsColdAndEmitsChunksAsTheyArrive() {
+
+        AiChatService mockService = mock(AiChatService.class);
+        AtomicInteger pulledChunks = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        when(mockService.createStreamChatCompletion(any())).thenAnswer(invocation ->
+            streamResponse(closed, Stream.of("{\"data\":[", "{\"name\":\"John\"}", "]}")
+                .peek(content -> pulledChunks.incrementAndGet())));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "John is here")
+        ));
+
+        Flux<String> stream = instructor.createStreamChatCompletion(messages, "gpt-4o-mini", User.class);
+
+        verify(mockService, never()).createStreamChatCompletion(any());
+
+        List<String> contents = stream.collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList("{\"data\":[", "{\"name\":\"John\"}", "]}"), contents);
+        assertEquals(3, pulledChunks.get());
+        assertTrue(closed.get(), "Stream response should be closed on completion");
+    }
+
+    @Test
+    public void testStreamIsClosedOnCancelAndHonoursDemand() {
+
+        AiChatService mockService = mock(AiChatService.class);
+        AtomicInteger pulledChunks = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        when(mockService.createStreamChatCompletion(any())).thenAnswer(invocation ->
+            streamResponse(closed, Stream.iterate(0, i -> i + 1)
+                .map(i -> "chunk" + i)
+                .peek(content -> pulledChunks.incrementAndGet())));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Endless stream")
+        ));
+
+        List<String> contents = instructor.createStreamChatCompletion(messages, "gpt-4o-mini", User.class)
+            .take(2)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList("chunk0", "chunk1"), contents);
+        assertTrue(pulledChunks.get() < 10, "Only the requested chunks should be pulled from the stream");
+        assertTrue(closed.get(), "Stream response should be closed on cancel");
+    }
+
+    @Test
+    public void testIterableStreamEmitsEachEntityOnce() {
+
+        AiChatService mockService = mock(AiChatService.class);
+        AtomicBoolean closed = new AtomicBoolean();
+
+        when(mockService.createStreamChatCompletion(any())).thenAnswer(invocation ->
+            streamResponse(closed, Stream.of(
+                "{\"data\": [{\"name\": \"John Doe\", \"email\": \"johndoe@email.com\", ",
+                "\"handle\": \"@TechGuru44\"}, {\"name\": \"Jane",
+                " Smith\", \"email\": \"janesmith@email.com\", \"handle\": \"@DigitalDiva88\"}",
+                "]}")));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "John Doe and Jane Smith joined")
+        ));
+
+        List<Participant> participants =
+            instructor.createIterableStreamChatCompletion(messages, "gpt-4o-mini", Participant.class)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList(
+            new Participant("John Doe", "johndoe@email.com", "@TechGuru44"),
+            new Participant("Jane Smith", "janesmith@email.com", "@DigitalDiva88")), participants);
+        assertTrue(closed.get(), "Stream response should be closed on completion");
+    }
+
+    @Test
+    public void testPartialStreamEmitsProgressiveSnapshots() {
+
+        AiChatService mockService = mock(AiChatService.class);
+        AtomicBoolean closed = new AtomicBoolean();
+
+        when(mockService.createStreamChatCompletion(any())).thenAnswer(invocation ->
+            streamResponse(closed, Stream.of(
+                "{\"name\": \"John\", \"age\"",
+                ": 30, \"address\": {\"street\": \"Main St 1\", ",
+                "\"city\": \"Springfield\"}, \"hobbies\": [\"chess\"]",
+                "}")));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "John (30) lives at Main St 1, Springfield")
+        ));
+
+        List<List<String>> completedPaths = new ArrayList<>();
+        Partial<UserProfile> last =
+            instructor.createPartialStreamChatCompletion(messages, "gpt-4o-mini", UserProfile.class)
+                .doOnNext(partial -> completedPaths.add(partial.getCompletedPaths()))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList(
+            Arrays.asList("/name"),
+            Arrays.asList("/age", "/address/street"),
+            Arrays.asList("/address/city", "/hobbies"),
+            Collections.emptyList()), completedPaths);
+        assertNotNull(last);
+        assertTrue(last.isComplete());
+        assertEquals("Springfield", last.getValue().getAddress().getCity());
+        assertTrue(closed.get(), "Stream response should be closed on completion");
+    }
+
+    @Test
+    public void testConstraintViolationTriggersRetry() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletion(any()))
+            .thenReturn(toolCallCompletion("{\"name\":\"Nenad Alajbegovic\",\"age\":12,\"email\":\"nenad@example.com\","
+                + "\"tags\":[\"vip\"],\"contacts\":[]}"))
+            .thenReturn(toolCallCompletion("{\"name\":\"Nenad Alajbegovic\",\"age\":30,\"email\":\"nenad@example.com\","
+                + "\"tags\":[\"vip\"],\"contacts\":[]}"));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        Customer customer = instructor.createChatCompletion(messages, "gpt-4o-mini", Customer.class);
+
+        verify(mockService, times(2)).createChatCompletion(any());
+        assertEquals(30, customer.getAge());
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletion(any())).thenThrow(new BadRequestException(
+            Headers.builder().build(), "{}", OpenAIError.builder().build()));
+
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.exponentialBackoff()
+            .retryBudget(new RetryBudget(0.1, 10, 10)).build());
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        InstructorException exception = assertThrows(InstructorException.class,
+            () -> instructor.createChatCompletion(messages, "gpt-4o-mini", User.class));
+
+        verify(mockService, times(1)).createChatCompletion(any());
+        assertTrue(exception.getMessage().startsWith("Retry not allowed"));
+    }
+
+    @Test
+    public void testAsyncRetryWaitsForRetryAfter() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(Utils.failedFuture(new RateLimitException(
+                Headers.builder().put("retry-after-ms", "300").build(), "{}", OpenAIError.builder().build())))
+            .thenReturn(CompletableFuture.completedFuture(
+                toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}")));
+
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.exponentialBackoff()
+            .retryBudget(new RetryBudget(0.1, 10, 10)).build());
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        long start = System.nanoTime();
+        User user = instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class)
+            .get(5, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+        verify(mockService, times(2)).createChatCompletionAsync(any());
+        assertEquals(30, user.getAge());
+    }
+
+    @Test
+    public void testDelayedAsyncRetryDoesNotRunOnTheTimerThread() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+        AtomicReference<String> retryThread = new AtomicReference<>();
+
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(Utils.failedFuture(new RateLimitException(
+                Headers.builder().put("retry-after-ms", "50").build(), "{}", OpenAIError.builder().build())))
+            .thenAnswer(invocation -> {
+                retryThread.set(Thread.currentThread().getName());
+                return CompletableFuture.completedFuture(
+                    toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+            });
+
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.exponentialBackoff()
+            .retryBudget(new RetryBudget(0.1, 10, 10)).build());
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        User user = instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(30, user.getAge());
+        assertFalse(retryThread.get().startsWith("instructor4j-timer"), retryThread.get());
+    }
+
+    @Test
+    public void testCachedResponseSkipsTheApi() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletion(any()))
+            .thenReturn(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(CompletableFuture.completedFuture(
+                toolCallCompletion("{\"age\":31,\"name\":\"Nenad Alajbegovic\"}")));
+
+        InMemoryResponseCache cache = InMemoryResponseCache.builder().build();
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.immediate(), cache);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+        List<BaseMessage> otherMessages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 31 years old")
+        ));
+
+        User first = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+        first.setAge(99);
+        User second = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+        User async = instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class).get();
+        User other = instructor.createChatCompletionAsync(otherMessages, "gpt-4o-mini", User.class).get();
+        User otherAgain = instructor.createChatCompletion(otherMessages, "gpt-4o-mini", User.class);
+
+        verify(mockService, times(1)).createChatCompletion(any());
+        verify(mockService, times(1)).createChatCompletionAsync(any());
+        assertNotSame(second, async);
+        assertEquals(30, second.getAge());
+        assertEquals(30, async.getAge());
+        assertEquals(31, other.getAge());
+        assertEquals(31, otherAgain.getAge());
+        assertEquals(3, cache.getStats().getHitCount());
+        assertEquals(2, cache.getStats().getMissCount());
+    }
+
+    @Test
+    public void testRequestOptionsShapeTheRequestAndTheCacheKey() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletion(any()))
+            .thenReturn(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(CompletableFuture.completedFuture(
+                toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}")));
+
+        InMemoryResponseCache cache = InMemoryResponseCache.builder().build();
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.immediate(), cache);
+        RequestTemplates.Options precise = RequestTemplates.Options.builder()
+            .maxTokens(256)
+            .temperature(0)
+            .seed(42)
+            .build();
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+        instructor.createChatCompletion(messages, "gpt-4o-mini", User.class, precise);
+        instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class,
+            RequestTemplates.Options.builder().maxTokens(256).temperature(0).seed(42).build()).get();
+
+        verify(mockService, times(2)).createChatCompletion(any());
+        verify(mockService, never()).createChatCompletionAsync(any());
+        verify(mockService).createChatCompletion(argThat(params -> !params.temperature().isPresent()
+            && params.maxTokens().get() == RequestTemplates.MAX_TOKENS));
+        verify(mockService).createChatCompletion(argThat(params -> params.temperature().orElse(-1.0) == 0
+            && params.seed().orElse(0L) == 42 && params.maxTokens().get() == 256));
+        assertEquals(1, cache.getStats().getHitCount());
+        assertThrows(IllegalArgumentException.class,
+            () -> instructor.createChatCompletion(messages, "gpt-4o-mini", User.class, null));
+    }
+
+    @Test
+    public void testInvalidResponseIsNotCached() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletion(any()))
+            .thenReturn(toolCallCompletion("{\"age\":30}"));
+
+        InMemoryResponseCache cache = InMemoryResponseCache.builder().build();
+        Instructor instructor = new Instructor(mockService, 2, RetryPolicy.immediate(), cache);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        assertThrows(InstructorException.class,
+            () -> instructor.createChatCompletion(messages, "gpt-4o-mini", User.class));
+
+        assertEquals(0, cache.getStats().getEntryCount());
+    }
+
+    @Test
+    public void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+        when(mockService.createChatCompletion(any())).thenAnswer(invocation -> {
+            requested.countDown();
+            respond.await();
+            return toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}");
+        });
+
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.immediate(), null, null, true);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        AtomicReferenceArray<User> responses = new AtomicReferenceArray<>(4);
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int caller = i;
+            callers.add(new Thread(() -> {
+                try {
+                    responses.set(caller, instructor.createChatCompletion(messages, "gpt-4o-mini", User.class));
+                } catch (InstructorException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        callers.get(0).start();
+        assertTrue(requested.await(5, TimeUnit.SECONDS));
+        for (Thread caller : callers.subList(1, 4)) {
+            caller.start();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (callers.subList(1, 4).stream().anyMatch(caller -> caller.getState() != Thread.State.WAITING)
+            && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        respond.countDown();
+        for (Thread caller : callers) {
+            caller.join(5000);
+        }
+
+        verify(mockService, times(1)).createChatCompletion(any());
+        for (int i = 1; i < 4; i++) {
+            assertNotSame(responses.get(0), responses.get(i));
+            assertEquals(30, responses.get(i).getAge());
+        }
+        assertEquals(30, responses.get(0).getAge());
+    }
+
+    @Test
+    public void testIdenticalRequestsAreNotCoalescedByDefault() {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        CompletableFuture<ChatCompletion> pending = new CompletableFuture<>();
+        when(mockService.createChatCompletionAsync(any())).thenReturn(pending);
+
+        Instructor instructor = new Instructor(mockService, 1, RetryPolicy.immediate(),
+            InMemoryResponseCache.builder().build());
+
+        List<BaseMessage> messages = Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+
+        instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class);
+        instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class);
+        pending.complete(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+
+        verify(mockService, times(2)).createChatCompletionAsync(any());
+    }
+
+    @Test
+    public void testConcurrentIdenticalAsyncRequestsShareTheError() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        CompletableFuture<ChatCompletion> pending = new CompletableFuture<>();
+        when(mockService.createChatCompletionAsync(any())).thenReturn(pending);
+
+        Instructor instructor = new Instructor(mockService, 1, RetryPolicy.immediate(),
+            InMemoryResponseCache.builder().build(), null, true);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class));
+        }
+        futures.get(1).cancel(true);
+        pending.completeExceptionally(new IllegalStateException("Service unavailable"));
+
+        verify(mockService, times(1)).createChatCompletionAsync(any());
+        assertTrue(futures.get(1).isCancelled());
+        for (int i : new int[] {0, 2}) {
+            ExecutionException error = assertThrows(ExecutionException.class, futures.get(i)::get);
+            assertInstanceOf(InstructorException.class, error.getCause());
+        }
+
+        when(mockService.createChatCompletionAsync(any())).thenReturn(CompletableFuture.completedFuture(
+            toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}")));
+        assertEquals(30, instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class).get().getAge());
+    }
+
+    @Test
+    public void testSlowAttemptIsHedged() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicInteger calls = new AtomicInteger();
+        when(mockService.createChatCompletion(any())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    throw e;
+                }
+            }
+            return toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}");
+        });
+        CompletableFuture<ChatCompletion> pending = new CompletableFuture<>();
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(pending)
+            .thenReturn(CompletableFuture.completedFuture(
+                toolCallCompletion("{\"age\":31,\"name\":\"Nenad Alajbegovic\"}")));
+
+        HedgingPolicy hedgingPolicy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(50))
+            .maxHedgeRatio(1)
+            .build();
+        Instructor instructor = new Instructor(mockService, 1, RetryPolicy.immediate(), null, hedgingPolicy);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        long startedAt = System.nanoTime();
+        User user = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(30, user.getAge());
+        assertEquals(2, calls.get());
+
+        User asyncUser = instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class)
+            .get(5, TimeUnit.SECONDS);
+        assertEquals(31, asyncUser.getAge());
+        assertTrue(pending.isCancelled());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!interrupted.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(interrupted.get());
+        assertEquals(2, hedgingPolicy.getHedgeWinCount());
+    }
+
+    @Test
+    public void testHedgedAttemptCreditsTheRetryBudgetOnce() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        CompletableFuture<ChatCompletion> first = new CompletableFuture<>();
+        CompletableFuture<ChatCompletion> hedge = new CompletableFuture<>();
+        when(mockService.createChatCompletionAsync(any())).thenReturn(first).thenReturn(hedge);
+
+        AtomicInteger successes = new AtomicInteger();
+        RetryPolicy retryPolicy = new RetryPolicy() {
+            @Override
+            public Optional<Duration> getRetryDelay(int retryCount, Throwable error) {
+                return Optional.of(Duration.ZERO);
+            }
+
+            @Override
+            public void onSuccess() {
+                successes.incrementAndGet();
+            }
+        };
+        HedgingPolicy hedgingPolicy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(10))
+            .maxHedgeRatio(1)
+            .build();
+        Instructor instructor = new Instructor(mockService, 1, retryPolicy, null, hedgingPolicy);
+
+        List<BaseMessage> messages = Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 31 years old"));
+
+        CompletableFuture<User> user = instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class);
+        verify(mockService, timeout(5000).times(2)).createChatCompletionAsync(any());
+        first.complete(toolCallCompletion("{\"age\":30}"));
+        hedge.complete(toolCallCompletion("{\"age\":31,\"name\":\"Nenad Alajbegovic\"}"));
+
+        assertEquals(31, user.get(5, TimeUnit.SECONDS).getAge());
+        assertEquals(1, successes.get());
+        assertEquals(1, hedgingPolicy.getHedgeWinCount());
+    }
+
+    @Test
+    public void testOpenCircuitBreakerFailsFastWithoutRetries() throws Exception {
+
+        AiChatService endpoint = mock(AiChatService.class);
+        when(endpoint.createChatCompletion(any())).thenThrow(new IllegalStateException("Connection reset"));
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+            .minimumCalls(2)
+            .build();
+        AiChatService mockService = new CircuitBreakingChatService(endpoint, circuitBreaker);
+        Instructor instructor = new Instructor(mockService, 3, RetryPolicy.immediate());
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        CircuitBreakerOpenException exception = assertThrows(CircuitBreakerOpenException.class,
+            () -> instructor.createChatCompletion(messages, "gpt-4o-mini", User.class));
+        assertTrue(exception.getRetryAfter().getSeconds() > 0);
+        verify(endpoint, times(2)).createChatCompletion(any());
+
+        ExecutionException asyncException = assertThrows(ExecutionException.class,
+            () -> instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class).get());
+        assertInstanceOf(CircuitBreakerOpenException.class, asyncException.getCause());
+        verify(endpoint, times(2)).createChatCompletion(any());
+        assertEquals(2, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void testAsyncValidationFailureAndRetry() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        CompletableFuture<ChatCompletion> pending = new CompletableFuture<>();
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(pending)
+            .thenReturn(CompletableFuture.completedFuture(
+                toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}")));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        CompletableFuture<User> future = instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class);
+
+        assertFalse(future.isDone(), "Future should not complete before the response arrives");
+        verify(mockService, never()).createChatCompletion(any());
+
+        pending.complete(toolCallCompletion("{\"age\":30}"));
+
+        User user = future.get(5, TimeUnit.SECONDS);
+
+        verify(mockService, times(2)).createChatCompletionAsync(any());
+        verify(mockService, never()).createChatCompletion(any());
+        assertEquals(30, user.getAge());
+        assertEquals("Nenad Alajbegovic", user.getName());
+    }
+
+    @Test
+    public void testAsyncMaxRetriesExceeded() {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletionAsync(any()))
+            .thenReturn(Utils.failedFuture(new IllegalStateException("Service unavailable")));
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () ->
+            instructor.createChatCompletionAsync(messages, "gpt-4o-mini", User.class).get(5, TimeUnit.SECONDS));
+
+        assertTrue(exception.getCause() instanceof InstructorException);
+        assertEquals("Maximum retries reached. Unable to validate response.", exception.getCause().getMessage());
+        verify(mockService, times(3)).createChatCompletionAsync(any());
+    }
+
+    @Test
+    public void testBatchPreservesOrderAndBoundsConcurrency() throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(mockService.createChatCompletion(any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}");
+        });
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        List<List<BaseMessage>> batch = Arrays.asList(messages, messages, null, messages, messages, messages);
+
+        List<Result<User>> results = instructor.createChatCompletions(batch, "gpt-4o-mini", User.class, 2);
+
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Result<User> result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i == 2) {
+                assertFalse(result.isSuccess());
+                assertTrue(result.getError() instanceof InstructorException);
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals("Nenad Alajbegovic", result.getValue().getName());
+            }
+        }
+        assertTrue(maxInFlight.get() <= 2, "At most 2 requests should be in flight, was " + maxInFlight.get());
+        verify(mockService, times(5)).createChatCompletion(any());
+    }
+
+    @Test
+    public void testReactiveBatchHonoursConcurrencyAndOrder() {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        List<CompletableFuture<ChatCompletion>> pending = Collections.synchronizedList(new ArrayList<>());
+        when(mockService.createChatCompletionAsync(any())).thenAnswer(invocation -> {
+            CompletableFuture<ChatCompletion> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        AtomicInteger requested = new AtomicInteger();
+        Flux<List<BaseMessage>> source = Flux.range(0, 4)
+            .map(i -> messages)
+            .doOnRequest(n -> requested.addAndGet((int) Math.min(n, Integer.MAX_VALUE)));
+
+        List<Long> emitted = Collections.synchronizedList(new ArrayList<>());
+        instructor.createChatCompletions(source, "gpt-4o-mini", User.class, 2, true)
+            .subscribe(result -> emitted.add(result.getIndex()));
+
+        assertEquals(2, pending.size(), "Only 'concurrency' requests should be in flight");
+        assertEquals(2, requested.get(), "Source should be requested only as far as 'concurrency'");
+
+        pending.get(1).complete(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+        assertTrue(emitted.isEmpty(), "Ordered results should wait for the head of the stream");
+        assertEquals(2, pending.size(), "A held back result should keep its slot");
+
+        pending.get(0).complete(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+        assertEquals(Arrays.asList(0L, 1L), emitted);
+        assertEquals(4, pending.size());
+
+        pending.get(3).complete(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+        pending.get(2).complete(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), emitted);
+    }
+
+    @Test
+    public void testBatchRetriesFailedItemsInFollowUpBatch(@TempDir Path workDirectory) throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+
+        when(mockService.createChatCompletion(any()))
+            .thenReturn(toolCallCompletion("{\"age\":30}"))
+            .thenThrow(new IllegalStateException("Service unavailable"))
+            .thenReturn(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")
+        ));
+
+        try (LocalBatchChatService batchService = new LocalBatchChatService(mockService, workDirectory)) {
+            Instructor instructor = new Instructor(batchService, 3);
+
+            List<Result<User>> results = instructor.createBatchChatCompletions(
+                    Arrays.asList(messages, messages, messages), "gpt-4o-mini", User.class, workDirectory,
+                    Duration.ofMillis(10))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+            assertNotNull(results);
+            assertEquals(Arrays.asList(2L, 0L, 1L),
+                results.stream().map(Result::getIndex).collect(Collectors.toList()));
+            assertTrue(results.stream().allMatch(Result::isSuccess));
+            assertEquals("Nenad Alajbegovic", results.get(1).getValue().getName());
+        }
+
+        verify(mockService, times(5)).createChatCompletion(any());
+
+        List<String> retriedConversations = Files.readAllLines(workDirectory.resolve("round-2-conversations.jsonl"));
+        assertEquals(2, retriedConversations.size());
+        assertTrue(retriedConversations.get(0).contains("Please ensure the response includes the following fields"));
+        assertFalse(retriedConversations.get(1).contains("Please ensure the response includes the following fields"));
+    }
+
+    @Test
+    public void testBatchReportsConversationsMissingFromTheOutput(@TempDir Path workDirectory) throws Exception {
+
+        AiChatService mockService = mock(AiChatService.class);
+        when(mockService.createChatCompletion(any()))
+            .thenReturn(toolCallCompletion("{\"age\":30,\"name\":\"Nenad Alajbegovic\"}"));
+
+        List<BaseMessage> messages = Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+        String droppedId = "\"" + BatchJsonl.customId(1) + "\"";
+
+        try (LocalBatchChatService batchService = new LocalBatchChatService(mockService, workDirectory) {
+            @Override
+            public InputStream openBatchOutput(String batchId) throws IOException {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(super.openBatchOutput(batchId),
+                    StandardCharsets.UTF_8))) {
+                    String output = reader.lines()
+                        .filter(line -> !line.contains(droppedId))
+                        .collect(Collectors.joining("\n"));
+                    return new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }) {
+            Instructor instructor = new Instructor(batchService, 2);
+
+            List<Result<User>> results = instructor.createBatchChatCompletions(
+                    Arrays.asList(messages, messages, messages), "gpt-4o-mini", User.class, workDirectory,
+                    Duration.ofMillis(10))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+            assertNotNull(results);
+            assertEquals(Arrays.asList(0L, 2L, 1L),
+                results.stream().map(Result::getIndex).collect(Collectors.toList()));
+            assertFalse(results.get(2).isSuccess());
+            assertTrue(results.get(2).getError().getMessage().contains("No response"),
+                results.get(2).getError().getMessage());
+        }
+
+        verify(mockService, times(4)).createChatCompletion(any());
+        assertEquals(1, Files.readAllLines(workDirectory.resolve("round-2-conversations.jsonl")).size());
+    }
+
+    @Test
+    public void testWarmUpPreparesResponseModelsAndConnection() {
+        AiChatService mockService = mock(AiChatService.class);
+        Instructor instructor = new Instructor(mockService, 3);
+
+        List<Class<?>> responseModels = instructor.warmUp(Collections.singletonList("gpt-4o-mini"), true,
+            "solutions.own.instructor4j.model");
+
+        assertTrue(responseModels.containsAll(Arrays.asList(User.class, UserProfile.class, Participant.class)));
+        assertFalse(responseModels.contains(BaseMessage.class), "Classes without described fields are skipped");
+        verify(mockService).warmUp();
+        verify(mockService, never()).createChatCompletion(any());
+    }
+
+    private static ChatCompletion toolCallCompletion(String functionArguments) {
+        ChatCompletionMessage chatCompletionMessage = ChatCompletionMessage.builder().toolCalls(
+            listOf(
+                ChatCompletionMessageToolCall.builder()
+                    .id("id")
+                    .function(
+                        ChatCompletionMessageToolCall.Function.builder()
+                            .arguments(functionArguments)
+                            .name("User")
+                            .build()
+                    )
+                    .type(ChatCompletionMessageToolCall.Type.FUNCTION)
+                    .build()
+            )
+        ).build();
+
+        com.openai.models.ChatCompletion.Choice choice =
+            com.openai.models.ChatCompletion.Choice.builder().message(chatCompletionMessage).build();
+
+        return ChatCompletion.builder().choices(Collections.unmodifiableList(Arrays.asList(choice))).build();
+    }
+
+    private static StreamResponse<ChatCompletionChunk> streamResponse(AtomicBoolean closed, Stream<String> contents) {
+        Stream<ChatCompletionChunk> chunks = contents.map(content -> ChatCompletionChunk.builder()
+            .id("chunk")
+            .created(0L)
+            .model("gpt-4o-mini")
+            .choices(listOf(
+                ChatCompletionChunk.Choice.builder()
+                    .index(0L)
+                    .delta(ChatCompletionChunk.Choice.Delta.builder().content(content).build())
+                    .finishReason(ChatCompletionChunk.Choice.FinishReason.STOP)
+                    .build()
+            ))
+            .build());
+
+        return new StreamResponse<ChatCompletionChunk>() {
+            @Override
+            public Stream<ChatCompletionChunk> stream() {
+                return chunks;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+    }
 }
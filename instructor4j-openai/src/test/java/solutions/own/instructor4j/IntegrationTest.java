@@ -171,5 +171,42 @@ public class IntegrationTest {
             })
             .blockLast();
     }
-}
 
+    @Test
+    public void testRealAPIResponseStreamedEntities() throws JsonProcessingException {
+        assertNotNull(apiKey, "OPENAI API key must be provided for integration tests.");
+        assertNotEquals(ApiKeys.OPENAI_API_KEY_NOT_PROVIDED, apiKey,
+            "OPENAI API key must be provided for integration tests.");
+
+        String meetingRecord = "In our recent online meeting, participants from various backgrounds joined to discuss the upcoming tech conference. " +
+            "The names and contact details of the participants were as follows:\n" +
+            "\n" +
+            "- Name: John Doe, Email: johndoe@email.com, Twitter: @TechGuru44\n" +
+            "- Name: Jane Smith, Email: janesmith@email.com, Twitter: @DigitalDiva88\n" +
+            "- Name: Alex Johnson, Email: alexj@email.com, Twitter: @CodeMaster2023\n" +
+            "- Name: Emily Clark, Email: emilyc@email.com, Twitter: @InnovateQueen\n" +
+            "- Name: Ron Stewart, Email: ronstewart@email.com, Twitter: @RoboticsRon5\n" +
+            "- Name: Sarah Lee, Email: sarahlee@email.com, Twitter: @AI_Aficionado\n" +
+            "- Name: Mike Brown, Email: mikeb@email.com, Twitter: @FutureTechLeader\n" +
+            "- Name: Lisa Green, Email: lisag@email.com, Twitter: @CyberSavvy101\n" +
+            "- Name: David Wilson, Email: davidw@email.com, Twitter: @GadgetGeek77\n" +
+            "- Name: Daniel Kim, Email: danielk@email.com, Twitter: @DataDrivenDude";
+
+        AiChatService openAiService = new OpenAiChatService(apiKey);
+        Instructor instructor = new Instructor(openAiService, 3);
+
+        List<BaseMessage> messages = Collections.unmodifiableList(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), meetingRecord)
+        ));
+
+        List<Participant> participants = instructor
+            .createIterableStreamChatCompletion(messages, "gpt-4o-mini", Participant.class)
+            .doOnNext(p -> System.out.println(
+                "    PARTICIPANT RECEIVED: " + p.getName() + ", " + p.getEmail() + ", " + p.getHandle()))
+            .collectList()
+            .block();
+
+        assertEquals(ExpectedParticipantList.getExpectedParticipants(), participants,
+            "Participant list not as expected");
+    }
+}
@@ -0,0 +1,281 @@
+package solutions.own.instructor4j.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.User;
+
+public class DiskResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static CacheKey key(int i) {
+        return CacheKey.of("gpt-4o-mini", Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Message " + i)), User.class);
+    }
+
+    private DiskResponseCache open() throws IOException {
+        return DiskResponseCache.builder().directory(directory).segmentSize(1024).build();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static void assertUser(int age, String name, User user) {
+        assertNotNull(user);
+        assertEquals(age, user.getAge());
+        assertEquals(name, user.getName());
+    }
+
+    @Test
+    public void testResponsesSurviveReopening() throws IOException {
+        try (DiskResponseCache cache = open()) {
+            assertNull(cache.get(key(1), User.class));
+            cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+            assertUser(30, "Nenad Alajbegovic", cache.get(key(1), User.class));
+        }
+
+        try (DiskResponseCache cache = open()) {
+            assertUser(30, "Nenad Alajbegovic", cache.get(key(1), User.class));
+            assertNull(cache.get(key(2), User.class));
+            CacheStats stats = cache.getStats();
+            assertEquals(1, stats.getHitCount());
+            assertEquals(1, stats.getMissCount());
+            assertEquals(1, stats.getEntryCount());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsSkippedOnOpen() throws IOException {
+        try (DiskResponseCache cache = open()) {
+            cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+            cache.put(key(2), new User(40, "Jane Doe"));
+        }
+        Path segment = segmentFiles().get(0);
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (DiskResponseCache cache = open()) {
+            assertUser(30, "Nenad Alajbegovic", cache.get(key(1), User.class));
+            assertNull(cache.get(key(2), User.class));
+
+            cache.put(key(3), new User(50, "John Doe"));
+            assertUser(50, "John Doe", cache.get(key(3), User.class));
+        }
+        assertEquals(size - 5, Files.size(segment), "a shared segment is never truncated");
+        assertEquals(2, segmentFiles().size(), "writing continues in a fresh segment");
+    }
+
+    @Test
+    public void testRecordsAfterDamagedBytesAreRecovered() throws IOException {
+        try (DiskResponseCache cache = open()) {
+            cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+            Path segment = segmentFiles().get(0);
+            // a record torn by a crashed process, followed by the appends of a live one
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {0x49, 0x34, 0x4a, 0x52, 1, 2, 3}), Files.size(segment));
+            }
+            cache.put(key(2), new User(40, "Jane Doe"));
+        }
+        Files.write(directory.resolve("index.dat"), new byte[] {1, 2, 3});
+
+        try (DiskResponseCache cache = open()) {
+            assertUser(30, "Nenad Alajbegovic", cache.get(key(1), User.class));
+            assertUser(40, "Jane Doe", cache.get(key(2), User.class));
+        }
+    }
+
+    @Test
+    public void testIndexIsRebuiltFromSegments() throws IOException {
+        try (DiskResponseCache cache = open()) {
+            for (int i = 0; i < 20; i++) {
+                cache.put(key(i), new User(i, "User " + i));
+            }
+            cache.put(key(3), new User(33, "User 33"));
+            cache.invalidate(key(4));
+        }
+        Files.write(directory.resolve("index.dat"), new byte[] {1, 2, 3});
+
+        try (DiskResponseCache cache = open()) {
+            assertUser(0, "User 0", cache.get(key(0), User.class));
+            assertUser(33, "User 33", cache.get(key(3), User.class));
+            assertUser(19, "User 19", cache.get(key(19), User.class));
+            assertNull(cache.get(key(4), User.class), "the tombstone of an invalidation is replayed");
+        }
+    }
+
+    @Test
+    public void testFullIndexEvictsTheOldestResponses() throws IOException {
+        try (DiskResponseCache cache = DiskResponseCache.builder().directory(directory).segmentSize(1024)
+            .maximumEntries(12).build()) {
+            for (int i = 0; i < 100; i++) {
+                cache.put(key(i), new User(i, "User " + i));
+                assertUser(i, "User " + i, cache.get(key(i), User.class));
+            }
+
+            assertNull(cache.get(key(0), User.class));
+            assertUser(98, "User 98", cache.get(key(98), User.class));
+            assertTrue(cache.getStats().getEntryCount() <= 12);
+            assertTrue(cache.getStats().getEvictionCount() >= 88);
+        }
+    }
+
+    @Test
+    public void testCompactionReleasesTheSegmentsOfOtherInstances() throws IOException {
+        try (DiskResponseCache first = open(); DiskResponseCache second = open()) {
+            for (int i = 0; i < 40; i++) {
+                first.put(key(i), new User(i, "User " + i));
+                assertUser(i, "User " + i, second.get(key(i), User.class));
+            }
+            assertTrue(second.mappedSegments().size() > 1);
+
+            for (int i = 0; i < 39; i++) {
+                first.invalidate(key(i));
+            }
+            first.compact();
+            assertUser(39, "User 39", second.get(key(39), User.class));
+
+            List<Integer> segments = segmentFiles().stream()
+                .map(file -> Integer.parseInt(file.getFileName().toString().replaceAll("\\D", "")))
+                .collect(Collectors.toList());
+            assertTrue(segments.containsAll(second.mappedSegments()), second.mappedSegments() + " " + segments);
+        }
+    }
+
+    @Test
+    public void testMaximumEntriesAreLimitedToAMappableIndex() throws IOException {
+        try (DiskResponseCache cache = DiskResponseCache.builder().directory(directory)
+            .maximumEntries(DiskResponseCache.MAX_ENTRIES).build()) {
+            cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+            assertUser(30, "Nenad Alajbegovic", cache.get(key(1), User.class));
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> DiskResponseCache.builder().maximumEntries(DiskResponseCache.MAX_ENTRIES + 1));
+        assertThrows(IllegalArgumentException.class, () -> DiskResponseCache.builder().maximumEntries(0));
+
+        int slots = DiskResponseCache.slotCount(DiskResponseCache.MAX_ENTRIES);
+        assertEquals(1 << 25, slots);
+        assertTrue(64 + (long) slots * 32 <= Integer.MAX_VALUE, "the index fits in one mapped buffer");
+        assertEquals(1 << 26, DiskResponseCache.slotCount(DiskResponseCache.MAX_ENTRIES + 1));
+    }
+
+    @Test
+    public void testCorruptRecordIsAMiss() throws IOException {
+        try (DiskResponseCache cache = open()) {
+            cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+        }
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 40);
+        }
+
+        try (DiskResponseCache cache = open()) {
+            assertNull(cache.get(key(1), User.class));
+        }
+    }
+
+    @Test
+    public void testCompactionDropsGarbage() throws IOException {
+        try (DiskResponseCache cache = open()) {
+            for (int i = 0; i < 200; i++) {
+                cache.put(key(i % 3), new User(i, "User " + i));
+            }
+            assertTrue(segmentFiles().size() <= 2, "overwritten records are compacted away");
+            assertUser(198, "User 198", cache.get(key(0), User.class));
+            assertUser(199, "User 199", cache.get(key(1), User.class));
+            assertUser(197, "User 197", cache.get(key(2), User.class));
+
+            cache.invalidate(key(0));
+            cache.invalidate(key(1));
+            cache.invalidate(key(2));
+            cache.compact();
+
+            assertEquals(0, cache.getStats().getEntryCount());
+            long bytes = 0;
+            for (Path segment : segmentFiles()) {
+                bytes += Files.size(segment);
+            }
+            assertEquals(0, bytes);
+        }
+    }
+
+    @Test
+    public void testResponsesExpire() throws IOException {
+        AtomicLong now = new AtomicLong(1_000_000);
+        try (DiskResponseCache cache = DiskResponseCache.builder()
+            .directory(directory)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .currentTimeMillis(now::get)
+            .build()) {
+            cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+            assertUser(30, "Nenad Alajbegovic", cache.get(key(1), User.class));
+
+            now.addAndGet(Duration.ofMinutes(2).toMillis());
+            assertNull(cache.get(key(1), User.class));
+
+            cache.compact();
+            assertEquals(0, cache.getStats().getEntryCount());
+            assertEquals(1, cache.getStats().getEvictionCount());
+        }
+    }
+
+    @Test
+    public void testInstancesShareTheDirectory() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (DiskResponseCache first = open(); DiskResponseCache second = open()) {
+            first.put(key(-1), new User(30, "Nenad Alajbegovic"));
+            assertUser(30, "Nenad Alajbegovic", second.get(key(-1), User.class));
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                DiskResponseCache cache = t % 2 == 0 ? first : second;
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = thread; i < 200; i += 4) {
+                        cache.put(key(i), new User(i, "User " + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            for (int i = 0; i < 200; i++) {
+                assertUser(i, "User " + i, first.get(key(i), User.class));
+                assertUser(i, "User " + i, second.get(key(i), User.class));
+            }
+            assertEquals(201, second.getStats().getEntryCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package solutions.own.instructor4j.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.User;
+import solutions.own.instructor4j.model.UserProfile;
+
+public class InMemoryResponseCacheTest {
+
+    private static CacheKey key(int i) {
+        return CacheKey.of("gpt-4o-mini", Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Message " + i)), User.class);
+    }
+
+    @Test
+    public void testKeyIsStableAndCoversModelMessagesAndSchema() {
+        List<BaseMessage> messages = Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+        CacheKey key = CacheKey.of("gpt-4o-mini", messages, User.class);
+
+        assertEquals(key, CacheKey.of("gpt-4o-mini", new ArrayList<>(messages), User.class));
+        assertEquals(key, CacheKey.fromHexString(key.toHexString()));
+        assertNotEquals(key, CacheKey.of("gpt-4o", messages, User.class));
+        assertNotEquals(key, CacheKey.of("gpt-4o-mini", messages, UserProfile.class));
+        assertNotEquals(key, CacheKey.of("gpt-4o-mini", Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is"),
+            new BaseMessage(BaseMessage.Role.USER.getValue(), " 30 years old")), User.class));
+    }
+
+    @Test
+    public void testHitsMissesAndExpiry() {
+        AtomicLong now = new AtomicLong();
+        InMemoryResponseCache cache = InMemoryResponseCache.builder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .nanoTime(now::get)
+            .build();
+        User user = new User(30, "Nenad Alajbegovic");
+
+        assertNull(cache.get(key(1), User.class));
+        cache.put(key(1), user);
+        User hit = cache.get(key(1), User.class);
+        assertNotSame(user, hit);
+        assertEquals(30, hit.getAge());
+        assertEquals("Nenad Alajbegovic", hit.getName());
+        assertNull(cache.get(key(1), UserProfile.class));
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertNull(cache.get(key(1), User.class));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(3, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(0, stats.getEntryCount());
+        assertEquals(0.25, stats.getHitRate());
+    }
+
+    @Test
+    public void testEveryHitIsAFreshInstance() {
+        InMemoryResponseCache cache = InMemoryResponseCache.builder().build();
+        User user = new User(30, "Nenad Alajbegovic");
+        cache.put(key(1), user);
+        user.setAge(31);
+
+        User first = cache.get(key(1), User.class);
+        first.setName("Jane Doe");
+        User second = cache.get(key(1), User.class);
+
+        assertNotSame(first, second);
+        assertEquals(30, second.getAge());
+        assertEquals("Nenad Alajbegovic", second.getName());
+    }
+
+    @Test
+    public void testInvalidate() {
+        InMemoryResponseCache cache = InMemoryResponseCache.builder().build();
+        cache.put(key(1), new User(30, "Nenad Alajbegovic"));
+
+        cache.invalidate(key(1));
+
+        assertNull(cache.get(key(1), User.class));
+        assertEquals(0, cache.getStats().getWeight());
+    }
+
+    @Test
+    public void testWeightIsBounded() {
+        InMemoryResponseCache cache = InMemoryResponseCache.builder()
+            .maximumWeight(1000)
+            .concurrencyLevel(1)
+            .build();
+
+        for (int i = 0; i < 200; i++) {
+            cache.put(key(i), new User(i, "User " + i));
+        }
+
+        CacheStats stats = cache.getStats();
+        assertTrue(stats.getWeight() <= 1000, "weight " + stats.getWeight());
+        assertTrue(stats.getEntryCount() > 20, "entries " + stats.getEntryCount());
+        assertEquals(200, stats.getEntryCount() + stats.getEvictionCount());
+    }
+
+    @Test
+    public void testFrequentlyRequestedResponsesSurviveAScan() {
+        InMemoryResponseCache cache = InMemoryResponseCache.builder()
+            .maximumWeight(100)
+            .concurrencyLevel(1)
+            .weigher(response -> 1)
+            .build();
+        for (int i = 0; i < 50; i++) {
+            cache.put(key(i), new User(i, "User " + i));
+            for (int j = 0; j < 3; j++) {
+                cache.get(key(i), User.class);
+            }
+        }
+
+        // a scan of one-off responses, twice the size of the cache
+        for (int i = 1000; i < 1200; i++) {
+            cache.put(key(i), new User(i, "User " + i));
+        }
+
+        int hits = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get(key(i), User.class) != null) {
+                hits++;
+            }
+        }
+        assertEquals(50, hits);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        InMemoryResponseCache cache = InMemoryResponseCache.builder()
+            .maximumWeight(10_000)
+            .weigher(response -> 1)
+            .build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.put(key(offset + i), new User(i, "User"));
+                        assertEquals(i, cache.get(key(offset + i), User.class).getAge());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CacheStats stats = cache.getStats();
+        assertEquals(8000, stats.getHitCount());
+        assertEquals(8000, stats.getEntryCount());
+    }
+}
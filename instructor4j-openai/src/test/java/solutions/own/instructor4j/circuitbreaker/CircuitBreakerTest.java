@@ -0,0 +1,113 @@
+package solutions.own.instructor4j.circuitbreaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.core.http.Headers;
+import com.openai.errors.BadRequestException;
+import com.openai.errors.OpenAIError;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+    private static final RuntimeException FAILURE = new IllegalStateException("Connection reset");
+
+    @Test
+    public void testFailureRateOpensTheBreakerUntilProbesSucceed() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+            .failureRateThreshold(0.5)
+            .slidingWindowSize(10)
+            .minimumCalls(4)
+            .waitDurationInOpenState(Duration.ofSeconds(30))
+            .permittedCallsInHalfOpenState(2)
+            .nanoTime(now::get)
+            .build();
+
+        circuitBreaker.acquirePermission().onSuccess();
+        circuitBreaker.acquirePermission().onError(FAILURE);
+        circuitBreaker.acquirePermission().onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.acquirePermission().onError(FAILURE);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        CallNotPermittedException rejection =
+            assertThrows(CallNotPermittedException.class, circuitBreaker::acquirePermission);
+        assertEquals(Duration.ofSeconds(30), rejection.getRetryAfter());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        CircuitBreaker.Permit first = circuitBreaker.acquirePermission();
+        CircuitBreaker.Permit second = circuitBreaker.acquirePermission();
+        assertFalse(circuitBreaker.isCallPermitted(), "only the probe calls are permitted");
+        first.onSuccess();
+        second.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void testSlowCallsOpenTheBreaker() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+            .slowCallDuration(Duration.ofSeconds(10))
+            .slowCallRateThreshold(0.5)
+            .slidingWindowSize(4)
+            .minimumCalls(4)
+            .nanoTime(now::get)
+            .build();
+
+        for (int i = 0; i < 4; i++) {
+            CircuitBreaker.Permit permit = circuitBreaker.acquirePermission();
+            now.addAndGet(TimeUnit.SECONDS.toNanos(i % 2 == 0 ? 1 : 12));
+            permit.onSuccess();
+        }
+
+        assertEquals(0.5, circuitBreaker.getSlowCallRate(), 0);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testFailedProbeOpensTheBreakerAgain() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+            .minimumCalls(1)
+            .waitDurationInOpenState(Duration.ofSeconds(10))
+            .permittedCallsInHalfOpenState(2)
+            .nanoTime(now::get)
+            .build();
+        circuitBreaker.acquirePermission().onError(FAILURE);
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        CircuitBreaker.Permit cancelled = circuitBreaker.acquirePermission();
+        CircuitBreaker.Permit failed = circuitBreaker.acquirePermission();
+        cancelled.release();
+        assertTrue(circuitBreaker.isCallPermitted(), "a released probe can be made again");
+        CircuitBreaker.Permit succeeded = circuitBreaker.acquirePermission();
+        failed.onError(FAILURE);
+        succeeded.onSuccess();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(Duration.ofSeconds(10), circuitBreaker.getRemainingOpenTime());
+    }
+
+    @Test
+    public void testRejectedRequestsDoNotCountAsFailures() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+            .minimumCalls(1)
+            .build();
+
+        circuitBreaker.acquirePermission().onError(new BadRequestException(
+            Headers.builder().build(), "{}", OpenAIError.builder().build()));
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate(), 0);
+    }
+}
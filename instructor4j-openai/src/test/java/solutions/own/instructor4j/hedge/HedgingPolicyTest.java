@@ -0,0 +1,155 @@
+package solutions.own.instructor4j.hedge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class HedgingPolicyTest {
+
+    @Test
+    public void testSlowRequestIsHedgedAndTheLoserCancelled() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(20))
+            .maxHedgeRatio(1)
+            .build();
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        String response = policy.execute("kind",
+            () -> calls.incrementAndGet() == 1 ? slow : CompletableFuture.completedFuture("fast"),
+            value -> true).get(5, TimeUnit.SECONDS);
+
+        assertEquals("fast", response);
+        assertTrue(slow.isCancelled());
+        assertEquals(2, calls.get());
+        assertEquals(1, policy.getHedgeCount());
+        assertEquals(1, policy.getHedgeWinCount());
+    }
+
+    @Test
+    public void testFastRequestIsNotHedged() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(10))
+            .maxHedgeRatio(1)
+            .build();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> response = policy.execute("kind", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("fast");
+        }, value -> true);
+        Thread.sleep(100);
+
+        assertEquals("fast", response.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, policy.getHedgeCount());
+    }
+
+    @Test
+    public void testHedgesAreCappedByTheBudget() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(10))
+            .maxHedgeRatio(0.5)
+            .maxHedgeBurst(1)
+            .build();
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            policy.execute("kind", () -> {
+                calls.incrementAndGet();
+                return new CompletableFuture<String>();
+            }, value -> true);
+        }
+        Thread.sleep(200);
+
+        assertEquals(4, policy.getRequestCount());
+        assertEquals(1, policy.getHedgeCount());
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void testFirstOutcomeIsReportedIfNoResponseIsAccepted() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(10))
+            .maxHedgeRatio(1)
+            .build();
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> response = policy.execute("kind",
+            () -> calls.incrementAndGet() == 1 ? first : CompletableFuture.completedFuture("second"),
+            value -> false);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(false, response.isDone());
+        first.complete("first");
+
+        assertEquals("first", response.get(5, TimeUnit.SECONDS));
+        assertEquals(0, policy.getHedgeWinCount());
+    }
+
+    @Test
+    public void testDelayFollowsThePercentileOfRecentLatencies() {
+        AtomicLong now = new AtomicLong();
+        HedgingPolicy policy = HedgingPolicy.builder()
+            .delay(Duration.ofSeconds(2))
+            .percentile(0.5)
+            .minSamples(5)
+            .minDelay(Duration.ofMillis(15))
+            .nanoTime(now::get)
+            .build();
+
+        for (int i = 1; i <= 4; i++) {
+            long latency = TimeUnit.MILLISECONDS.toNanos(10 * i);
+            policy.execute("kind", () -> {
+                now.addAndGet(latency);
+                return CompletableFuture.completedFuture("response");
+            }, value -> true);
+        }
+        assertEquals(Duration.ofSeconds(2), policy.getHedgeDelay("kind"));
+
+        policy.execute("kind", () -> {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+            return CompletableFuture.completedFuture("response");
+        }, value -> true);
+
+        assertEquals(Duration.ofMillis(30), policy.getHedgeDelay("kind"));
+        assertEquals(Duration.ofSeconds(2), policy.getHedgeDelay("other"));
+    }
+
+    @Test
+    public void testLatencyOfAHedgedRequestIsMeasuredFromItsStart() throws Exception {
+        AtomicLong now = new AtomicLong();
+        HedgingPolicy policy = HedgingPolicy.builder()
+            .delay(Duration.ofMillis(10))
+            .percentile(0.5)
+            .minSamples(1)
+            .minDelay(Duration.ZERO)
+            .maxHedgeRatio(1)
+            .nanoTime(now::get)
+            .build();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> response = policy.execute("kind",
+            () -> calls.incrementAndGet() == 1 ? new CompletableFuture<>() : hedge, value -> true);
+        now.set(TimeUnit.MILLISECONDS.toNanos(30));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        now.set(TimeUnit.MILLISECONDS.toNanos(50));
+        hedge.complete("hedge");
+
+        assertEquals("hedge", response.get(5, TimeUnit.SECONDS));
+        assertEquals(Duration.ofMillis(50), policy.getHedgeDelay("kind"));
+    }
+}
@@ -0,0 +1,65 @@
+package solutions.own.instructor4j.model;
+
+import java.util.Objects;
+import javax.validation.constraints.NotNull;
+import solutions.own.instructor4j.annotation.Description;
+
+public class Address {
+
+    @Description("The street of the address")
+    @NotNull
+    private String street;
+
+    @Description("The city of the address")
+    @NotNull
+    private String city;
+
+    public Address() {
+    }
+
+    public Address(String street, String city) {
+        this.street = street;
+        this.city = city;
+    }
+
+    public String getStreet() {
+        return street;
+    }
+
+    public void setStreet(String street) {
+        this.street = street;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    @Override
+    public String toString() {
+        return "Address{" +
+            "street='" + street + '\'' +
+            ", city='" + city + '\'' +
+            '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Address that = (Address) o;
+        return Objects.equals(street, that.street) && Objects.equals(city, that.city);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(street, city);
+    }
+}
@@ -0,0 +1,107 @@
+package solutions.own.instructor4j.model;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import solutions.own.instructor4j.annotation.Description;
+
+public class Customer {
+
+    @Description("The full name of the customer")
+    @NotBlank
+    private String name;
+
+    @Description("The age of the customer")
+    @Min(18)
+    @Max(130)
+    private Integer age;
+
+    @Description("The email address of the customer")
+    @Email
+    private String email;
+
+    @Description("Lowercase tags describing the customer")
+    @Size(min = 1, max = 3)
+    @Pattern(regexp = "[a-z]+")
+    private List<String> tags;
+
+    @Description("The contacts of the customer")
+    private List<Contact> contacts;
+
+    public Customer() {
+    }
+
+    public Customer(String name, Integer age, String email, List<String> tags, List<Contact> contacts) {
+        this.name = name;
+        this.age = age;
+        this.email = email;
+        this.tags = tags;
+        this.contacts = contacts;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public List<Contact> getContacts() {
+        return contacts;
+    }
+
+    public void setContacts(List<Contact> contacts) {
+        this.contacts = contacts;
+    }
+
+    public static class Contact {
+
+        @Description("The phone number of the contact, digits only")
+        @Pattern(regexp = "[0-9]+")
+        private String phone;
+
+        public Contact() {
+        }
+
+        public Contact(String phone) {
+            this.phone = phone;
+        }
+
+        public String getPhone() {
+            return phone;
+        }
+
+        public void setPhone(String phone) {
+            this.phone = phone;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package solutions.own.instructor4j.model;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import solutions.own.instructor4j.annotation.Description;
+
+public class Order {
+
+    @Description("The order reference, such as AB-123")
+    @NotEmpty
+    @Pattern(regexp = "[a-z]+-[0-9]+", flags = Pattern.Flag.CASE_INSENSITIVE)
+    public String reference;
+
+    @Description("The number of ordered items")
+    @Min(1)
+    public int quantity;
+
+    @Description("The discount in percent")
+    @Max(100)
+    public double discount;
+
+    @Description("The total price")
+    @Min(0)
+    public BigDecimal total;
+
+    @Description("The ratings of the order, from 1 to 5")
+    @Min(1)
+    @Max(5)
+    public int[] ratings;
+
+    @Description("The names of the ordered items")
+    @NotEmpty
+    public String[] items;
+
+    @Description("Additional attributes of the order")
+    @Size(max = 2)
+    public Map<String, String> attributes;
+
+    @Description("The email addresses to send the invoice to")
+    @Email
+    public Set<String> recipients;
+
+    @Description("The customer placing the order")
+    @NotNull
+    public Customer customer;
+}
@@ -0,0 +1,69 @@
+package solutions.own.instructor4j.model;
+
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import solutions.own.instructor4j.annotation.Description;
+
+public class UserProfile {
+
+    @Description("The name of the user")
+    @NotNull
+    private String name;
+
+    @Description("The age of the user")
+    @NotNull
+    private Integer age;
+
+    @Description("The home address of the user")
+    @NotNull
+    private Address address;
+
+    @Description("The hobbies of the user")
+    @NotNull
+    private List<String> hobbies;
+
+    public UserProfile() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public void setAddress(Address address) {
+        this.address = address;
+    }
+
+    public List<String> getHobbies() {
+        return hobbies;
+    }
+
+    public void setHobbies(List<String> hobbies) {
+        this.hobbies = hobbies;
+    }
+
+    @Override
+    public String toString() {
+        return "UserProfile{" +
+            "name='" + name + '\'' +
+            ", age=" + age +
+            ", address=" + address +
+            ", hobbies=" + hobbies +
+            '}';
+    }
+}
@@ -0,0 +1,113 @@
+package solutions.own.instructor4j.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest {
+
+    @Test
+    public void testRequestsPerMinute() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter rateLimiter = new RateLimiter(60, 1_000_000, now::get);
+
+        for (int i = 0; i < 60; i++) {
+            assertEquals(Duration.ZERO, rateLimiter.reserve(10));
+        }
+        assertEquals(0, rateLimiter.getAvailableRequests());
+
+        // callers are queued one refill interval apart
+        assertEquals(Duration.ofSeconds(1), rateLimiter.reserve(10));
+        assertEquals(Duration.ofSeconds(2), rateLimiter.reserve(10));
+
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+        assertEquals(Duration.ZERO, rateLimiter.reserve(10));
+        assertEquals(Duration.ofSeconds(1), rateLimiter.reserve(10));
+    }
+
+    @Test
+    public void testTokensPerMinute() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter rateLimiter = new RateLimiter(1000, 6000, now::get);
+
+        assertEquals(Duration.ZERO, rateLimiter.reserve(5000));
+        assertEquals(1000, rateLimiter.getAvailableTokens());
+        assertEquals(Duration.ofSeconds(10), rateLimiter.reserve(2000));
+
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals(2000, rateLimiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testReconcileReturnsUnusedTokens() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter rateLimiter = new RateLimiter(1000, 6000, now::get);
+
+        rateLimiter.reserve(5000);
+        rateLimiter.reconcile(5000, 1200);
+        assertEquals(4800, rateLimiter.getAvailableTokens());
+
+        rateLimiter.reserve(3000);
+        rateLimiter.reconcile(3000, 3600);
+        assertEquals(1200, rateLimiter.getAvailableTokens());
+
+        rateLimiter.release(1200);
+        assertEquals(2400, rateLimiter.getAvailableTokens());
+        assertEquals(999, rateLimiter.getAvailableRequests());
+    }
+
+    @Test
+    public void testConcurrentReservationsAreNotLost() throws Exception {
+        AtomicLong now = new AtomicLong();
+        RateLimiter rateLimiter = new RateLimiter(60, 1_000_000, now::get);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Duration> waits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 15; j++) {
+                    Duration wait = rateLimiter.reserve(1);
+                    synchronized (waits) {
+                        waits.add(wait);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 120 reservations: 60 immediately, then one per second up to a minute
+        assertEquals(120, waits.size());
+        assertEquals(60, waits.stream().filter(Duration::isZero).count());
+        assertEquals(Duration.ofSeconds(60), waits.stream().max(Duration::compareTo).get());
+    }
+
+    @Test
+    public void testAcquireSleepsUntilDue() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(600, 1_000_000);
+        for (int i = 0; i < 600; i++) {
+            rateLimiter.acquire(1);
+        }
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(1);
+        rateLimiter.acquire(1);
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(150).toNanos());
+    }
+}
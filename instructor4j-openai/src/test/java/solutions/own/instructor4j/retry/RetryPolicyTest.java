@@ -0,0 +1,160 @@
+package solutions.own.instructor4j.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.core.http.Headers;
+import com.openai.errors.BadRequestException;
+import com.openai.errors.InternalServerException;
+import com.openai.errors.OpenAIError;
+import com.openai.errors.RateLimitException;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.exception.InstructorException;
+
+public class RetryPolicyTest {
+
+    private static final OpenAIError ERROR = OpenAIError.builder().build();
+
+    private static ExponentialBackoffRetryPolicy.Builder policy() {
+        return ExponentialBackoffRetryPolicy.builder()
+            .initialDelay(Duration.ofMillis(100))
+            .maxDelay(Duration.ofSeconds(1))
+            .jitter(0)
+            .retryBudget(new RetryBudget(0.1, 0, 100));
+    }
+
+    private static RetryBudget fullBudget() {
+        RetryBudget budget = new RetryBudget(1, 0, 100);
+        for (int i = 0; i < 100; i++) {
+            budget.onSuccess();
+        }
+        return budget;
+    }
+
+    @Test
+    public void testExponentialBackoffIsCapped() {
+        ExponentialBackoffRetryPolicy retryPolicy = policy().retryBudget(fullBudget()).build();
+        Exception error = new IOException("Connection reset");
+
+        assertEquals(Optional.of(Duration.ofMillis(100)), retryPolicy.getRetryDelay(0, error));
+        assertEquals(Optional.of(Duration.ofMillis(200)), retryPolicy.getRetryDelay(1, error));
+        assertEquals(Optional.of(Duration.ofMillis(800)), retryPolicy.getRetryDelay(3, error));
+        assertEquals(Optional.of(Duration.ofSeconds(1)), retryPolicy.getRetryDelay(4, error));
+    }
+
+    @Test
+    public void testJitterShortensTheDelay() {
+        ExponentialBackoffRetryPolicy retryPolicy = policy().jitter(0.5).build();
+
+        for (int i = 0; i < 100; i++) {
+            long delay = retryPolicy.getBackoff(2).toMillis();
+            assertTrue(delay >= 200 && delay <= 400, "delay " + delay);
+        }
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() {
+        RetryBudget budget = fullBudget();
+        ExponentialBackoffRetryPolicy retryPolicy = policy().retryBudget(budget).build();
+        BadRequestException badRequest = new BadRequestException(Headers.builder().build(), "{}", ERROR);
+
+        assertFalse(retryPolicy.getRetryDelay(0, badRequest).isPresent());
+        assertFalse(retryPolicy.getRetryDelay(0,
+            new InstructorException("Error creating chat completion", badRequest)).isPresent());
+        assertEquals(100, budget.getAvailableRetries());
+    }
+
+    @Test
+    public void testRetryAfterIsHonored() {
+        ExponentialBackoffRetryPolicy retryPolicy = policy().retryBudget(fullBudget()).build();
+
+        RateLimitException seconds = new RateLimitException(
+            Headers.builder().put("Retry-After", "3").build(), "{}", ERROR);
+        RateLimitException millis = new RateLimitException(
+            Headers.builder().put("retry-after-ms", "1500").put("retry-after", "2").build(), "{}", ERROR);
+        InternalServerException unavailable = new InternalServerException(503,
+            Headers.builder().put("Retry-After", "2").build(), "{}", ERROR);
+        InternalServerException internalError = new InternalServerException(500,
+            Headers.builder().put("Retry-After", "2").build(), "{}", ERROR);
+
+        assertEquals(Optional.of(Duration.ofSeconds(3)), retryPolicy.getRetryDelay(0, seconds));
+        assertEquals(Optional.of(Duration.ofMillis(1500)), retryPolicy.getRetryDelay(0, millis));
+        assertEquals(Optional.of(Duration.ofSeconds(2)), retryPolicy.getRetryDelay(0, unavailable));
+        assertEquals(Optional.of(Duration.ofMillis(100)), retryPolicy.getRetryDelay(0, internalError));
+    }
+
+    @Test
+    public void testRetryAfterHttpDate() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(10));
+        RateLimitException error = new RateLimitException(
+            Headers.builder().put("Retry-After", date).build(), "{}", ERROR);
+
+        long delay = ExponentialBackoffRetryPolicy.getRetryAfter(error).getSeconds();
+        assertTrue(delay >= 8 && delay <= 10, "delay " + delay);
+    }
+
+    @Test
+    public void testLongRetryAfterIsNotWaited() {
+        ExponentialBackoffRetryPolicy retryPolicy = policy().retryBudget(fullBudget())
+            .maxRetryAfter(Duration.ofSeconds(10)).build();
+        RateLimitException error = new RateLimitException(
+            Headers.builder().put("Retry-After", "3600").build(), "{}", ERROR);
+
+        assertFalse(retryPolicy.getRetryDelay(0, error).isPresent());
+    }
+
+    @Test
+    public void testValidationFailuresAreRetriedImmediately() {
+        ExponentialBackoffRetryPolicy retryPolicy = policy().retryBudget(fullBudget()).build();
+
+        assertEquals(Optional.of(Duration.ZERO), retryPolicy.getRetryDelay(3, null));
+    }
+
+    @Test
+    public void testRetryBudgetCapsRetriesToAFractionOfSuccesses() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 100);
+        ExponentialBackoffRetryPolicy retryPolicy = policy().retryBudget(budget).build();
+        Exception error = new IOException("Connection reset");
+
+        assertFalse(retryPolicy.getRetryDelay(0, error).isPresent());
+
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.onSuccess();
+        }
+
+        assertTrue(retryPolicy.getRetryDelay(0, error).isPresent());
+        assertTrue(retryPolicy.getRetryDelay(0, null).isPresent());
+        assertFalse(retryPolicy.getRetryDelay(0, error).isPresent());
+    }
+
+    @Test
+    public void testRetryBudgetRefillsOverTime() {
+        AtomicLong now = new AtomicLong();
+        RetryBudget budget = new RetryBudget(0.1, 2, 5, now::get);
+
+        assertEquals(2, budget.getAvailableRetries());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertEquals(5, budget.getAvailableRetries());
+    }
+
+    @Test
+    public void testImmediatePolicyAlwaysRetries() {
+        assertEquals(Optional.of(Duration.ZERO),
+            RetryPolicy.immediate().getRetryDelay(10, new IOException("Connection reset")));
+    }
+}
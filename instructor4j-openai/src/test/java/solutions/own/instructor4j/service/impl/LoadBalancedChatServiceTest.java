@@ -0,0 +1,221 @@
+package solutions.own.instructor4j.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.openai.core.http.Headers;
+import com.openai.errors.BadRequestException;
+import com.openai.errors.OpenAIError;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.circuitbreaker.CircuitBreaker;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.MessageConverter;
+
+public class LoadBalancedChatServiceTest {
+
+    private static final ChatCompletionCreateParams REQUEST = ChatCompletionCreateParams.builder()
+        .model("gpt-4o-mini")
+        .messages(MessageConverter.convertMessages(Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"))))
+        .build();
+
+    private static final ChatCompletion COMPLETION = ChatCompletion.builder()
+        .id("id")
+        .created(0L)
+        .model("gpt-4o-mini")
+        .choices(Collections.emptyList())
+        .build();
+
+    private static AiChatService endpoint(AtomicLong now, long latencyMillis) {
+        AiChatService service = mock(AiChatService.class);
+        when(service.createChatCompletion(any())).thenAnswer(invocation -> {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            return COMPLETION;
+        });
+        return service;
+    }
+
+    @Test
+    public void testFasterEndpointIsPreferred() {
+        AtomicLong now = new AtomicLong();
+        AiChatService fast = endpoint(now, 100);
+        AiChatService slow = endpoint(now, 1000);
+        LoadBalancedChatService service = LoadBalancedChatService.builder()
+            .endpoint(fast)
+            .endpoint(slow)
+            .nanoTime(now::get)
+            .build();
+
+        for (int i = 0; i < 20; i++) {
+            service.createChatCompletion(REQUEST);
+        }
+
+        verify(slow, atMost(2)).createChatCompletion(any());
+        assertEquals(100, service.getLatencyEstimate(0).toNanos() / 1e6, 0.001);
+    }
+
+    @Test
+    public void testRequestsInFlightSpreadTheLoad() {
+        AtomicLong now = new AtomicLong();
+        AiChatService first = endpoint(now, 100);
+        AiChatService second = endpoint(now, 100);
+        LoadBalancedChatService service = LoadBalancedChatService.builder()
+            .endpoint(first)
+            .endpoint(second)
+            .nanoTime(now::get)
+            .build();
+        service.createChatCompletion(REQUEST);
+        service.createChatCompletion(REQUEST);
+        service.createChatCompletion(REQUEST);
+
+        when(first.createChatCompletionAsync(any())).thenReturn(new CompletableFuture<>());
+        when(second.createChatCompletionAsync(any())).thenReturn(new CompletableFuture<>());
+        for (int i = 0; i < 6; i++) {
+            service.createChatCompletionAsync(REQUEST);
+        }
+
+        assertEquals(3, service.getInFlight(0));
+        assertEquals(3, service.getInFlight(1));
+    }
+
+    @Test
+    public void testBurstIsSpreadOverEndpointsWithoutLatencyEstimate() {
+        AtomicLong now = new AtomicLong();
+        AiChatService first = endpoint(now, 100);
+        AiChatService second = endpoint(now, 100);
+        when(first.createChatCompletionAsync(any())).thenReturn(new CompletableFuture<>());
+        when(second.createChatCompletionAsync(any())).thenReturn(new CompletableFuture<>());
+        LoadBalancedChatService service = LoadBalancedChatService.builder()
+            .endpoint(first)
+            .endpoint(second)
+            .nanoTime(now::get)
+            .build();
+
+        for (int i = 0; i < 10; i++) {
+            service.createChatCompletionAsync(REQUEST);
+        }
+        assertEquals(5, service.getInFlight(0));
+        assertEquals(5, service.getInFlight(1));
+
+        // only one endpoint has a latency estimate; the other is assumed to be as fast, not infinitely fast
+        LoadBalancedChatService warmedUp = LoadBalancedChatService.builder()
+            .endpoint(first)
+            .endpoint(second)
+            .nanoTime(now::get)
+            .build();
+        warmedUp.createChatCompletion(REQUEST);
+        for (int i = 0; i < 10; i++) {
+            warmedUp.createChatCompletionAsync(REQUEST);
+        }
+        assertEquals(5, warmedUp.getInFlight(0));
+        assertEquals(5, warmedUp.getInFlight(1));
+    }
+
+    @Test
+    public void testFailingEndpointIsEjected() {
+        AtomicLong now = new AtomicLong();
+        AiChatService failing = mock(AiChatService.class);
+        when(failing.createChatCompletion(any())).thenThrow(new IllegalStateException("Connection reset"));
+        AiChatService healthy = endpoint(now, 100);
+        LoadBalancedChatService service = LoadBalancedChatService.builder()
+            .endpoint(failing)
+            .endpoint(healthy)
+            .consecutiveFailures(2)
+            .ejectionTime(Duration.ofSeconds(30))
+            .nanoTime(now::get)
+            .build();
+
+        int failures = 0;
+        for (int i = 0; i < 1000 && !service.isEjected(0); i++) {
+            try {
+                service.createChatCompletion(REQUEST);
+            } catch (IllegalStateException e) {
+                failures++;
+                assertTrue(service.getLatencyEstimate(0).getSeconds() >= 10, "a failure counts as a slow response");
+            }
+        }
+        assertEquals(2, failures);
+        assertTrue(service.isEjected(0));
+        for (int i = 0; i < 10; i++) {
+            service.createChatCompletion(REQUEST);
+        }
+
+        now.addAndGet(Duration.ofSeconds(60).toNanos());
+        assertFalse(service.isEjected(0));
+        failures = 0;
+        for (int i = 0; i < 1000 && !service.isEjected(0); i++) {
+            try {
+                service.createChatCompletion(REQUEST);
+            } catch (IllegalStateException e) {
+                failures++;
+            }
+        }
+        assertEquals(1, failures, "one failure after the ejection ejects the endpoint again");
+        now.addAndGet(Duration.ofSeconds(45).toNanos());
+        assertTrue(service.isEjected(0), "the second ejection lasts twice as long");
+        verify(failing, times(3)).createChatCompletion(any());
+    }
+
+    @Test
+    public void testRejectedRequestsDoNotEjectTheEndpoint() {
+        AtomicLong now = new AtomicLong();
+        AiChatService only = mock(AiChatService.class);
+        when(only.createChatCompletion(any())).thenThrow(new BadRequestException(
+            Headers.builder().build(), "{}", OpenAIError.builder().build()));
+        LoadBalancedChatService service = LoadBalancedChatService.builder()
+            .endpoint(only)
+            .consecutiveFailures(1)
+            .nanoTime(now::get)
+            .build();
+
+        assertThrows(BadRequestException.class, () -> service.createChatCompletion(REQUEST));
+        assertThrows(BadRequestException.class, () -> service.createChatCompletion(REQUEST));
+
+        assertFalse(service.isEjected(0));
+    }
+
+    @Test
+    public void testEndpointWithOpenCircuitBreakerIsAvoided() {
+        AtomicLong now = new AtomicLong();
+        AiChatService failing = mock(AiChatService.class);
+        when(failing.createChatCompletion(any())).thenThrow(new IllegalStateException("Connection reset"));
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+            .minimumCalls(1)
+            .build();
+        AiChatService healthy = endpoint(now, 100);
+        LoadBalancedChatService service = LoadBalancedChatService.builder()
+            .endpoint(new CircuitBreakingChatService(failing, circuitBreaker))
+            .endpoint(healthy)
+            .nanoTime(now::get)
+            .build();
+
+        int failures = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                service.createChatCompletion(REQUEST);
+            } catch (IllegalStateException e) {
+                failures++;
+            }
+        }
+
+        assertEquals(1, failures);
+        assertEquals(0, circuitBreaker.getRejectedCount());
+        verify(failing, times(1)).createChatCompletion(any());
+    }
+}
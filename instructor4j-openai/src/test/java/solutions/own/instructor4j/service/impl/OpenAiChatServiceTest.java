@@ -0,0 +1,235 @@
+package solutions.own.instructor4j.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.errors.InternalServerException;
+import com.openai.errors.OpenAIIoException;
+import com.openai.models.ChatCompletionCreateParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.Instructor;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.User;
+import solutions.own.instructor4j.util.MessageConverter;
+
+/**
+ * Runs extractions through {@link OpenAiChatService} against a local mock of the OpenAI API.
+ * <p>
+ * The test does not need an API key, so it can also be run under the native-image tracing agent to collect the
+ * metadata of the OpenAI SDK. It logs the process uptime and resident set size after the first extraction, to
+ * compare the JVM with a native image.
+ * </p>
+ */
+public class OpenAiChatServiceTest {
+
+    private static final Logger logger = Logger.getLogger(OpenAiChatServiceTest.class.getName());
+
+    private static final String CHAT_COMPLETION = "{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\","
+        + "\"created\":1700000000,\"model\":\"gpt-4o-mini\",\"choices\":[{\"index\":0,\"message\":{"
+        + "\"role\":\"assistant\",\"content\":null,\"refusal\":null,\"tool_calls\":[{\"id\":\"call_1\","
+        + "\"type\":\"function\",\"function\":{\"name\":\"User\","
+        + "\"arguments\":\"{\\\"age\\\":30,\\\"name\\\":\\\"Nenad Alajbegovic\\\"}\"}}]},"
+        + "\"logprobs\":null,\"finish_reason\":\"tool_calls\"}],"
+        + "\"usage\":{\"prompt_tokens\":80,\"completion_tokens\":20,\"total_tokens\":100}}";
+
+    private static final String MODEL_LIST = "{\"object\":\"list\",\"data\":[]}";
+
+    private HttpServer server;
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+    private final Queue<String> contentEncodings = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> clientPorts = new ConcurrentLinkedQueue<>();
+    private volatile long responseDelayMillis;
+    private volatile int responseStatus = 200;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> respond(exchange, CHAT_COMPLETION));
+        server.createContext("/v1/models", exchange -> respond(exchange, MODEL_LIST));
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExtractionAgainstMockEndpoint() throws Exception {
+        Instructor instructor = new Instructor(new OpenAiChatService("test-key", baseUrl()), 3);
+        List<BaseMessage> messages = Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+
+        User user = instructor.createChatCompletion(messages, "gpt-4o-mini", User.class);
+        logger.info("First extraction done, " + describeProcess());
+
+        assertEquals("Nenad Alajbegovic", user.getName());
+        assertEquals(30, user.getAge());
+        assertEquals(1, requests.size());
+        String request = requests.peek();
+        assertTrue(request.startsWith("POST /v1/chat/completions "), request);
+        assertTrue(request.contains("\"name\":\"User\""), "The request must carry the User function tool");
+    }
+
+    @Test
+    public void testWarmUpOpensConnection() {
+        new OpenAiChatService("test-key", baseUrl()).warmUp();
+
+        assertEquals(1, requests.size());
+        assertTrue(requests.peek().startsWith("GET /v1/models "), requests.peek());
+    }
+
+    @Test
+    public void testLargeRequestBodiesAreCompressed() {
+        OpenAiChatService service = OpenAiChatService.builder()
+            .apiKey("test-key")
+            .baseUrl(baseUrl())
+            .gzipRequestsFrom(10_000)
+            .build();
+
+        service.createChatCompletion(request(100));
+        service.createChatCompletion(request(20_000));
+
+        List<String> encodings = Arrays.asList(contentEncodings.toArray(new String[0]));
+        assertEquals(Arrays.asList("identity", "gzip"), encodings);
+        String compressed = requests.toArray(new String[0])[1];
+        assertTrue(compressed.length() > 20_000, "The server must read the uncompressed body");
+    }
+
+    @Test
+    public void testServicesShareTheConnectionsOfTheirTransport() {
+        try (HttpTransport transport = HttpTransport.builder().build()) {
+            OpenAiChatService first = OpenAiChatService.builder().apiKey("first").baseUrl(baseUrl())
+                .transport(transport).build();
+            OpenAiChatService second = OpenAiChatService.builder().apiKey("second").baseUrl(baseUrl())
+                .transport(transport).build();
+
+            first.createChatCompletion(request(100));
+            second.createChatCompletion(request(100));
+            first.createChatCompletionAsync(request(100)).join();
+
+            assertEquals(1, transport.getConnectionCount());
+            assertEquals(1, clientPorts.stream().distinct().count());
+        }
+    }
+
+    @Test
+    public void testReadTimeoutFailsTheRequest() {
+        responseDelayMillis = 2_000;
+        OpenAiChatService service = OpenAiChatService.builder()
+            .apiKey("test-key")
+            .baseUrl(baseUrl())
+            .readTimeout(Duration.ofMillis(200))
+            .maxRetries(0)
+            .build();
+
+        long startedAt = System.nanoTime();
+        assertThrows(OpenAIIoException.class, () -> service.createChatCompletion(request(100)));
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.MILLISECONDS.toNanos(1_500));
+    }
+
+    @Test
+    public void testFailedRequestsAreLeftToTheRetryPolicy() {
+        responseStatus = 503;
+
+        OpenAiChatService service = new OpenAiChatService("test-key", baseUrl());
+        assertThrows(InternalServerException.class, () -> service.createChatCompletion(request(100)));
+        assertEquals(1, requests.size(), "The SDK must not retry on its own by default");
+
+        requests.clear();
+        OpenAiChatService retrying = OpenAiChatService.builder().apiKey("test-key").baseUrl(baseUrl())
+            .maxRetries(2)
+            .build();
+        assertThrows(InternalServerException.class, () -> retrying.createChatCompletion(request(100)));
+        assertEquals(3, requests.size());
+    }
+
+    private static ChatCompletionCreateParams request(int promptLength) {
+        StringBuilder prompt = new StringBuilder();
+        while (prompt.length() < promptLength) {
+            prompt.append("Nenad Alajbegovic is 30 years old. ");
+        }
+        return ChatCompletionCreateParams.builder()
+            .model("gpt-4o-mini")
+            .messages(MessageConverter.convertMessages(Collections.singletonList(
+                new BaseMessage(BaseMessage.Role.USER.getValue(), prompt.toString()))))
+            .build();
+    }
+
+    private String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1";
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        contentEncodings.add(contentEncoding == null ? "identity" : contentEncoding);
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        InputStream requestBody = "gzip".equals(contentEncoding)
+            ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+        requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + readBody(requestBody));
+        try {
+            Thread.sleep(responseDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("retry-after-ms", "10");
+        exchange.sendResponseHeaders(responseStatus, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Describes the uptime and, on Linux, the resident set size of the current process.
+     */
+    private static String describeProcess() throws IOException {
+        String description = "uptime " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms";
+        Path status = Paths.get("/proc/self/status");
+        if (Files.isReadable(status)) {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    description += ", RSS " + line.substring("VmRSS:".length()).trim();
+                }
+            }
+        }
+        return description;
+    }
+}
@@ -0,0 +1,117 @@
+package solutions.own.instructor4j.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.CompletionUsage;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.ratelimit.RateLimiter;
+import solutions.own.instructor4j.ratelimit.TokenEstimator;
+import solutions.own.instructor4j.service.AiChatService;
+import solutions.own.instructor4j.util.MessageConverter;
+import solutions.own.instructor4j.util.Utils;
+
+public class RateLimitedChatServiceTest {
+
+    private static final ChatCompletionCreateParams REQUEST = ChatCompletionCreateParams.builder()
+        .model("gpt-4o-mini")
+        .maxTokens(1024)
+        .messages(MessageConverter.convertMessages(Collections.singletonList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"))))
+        .build();
+
+    private static ChatCompletion completion(long totalTokens) {
+        return ChatCompletion.builder()
+            .id("id")
+            .created(0L)
+            .model("gpt-4o-mini")
+            .choices(Collections.emptyList())
+            .usage(CompletionUsage.builder()
+                .promptTokens(totalTokens - 10)
+                .completionTokens(10)
+                .totalTokens(totalTokens)
+                .build())
+            .build();
+    }
+
+    @Test
+    public void testEstimateIncludesCompletionBudget() {
+        long promptTokens = TokenEstimator.approximate().estimatePromptTokens(REQUEST);
+
+        assertTrue(promptTokens > 10 && promptTokens < 100, "prompt tokens " + promptTokens);
+        assertEquals(promptTokens + 1024, TokenEstimator.approximate().estimateTokens(REQUEST));
+    }
+
+    @Test
+    public void testUsageIsReconciled() {
+        AiChatService delegate = mock(AiChatService.class);
+        when(delegate.createChatCompletion(any())).thenReturn(completion(100));
+        RateLimiter rateLimiter = new RateLimiter(100, 10_000);
+
+        new RateLimitedChatService(delegate, rateLimiter, request -> 2000).createChatCompletion(REQUEST);
+
+        assertEquals(99, rateLimiter.getAvailableRequests());
+        assertTrue(rateLimiter.getAvailableTokens() >= 9900, "tokens " + rateLimiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testFailedRequestGivesBackItsTokens() {
+        AiChatService delegate = mock(AiChatService.class);
+        when(delegate.createChatCompletion(any())).thenThrow(new IllegalStateException("Connection reset"));
+        RateLimiter rateLimiter = new RateLimiter(100, 10_000);
+        RateLimitedChatService chatService = new RateLimitedChatService(delegate, rateLimiter, request -> 2000);
+
+        assertThrows(IllegalStateException.class, () -> chatService.createChatCompletion(REQUEST));
+
+        assertEquals(99, rateLimiter.getAvailableRequests());
+        assertEquals(10_000, rateLimiter.getAvailableTokens());
+    }
+
+    @Test
+    public void testAsyncRequestIsDelayedWithoutBlocking() throws Exception {
+        AiChatService delegate = mock(AiChatService.class);
+        AtomicReference<String> sendingThread = new AtomicReference<>();
+        when(delegate.createChatCompletionAsync(any())).thenAnswer(invocation -> {
+            sendingThread.set(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(completion(500));
+        });
+        RateLimiter rateLimiter = new RateLimiter(100, 60_000);
+        // 58976 prompt tokens plus the 1024 completion tokens of the request take the whole minute
+        RateLimitedChatService chatService = new RateLimitedChatService(delegate, rateLimiter, request -> 58_976);
+
+        chatService.createChatCompletionAsync(REQUEST).get(1, TimeUnit.SECONDS);
+
+        // the first request used only 500 of its 60000 tokens, the second one is due in half a second
+        long start = System.nanoTime();
+        CompletableFuture<ChatCompletion> future = chatService.createChatCompletionAsync(REQUEST);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+        future.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(400));
+        assertFalse(sendingThread.get().startsWith("instructor4j-timer"), "the delegate must not block the timer");
+    }
+
+    @Test
+    public void testAsyncFailureGivesBackItsTokens() {
+        AiChatService delegate = mock(AiChatService.class);
+        when(delegate.createChatCompletionAsync(any()))
+            .thenReturn(Utils.failedFuture(new IllegalStateException("Connection reset")));
+        RateLimiter rateLimiter = new RateLimiter(100, 10_000);
+
+        new RateLimitedChatService(delegate, rateLimiter, request -> 2000).createChatCompletionAsync(REQUEST)
+            .handle((result, error) -> null).join();
+
+        assertEquals(10_000, rateLimiter.getAvailableTokens());
+    }
+}
@@ -0,0 +1,86 @@
+package solutions.own.instructor4j.tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+public class BpeTokenizerTest {
+
+    // expected tokens are those of the reference o200k_base tokenizer
+    private static final String[] TEXTS = {
+        "hello world",
+        "Nenad Alajbegovic is 30 years old",
+        "\u00dcn\u00efc\u00f6d\u00e9 fa\u00e7ade \u2014 na\u00efve caf\u00e9 \ud83d\ude00 "
+            + "\u65e5\u672c\u8a9e\u306e\u30c6\u30ad\u30b9\u30c8",
+        "  indented\n\n\tcode(){ return x+1; }  \r\n",
+        "I'M HERE, they're sure it'll work 1234567",
+        "antidisestablishmentarianismus"
+    };
+
+    private static final int[][] TOKENS = {
+        {24912, 2375},
+        {163103, 324, 1667, 1255, 36901, 59529, 382, 220, 1130, 2101, 2890},
+        {8858, 77, 191375, 43369, 377, 114665, 2733, 153475, 737, 30469, 88038, 17428, 40909, 3385, 16056, 18368,
+            38236},
+        {220, 1383, 23537, 279, 86873, 24350, 622, 1215, 10, 16, 26, 388, 18668},
+        {40, 95346, 32396, 11, 18940, 3239, 74060, 1101, 220, 7633, 19354, 22},
+        {493, 129901, 376, 160388, 21203, 43229}
+    };
+
+    @Test
+    public void testEncodeMatchesReferenceTokenizer() {
+        BpeTokenizer tokenizer = BpeTokenizer.o200kBase();
+
+        assertEquals(199998, tokenizer.getVocabularySize());
+        for (int i = 0; i < TEXTS.length; i++) {
+            assertArrayEquals(TOKENS[i], tokenizer.encode(TEXTS[i]), TEXTS[i]);
+            assertEquals(TOKENS[i].length, tokenizer.countTokens(TEXTS[i]));
+            assertEquals(TEXTS[i], tokenizer.decode(TOKENS[i]));
+        }
+    }
+
+    @Test
+    public void testEmptyText() {
+        assertEquals(0, BpeTokenizer.o200kBase().countTokens(""));
+        assertEquals(0, BpeTokenizer.o200kBase().countTokens(null));
+        assertEquals(0, BpeTokenizer.o200kBase().encode("").length);
+    }
+
+    @Test
+    public void testLongTextRoundTrip() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(TEXTS[i % TEXTS.length]).append(' ').append(i);
+        }
+        BpeTokenizer tokenizer = BpeTokenizer.o200kBase();
+
+        int[] tokens = tokenizer.encode(text);
+
+        assertEquals(tokens.length, tokenizer.countTokens(text));
+        assertEquals(text.toString(), tokenizer.decode(tokens));
+    }
+
+    @Test
+    public void testLoadVocabulary() throws Exception {
+        // the 256 single bytes plus the merges "ab" and "abc"
+        StringBuilder vocabulary = new StringBuilder();
+        for (int b = 0; b < 256; b++) {
+            vocabulary.append(Base64.getEncoder().encodeToString(new byte[] {(byte) b}))
+                .append(' ').append(b).append('\n');
+        }
+        vocabulary.append("YWI= 256\nYWJj 257\n");
+
+        BpeTokenizer tokenizer = BpeTokenizer.load(
+            new ByteArrayInputStream(vocabulary.toString().getBytes(StandardCharsets.US_ASCII)),
+            Pattern.compile("\\S+|\\s+"));
+
+        assertArrayEquals(new int[] {257, 32, 256, 100}, tokenizer.encode("abc abd"));
+        assertThrows(IllegalArgumentException.class, () -> tokenizer.decode(new int[] {258}));
+    }
+}
@@ -0,0 +1,45 @@
+package solutions.own.instructor4j.tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.models.ChatCompletionCreateParams;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.User;
+import solutions.own.instructor4j.util.MessageConverter;
+import solutions.own.instructor4j.util.RequestTemplates;
+
+public class PromptTokenCounterTest {
+
+    private static final List<BaseMessage> MESSAGES = Arrays.asList(
+        new BaseMessage(BaseMessage.Role.SYSTEM.getValue(), "You are data analyzer."),
+        new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+
+    @Test
+    public void testCountMessages() {
+        // 3 for the reply, 3 + 1 + 5 for the system message, 3 + 1 + 11 for the user message
+        assertEquals(27, PromptTokenCounter.countTokens(MESSAGES));
+    }
+
+    @Test
+    public void testCountMessagesWithToolDefinition() {
+        int toolTokens = PromptTokenCounter.countTokens(MESSAGES, User.class)
+            - PromptTokenCounter.countTokens(MESSAGES);
+
+        assertTrue(toolTokens > PromptTokenCounter.TOKENS_PER_TOOL + 20, "tool tokens " + toolTokens);
+    }
+
+    @Test
+    public void testCountRequestMatchesConversation() {
+        ChatCompletionCreateParams request = RequestTemplates.withMessages(
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class),
+            MessageConverter.convertMessages(MESSAGES));
+
+        // the tool of the request is serialized by the OpenAI client, with a few more fields
+        int conversationTokens = PromptTokenCounter.countTokens(MESSAGES, User.class);
+        assertEquals(conversationTokens, PromptTokenCounter.countTokens(request), conversationTokens * 0.1);
+    }
+}
@@ -0,0 +1,83 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.BaseMessage;
+
+public class BatchJsonlTest {
+
+    private static final List<BaseMessage> MESSAGES = Arrays.asList(
+        new BaseMessage(BaseMessage.Role.SYSTEM.getValue(), "You are data analyzer."),
+        new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old"));
+
+    @Test
+    public void testRequestRoundTrip() throws InstructorException {
+        ChatCompletionCreateParams params = ChatCompletionCreateParams.builder()
+            .model("gpt-4o-mini")
+            .maxTokens(1024)
+            .temperature(0.2)
+            .messages(MessageConverter.convertMessages(MESSAGES))
+            .build();
+
+        String line = BatchJsonl.writeRequest(BatchJsonl.customId(7), params);
+
+        assertTrue(line.startsWith("{\"custom_id\":\"request-7\",\"method\":\"POST\",\"url\":\"/v1/chat/completions\""));
+        assertTrue(!line.contains("\n"), "A request must fit on a single line");
+
+        BatchJsonl.Request request = BatchJsonl.readRequest(line);
+        assertEquals(7, BatchJsonl.indexOf(request.getCustomId()));
+        assertEquals(params.model(), request.getParams().model());
+        assertEquals(params.maxTokens(), request.getParams().maxTokens());
+        assertEquals(params.temperature(), request.getParams().temperature());
+        assertEquals(params.messages(), request.getParams().messages());
+    }
+
+    @Test
+    public void testResponseLines() throws InstructorException {
+        ChatCompletion completion = ChatCompletion.builder()
+            .id("chatcmpl-1")
+            .created(0L)
+            .model("gpt-4o-mini")
+            .choices(Arrays.asList())
+            .build();
+
+        BatchJsonl.Response success = BatchJsonl.readResponse(BatchJsonl.writeResponse("request-0", completion));
+        assertEquals("request-0", success.getCustomId());
+        assertEquals("chatcmpl-1", success.getCompletion().id());
+        assertNull(success.getErrorMessage());
+
+        BatchJsonl.Response failure = BatchJsonl.readResponse(BatchJsonl.writeError("request-1", "Service unavailable"));
+        assertNull(failure.getCompletion());
+        assertEquals("Service unavailable", failure.getErrorMessage());
+
+        BatchJsonl.Response httpFailure = BatchJsonl.readResponse("{\"custom_id\":\"request-2\",\"response\":"
+            + "{\"status_code\":429,\"body\":{\"error\":{\"message\":\"Rate limit reached\"}}},\"error\":null}");
+        assertNull(httpFailure.getCompletion());
+        assertEquals("HTTP 429: Rate limit reached", httpFailure.getErrorMessage());
+    }
+
+    @Test
+    public void testConversationRoundTrip() throws InstructorException {
+        BatchJsonl.Conversation conversation = BatchJsonl.readConversation(
+            BatchJsonl.writeConversation("request-3", MESSAGES));
+
+        assertEquals("request-3", conversation.getCustomId());
+        assertEquals(2, conversation.getMessages().size());
+        assertEquals("user", conversation.getMessages().get(1).getRole());
+        assertEquals("Nenad Alajbegovic is 30 years old", conversation.getMessages().get(1).getContent());
+    }
+
+    @Test
+    public void testUnexpectedCustomIdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BatchJsonl.indexOf("custom-3"));
+    }
+}
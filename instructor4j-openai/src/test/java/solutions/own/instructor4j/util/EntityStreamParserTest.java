@@ -0,0 +1,65 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.Participant;
+
+public class EntityStreamParserTest {
+
+    private static final String JSON = "{\"data\": [\n"
+        + "  {\"name\": \"John Doe\", \"email\": \"johndoe@email.com\", \"handle\": \"@TechGuru44\"},\n"
+        + "  {\"name\": \"Jane \\\"}]\\\\ Smith\", \"email\": \"jane{s}@email.com\", \"handle\": \"@Digital[Diva]\"}\n"
+        + "]}";
+
+    private static final List<Participant> EXPECTED = Arrays.asList(
+        new Participant("John Doe", "johndoe@email.com", "@TechGuru44"),
+        new Participant("Jane \"}]\\ Smith", "jane{s}@email.com", "@Digital[Diva]"));
+
+    @Test
+    public void testEntitiesAreEmittedOnceWhenFedCharByChar() throws InstructorException {
+        EntityStreamParser<Participant> parser = new EntityStreamParser<>(Participant.class, "data");
+        List<Participant> received = new ArrayList<>();
+
+        for (int i = 0; i < JSON.length(); i++) {
+            List<Participant> completed = parser.append(JSON.substring(i, i + 1));
+            received.addAll(completed);
+            if (!completed.isEmpty()) {
+                assertEquals('}', JSON.charAt(i), "Entities should be emitted with their closing brace");
+            }
+        }
+
+        assertEquals(EXPECTED, received);
+    }
+
+    @Test
+    public void testEntitiesAreEmittedFromSingleChunk() throws InstructorException {
+        EntityStreamParser<Participant> parser = new EntityStreamParser<>(Participant.class, "data");
+
+        assertEquals(EXPECTED, parser.append(JSON));
+        assertTrue(parser.append("").isEmpty());
+    }
+
+    @Test
+    public void testOnlyRootElementArrayIsConsidered() throws InstructorException {
+        EntityStreamParser<Participant> parser = new EntityStreamParser<>(Participant.class, "data");
+
+        List<Participant> received = parser.append("{\"other\": [{\"name\": \"Nobody\"}], \"data\": "
+            + "[{\"name\": \"John\", \"email\": \"john@email.com\", \"handle\": \"@john\"}]}");
+
+        assertEquals(Arrays.asList(new Participant("John", "john@email.com", "@john")), received);
+    }
+
+    @Test
+    public void testMalformedEntityFailsWithInstructorException() {
+        EntityStreamParser<Participant> parser = new EntityStreamParser<>(Participant.class, "data");
+
+        assertThrows(InstructorException.class, () -> parser.append("{\"data\": [{\"name\": 42 42}]}"));
+    }
+}
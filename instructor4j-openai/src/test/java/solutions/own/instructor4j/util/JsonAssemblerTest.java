@@ -0,0 +1,94 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class JsonAssemblerTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String JSON = "{\"data\": [{\"name\": \"Jane \\\"}]\\\\ Smith\", \"age\": 31, "
+        + "\"active\": true, \"tags\": [\"a\", null], \"note\": \"\\u0041\"}], \"total\": -1.5e3}";
+
+    @Test
+    public void testCompletedValuePathsAreReportedOnce() {
+        JsonAssembler assembler = new JsonAssembler();
+        List<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < JSON.length(); i++) {
+            for (JsonAssembler.CompletedValue value : assembler.append(JSON.substring(i, i + 1))) {
+                paths.add(value.getPath() + "=" + value.getType());
+            }
+        }
+
+        assertEquals(Arrays.asList(
+            "/data/0/name=STRING",
+            "/data/0/age=NUMBER",
+            "/data/0/active=BOOLEAN",
+            "/data/0/tags/0=STRING",
+            "/data/0/tags/1=NULL",
+            "/data/0/tags=ARRAY",
+            "/data/0/note=STRING",
+            "/data/0=OBJECT",
+            "/data=ARRAY",
+            "/total=NUMBER",
+            "=OBJECT"), paths);
+        assertTrue(assembler.isComplete());
+        assertTrue(assembler.isClosed());
+    }
+
+    @Test
+    public void testCompletedValueExposesItsJson() {
+        JsonAssembler assembler = new JsonAssembler();
+
+        List<JsonAssembler.CompletedValue> completed = assembler.append("{\"user\": {\"name\": \"John\"}, ");
+
+        assertEquals(2, completed.size());
+        assertEquals("\"John\"", completed.get(0).getJson());
+        assertEquals("name", completed.get(0).getKey());
+        assertEquals("{\"name\": \"John\"}", completed.get(1).getJson());
+        assertEquals("/user", completed.get(1).getPath());
+        assertEquals(1, completed.get(1).getDepth());
+    }
+
+    @Test
+    public void testEveryPrefixClosesToValidJson() {
+        JsonAssembler assembler = new JsonAssembler();
+
+        for (int i = 0; i < JSON.length(); i++) {
+            assembler.append(JSON.substring(i, i + 1));
+            String closed = assembler.toClosedJson();
+            assertDoesNotThrow(() -> objectMapper.readTree(closed), "Prefix should close to valid JSON: " + closed);
+        }
+    }
+
+    @Test
+    public void testClosableSuffix() {
+        JsonAssembler assembler = new JsonAssembler();
+
+        assembler.append("{\"data\": [{\"name\": \"Jo");
+        assertEquals("\"}]}", assembler.closableSuffix());
+        assertEquals("{\"data\": [{\"name\": \"Jo\"}]}", assembler.toClosedJson());
+
+        assembler.append("hn\", \"em");
+        assertEquals("{\"data\": [{\"name\": \"John\"}]}", assembler.toClosedJson());
+
+        assembler.append("ail\": tr");
+        assertEquals("{\"data\": [{\"name\": \"John\"}]}", assembler.toClosedJson());
+
+        assembler.append("ue");
+        assertEquals("{\"data\": [{\"name\": \"John\", \"email\": true}]}", assembler.toClosedJson());
+
+        assembler.append("}, \"a\\");
+        assertEquals("{\"data\": [{\"name\": \"John\", \"email\": true}, \"a\"]}", assembler.toClosedJson());
+        assertFalse(assembler.isClosed());
+    }
+}
@@ -0,0 +1,130 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.exception.InstructorException;
+import solutions.own.instructor4j.model.Address;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+import solutions.own.instructor4j.model.Partial;
+import solutions.own.instructor4j.model.UserProfile;
+
+public class PartialStreamParserTest {
+
+    private static final String JSON = "{\"name\": \"John \\\"JD\\\" Doe\", \"age\": 30, "
+        + "\"address\": {\"street\": \"Main St 1\", \"city\": \"Springfield\"}, "
+        + "\"hobbies\": [\"chess\", \"go\"]}";
+
+    @Test
+    public void testFieldsArePatchedAsTheyComplete() throws InstructorException {
+        PartialStreamParser<UserProfile> parser = new PartialStreamParser<>(UserProfile.class);
+        List<String> completedPaths = new ArrayList<>();
+        List<Partial<UserProfile>> snapshots = new ArrayList<>();
+
+        for (int i = 0; i < JSON.length(); i++) {
+            Optional<Partial<UserProfile>> snapshot = parser.append(JSON.substring(i, i + 1));
+            if (snapshot.isPresent()) {
+                snapshots.add(snapshot.get());
+                completedPaths.addAll(snapshot.get().getCompletedPaths());
+            }
+        }
+
+        assertEquals(Arrays.asList("/name", "/age", "/address/street", "/address/city", "/hobbies"),
+            completedPaths);
+
+        Partial<UserProfile> last = snapshots.get(snapshots.size() - 1);
+        assertTrue(last.isComplete());
+        for (int i = 1; i < snapshots.size(); i++) {
+            if (!snapshots.get(i).getCompletedPaths().isEmpty()) {
+                assertNotSame(snapshots.get(i - 1).getValue(), snapshots.get(i).getValue());
+            }
+        }
+        assertEquals("John \"JD\" Doe", snapshots.get(0).getValue().getName());
+        assertNull(snapshots.get(0).getValue().getAddress(), "an emitted snapshot does not change");
+
+        UserProfile profile = last.getValue();
+        assertEquals("John \"JD\" Doe", profile.getName());
+        assertEquals(30, profile.getAge());
+        assertEquals(new Address("Main St 1", "Springfield"), profile.getAddress());
+        assertEquals(Arrays.asList("chess", "go"), profile.getHobbies());
+    }
+
+    @Test
+    public void testSnapshotHoldsOnlyCompletedFields() throws InstructorException {
+        PartialStreamParser<UserProfile> parser = new PartialStreamParser<>(UserProfile.class);
+
+        assertFalse(parser.append("{\"name\": \"Jo").isPresent());
+
+        Partial<UserProfile> snapshot = parser.append("hn\", \"address\": {\"street\": \"Main").get();
+        assertEquals(Arrays.asList("/name"), snapshot.getCompletedPaths());
+        assertFalse(snapshot.isComplete());
+        assertEquals("John", snapshot.getValue().getName());
+        assertNull(snapshot.getValue().getAddress());
+
+        snapshot = parser.append(" St 1\", ").get();
+        assertEquals("Main St 1", snapshot.getValue().getAddress().getStreet());
+        assertNull(snapshot.getValue().getAddress().getCity());
+        assertNull(snapshot.getValue().getHobbies());
+    }
+
+    @Test
+    public void testSnapshotsCopyOnlyTheCompletedPath() throws InstructorException {
+        PartialStreamParser<UserProfile> parser = new PartialStreamParser<>(UserProfile.class);
+
+        UserProfile street = parser.append("{\"address\": {\"street\": \"Main St 1\", ").get().getValue();
+        UserProfile city = parser.append("\"city\": \"Springfield\"}, ").get().getValue();
+        UserProfile hobbies = parser.append("\"hobbies\": [\"chess\", \"go\"], ").get().getValue();
+        List<String> hobbyList = hobbies.getHobbies();
+        UserProfile name = parser.append("\"name\": \"John\"}").get().getValue();
+
+        assertNotSame(street.getAddress(), city.getAddress(), "the enclosing object of a field is copied");
+        assertNull(street.getAddress().getCity());
+        assertEquals("Main St 1", city.getAddress().getStreet());
+        assertSame(city.getAddress(), hobbies.getAddress(), "an unchanged nested object is shared");
+        assertSame(hobbyList, name.getHobbies());
+        assertNull(hobbies.getName());
+        assertEquals("John", name.getName());
+    }
+
+    @Test
+    public void testSnapshotsAreCopiedWholeWithoutMatchingFields() throws InstructorException {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("name", Collections.singletonMap("type", "string"));
+        properties.put("age", Collections.singletonMap("type", "integer"));
+        properties.put("contact", Collections.singletonMap("properties",
+            Collections.singletonMap("email", Collections.singletonMap("type", "string"))));
+        PartialStreamParser<UserProfile> parser = new PartialStreamParser<>(UserProfile.class,
+            MyFunctionDefinition.builder().name("UserProfile")
+                .parameters(Collections.singletonMap("properties", properties)).build());
+
+        UserProfile first = parser.append("{\"name\": \"John\", ").get().getValue();
+        UserProfile age = parser.append("\"age\": 30, ").get().getValue();
+        UserProfile last = parser.append("\"contact\": {\"email\": \"john@example.com\"}}").get().getValue();
+
+        assertNotSame(first, age);
+        assertNotSame(age, last);
+        assertNull(first.getAge(), "an emitted snapshot does not change");
+        assertEquals(30, age.getAge());
+        assertEquals("John", last.getName());
+    }
+
+    @Test
+    public void testMismatchingFieldFailsWithInstructorException() throws InstructorException {
+        PartialStreamParser<UserProfile> parser = new PartialStreamParser<>(UserProfile.class);
+
+        assertThrows(InstructorException.class, () -> parser.append("{\"age\": \"thirty\", "));
+    }
+}
@@ -0,0 +1,92 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.model.BaseMessage;
+import solutions.own.instructor4j.model.User;
+
+public class RequestTemplatesTest {
+
+    @Test
+    public void testTemplatesAreBuiltOncePerKindModelAndClass() {
+        ChatCompletionCreateParams template =
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class);
+
+        assertSame(template, RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class));
+        assertNotSame(template, RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o", User.class));
+        assertNotSame(template, RequestTemplates.get(RequestTemplates.Kind.OBJECT_SCHEMA, "gpt-4o-mini", User.class));
+        assertTrue(template.messages().isEmpty());
+    }
+
+    @Test
+    public void testTemplatesAreKeyedOnOptions() {
+        RequestTemplates.Options precise = RequestTemplates.Options.builder().temperature(0).seed(42).build();
+        RequestTemplates.Options creative = RequestTemplates.Options.builder().temperature(1.5).maxTokens(256).build();
+
+        ChatCompletionCreateParams preciseTemplate =
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class, precise);
+        ChatCompletionCreateParams creativeTemplate =
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class, creative);
+
+        assertNotSame(preciseTemplate, creativeTemplate);
+        assertNotSame(preciseTemplate, RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini",
+            User.class));
+        assertSame(RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class),
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class,
+                RequestTemplates.Options.defaults()));
+        assertSame(preciseTemplate, RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini",
+            User.class, RequestTemplates.Options.builder().temperature(0).seed(42).build()));
+
+        assertEquals(0.0, preciseTemplate.temperature().get(), 0.0);
+        assertEquals(42L, preciseTemplate.seed().get().longValue());
+        assertEquals(RequestTemplates.MAX_TOKENS, preciseTemplate.maxTokens().get().longValue());
+        assertEquals(1.5, creativeTemplate.temperature().get(), 0.0);
+        assertFalse(creativeTemplate.seed().isPresent());
+        assertEquals(256L, creativeTemplate.maxTokens().get().longValue());
+    }
+
+    @Test
+    public void testInvalidOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RequestTemplates.Options.builder().maxTokens(0));
+        assertThrows(IllegalArgumentException.class, () -> RequestTemplates.Options.builder().temperature(2.5));
+        assertThrows(IllegalArgumentException.class, () -> RequestTemplates.get(
+            RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class, null));
+    }
+
+    @Test
+    public void testWithMessagesSharesTheTemplateTool() {
+        ChatCompletionCreateParams template =
+            RequestTemplates.get(RequestTemplates.Kind.FUNCTION_TOOL, "gpt-4o-mini", User.class);
+        List<ChatCompletionMessageParam> messages = MessageConverter.convertMessages(Arrays.asList(
+            new BaseMessage(BaseMessage.Role.USER.getValue(), "Nenad Alajbegovic is 30 years old")));
+
+        ChatCompletionCreateParams params = RequestTemplates.withMessages(template, messages);
+
+        assertEquals(messages, params.messages());
+        assertEquals("gpt-4o-mini", params.model().toString());
+        assertEquals(RequestTemplates.MAX_TOKENS, params.maxTokens().get().longValue());
+        assertSame(template.tools().get().get(0), params.tools().get().get(0));
+        assertEquals("User", params.tools().get().get(0).function().name());
+        assertFalse(params.responseFormat().isPresent());
+    }
+
+    @Test
+    public void testSchemaTemplatesCarryAResponseFormat() {
+        assertTrue(RequestTemplates.get(RequestTemplates.Kind.CLASS_SCHEMA, "gpt-4o-mini", User.class)
+            .responseFormat().isPresent());
+        assertTrue(RequestTemplates.get(RequestTemplates.Kind.ARRAY_SCHEMA, "gpt-4o-mini", User.class)
+            .responseFormat().isPresent());
+        assertFalse(RequestTemplates.get(RequestTemplates.Kind.ARRAY_SCHEMA, "gpt-4o-mini", User.class)
+            .tools().isPresent());
+    }
+}
@@ -0,0 +1,103 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.model.Customer;
+import solutions.own.instructor4j.model.Order;
+import solutions.own.instructor4j.model.User;
+
+public class ResponseValidatorTest {
+
+    @Test
+    public void testValidInstance() {
+        Customer customer = new Customer("Nenad Alajbegovic", 30, "nenad@example.com", Arrays.asList("vip"),
+            Arrays.asList(new Customer.Contact("0123456")));
+
+        assertTrue(ResponseValidator.of(Customer.class).validate(customer).isEmpty());
+    }
+
+    @Test
+    public void testViolationsAreReportedWithTheirPath() {
+        Customer customer = new Customer(" ", 12, "not an email", Arrays.asList("vip", "A", "b", "c"),
+            Arrays.asList(new Customer.Contact("0123456"), new Customer.Contact("call me")));
+
+        List<String> violations = ResponseValidator.of(Customer.class).validate(customer);
+
+        assertEquals(Arrays.asList(
+            "name: must not be blank",
+            "age: must be greater than or equal to 18",
+            "email: must be a well-formed email address",
+            "tags: size must be between 1 and 3",
+            "tags[1]: must match \"[a-z]+\"",
+            "contacts[1].phone: must match \"[0-9]+\""), violations);
+    }
+
+    @Test
+    public void testNullValuesOnlyViolateNotNullConstraints() {
+        Customer customer = new Customer(null, null, null, null, Collections.singletonList(null));
+
+        assertEquals(Collections.singletonList("name: must not be null"),
+            ResponseValidator.of(Customer.class).validate(customer));
+    }
+
+    @Test
+    public void testGeneratedChecksReportTheViolationsOfTheCompiledChecks() {
+        Map<String, String> attributes = new TreeMap<>();
+        attributes.put("color", "red");
+        attributes.put("gift", "yes");
+        attributes.put("size", "L");
+        Order order = new Order();
+        order.reference = "AB-x";
+        order.discount = 100.5;
+        order.total = new BigDecimal("-0.01");
+        order.ratings = new int[] {5, 0, 6};
+        order.items = new String[0];
+        order.attributes = attributes;
+        order.recipients = new LinkedHashSet<>(Arrays.asList("nenad@example.com", "", "nenad"));
+        order.customer = new Customer(" ", 12, "not an email", Collections.emptyList(),
+            Arrays.asList(null, new Customer.Contact("call me")));
+        Order emptyOrder = new Order();
+        emptyOrder.reference = "";
+
+        assertTrue(TypeModel.of(Order.class).getGeneratedSchema().hasConstraintValidator());
+        assertTrue(TypeModel.of(Customer.class).getGeneratedSchema().hasConstraintValidator());
+        List<String> violations = ResponseValidator.of(Order.class).validate(order);
+        assertEquals(Arrays.asList(
+            "reference: must match \"[a-z]+-[0-9]+\"",
+            "quantity: must be greater than or equal to 1",
+            "discount: must be less than or equal to 100",
+            "total: must be greater than or equal to 0",
+            "ratings[1]: must be greater than or equal to 1",
+            "ratings[2]: must be less than or equal to 5",
+            "items: must not be empty",
+            "attributes: size must be between 0 and 2",
+            "recipients[2]: must be a well-formed email address",
+            "customer.name: must not be blank",
+            "customer.age: must be greater than or equal to 18",
+            "customer.email: must be a well-formed email address",
+            "customer.tags: size must be between 1 and 3",
+            "customer.contacts[1].phone: must match \"[0-9]+\""), violations);
+        assertEquals(ResponseValidator.compile(TypeModel.of(Order.class)).validate(order), violations);
+        assertEquals(ResponseValidator.compile(TypeModel.of(Order.class)).validate(emptyOrder),
+            ResponseValidator.of(Order.class).validate(emptyOrder));
+    }
+
+    @Test
+    public void testClassWithoutConstraintsIsNotCompiled() {
+        // User only has javax constraints, which are not enforced; its generated schema reports no constraints
+        assertFalse(ResponseValidator.of(User.class).hasChecks());
+        assertSame(ResponseValidator.NONE, ResponseValidator.of(User.class));
+        assertTrue(ResponseValidator.of(Customer.class).hasChecks());
+    }
+}
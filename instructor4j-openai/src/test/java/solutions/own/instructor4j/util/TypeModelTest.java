@@ -0,0 +1,122 @@
+package solutions.own.instructor4j.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import solutions.own.instructor4j.model.Customer;
+import solutions.own.instructor4j.model.MyFunctionDefinition;
+import solutions.own.instructor4j.model.Participant;
+import solutions.own.instructor4j.model.User;
+import solutions.own.instructor4j.model.UserProfile;
+
+public class TypeModelTest {
+
+    @Test
+    public void testModelIsComputedOncePerClass() {
+        assertSame(TypeModel.of(UserProfile.class), TypeModel.of(UserProfile.class));
+        assertSame(FunctionDefinitionBuilder.getFunctionDefinition(UserProfile.class),
+            FunctionDefinitionBuilder.getFunctionDefinition(UserProfile.class));
+    }
+
+    @Test
+    public void testFieldsAreResolved() {
+        TypeModel typeModel = TypeModel.of(UserProfile.class);
+
+        assertEquals(Arrays.asList("name", "age", "address", "hobbies"),
+            typeModel.getFields().stream().map(TypeModel.FieldModel::getName).collect(Collectors.toList()));
+
+        TypeModel.FieldModel hobbies = typeModel.getFields().get(3);
+        assertEquals("array", hobbies.getJsonType());
+        assertEquals(String.class, hobbies.getItemType());
+        assertEquals("string", hobbies.getItemJsonType());
+        assertEquals("object", typeModel.getFields().get(2).getJsonType());
+        assertEquals(" Please ensure the response includes the following fields: name, age, address, hobbies",
+            typeModel.getPromptHint());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFunctionDefinitionIsUnmodifiable() {
+        MyFunctionDefinition definition = FunctionDefinitionBuilder.getFunctionDefinition(User.class);
+        Map<String, Object> properties = (Map<String, Object>) definition.getParameters().get("properties");
+
+        assertEquals("User", definition.getName());
+        assertEquals("The name of the user", ((Map<String, Object>) properties.get("name")).get("description"));
+        assertThrows(UnsupportedOperationException.class, () -> properties.remove("name"));
+        assertThrows(UnsupportedOperationException.class, () -> definition.getParameters().clear());
+    }
+
+    @Test
+    public void testFindNullField() throws IllegalAccessException {
+        TypeModel typeModel = TypeModel.of(User.class);
+
+        assertEquals("name", typeModel.findNullField(new User(30, null)).getName());
+        assertNull(typeModel.findNullField(new User(30, "Nenad Alajbegovic")));
+    }
+
+    @Test
+    public void testGeneratedSchemaMatchesReflectiveSchema() throws Exception {
+        for (Class<?> responseModel : Arrays.asList(User.class, UserProfile.class, Participant.class,
+            Customer.class, Customer.Contact.class)) {
+            TypeModel typeModel = TypeModel.of(responseModel);
+            assertNotNull(typeModel.getGeneratedSchema(), "The test models are compiled with the processor");
+
+            MyFunctionDefinition generated = typeModel.getFunctionDefinition();
+            MyFunctionDefinition reflective = FunctionDefinitionBuilder.buildReflectiveFunctionDefinition(typeModel);
+
+            assertEquals(reflective.getName(), generated.getName());
+            assertEquals(reflective.getDescription(), generated.getDescription());
+            assertEquals(normalize(reflective.getParameters()), normalize(generated.getParameters()));
+        }
+    }
+
+    @Test
+    public void testGeneratedValidator() throws IllegalAccessException {
+        TypeModel typeModel = TypeModel.of(User.class);
+
+        assertTrue(typeModel.getGeneratedSchema().hasValidator());
+        assertEquals("name", typeModel.findNullFieldName(new User(30, null)));
+        assertNull(typeModel.findNullFieldName(new User(30, "Nenad Alajbegovic")));
+    }
+
+    /**
+     * Converts a schema to a JSON tree, sorting the required field lists, whose order is not significant.
+     */
+    private static JsonNode normalize(Map<String, Object> schema) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode tree = objectMapper.readTree(objectMapper.writeValueAsString(schema));
+        sortRequired(tree);
+        return tree;
+    }
+
+    private static void sortRequired(JsonNode node) {
+        if (node instanceof ObjectNode) {
+            JsonNode required = node.get("required");
+            if (required instanceof ArrayNode) {
+                List<String> names = new ArrayList<>();
+                required.forEach(name -> names.add(name.asText()));
+                names.sort(null);
+                ArrayNode sorted = ((ObjectNode) node).putArray("required");
+                names.forEach(sorted::add);
+            }
+        }
+        for (Iterator<JsonNode> children = node.elements(); children.hasNext(); ) {
+            sortRequired(children.next());
+        }
+    }
+}
@@ -44,6 +44,14 @@ public class UtilsTest {
         assertEquals("array", Utils.getJsonType(java.util.ArrayList.class)); // Checking with a specific List implementation
     }
 
+    @Test
+    public void testGetJsonType_IntegralAndArrayTypes() {
+        assertEquals("integer", Utils.getJsonType(long.class));
+        assertEquals("integer", Utils.getJsonType(Short.class));
+        assertEquals("array", Utils.getJsonType(String[].class));
+        assertEquals("array", Utils.getJsonType(java.util.HashSet.class));
+    }
+
     @Test
     public void testGetJsonType_Map() {
         assertEquals("object", Utils.getJsonType(Map.class));
@@ -93,4 +101,16 @@ public class UtilsTest {
         result = Utils.getOrDefault(5, 10);
         assertEquals(5, result, "Should return the actual integer value when it is not null.");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEnsureJsonClosures_IgnoresBracketsAndQuotesInsideStrings() {
+        String json = "{\"data\": [{\"name\": \"Jane \\\"}] Smith";
+        assertEquals("{\"data\": [{\"name\": \"Jane \\\"}] Smith\"}]}", Utils.ensureJsonClosures(json));
+    }
+
+    @Test
+    public void testIsJsonValidOnClosures() {
+        assertEquals(true, Utils.isJsonValidOnClosures("{\"data\": [{\"name\": \"[{\\\"\"}]}"));
+        assertEquals(false, Utils.isJsonValidOnClosures("{\"data\": [{\"name\": \"}]}"));
+    }
+}
@@ -0,0 +1,97 @@
+package solutions.own.instructor4j.processor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON writer for the schemas generated by {@link SchemaProcessor}, which must not depend on any
+ * library at compile time.
+ * <p>
+ * Supports maps with string keys, lists, strings, numbers and booleans, which is all a schema is made of.
+ * </p>
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Writes a value as compact JSON.
+     *
+     * @param value the value.
+     * @return the JSON text.
+     * @throws IllegalArgumentException if the value contains an unsupported type.
+     */
+    static String write(Object value) {
+        StringBuilder json = new StringBuilder();
+        write(json, value);
+        return json.toString();
+    }
+
+    private static void write(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof String) {
+            writeString(json, (String) value);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Map) {
+            json.append('{');
+            Iterator<? extends Map.Entry<?, ?>> entries = ((Map<?, ?>) value).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<?, ?> entry = entries.next();
+                writeString(json, (String) entry.getKey());
+                json.append(':');
+                write(json, entry.getValue());
+                if (entries.hasNext()) {
+                    json.append(',');
+                }
+            }
+            json.append('}');
+        } else if (value instanceof List) {
+            json.append('[');
+            Iterator<?> items = ((List<?>) value).iterator();
+            while (items.hasNext()) {
+                write(json, items.next());
+                if (items.hasNext()) {
+                    json.append(',');
+                }
+            }
+            json.append(']');
+        } else {
+            throw new IllegalArgumentException("Unsupported JSON value: " + value.getClass().getName());
+        }
+    }
+
+    private static void writeString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
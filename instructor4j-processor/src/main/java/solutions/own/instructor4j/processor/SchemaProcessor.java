@@ -0,0 +1,1142 @@
+package solutions.own.instructor4j.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * An annotation processor that generates the schema of Instructor4j response models at compile time.
+ * <p>
+ * For every class declaring a field annotated with {@code @Description} or a jakarta validation constraint, the
+ * processor emits a class named {@code <binary class name>$$InstructorSchema} in the same package. It implements
+ * {@code solutions.own.instructor4j.util.GeneratedSchema} and holds the function parameters and the flat class
+ * schema of the response model as JSON string constants, built by the same rules as
+ * {@code FunctionDefinitionBuilder} and {@code ResponseFormatJsonSchemaBuilder}, plus a validator reading each
+ * field directly or through its getter, and a flag telling whether the response model has constraints at all.
+ * The {@code @NotNull}, {@code @NotEmpty}, {@code @NotBlank}, {@code @Min}, {@code @Max}, {@code @Size},
+ * {@code @Pattern} and {@code @Email} constraints are compiled into checks specialized for the declared type of
+ * each field, with the regular expressions held in {@code static final Pattern} constants, following
+ * {@code ResponseValidator}. At runtime {@code TypeModel} picks the generated class up and only falls back to
+ * reflection for classes that were not processed.
+ * </p>
+ * <p>
+ * The processor also writes the GraalVM native-image reachability metadata of the response models to
+ * {@code META-INF/native-image/solutions.own.instructor4j/<project>/reflect-config.json}, where
+ * {@code <project>} is the value of the {@value #PROJECT_OPTION} option, {@value #DEFAULT_PROJECT} by default.
+ * It registers every response model, and every class reachable from its fields, for the reflective access
+ * Jackson needs to bind responses, and every generated schema class for the lookup done by {@code TypeModel}.
+ * The metadata is written once per compilation, so a project with several compilation units, such as an
+ * incremental build recompiling only some classes, must give each of them a different project name.
+ * </p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>{@code
+ * <dependency>
+ *     <groupId>solutions.own.instructor4j</groupId>
+ *     <artifactId>instructor4j-processor</artifactId>
+ *     <version>${instructor4j.version}</version>
+ *     <scope>provided</scope>
+ * </dependency>
+ * }</pre>
+ *
+ * <p>No validator is generated for a class with a private field that has no getter; the generated schema then
+ * reports that it has none and the runtime validates responses of that class reflectively. The same applies to the
+ * constraint checks if a constrained field cannot be read without reflection, or if its declared type, such as
+ * {@code Object}, does not tell how a constraint applies to its values.</p>
+ */
+public class SchemaProcessor extends AbstractProcessor {
+
+    static final String DESCRIPTION = "solutions.own.instructor4j.annotation.Description";
+    static final String CONSTRAINTS_PACKAGE = "jakarta.validation.constraints";
+    static final String GENERATED_SCHEMA = "solutions.own.instructor4j.util.GeneratedSchema";
+    static final String RESPONSE_VALIDATOR = "solutions.own.instructor4j.util.ResponseValidator";
+    static final String CLASS_NAME_SUFFIX = "$$InstructorSchema";
+    static final String PROJECT_OPTION = "instructor4j.project";
+    static final String DEFAULT_PROJECT = "response-models";
+
+    /**
+     * String constants are split into literals of at most this many characters, to stay below the size limit of
+     * a single constant in a class file.
+     */
+    private static final int MAX_LITERAL_LENGTH = 8192;
+
+    private static final List<String> REQUIRED_CONSTRAINTS = Arrays.asList(
+        CONSTRAINTS_PACKAGE + ".NotNull", CONSTRAINTS_PACKAGE + ".NotEmpty", CONSTRAINTS_PACKAGE + ".NotBlank");
+
+    /**
+     * The boxed types whose values {@code ResponseValidator} compares to {@code @Min} and {@code @Max} bounds as
+     * numbers.
+     */
+    private static final List<String> BOXED_NUMBERS = Arrays.asList("java.lang.Byte", "java.lang.Short",
+        "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double");
+
+    /**
+     * The shape of an email address, as checked by {@code ResponseValidator}.
+     */
+    private static final String EMAIL_REGEXP = "[^@\\s]+@[^@\\s]+";
+
+    private Types types;
+    private Elements elements;
+    private TypeMirror collectionType;
+    private TypeMirror mapType;
+    private TypeMirror numberType;
+    private TypeMirror charSequenceType;
+    private final Set<String> generatedSchemas = new HashSet<>();
+    private final Set<String> reflectiveClasses = new LinkedHashSet<>();
+    private final List<String> schemaClasses = new ArrayList<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.types = processingEnv.getTypeUtils();
+        this.elements = processingEnv.getElementUtils();
+        this.collectionType = types.erasure(elements.getTypeElement("java.util.Collection").asType());
+        this.mapType = types.erasure(elements.getTypeElement("java.util.Map").asType());
+        this.numberType = elements.getTypeElement("java.lang.Number").asType();
+        this.charSequenceType = elements.getTypeElement("java.lang.CharSequence").asType();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(DESCRIPTION, CONSTRAINTS_PACKAGE + ".*"));
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return new HashSet<>(Arrays.asList(PROJECT_OPTION));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!schemaClasses.isEmpty()) {
+                writeReflectionConfig();
+            }
+            return false;
+        }
+
+        Set<TypeElement> responseModels = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element enclosing = element.getEnclosingElement();
+                if (element.getKind() == ElementKind.FIELD && enclosing.getKind().isClass()
+                    && enclosing.getKind() != ElementKind.ENUM) {
+                    responseModels.add((TypeElement) enclosing);
+                }
+            }
+        }
+
+        for (TypeElement responseModel : responseModels) {
+            if (isAccessible(responseModel)
+                && generatedSchemas.add(elements.getBinaryName(responseModel).toString())) {
+                generateSchema(responseModel);
+            }
+        }
+
+        // The annotations are not claimed, other processors may handle them as well
+        return false;
+    }
+
+    /**
+     * Generates and writes the schema class of a response model.
+     *
+     * @param responseModel the response model class.
+     */
+    private void generateSchema(TypeElement responseModel) {
+        String packageName = elements.getPackageOf(responseModel).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(responseModel).toString();
+        String schemaName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+            + CLASS_NAME_SUFFIX;
+        String modelName = responseModel.getQualifiedName().toString();
+
+        List<VariableElement> fields = ElementFilter.fieldsIn(responseModel.getEnclosedElements());
+        List<String> fieldNames = new ArrayList<>();
+        for (VariableElement field : fields) {
+            fieldNames.add(field.getSimpleName().toString());
+        }
+        List<String> validator = buildValidator(responseModel, fields);
+        boolean hasConstraints = hasConstraints(responseModel.asType(), new HashSet<>());
+        List<String> constants = new ArrayList<>();
+        List<String> constraintValidator = hasConstraints
+            ? buildConstraintValidator(responseModel, fields, constants) : null;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+            .append(" * The compile-time schema of {@link ").append(modelName).append("}, generated by the ")
+            .append("Instructor4j schema processor.\n")
+            .append(" * Do not edit.\n")
+            .append(" */\n")
+            .append("public final class ").append(schemaName).append(" implements ").append(GENERATED_SCHEMA)
+            .append('<').append(modelName).append(wildcards(responseModel)).append("> {\n\n");
+
+        source.append("    private static final java.util.List<String> FIELD_NAMES = ")
+            .append("java.util.Collections.unmodifiableList(java.util.Arrays.<String>asList(");
+        for (int i = 0; i < fieldNames.size(); i++) {
+            source.append(i > 0 ? ", " : "").append(elements.getConstantExpression(fieldNames.get(i)));
+        }
+        source.append("));\n\n");
+        source.append("    private static final String PARAMETERS_JSON = ")
+            .append(stringExpression(Json.write(buildParameters(responseModel)))).append(";\n\n");
+        source.append("    private static final String PROPERTIES_JSON = ")
+            .append(stringExpression(Json.write(buildProperties(fields)))).append(";\n\n");
+        for (String constant : constants) {
+            source.append("    ").append(constant).append("\n\n");
+        }
+
+        source.append("    @Override\n")
+            .append("    public java.util.List<String> getFieldNames() {\n")
+            .append("        return FIELD_NAMES;\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public String getParametersJson() {\n")
+            .append("        return PARAMETERS_JSON;\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public String getPropertiesJson() {\n")
+            .append("        return PROPERTIES_JSON;\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public boolean hasConstraints() {\n")
+            .append("        return ").append(hasConstraints).append(";\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public boolean hasConstraintValidator() {\n")
+            .append("        return ").append(constraintValidator != null).append(";\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public boolean hasValidator() {\n")
+            .append("        return ").append(validator != null).append(";\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public String findNullField(").append(modelName).append(wildcards(responseModel))
+            .append(" instance) {\n");
+        if (validator != null) {
+            for (String line : validator) {
+                source.append("        ").append(line).append('\n');
+            }
+            source.append("        return null;\n");
+        } else {
+            source.append("        throw new UnsupportedOperationException(\"")
+                .append("Not all fields of the class can be read without reflection.\");\n");
+        }
+        source.append("    }\n");
+        if (constraintValidator != null) {
+            appendConstraintValidator(source, modelName + wildcards(responseModel), constraintValidator);
+        }
+        source.append("}\n");
+
+        String qualifiedSchemaName = packageName.isEmpty() ? schemaName : packageName + "." + schemaName;
+        schemaClasses.add(qualifiedSchemaName);
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedSchemaName, responseModel)
+            .openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Could not generate the schema of " + modelName + ", it will be built at runtime: "
+                    + e.getMessage(), responseModel);
+        }
+    }
+
+    /**
+     * Builds the function parameters of a response model, following {@code FunctionDefinitionBuilder}.
+     *
+     * @param responseModel the response model class.
+     * @return the parameters object.
+     */
+    private Map<String, Object> buildParameters(TypeElement responseModel) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        Set<String> requiredFields = new LinkedHashSet<>();
+        processClass(responseModel.asType(), properties, requiredFields, new HashSet<>());
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("type", "object");
+        parameters.put("properties", properties);
+        parameters.put("required", new ArrayList<>(requiredFields));
+        return parameters;
+    }
+
+    /**
+     * Recursively processes a class to build its JSON schema properties and required fields.
+     *
+     * @param type             the class to process.
+     * @param properties       the map to populate with property schemas.
+     * @param requiredFields   the set to populate with required field names.
+     * @param processedClasses the classes processed so far, to prevent infinite recursion.
+     */
+    private void processClass(TypeMirror type, Map<String, Object> properties, Set<String> requiredFields,
+        Set<String> processedClasses) {
+        TypeMirror erasure = types.erasure(type);
+        if (!processedClasses.add(erasure.toString())) {
+            return;
+        }
+        if (erasure.getKind() != TypeKind.DECLARED) {
+            // Primitive and other non-class types do not declare fields
+            return;
+        }
+
+        TypeElement typeElement = (TypeElement) types.asElement(erasure);
+        String binaryName = elements.getBinaryName(typeElement).toString();
+        if (!binaryName.startsWith("java.") && !binaryName.startsWith("javax.")) {
+            reflectiveClasses.add(binaryName);
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+            String fieldName = field.getSimpleName().toString();
+            Map<String, Object> fieldSchema = new LinkedHashMap<>();
+
+            TypeMirror fieldType = types.erasure(field.asType());
+            String jsonType = getJsonType(fieldType);
+
+            if ("array".equals(jsonType)) {
+                Map<String, Object> itemsSchema = new LinkedHashMap<>();
+                TypeMirror itemType = getCollectionItemType(field);
+                if (itemType == null) {
+                    itemsSchema.put("type", "string");
+                } else if ("object".equals(getJsonType(itemType))) {
+                    Map<String, Object> nestedProperties = new LinkedHashMap<>();
+                    Set<String> nestedRequired = new LinkedHashSet<>();
+                    processClass(itemType, nestedProperties, nestedRequired, processedClasses);
+                    itemsSchema.put("type", "object");
+                    itemsSchema.put("properties", nestedProperties);
+                    itemsSchema.put("required", new ArrayList<>(nestedRequired));
+                } else {
+                    itemsSchema.put("type", getJsonType(itemType));
+                    addFieldConstraints(itemsSchema, field, itemType);
+                }
+
+                fieldSchema.put("type", "array");
+                fieldSchema.put("items", itemsSchema);
+            } else if ("object".equals(jsonType)) {
+                Map<String, Object> nestedProperties = new LinkedHashMap<>();
+                Set<String> nestedRequired = new LinkedHashSet<>();
+                processClass(fieldType, nestedProperties, nestedRequired, processedClasses);
+
+                fieldSchema.put("type", "object");
+                fieldSchema.put("properties", nestedProperties);
+                fieldSchema.put("required", new ArrayList<>(nestedRequired));
+            } else {
+                fieldSchema.put("type", jsonType);
+                addFieldConstraints(fieldSchema, field, fieldType);
+            }
+
+            String description = getDescription(field);
+            fieldSchema.put("description", description != null ? description : "The " + fieldName);
+
+            properties.put(fieldName, fieldSchema);
+
+            if (isRequired(field)) {
+                requiredFields.add(fieldName);
+            }
+        }
+    }
+
+    /**
+     * Writes the native-image reflection metadata of all response models processed in this compilation.
+     */
+    private void writeReflectionConfig() {
+        List<Object> entries = new ArrayList<>();
+        for (String reflectiveClass : reflectiveClasses) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", reflectiveClass);
+            entry.put("allDeclaredConstructors", true);
+            entry.put("allDeclaredMethods", true);
+            entry.put("allDeclaredFields", true);
+            entries.add(entry);
+        }
+        for (String schemaClass : schemaClasses) {
+            Map<String, Object> constructor = new LinkedHashMap<>();
+            constructor.put("name", "<init>");
+            constructor.put("parameterTypes", new ArrayList<>());
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", schemaClass);
+            entry.put("methods", Arrays.asList(constructor));
+            entries.add(entry);
+        }
+
+        String project = processingEnv.getOptions().getOrDefault(PROJECT_OPTION, DEFAULT_PROJECT);
+        String path = "META-INF/native-image/solutions.own.instructor4j/" + project + "/reflect-config.json";
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", path)
+            .openWriter()) {
+            writer.write(Json.write(entries));
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Could not write the native-image metadata " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the constraints of a field to its schema, following {@code FunctionDefinitionBuilder}.
+     *
+     * @param fieldSchema the schema to populate.
+     * @param field       the field.
+     * @param fieldType   the erased type the schema describes.
+     */
+    private void addFieldConstraints(Map<String, Object> fieldSchema, VariableElement field, TypeMirror fieldType) {
+        AnnotationMirror min = getConstraint(field, "Min");
+        if (min != null) {
+            fieldSchema.put("minimum", getAnnotationValue(min, "value"));
+        }
+
+        AnnotationMirror max = getConstraint(field, "Max");
+        if (max != null) {
+            fieldSchema.put("maximum", getAnnotationValue(max, "value"));
+        }
+
+        AnnotationMirror pattern = getConstraint(field, "Pattern");
+        if (pattern != null) {
+            fieldSchema.put("pattern", getAnnotationValue(pattern, "regexp"));
+        }
+
+        AnnotationMirror size = getConstraint(field, "Size");
+        if (size != null) {
+            if (isClass(fieldType, "java.lang.String")) {
+                fieldSchema.put("minLength", getAnnotationValue(size, "min"));
+                fieldSchema.put("maxLength", getAnnotationValue(size, "max"));
+            } else if (fieldType.getKind() == TypeKind.ARRAY || isCollection(fieldType)) {
+                fieldSchema.put("minItems", getAnnotationValue(size, "min"));
+                fieldSchema.put("maxItems", getAnnotationValue(size, "max"));
+            }
+        }
+
+        if (getConstraint(field, "Email") != null) {
+            fieldSchema.put("format", "email");
+        }
+    }
+
+    /**
+     * Builds the properties of the flat class schema of a response model, following
+     * {@code ResponseFormatJsonSchemaBuilder}.
+     *
+     * @param fields the fields of the response model.
+     * @return the properties object.
+     */
+    private Map<String, Object> buildProperties(List<VariableElement> fields) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (VariableElement field : fields) {
+            String jsonType = getJsonType(field.asType());
+            String description = getDescription(field);
+
+            Map<String, Object> propertyDetails = new LinkedHashMap<>();
+            propertyDetails.put("type", "array".equals(jsonType) || "object".equals(jsonType) ? "string" : jsonType);
+            propertyDetails.put("description", description != null ? description : "No description provided");
+            properties.put(field.getSimpleName().toString(), propertyDetails);
+        }
+        return properties;
+    }
+
+    /**
+     * Tells whether a class, or a class reachable from its fields, has a field with a jakarta constraint.
+     * JDK classes are not inspected.
+     *
+     * @param type    the class.
+     * @param visited the classes inspected so far.
+     * @return {@code true} if a constraint was found.
+     */
+    private boolean hasConstraints(TypeMirror type, Set<String> visited) {
+        TypeMirror erasure = types.erasure(type);
+        if (erasure.getKind() != TypeKind.DECLARED || !visited.add(erasure.toString())) {
+            return false;
+        }
+        TypeElement typeElement = (TypeElement) types.asElement(erasure);
+        String name = typeElement.getQualifiedName().toString();
+        if (name.startsWith("java.") || name.startsWith("javax.")) {
+            return false;
+        }
+
+        for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+            for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+                if (annotationType.getQualifiedName().toString().startsWith(CONSTRAINTS_PACKAGE + ".")) {
+                    return true;
+                }
+            }
+            TypeMirror itemType = getCollectionItemType(field);
+            if (hasConstraints(field.asType(), visited) || (itemType != null && hasConstraints(itemType, visited))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the statements of the validator of a response model. Primitive fields never hold {@code null} and
+     * are skipped; every other field is read directly or through its getter.
+     *
+     * @param responseModel the response model class.
+     * @param fields        the fields of the response model.
+     * @return the statements, or {@code null} if a field cannot be read without reflection.
+     */
+    private List<String> buildValidator(TypeElement responseModel, List<VariableElement> fields) {
+        List<String> statements = new ArrayList<>();
+        for (VariableElement field : fields) {
+            if (field.asType().getKind().isPrimitive()) {
+                continue;
+            }
+
+            String fieldName = field.getSimpleName().toString();
+            String target = field.getModifiers().contains(Modifier.STATIC)
+                ? responseModel.getQualifiedName().toString() : "instance";
+            String access;
+            if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+                access = target + "." + fieldName;
+            } else {
+                ExecutableElement getter = findGetter(responseModel, field);
+                if (getter == null) {
+                    return null;
+                }
+                access = target + "." + getter.getSimpleName() + "()";
+            }
+            statements.add("if (" + access + " == null) {");
+            statements.add("    return " + elements.getConstantExpression(fieldName) + ";");
+            statements.add("}");
+        }
+        return statements;
+    }
+
+    /**
+     * Builds the statements of the constraint checks of a response model, following {@code ResponseValidator}:
+     * the checks of each constrained field run in the same order and report the same paths and messages. Nested
+     * response models are validated through {@code ResponseValidator}, which uses their own generated checks if
+     * they have any.
+     *
+     * @param responseModel the response model class.
+     * @param fields        the fields of the response model.
+     * @param constants     the list to add the declarations of the compiled regular expressions to.
+     * @return the statements, or {@code null} if a constrained field cannot be read without reflection or its
+     *         declared type does not tell how a constraint applies to it.
+     */
+    private List<String> buildConstraintValidator(TypeElement responseModel, List<VariableElement> fields,
+        List<String> constants) {
+        List<String> statements = new ArrayList<>();
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            TypeMirror type = types.erasure(field.asType());
+            boolean array = "array".equals(getJsonType(type));
+            TypeMirror itemType = array ? getCollectionItemType(field) : null;
+
+            List<String> checks = new ArrayList<>();
+            if (isRequired(field) && !type.getKind().isPrimitive()) {
+                addCheck(checks, "value == null", fieldName, false, "must not be null");
+            }
+            if (getConstraint(field, "NotEmpty") != null) {
+                String size = sizeExpression(type, "value");
+                if (size == null) {
+                    return null;
+                } else if (!size.isEmpty()) {
+                    addCheck(checks, "value != null && " + size + " == 0", fieldName, false, "must not be empty");
+                }
+            }
+            if (getConstraint(field, "NotBlank") != null) {
+                Boolean charSequence = isCharSequence(type);
+                if (charSequence == null) {
+                    return null;
+                } else if (charSequence) {
+                    addCheck(checks, "value != null && isBlank(value)", fieldName, false, "must not be blank");
+                }
+            }
+            AnnotationMirror size = getConstraint(field, "Size");
+            if (size != null) {
+                String sizeExpression = sizeExpression(type, "value");
+                if (sizeExpression == null) {
+                    return null;
+                } else if (!sizeExpression.isEmpty()) {
+                    Object min = getAnnotationValue(size, "min");
+                    Object max = getAnnotationValue(size, "max");
+                    addCheck(checks, "value != null && (" + sizeExpression + " < " + min + " || " + sizeExpression
+                        + " > " + max + ")", fieldName, false, "size must be between " + min + " and " + max);
+                }
+            }
+
+            List<String> itemChecks = new ArrayList<>();
+            boolean valueChecksSupported = array
+                ? itemType == null && !hasValueConstraints(field)
+                    || itemType != null && addValueChecks(field, itemType, true, itemChecks, constants)
+                : addValueChecks(field, type, false, checks, constants);
+            if (!valueChecksSupported) {
+                return null;
+            }
+
+            String nestedType = null;
+            String itemNestedType = null;
+            if (!array && "object".equals(getJsonType(type)) && hasConstraints(type, new HashSet<>())) {
+                nestedType = typeName(type);
+                if (nestedType == null) {
+                    return null;
+                }
+            } else if (itemType != null && "object".equals(getJsonType(itemType))
+                && hasConstraints(itemType, new HashSet<>())) {
+                itemNestedType = typeName(itemType);
+                if (itemNestedType == null) {
+                    return null;
+                }
+            }
+            if (checks.isEmpty() && itemChecks.isEmpty() && nestedType == null && itemNestedType == null) {
+                continue;
+            }
+
+            String access = fieldAccess(responseModel, field);
+            String typeName = typeName(type);
+            String itemTypeName = itemType != null ? typeName(itemType) : null;
+            if (access == null || typeName == null || (itemType != null && itemTypeName == null)) {
+                return null;
+            }
+            statements.add("{");
+            statements.add("    " + typeName + " value = " + access + ";");
+            for (String check : checks) {
+                statements.add("    " + check);
+            }
+            if (nestedType != null) {
+                statements.add("    if (value != null) {");
+                statements.add("        violations = nested(violations, "
+                    + elements.getConstantExpression(fieldName + ".") + ", " + RESPONSE_VALIDATOR + ".of("
+                    + nestedType + ".class).validate(value));");
+                statements.add("    }");
+            } else if (!itemChecks.isEmpty() || itemNestedType != null) {
+                statements.add("    if (value != null) {");
+                if (type.getKind() == TypeKind.ARRAY) {
+                    statements.add("        for (int index = 0; index < value.length; index++) {");
+                    statements.add("            " + itemTypeName + " item = value[index];");
+                } else {
+                    statements.add("        java.util.Iterator<?> items = value.iterator();");
+                    statements.add("        for (int index = 0; items.hasNext(); index++) {");
+                    statements.add("            " + itemTypeName + " item = (" + itemTypeName + ") items.next();");
+                }
+                if (!itemType.getKind().isPrimitive()) {
+                    statements.add("            if (item == null) {");
+                    statements.add("                continue;");
+                    statements.add("            }");
+                }
+                for (String check : itemChecks) {
+                    statements.add("            " + check);
+                }
+                if (itemNestedType != null) {
+                    statements.add("            violations = nested(violations, "
+                        + elements.getConstantExpression(fieldName + "[") + " + index + \"].\", "
+                        + RESPONSE_VALIDATOR + ".of(" + itemNestedType + ".class).validate(item));");
+                }
+                statements.add("        }");
+                statements.add("    }");
+            }
+            statements.add("}");
+        }
+        return statements;
+    }
+
+    /**
+     * Adds the checks of the {@code @Min}, {@code @Max}, {@code @Pattern} and {@code @Email} constraints of a
+     * field, applied to its value, or to its items if it is an array or collection.
+     *
+     * @param field     the field.
+     * @param type      the erased type of the checked values.
+     * @param item      {@code true} if the checked values are the items of the field, which are never
+     *                  {@code null}.
+     * @param checks    the list to add the checks to.
+     * @param constants the list to add the declarations of the compiled regular expressions to.
+     * @return {@code false} if the type does not tell how a constraint applies to the checked values.
+     */
+    private boolean addValueChecks(VariableElement field, TypeMirror type, boolean item, List<String> checks,
+        List<String> constants) {
+        String fieldName = field.getSimpleName().toString();
+        String variable = item ? "item" : "value";
+        String guard = item ? "" : variable + " != null && ";
+        AnnotationMirror min = getConstraint(field, "Min");
+        if (min != null) {
+            Object bound = getAnnotationValue(min, "value");
+            String comparison = comparisonExpression(type, variable, guard, "<", (Long) bound);
+            if (comparison == null) {
+                return false;
+            } else if (!comparison.isEmpty()) {
+                addCheck(checks, comparison, fieldName, item, "must be greater than or equal to " + bound);
+            }
+        }
+
+        AnnotationMirror max = getConstraint(field, "Max");
+        if (max != null) {
+            Object bound = getAnnotationValue(max, "value");
+            String comparison = comparisonExpression(type, variable, guard, ">", (Long) bound);
+            if (comparison == null) {
+                return false;
+            } else if (!comparison.isEmpty()) {
+                addCheck(checks, comparison, fieldName, item, "must be less than or equal to " + bound);
+            }
+        }
+
+        AnnotationMirror pattern = getConstraint(field, "Pattern");
+        if (pattern != null) {
+            Boolean charSequence = isCharSequence(type);
+            if (charSequence == null) {
+                return false;
+            } else if (charSequence) {
+                String regexp = (String) getAnnotationValue(pattern, "regexp");
+                StringBuilder flags = new StringBuilder();
+                for (Object flag : (List<?>) getAnnotationValue(pattern, "flags")) {
+                    Object constant = ((AnnotationValue) flag).getValue();
+                    flags.append(flags.length() > 0 ? " | " : "")
+                        .append("java.util.regex.Pattern.").append(((VariableElement) constant).getSimpleName());
+                }
+                String constant = "PATTERN_" + patternCount(constants);
+                constants.add("private static final java.util.regex.Pattern " + constant
+                    + " = java.util.regex.Pattern.compile(" + elements.getConstantExpression(regexp)
+                    + (flags.length() > 0 ? ", " + flags : "") + ");");
+                addCheck(checks, guard + "!" + constant + ".matcher(" + variable + ").matches()", fieldName, item,
+                    "must match \"" + regexp + "\"");
+            }
+        }
+
+        if (getConstraint(field, "Email") != null) {
+            Boolean charSequence = isCharSequence(type);
+            if (charSequence == null) {
+                return false;
+            } else if (charSequence) {
+                if (!constants.contains(emailDeclaration())) {
+                    constants.add(emailDeclaration());
+                }
+                addCheck(checks, guard + variable + ".length() > 0 && !EMAIL.matcher(" + variable + ").matches()",
+                    fieldName, item, "must be a well-formed email address");
+            }
+        }
+        return true;
+    }
+
+    private String emailDeclaration() {
+        return "private static final java.util.regex.Pattern EMAIL = java.util.regex.Pattern.compile("
+            + elements.getConstantExpression(EMAIL_REGEXP) + ");";
+    }
+
+    private static int patternCount(List<String> constants) {
+        int count = 0;
+        for (String constant : constants) {
+            if (constant.contains(" PATTERN_")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a check reporting a violation if the given condition holds.
+     *
+     * @param checks    the list to add the check to.
+     * @param condition the Java condition.
+     * @param fieldName the name of the checked field.
+     * @param item      {@code true} if the check applies to the item at {@code index}.
+     * @param message   the violation message.
+     */
+    private void addCheck(List<String> checks, String condition, String fieldName, boolean item, String message) {
+        String violation = item
+            ? elements.getConstantExpression(fieldName + "[") + " + index + "
+                + elements.getConstantExpression("]: " + message)
+            : elements.getConstantExpression(fieldName + ": " + message);
+        checks.add("if (" + condition + ") {");
+        checks.add("    violations = add(violations, " + violation + ");");
+        checks.add("}");
+    }
+
+    private boolean hasValueConstraints(VariableElement field) {
+        return getConstraint(field, "Min") != null || getConstraint(field, "Max") != null
+            || getConstraint(field, "Pattern") != null || getConstraint(field, "Email") != null;
+    }
+
+    /**
+     * Returns the condition comparing a value to a {@code @Min} or {@code @Max} bound, following
+     * {@code ResponseValidator}: decimals are compared as {@code double}, integers as {@code long}, and
+     * {@code BigDecimal} and {@code BigInteger} exactly.
+     *
+     * @param type     the erased type of the value.
+     * @param variable the variable holding the value.
+     * @param guard    the condition the value is not {@code null}, followed by {@code &&}, or an empty string.
+     * @param operator {@code <} or {@code >}.
+     * @param bound    the bound.
+     * @return the condition, an empty string if values of the type are never numbers, or {@code null} if the
+     *         type does not tell whether they are.
+     */
+    private String comparisonExpression(TypeMirror type, String variable, String guard, String operator,
+        long bound) {
+        switch (type.getKind()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return variable + " " + operator + " " + bound + "L";
+            case FLOAT:
+            case DOUBLE:
+                return variable + " " + operator + " (double) " + bound + "L";
+            case DECLARED:
+                String name = ((TypeElement) types.asElement(type)).getQualifiedName().toString();
+                if (isClass(type, "java.lang.Float") || isClass(type, "java.lang.Double")) {
+                    return guard + variable + " " + operator + " (double) " + bound + "L";
+                } else if (BOXED_NUMBERS.contains(name)) {
+                    return guard + variable + " " + operator + " " + bound + "L";
+                } else if (isClass(type, "java.math.BigDecimal") || isClass(type, "java.math.BigInteger")) {
+                    return guard + variable + ".compareTo(" + name + ".valueOf(" + bound
+                        + "L)) " + operator + " 0";
+                }
+                break;
+            default:
+                break;
+        }
+        return type.getKind().isPrimitive() || !isRelated(type, numberType) ? "" : null;
+    }
+
+    /**
+     * Returns the expression of the length of a character sequence or array, or the size of a collection or map.
+     *
+     * @param type     the erased type of the value.
+     * @param variable the variable holding the value.
+     * @return the expression, an empty string if values of the type have no size, or {@code null} if the type
+     *         does not tell whether they have one.
+     */
+    private String sizeExpression(TypeMirror type, String variable) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return variable + ".length";
+        } else if (type.getKind().isPrimitive()) {
+            return "";
+        } else if (types.isAssignable(type, charSequenceType)) {
+            return variable + ".length()";
+        } else if (types.isAssignable(type, collectionType) || types.isAssignable(type, mapType)) {
+            return variable + ".size()";
+        }
+        return isRelated(type, charSequenceType) || isRelated(type, collectionType) || isRelated(type, mapType)
+            ? null : "";
+    }
+
+    /**
+     * Tells whether values of a type are character sequences.
+     *
+     * @param type the erased type of the values.
+     * @return {@code true} if they are, {@code false} if they never are, or {@code null} if the type does not tell.
+     */
+    private Boolean isCharSequence(TypeMirror type) {
+        if (type.getKind().isPrimitive() || type.getKind() == TypeKind.ARRAY) {
+            return false;
+        } else if (types.isAssignable(type, charSequenceType)) {
+            return true;
+        }
+        return isRelated(type, charSequenceType) ? null : false;
+    }
+
+    /**
+     * Tells whether values of a type may be instances of another type: either type is a supertype of the other,
+     * or either is an interface and the other is not final.
+     */
+    private boolean isRelated(TypeMirror type, TypeMirror other) {
+        if (types.isAssignable(type, other) || types.isAssignable(other, type)) {
+            return true;
+        }
+        Element element = types.asElement(type);
+        Element otherElement = types.asElement(other);
+        return element != null && otherElement != null
+            && (element.getKind().isInterface() && !otherElement.getModifiers().contains(Modifier.FINAL)
+            || otherElement.getKind().isInterface() && !element.getModifiers().contains(Modifier.FINAL));
+    }
+
+    /**
+     * Returns an expression reading a field of an instance, directly or through its getter.
+     *
+     * @param responseModel the class declaring the field.
+     * @param field         the field.
+     * @return the expression, or {@code null} if the field cannot be read without reflection.
+     */
+    private String fieldAccess(TypeElement responseModel, VariableElement field) {
+        String target = field.getModifiers().contains(Modifier.STATIC)
+            ? responseModel.getQualifiedName().toString() : "instance";
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return target + "." + field.getSimpleName();
+        }
+        ExecutableElement getter = findGetter(responseModel, field);
+        return getter != null ? target + "." + getter.getSimpleName() + "()" : null;
+    }
+
+    /**
+     * Returns the source name of an erased type, without its type annotations.
+     *
+     * @param type the erased type.
+     * @return the name, or {@code null} if generated code cannot refer to the type.
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase(Locale.ROOT);
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            String componentName = typeName(((ArrayType) type).getComponentType());
+            return componentName != null ? componentName + "[]" : null;
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) types.asElement(type);
+            return isAccessible(typeElement) ? typeElement.getQualifiedName().toString() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Appends the constraint checks of a response model, and the helpers they use, to its generated schema.
+     *
+     * @param source     the source of the generated schema.
+     * @param modelType  the type of the instances to validate.
+     * @param statements the statements of the checks.
+     */
+    private static void appendConstraintValidator(StringBuilder source, String modelType, List<String> statements) {
+        source.append("\n")
+            .append("    @Override\n")
+            .append("    @SuppressWarnings(\"rawtypes\")\n")
+            .append("    public java.util.List<String> validate(").append(modelType).append(" instance) {\n")
+            .append("        java.util.List<String> violations = null;\n");
+        for (String statement : statements) {
+            source.append("        ").append(statement).append("\n");
+        }
+        source.append("        return violations != null ? violations : java.util.Collections.<String>emptyList();\n")
+            .append("    }\n\n")
+            .append("    private static java.util.List<String> add(java.util.List<String> violations, ")
+            .append("String violation) {\n")
+            .append("        if (violations == null) {\n")
+            .append("            violations = new java.util.ArrayList<>();\n")
+            .append("        }\n")
+            .append("        violations.add(violation);\n")
+            .append("        return violations;\n")
+            .append("    }\n\n")
+            .append("    private static java.util.List<String> nested(java.util.List<String> violations, ")
+            .append("String prefix,\n")
+            .append("        java.util.List<String> nestedViolations) {\n")
+            .append("        for (String violation : nestedViolations) {\n")
+            .append("            violations = add(violations, prefix + violation);\n")
+            .append("        }\n")
+            .append("        return violations;\n")
+            .append("    }\n\n")
+            .append("    private static boolean isBlank(CharSequence value) {\n")
+            .append("        for (int i = 0; i < value.length(); i++) {\n")
+            .append("            if (value.charAt(i) > ' ') {\n")
+            .append("                return false;\n")
+            .append("            }\n")
+            .append("        }\n")
+            .append("        return true;\n")
+            .append("    }\n");
+    }
+
+    /**
+     * Finds the non-private getter of a field, named {@code get<Name>} or {@code is<Name>}.
+     *
+     * @param responseModel the class declaring the field.
+     * @param field         the field.
+     * @return the getter, or {@code null} if there is none.
+     */
+    private ExecutableElement findGetter(TypeElement responseModel, VariableElement field) {
+        String fieldName = field.getSimpleName().toString();
+        String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+
+        for (ExecutableElement method : ElementFilter.methodsIn(responseModel.getEnclosedElements())) {
+            String name = method.getSimpleName().toString();
+            if ((name.equals("get" + suffix) || name.equals("is" + suffix))
+                && method.getParameters().isEmpty()
+                && !method.getModifiers().contains(Modifier.PRIVATE)
+                && method.getModifiers().contains(Modifier.STATIC) == isStatic
+                && types.isSameType(method.getReturnType(), field.asType())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps a type to its JSON Schema type, following {@code Utils.getJsonType}.
+     *
+     * @param type the type.
+     * @return the JSON Schema type.
+     */
+    private String getJsonType(TypeMirror type) {
+        TypeMirror erasure = types.erasure(type);
+        switch (erasure.getKind()) {
+            case BOOLEAN:
+                return "boolean";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return "integer";
+            case FLOAT:
+            case DOUBLE:
+                return "number";
+            case ARRAY:
+                return "array";
+            case DECLARED:
+                if (isClass(erasure, "java.lang.String")) {
+                    return "string";
+                } else if (isClass(erasure, "java.lang.Integer") || isClass(erasure, "java.lang.Long")
+                    || isClass(erasure, "java.lang.Short") || isClass(erasure, "java.lang.Byte")) {
+                    return "integer";
+                } else if (isClass(erasure, "java.lang.Double") || isClass(erasure, "java.lang.Float")) {
+                    return "number";
+                } else if (isClass(erasure, "java.lang.Boolean")) {
+                    return "boolean";
+                } else if (isCollection(erasure)) {
+                    return "array";
+                }
+                return "object";
+            default:
+                // Maps, custom objects and char are treated as objects
+                return "object";
+        }
+    }
+
+    /**
+     * Retrieves the erased item type of an array or collection field, following {@code TypeModel}.
+     *
+     * @param field the field.
+     * @return the item type, or {@code null} if it cannot be determined.
+     */
+    private TypeMirror getCollectionItemType(VariableElement field) {
+        TypeMirror type = field.asType();
+        if (type.getKind() == TypeKind.ARRAY) {
+            return types.erasure(((ArrayType) type).getComponentType());
+        } else if (type.getKind() == TypeKind.DECLARED && isCollection(type)) {
+            List<? extends TypeMirror> typeArgs = ((DeclaredType) type).getTypeArguments();
+            if (!typeArgs.isEmpty()) {
+                TypeMirror itemType = typeArgs.get(0);
+                if (itemType.getKind() == TypeKind.DECLARED || itemType.getKind() == TypeKind.ARRAY) {
+                    return types.erasure(itemType);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isCollection(TypeMirror type) {
+        return types.isAssignable(types.erasure(type), collectionType);
+    }
+
+    private boolean isClass(TypeMirror type, String qualifiedName) {
+        return type.getKind() == TypeKind.DECLARED
+            && ((TypeElement) types.asElement(type)).getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private String getDescription(VariableElement field) {
+        AnnotationMirror description = getAnnotation(field, DESCRIPTION);
+        return description != null ? (String) getAnnotationValue(description, "value") : null;
+    }
+
+    private boolean isRequired(VariableElement field) {
+        for (String constraint : REQUIRED_CONSTRAINTS) {
+            if (getAnnotation(field, constraint) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AnnotationMirror getConstraint(VariableElement field, String simpleName) {
+        return getAnnotation(field, CONSTRAINTS_PACKAGE + "." + simpleName);
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String qualifiedName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(qualifiedName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private Object getAnnotationValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : elements.getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether generated code in the package of the given class can refer to it.
+     *
+     * @param type the class.
+     * @return {@code true} if neither the class nor any class enclosing it is private or local.
+     */
+    private static boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE)
+                || (typeElement.getNestingKind() != NestingKind.TOP_LEVEL
+                && typeElement.getNestingKind() != NestingKind.MEMBER)) {
+                return false;
+            }
+            element = typeElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the unbounded wildcard arguments of a generic class, such as {@code <?, ?>}.
+     *
+     * @param type the class.
+     * @return the wildcard arguments, or an empty string if the class is not generic.
+     */
+    private static String wildcards(TypeElement type) {
+        int count = type.getTypeParameters().size();
+        if (count == 0) {
+            return "";
+        }
+        StringBuilder wildcards = new StringBuilder("<?");
+        for (int i = 1; i < count; i++) {
+            wildcards.append(", ?");
+        }
+        return wildcards.append('>').toString();
+    }
+
+    /**
+     * Returns a Java expression evaluating to the given string, split into several literals if it is too long
+     * for a single constant.
+     *
+     * @param value the string.
+     * @return the Java expression.
+     */
+    private String stringExpression(String value) {
+        if (value.length() <= MAX_LITERAL_LENGTH) {
+            return elements.getConstantExpression(value);
+        }
+        StringBuilder expression = new StringBuilder("String.join(\"\"");
+        for (int start = 0; start < value.length(); start += MAX_LITERAL_LENGTH) {
+            String chunk = value.substring(start, Math.min(value.length(), start + MAX_LITERAL_LENGTH));
+            expression.append(",\n        ").append(elements.getConstantExpression(chunk));
+        }
+        return expression.append(')').toString();
+    }
+}